@@ -87,6 +87,18 @@ class AirshipModulePlugin : Plugin<Project> {
             }
 
             testOptions.unitTests.isIncludeAndroidResources = true
+
+            // Benchmarks only run when requested with -Pbenchmarks
+            testOptions.unitTests.all { test ->
+                if (project.hasProperty("benchmarks")) {
+                    test.systemProperty("airship.benchmarks", "true")
+                    System.getProperties().stringPropertyNames()
+                        .filter { it.startsWith("airship.benchmark.") }
+                        .forEach { test.systemProperty(it, System.getProperty(it)) }
+                } else {
+                    test.exclude("**/*BenchmarkTest.class")
+                }
+            }
         }
     }
 }
@@ -0,0 +1,262 @@
+/* Copyright Airship and Contributors */
+
+package com.urbanairship.automation;
+
+import com.urbanairship.Logger;
+import com.urbanairship.PreferenceDataStore;
+import com.urbanairship.iam.InAppMessage;
+import com.urbanairship.iam.InAppMessageManager;
+import com.urbanairship.job.JobDispatcher;
+import com.urbanairship.job.JobInfo;
+import com.urbanairship.job.JobResult;
+import com.urbanairship.json.JsonMap;
+import com.urbanairship.json.JsonValue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+/**
+ * Prefetches in-app message assets in the background.
+ * <p>
+ * New message schedules are queued with their priority and trigger likelihood, and the queue is
+ * drained by a job that only runs on an unmetered network or while charging, most likely schedules
+ * first, so messages are usually ready to display by the time they are triggered.
+ */
+class AssetPrefetcher {
+
+    /**
+     * Job action to prefetch assets on an unmetered network.
+     */
+    static final String ACTION_PREFETCH_UNMETERED = "ACTION_PREFETCH_ASSETS_UNMETERED";
+
+    /**
+     * Job action to prefetch assets while charging.
+     */
+    static final String ACTION_PREFETCH_CHARGING = "ACTION_PREFETCH_ASSETS_CHARGING";
+
+    private static final String PENDING_KEY = "com.urbanairship.iam.assets.PENDING_PREFETCH";
+
+    private static final String PRIORITY_KEY = "priority";
+    private static final String LIKELIHOOD_KEY = "likelihood";
+    private static final String QUEUE_ID_KEY = "queue_id";
+
+    private final PreferenceDataStore dataStore;
+    private final JobDispatcher jobDispatcher;
+    private final AutomationEngine engine;
+    private final InAppMessageManager messageManager;
+
+    /**
+     * Pending prefetches in memory, mirrored to the data store.
+     */
+    @Nullable
+    private Map<String, JsonValue> pending;
+
+    /**
+     * Default constructor.
+     *
+     * @param dataStore The data store.
+     * @param jobDispatcher The job dispatcher.
+     * @param engine The automation engine.
+     * @param messageManager The in-app message manager.
+     */
+    AssetPrefetcher(@NonNull PreferenceDataStore dataStore,
+                    @NonNull JobDispatcher jobDispatcher,
+                    @NonNull AutomationEngine engine,
+                    @NonNull InAppMessageManager messageManager) {
+        this.dataStore = dataStore;
+        this.jobDispatcher = jobDispatcher;
+        this.engine = engine;
+        this.messageManager = messageManager;
+    }
+
+    /**
+     * Queues a schedule's assets to be prefetched.
+     *
+     * @param schedule The schedule.
+     */
+    void enqueue(@NonNull Schedule<? extends ScheduleData> schedule) {
+        if (!Schedule.TYPE_IN_APP_MESSAGE.equals(schedule.getType())) {
+            return;
+        }
+
+        synchronized (this) {
+            getPending().put(schedule.getId(), JsonMap.newBuilder()
+                                                      .put(PRIORITY_KEY, schedule.getPriority())
+                                                      .put(LIKELIHOOD_KEY, getTriggerLikelihood(schedule.getTriggers()))
+                                                      .put(QUEUE_ID_KEY, UUID.randomUUID().toString())
+                                                      .build()
+                                                      .toJsonValue());
+            savePending();
+        }
+
+        // Either job drains the queue, whichever constraint is met first
+        dispatch(JobInfo.newBuilder()
+                        .setAction(ACTION_PREFETCH_UNMETERED)
+                        .setUnmeteredNetworkRequired(true));
+
+        dispatch(JobInfo.newBuilder()
+                        .setAction(ACTION_PREFETCH_CHARGING)
+                        .setNetworkAccessRequired(true)
+                        .setChargingRequired(true));
+    }
+
+    /**
+     * Called when a prefetch job runs.
+     *
+     * @return The job result.
+     */
+    @WorkerThread
+    @NonNull
+    JobResult onPrefetch() {
+        Map<String, JsonValue> entries;
+        List<String> scheduleIds;
+        synchronized (this) {
+            entries = new HashMap<>(getPending());
+            scheduleIds = sort(entries);
+        }
+
+        if (scheduleIds.isEmpty()) {
+            return JobResult.SUCCESS;
+        }
+
+        Map<String, Schedule<? extends ScheduleData>> schedules = new HashMap<>();
+        try {
+            Collection<Schedule<? extends ScheduleData>> result = engine.getSchedules(new HashSet<>(scheduleIds)).get();
+            if (result != null) {
+                for (Schedule<? extends ScheduleData> schedule : result) {
+                    schedules.put(schedule.getId(), schedule);
+                }
+            }
+        } catch (ExecutionException e) {
+            Logger.error(e, "Failed to load schedules for asset prefetch.");
+            return JobResult.RETRY;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return JobResult.RETRY;
+        }
+
+        for (String scheduleId : scheduleIds) {
+            Schedule<? extends ScheduleData> schedule = schedules.get(scheduleId);
+            if (schedule != null && Schedule.TYPE_IN_APP_MESSAGE.equals(schedule.getType())) {
+                messageManager.prefetchAssets(scheduleId, (InAppMessage) schedule.coerceType());
+            }
+
+            // Keep the entry if the schedule was queued again during the prefetch
+            synchronized (this) {
+                if (entries.get(scheduleId).equals(getPending().get(scheduleId))) {
+                    getPending().remove(scheduleId);
+                    savePending();
+                }
+            }
+        }
+
+        return JobResult.SUCCESS;
+    }
+
+    /**
+     * Gets the likelihood that one of the triggers fires soon, between 0 and 1.
+     *
+     * @param triggers The schedule triggers.
+     * @return The trigger likelihood.
+     */
+    @VisibleForTesting
+    static double getTriggerLikelihood(@NonNull List<Trigger> triggers) {
+        double likelihood = 0;
+        for (Trigger trigger : triggers) {
+            double weight;
+            switch (trigger.getType()) {
+                case Trigger.LIFE_CYCLE_APP_INIT:
+                case Trigger.LIFE_CYCLE_FOREGROUND:
+                case Trigger.ACTIVE_SESSION:
+                    weight = 1;
+                    break;
+
+                case Trigger.VERSION:
+                case Trigger.LIFE_CYCLE_BACKGROUND:
+                    weight = 0.75;
+                    break;
+
+                case Trigger.SCREEN_VIEW:
+                case Trigger.CUSTOM_EVENT_COUNT:
+                    weight = 0.5;
+                    break;
+
+                case Trigger.CUSTOM_EVENT_VALUE:
+                case Trigger.REGION_ENTER:
+                case Trigger.REGION_EXIT:
+                default:
+                    weight = 0.25;
+                    break;
+            }
+
+            // Counted triggers become less likely the more occurrences they need
+            if (trigger.getType() != Trigger.CUSTOM_EVENT_VALUE) {
+                weight = weight / Math.max(1, trigger.getGoal());
+            }
+
+            likelihood = Math.max(likelihood, weight);
+        }
+
+        return likelihood;
+    }
+
+    /**
+     * Sorts pending schedule IDs by priority, then by trigger likelihood.
+     */
+    @NonNull
+    private static List<String> sort(@NonNull final Map<String, JsonValue> pending) {
+        List<String> scheduleIds = new ArrayList<>(pending.keySet());
+        Collections.sort(scheduleIds, new Comparator<String>() {
+            @Override
+            public int compare(String lh, String rh) {
+                JsonMap lhMap = pending.get(lh).optMap();
+                JsonMap rhMap = pending.get(rh).optMap();
+
+                int lhPriority = lhMap.opt(PRIORITY_KEY).getInt(0);
+                int rhPriority = rhMap.opt(PRIORITY_KEY).getInt(0);
+                if (lhPriority != rhPriority) {
+                    return lhPriority < rhPriority ? -1 : 1;
+                }
+
+                return Double.compare(rhMap.opt(LIKELIHOOD_KEY).getDouble(0), lhMap.opt(LIKELIHOOD_KEY).getDouble(0));
+            }
+        });
+        return scheduleIds;
+    }
+
+    private void dispatch(@NonNull JobInfo.Builder builder) {
+        jobDispatcher.dispatch(builder.setAirshipComponent(InAppAutomation.class)
+                                      .setConflictStrategy(JobInfo.KEEP)
+                                      .build());
+    }
+
+    @NonNull
+    private Map<String, JsonValue> getPending() {
+        if (pending == null) {
+            pending = new HashMap<>(dataStore.getJsonValue(PENDING_KEY).optMap().getMap());
+        }
+        return pending;
+    }
+
+    private void savePending() {
+        if (pending == null || pending.isEmpty()) {
+            dataStore.remove(PENDING_KEY);
+        } else {
+            dataStore.put(PENDING_KEY, JsonValue.wrapOpt(pending));
+        }
+    }
+
+}
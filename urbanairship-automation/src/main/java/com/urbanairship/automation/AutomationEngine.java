@@ -24,6 +24,7 @@ import com.urbanairship.Predicate;
 import com.urbanairship.PreferenceDataStore;
 import com.urbanairship.analytics.Analytics;
 import com.urbanairship.analytics.AnalyticsListener;
+import com.urbanairship.analytics.data.BatchedQueryHelper;
 import com.urbanairship.analytics.CustomEvent;
 import com.urbanairship.analytics.location.RegionEvent;
 import com.urbanairship.app.ActivityListener;
@@ -40,6 +41,7 @@ import com.urbanairship.automation.storage.LegacyDataMigrator;
 import com.urbanairship.automation.storage.ScheduleEntity;
 import com.urbanairship.automation.storage.ScheduleState;
 import com.urbanairship.automation.storage.TriggerEntity;
+import com.urbanairship.automation.storage.TriggerIndexDao;
 import com.urbanairship.config.AirshipRuntimeConfig;
 import com.urbanairship.iam.InAppActivityMonitor;
 import com.urbanairship.json.JsonSerializable;
@@ -79,6 +81,14 @@ import java.util.concurrent.atomic.AtomicBoolean;
 public class AutomationEngine {
 
     private long SCHEDULE_LIMIT = 1000;
+
+    /**
+     * How long trigger progress is kept in memory before it is written. Progress that reaches a
+     * goal is always written right away.
+     */
+    @VisibleForTesting
+    static final long TRIGGER_PROGRESS_FLUSH_DELAY_MS = 1000;
+
     private final List<Integer> COMPOUND_TRIGGER_TYPES = Arrays.asList(Trigger.ACTIVE_SESSION, Trigger.VERSION);
 
     /**
@@ -118,7 +128,16 @@ public class AutomationEngine {
     private Subject<TriggerUpdate> stateObservableUpdates;
     private Subscription compoundTriggerSubscription;
     private Scheduler backgroundScheduler;
-    private final AutomationDao dao;
+    private final TriggerIndexDao dao;
+    private boolean isTriggerFlushScheduled;
+
+    private final Runnable flushTriggersRunnable = new Runnable() {
+        @Override
+        public void run() {
+            isTriggerFlushScheduled = false;
+            dao.flushTriggers();
+        }
+    };
 
     private final ApplicationListener applicationListener = new ApplicationListener() {
         @Override
@@ -261,7 +280,7 @@ public class AutomationEngine {
         this.activityMonitor = activityMonitor;
         this.scheduler = scheduler;
         this.mainHandler = new Handler(Looper.getMainLooper());
-        this.dao = dao;
+        this.dao = new TriggerIndexDao(dao);
         this.legacyDataMigrator = legacyDataMigrator;
         this.pausedManager = new PausedManager();
     }
@@ -337,7 +356,11 @@ public class AutomationEngine {
         analytics.removeAnalyticsListener(analyticsListener);
         networkMonitor.teardown();
         cancelAlarms();
-        backgroundThread.quit();
+
+        // Write any pending trigger progress after the queued trigger updates
+        backgroundHandler.removeCallbacks(flushTriggersRunnable);
+        backgroundHandler.post(flushTriggersRunnable);
+        backgroundThread.quitSafely();
         backgroundThread = null;
         isStarted = false;
     }
@@ -392,25 +415,14 @@ public class AutomationEngine {
             public void run() {
                 cleanSchedules();
 
-                if (dao.getScheduleCount() + schedules.size() > SCHEDULE_LIMIT) {
-                    Logger.error("AutomationDataManager - Unable to insert schedule due to schedule exceeded limit.");
-                    pendingResult.setResult(false);
-                    return;
-                }
-
-                List<FullSchedule> entries = ScheduleConverters.convertSchedules(schedules);
+                List<FullSchedule> entries = convertNewSchedules(schedules);
                 if (entries.isEmpty()) {
                     pendingResult.setResult(false);
                     return;
                 }
 
                 dao.insert(entries);
-                subscribeStateObservables(entries);
-
-                Collection<Schedule<? extends ScheduleData>> result = convertSchedulesUnknownTypes(entries);
-                notifyNewSchedule(result);
-
-                Logger.verbose("Scheduled entries: %s", result);
+                onSchedulesInserted(entries);
                 pendingResult.setResult(true);
             }
         });
@@ -418,6 +430,38 @@ public class AutomationEngine {
         return pendingResult;
     }
 
+    /**
+     * Converts new schedules to entries if they fit within the schedule limit.
+     *
+     * @param schedules The new schedules.
+     * @return The entries, or an empty list if the schedules can not be inserted.
+     */
+    @WorkerThread
+    @NonNull
+    private List<FullSchedule> convertNewSchedules(@NonNull List<Schedule<? extends ScheduleData>> schedules) {
+        if (dao.getScheduleCount() + schedules.size() > SCHEDULE_LIMIT) {
+            Logger.error("AutomationEngine - Unable to insert schedules due to schedule exceeded limit.");
+            return Collections.emptyList();
+        }
+
+        return ScheduleConverters.convertSchedules(schedules);
+    }
+
+    /**
+     * Subscribes to state updates and notifies the listener for newly inserted entries.
+     *
+     * @param entries The inserted entries.
+     */
+    @WorkerThread
+    private void onSchedulesInserted(@NonNull List<FullSchedule> entries) {
+        subscribeStateObservables(entries);
+
+        Collection<Schedule<? extends ScheduleData>> result = convertSchedulesUnknownTypes(entries);
+        notifyNewSchedule(result);
+
+        Logger.verbose("Scheduled entries: %s", result);
+    }
+
     /**
      * Cancels schedules.
      *
@@ -642,25 +686,17 @@ public class AutomationEngine {
 
                 applyEdits(entry, edits);
 
-                boolean subscribeForStateChanges = false;
-                long stateChangeTimeStamp = -1;
+                long stateChangeTimeStamp = entry.schedule.executionStateChangeDate;
+                List<FullSchedule> limitReached = new ArrayList<>();
+                List<FullSchedule> expired = new ArrayList<>();
+                boolean subscribeForStateChanges = updateEditedState(entry, limitReached, expired);
 
-                boolean isOverLimit = isOverLimit(entry);
-                boolean isExpired = isExpired(entry);
-
-                // Check if the schedule needs to be rehabilitated or finished due to the edits
-                if (entry.schedule.executionState == ScheduleState.FINISHED && !isOverLimit && !isExpired) {
-                    subscribeForStateChanges = true;
-                    stateChangeTimeStamp = entry.schedule.executionStateChangeDate;
-                    updateExecutionState(entry, ScheduleState.IDLE);
-                } else if (entry.schedule.executionState != ScheduleState.FINISHED && (isOverLimit || isExpired)) {
-                    updateExecutionState(entry, ScheduleState.FINISHED);
+                for (FullSchedule limitReachedEntry : limitReached) {
+                    notifyScheduleLimitReached(limitReachedEntry);
+                }
 
-                    if (isOverLimit) {
-                        notifyScheduleLimitReached(entry);
-                    } else {
-                        notifyExpiredSchedules(Collections.singleton(entry));
-                    }
+                if (!expired.isEmpty()) {
+                    notifyExpiredSchedules(expired);
                 }
 
                 dao.update(entry);
@@ -677,6 +713,87 @@ public class AutomationEngine {
         return pendingResult;
     }
 
+    /**
+     * Applies a diff of schedule inserts and edits, such as a remote data listing, in a single
+     * database transaction.
+     * <p>
+     * This is equivalent to calling {@link #editSchedule(String, ScheduleEdits)} for each edit and
+     * {@link #schedule(List)} for the new schedules, but only takes a single pass on the automation
+     * thread and notifies the schedule listener once for the new schedules. Edits for schedules that
+     * no longer exist are ignored.
+     *
+     * @param schedules The new schedules.
+     * @param edits The schedule edits, keyed by schedule ID.
+     * @return Pending result with {@code true} if the new schedules were inserted, otherwise {@code false}.
+     */
+    @NonNull
+    public PendingResult<Boolean> applyScheduleDiff(@NonNull final List<Schedule<? extends ScheduleData>> schedules,
+                                                    @NonNull final Map<String, ScheduleEdits<? extends ScheduleData>> edits) {
+        final PendingResult<Boolean> pendingResult = new PendingResult<>();
+
+        backgroundHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                cleanSchedules();
+
+                // Edits
+                final List<FullSchedule> updated = new ArrayList<>();
+                if (!edits.isEmpty()) {
+                    BatchedQueryHelper.runBatched(new ArrayList<>(edits.keySet()), new Consumer<List<String>>() {
+                        @Override
+                        public void accept(List<String> scheduleIds) {
+                            updated.addAll(dao.getSchedules(scheduleIds));
+                        }
+                    });
+                }
+
+                List<FullSchedule> limitReached = new ArrayList<>();
+                List<FullSchedule> expired = new ArrayList<>();
+                Map<FullSchedule, Long> resubscribe = new HashMap<>();
+
+                for (FullSchedule entry : updated) {
+                    applyEdits(entry, edits.get(entry.schedule.scheduleId));
+
+                    long stateChangeTimeStamp = entry.schedule.executionStateChangeDate;
+                    if (updateEditedState(entry, limitReached, expired)) {
+                        resubscribe.put(entry, stateChangeTimeStamp);
+                    }
+                }
+
+                // Inserts
+                List<FullSchedule> inserted = Collections.emptyList();
+                boolean result = true;
+                if (!schedules.isEmpty()) {
+                    inserted = convertNewSchedules(schedules);
+                    result = !inserted.isEmpty();
+                }
+
+                dao.updateAndInsert(updated, inserted);
+
+                for (Map.Entry<FullSchedule, Long> entry : resubscribe.entrySet()) {
+                    subscribeStateObservables(entry.getKey(), entry.getValue());
+                }
+
+                if (!inserted.isEmpty()) {
+                    onSchedulesInserted(inserted);
+                }
+
+                for (FullSchedule entry : limitReached) {
+                    notifyScheduleLimitReached(entry);
+                }
+
+                if (!expired.isEmpty()) {
+                    notifyExpiredSchedules(expired);
+                }
+
+                Logger.verbose("Applied schedule diff. Updated: %s, inserted: %s", updated.size(), inserted.size());
+                pendingResult.setResult(result);
+            }
+        });
+
+        return pendingResult;
+    }
+
     /**
      * Triggers the engine to recheck all pending schedules.
      */
@@ -804,7 +921,7 @@ public class AutomationEngine {
                                                      .subscribe(new Subscriber<TriggerUpdate>() {
                                                          @Override
                                                          public void onNext(@NonNull TriggerUpdate update) {
-                                                             updateTriggers(update.triggerEntities, update.json, update.value);
+                                                             updateTriggers(update.triggerEntities, update.json, update.value, false);
                                                          }
                                                      });
 
@@ -1075,10 +1192,13 @@ public class AutomationEngine {
             public void run() {
                 Logger.debug("Updating triggers with type: %s", type);
                 List<TriggerEntity> triggerEntities = dao.getActiveTriggers(type);
-                if (triggerEntities.isEmpty()) {
+
+                // Backgrounding writes any pending trigger progress
+                boolean flush = type == Trigger.LIFE_CYCLE_BACKGROUND;
+                if (triggerEntities.isEmpty() && !flush) {
                     return;
                 }
-                updateTriggers(triggerEntities, json, value);
+                updateTriggers(triggerEntities, json, value, flush);
             }
         });
     }
@@ -1091,53 +1211,91 @@ public class AutomationEngine {
      * @param triggerEntities The triggers
      * @param json The relevant event or state data.
      * @param value The trigger value to increment by.
+     * @param flush {@code true} to write any pending trigger progress once the triggers are updated.
      */
-    private void updateTriggers(@NonNull final List<TriggerEntity> triggerEntities, @NonNull final JsonSerializable json, final double value) {
+    private void updateTriggers(@NonNull final List<TriggerEntity> triggerEntities, @NonNull final JsonSerializable json, final double value, final boolean flush) {
         backgroundHandler.post(new Runnable() {
             @Override
             public void run() {
-                if (pausedManager.isPaused() || triggerEntities.isEmpty()) {
-                    return;
+                applyTriggerUpdates(triggerEntities, json, value);
+
+                if (flush) {
+                    backgroundHandler.removeCallbacks(flushTriggersRunnable);
+                    flushTriggersRunnable.run();
                 }
+            }
+        });
+    }
+
+    /**
+     * Applies an event or state to a list of triggers.
+     *
+     * @param triggerEntities The triggers
+     * @param json The relevant event or state data.
+     * @param value The trigger value to increment by.
+     */
+    @WorkerThread
+    private void applyTriggerUpdates(@NonNull List<TriggerEntity> triggerEntities, @NonNull JsonSerializable json, double value) {
+        if (pausedManager.isPaused() || triggerEntities.isEmpty()) {
+            return;
+        }
 
-                Set<String> triggeredSchedules = new HashSet<>();
-                Set<String> cancelledSchedules = new HashSet<>();
-                Map<String, TriggerContext> triggerContextMap = new HashMap<>();
+        Set<String> triggeredSchedules = new HashSet<>();
+        Set<String> cancelledSchedules = new HashSet<>();
+        Map<String, TriggerContext> triggerContextMap = new HashMap<>();
 
-                List<TriggerEntity> triggersToUpdate = new ArrayList<>();
+        List<TriggerEntity> triggersToUpdate = new ArrayList<>();
 
-                for (TriggerEntity trigger : triggerEntities) {
-                    if (trigger.jsonPredicate != null && !trigger.jsonPredicate.apply(json)) {
-                        continue;
-                    }
+        for (TriggerEntity trigger : triggerEntities) {
+            if (trigger.jsonPredicate != null && !trigger.jsonPredicate.apply(json)) {
+                continue;
+            }
 
-                    triggersToUpdate.add(trigger);
-                    trigger.progress += value;
+            triggersToUpdate.add(trigger);
+            trigger.progress += value;
 
-                    if (trigger.progress >= trigger.goal) {
-                        trigger.progress = 0;
+            if (trigger.progress >= trigger.goal) {
+                trigger.progress = 0;
 
-                        if (trigger.isCancellation) {
-                            cancelledSchedules.add(trigger.parentScheduleId);
-                            cancelScheduleAlarms(Collections.singletonList(trigger.parentScheduleId));
-                        } else {
-                            triggeredSchedules.add(trigger.parentScheduleId);
-                            triggerContextMap.put(trigger.parentScheduleId, new TriggerContext(ScheduleConverters.convert(trigger), json.toJsonValue()));
-                        }
-                    }
+                if (trigger.isCancellation) {
+                    cancelledSchedules.add(trigger.parentScheduleId);
+                    cancelScheduleAlarms(Collections.singletonList(trigger.parentScheduleId));
+                } else {
+                    triggeredSchedules.add(trigger.parentScheduleId);
+                    triggerContextMap.put(trigger.parentScheduleId, new TriggerContext(ScheduleConverters.convert(trigger), json.toJsonValue()));
                 }
+            }
+        }
 
-                dao.updateTriggers(triggersToUpdate);
+        if (cancelledSchedules.isEmpty() && triggeredSchedules.isEmpty()) {
+            dao.updateTriggerProgress(triggersToUpdate);
+            scheduleTriggerFlush();
+            return;
+        }
 
-                if (!cancelledSchedules.isEmpty()) {
-                    handleCancelledSchedules(dao.getSchedules(cancelledSchedules));
-                }
+        // A goal was reached, write all progress before any schedule changes state
+        dao.updateTriggers(triggersToUpdate);
 
-                if (!triggeredSchedules.isEmpty()) {
-                    handleTriggeredSchedules(dao.getSchedules(triggeredSchedules), triggerContextMap);
-                }
-            }
-        });
+        if (!cancelledSchedules.isEmpty()) {
+            handleCancelledSchedules(dao.getSchedules(cancelledSchedules));
+        }
+
+        if (!triggeredSchedules.isEmpty()) {
+            handleTriggeredSchedules(dao.getSchedules(triggeredSchedules), triggerContextMap);
+        }
+    }
+
+    /**
+     * Schedules a write of any in-memory trigger progress.
+     */
+    @WorkerThread
+    private void scheduleTriggerFlush() {
+        if (isTriggerFlushScheduled || !dao.hasPendingTriggers()) {
+            return;
+        }
+
+        isTriggerFlushScheduled = true;
+        backgroundHandler.postDelayed(flushTriggersRunnable, TRIGGER_PROGRESS_FLUSH_DELAY_MS);
     }
 
     /**
@@ -1776,6 +1934,36 @@ public class AutomationEngine {
         scheduleEntity.frequencyConstraintIds = edits.getFrequencyConstraintIds() == null ? scheduleEntity.frequencyConstraintIds : edits.getFrequencyConstraintIds();
     }
 
+    /**
+     * Rehabilitates or finishes a schedule after it has been edited.
+     *
+     * @param entry The edited schedule entry.
+     * @param limitReached List to add the entry to if it finished by reaching its limit.
+     * @param expired List to add the entry to if it finished by expiring.
+     * @return {@code true} if the schedule was rehabilitated and needs to subscribe for state changes.
+     */
+    private boolean updateEditedState(@NonNull FullSchedule entry, @NonNull List<FullSchedule> limitReached, @NonNull List<FullSchedule> expired) {
+        boolean isOverLimit = isOverLimit(entry);
+        boolean isExpired = isExpired(entry);
+
+        if (entry.schedule.executionState == ScheduleState.FINISHED && !isOverLimit && !isExpired) {
+            updateExecutionState(entry, ScheduleState.IDLE);
+            return true;
+        }
+
+        if (entry.schedule.executionState != ScheduleState.FINISHED && (isOverLimit || isExpired)) {
+            updateExecutionState(entry, ScheduleState.FINISHED);
+
+            if (isOverLimit) {
+                limitReached.add(entry);
+            } else {
+                expired.add(entry);
+            }
+        }
+
+        return false;
+    }
+
     private boolean isExpired(@NonNull FullSchedule entry) {
         return entry.schedule.scheduleEnd >= 0 && entry.schedule.scheduleEnd < System.currentTimeMillis();
     }
@@ -38,6 +38,9 @@ import com.urbanairship.http.Response;
 import com.urbanairship.iam.InAppAutomationScheduler;
 import com.urbanairship.iam.InAppMessage;
 import com.urbanairship.iam.InAppMessageManager;
+import com.urbanairship.job.JobDispatcher;
+import com.urbanairship.job.JobInfo;
+import com.urbanairship.job.JobResult;
 import com.urbanairship.reactive.Subscription;
 import com.urbanairship.remotedata.RemoteData;
 import com.urbanairship.util.RetryingExecutor;
@@ -72,6 +75,7 @@ public class InAppAutomation extends AirshipComponent implements InAppAutomation
     private final DeferredScheduleClient deferredScheduleClient;
     private final FrequencyLimitManager frequencyLimitManager;
     private final PrivacyManager privacyManager;
+    private final AssetPrefetcher assetPrefetcher;
 
     private final ActionsScheduleDelegate actionScheduleDelegate;
     private final InAppMessageScheduleDelegate inAppMessageScheduleDelegate;
@@ -113,16 +117,12 @@ public class InAppAutomation extends AirshipComponent implements InAppAutomation
             return InAppAutomation.this.getSchedules();
         }
 
-        @Override
-        @NonNull
-        public PendingResult<Boolean> editSchedule(@NonNull String scheduleId, @NonNull ScheduleEdits<? extends ScheduleData> edits) {
-            return InAppAutomation.this.editSchedule(scheduleId, edits);
-        }
-
         @NonNull
         @Override
-        public PendingResult<Boolean> schedule(@NonNull List<Schedule<? extends ScheduleData>> schedules) {
-            return InAppAutomation.this.schedule(schedules);
+        public PendingResult<Boolean> applyScheduleDiff(@NonNull List<Schedule<? extends ScheduleData>> schedules,
+                                                        @NonNull Map<String, ScheduleEdits<? extends ScheduleData>> edits) {
+            ensureStarted();
+            return automationEngine.applyScheduleDiff(schedules, edits);
         }
 
         @Override
@@ -179,7 +179,8 @@ public class InAppAutomation extends AirshipComponent implements InAppAutomation
 
         this.deferredScheduleClient = new DeferredScheduleClient(runtimeConfig, new AuthManager(runtimeConfig, airshipChannel));
         this.actionScheduleDelegate = new ActionsScheduleDelegate();
-        this.inAppMessageScheduleDelegate = new InAppMessageScheduleDelegate(inAppMessageManager);
+        this.assetPrefetcher = new AssetPrefetcher(preferenceDataStore, JobDispatcher.shared(context), automationEngine, inAppMessageManager);
+        this.inAppMessageScheduleDelegate = new InAppMessageScheduleDelegate(inAppMessageManager, assetPrefetcher);
         this.frequencyLimitManager = new FrequencyLimitManager(context, runtimeConfig);
     }
 
@@ -196,6 +197,7 @@ public class InAppAutomation extends AirshipComponent implements InAppAutomation
                     @NonNull DeferredScheduleClient deferredScheduleClient,
                     @NonNull ActionsScheduleDelegate actionsScheduleDelegate,
                     @NonNull InAppMessageScheduleDelegate inAppMessageScheduleDelegate,
+                    @NonNull AssetPrefetcher assetPrefetcher,
                     @NonNull FrequencyLimitManager frequencyLimitManager) {
         super(context, preferenceDataStore);
         this.privacyManager = privacyManager;
@@ -209,6 +211,7 @@ public class InAppAutomation extends AirshipComponent implements InAppAutomation
         this.actionScheduleDelegate = actionsScheduleDelegate;
         this.inAppMessageScheduleDelegate = inAppMessageScheduleDelegate;
         this.frequencyLimitManager = frequencyLimitManager;
+        this.assetPrefetcher = assetPrefetcher;
     }
 
     /**
@@ -277,6 +280,28 @@ public class InAppAutomation extends AirshipComponent implements InAppAutomation
         checkUpdatesSubscription();
     }
 
+    /**
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    @Override
+    @WorkerThread
+    @NonNull
+    public JobResult onPerformJob(@NonNull UAirship airship, @NonNull JobInfo jobInfo) {
+        switch (jobInfo.getAction()) {
+            case AssetPrefetcher.ACTION_PREFETCH_UNMETERED:
+            case AssetPrefetcher.ACTION_PREFETCH_CHARGING:
+                if (!privacyManager.isEnabled(PrivacyManager.FEATURE_IN_APP_AUTOMATION)) {
+                    return JobResult.SUCCESS;
+                }
+                ensureStarted();
+                return assetPrefetcher.onPrefetch();
+
+            default:
+                return JobResult.SUCCESS;
+        }
+    }
+
     @Override
     protected void tearDown() {
         super.tearDown();
@@ -17,15 +17,23 @@ import androidx.annotation.RestrictTo;
 class InAppMessageScheduleDelegate implements ScheduleDelegate<InAppMessage> {
 
     private InAppMessageManager messageManager;
+    private AssetPrefetcher assetPrefetcher;
 
-    public InAppMessageScheduleDelegate(InAppMessageManager messageManager) {
+    public InAppMessageScheduleDelegate(InAppMessageManager messageManager, AssetPrefetcher assetPrefetcher) {
         this.messageManager = messageManager;
+        this.assetPrefetcher = assetPrefetcher;
     }
 
     @Override
-    public void onNewSchedule(@NonNull Schedule<? extends ScheduleData> schedule) {
+    public void onNewSchedule(@NonNull final Schedule<? extends ScheduleData> schedule) {
         if (Schedule.TYPE_IN_APP_MESSAGE.equals(schedule.getType())) {
-            messageManager.onNewMessageSchedule(schedule.getId(), (InAppMessage) schedule.coerceType());
+            // Prefetch in the background unless the cache policy caches on schedule
+            messageManager.onNewMessageSchedule(schedule.getId(), (InAppMessage) schedule.coerceType(), new Runnable() {
+                @Override
+                public void run() {
+                    assetPrefetcher.enqueue(schedule);
+                }
+            });
         }
     }
 
@@ -21,6 +21,7 @@ import com.urbanairship.json.JsonException;
 import com.urbanairship.json.JsonList;
 import com.urbanairship.json.JsonMap;
 import com.urbanairship.json.JsonValue;
+import com.urbanairship.reactive.Observable;
 import com.urbanairship.reactive.Schedulers;
 import com.urbanairship.reactive.Subscriber;
 import com.urbanairship.reactive.Subscription;
@@ -34,8 +35,10 @@ import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
@@ -110,10 +113,8 @@ class InAppRemoteDataObserver {
         PendingResult<Collection<Schedule<? extends ScheduleData>>> getSchedules();
 
         @NonNull
-        PendingResult<Boolean> editSchedule(@NonNull String scheduleId, @NonNull ScheduleEdits<? extends ScheduleData> edits);
-
-        @NonNull
-        PendingResult<Boolean> schedule(@NonNull List<Schedule<? extends ScheduleData>> schedules);
+        PendingResult<Boolean> applyScheduleDiff(@NonNull List<Schedule<? extends ScheduleData>> schedules,
+                                                 @NonNull Map<String, ScheduleEdits<? extends ScheduleData>> edits);
 
         Future<Boolean> updateConstraints(@NonNull Collection<FrequencyConstraint> constraints);
 
@@ -176,7 +177,8 @@ class InAppRemoteDataObserver {
      * @return The subcription.
      */
     Subscription subscribe(@NonNull final Delegate delegate) {
-        return remoteData.payloadsForType(IAM_PAYLOAD_TYPE)
+        // Metadata-only refreshes still need to be processed to keep the remote schedules valid
+        return Observable.merge(remoteData.payloadsForType(IAM_PAYLOAD_TYPE), remoteData.metadataUpdatesForType(IAM_PAYLOAD_TYPE))
                          .filter(payload -> {
                              if (payload.getTimestamp() != preferenceDataStore.getLong(LAST_PAYLOAD_TIMESTAMP_KEY, -1)) {
                                  return true;
@@ -215,6 +217,7 @@ class InAppRemoteDataObserver {
 
         boolean isMetadataUpToDate = payload.getMetadata().equals(lastPayloadMetadata);
         List<Schedule<? extends ScheduleData>> newSchedules = new ArrayList<>();
+        Map<String, ScheduleEdits<? extends ScheduleData>> scheduleEdits = new HashMap<>();
         List<String> incomingScheduleIds = new ArrayList<>();
         Set<String> scheduledRemoteIds = filterRemoteSchedules(delegate.getSchedules().get());
         Collection<FrequencyConstraint> constraints = parseConstraints(payload.getData().opt(CONSTRAINTS_JSON_KEY).optList());
@@ -253,10 +256,7 @@ class InAppRemoteDataObserver {
             if (scheduledRemoteIds.contains(scheduleId)) {
                 try {
                     ScheduleEdits<?> edits = parseEdits(messageJson, scheduleMetadata);
-                    Boolean edited = delegate.editSchedule(scheduleId, edits).get();
-                    if (edited != null && edited) {
-                        Logger.debug("Updated in-app automation: %s with edits: %s", scheduleId, edits);
-                    }
+                    scheduleEdits.put(scheduleId, edits);
                 } catch (JsonException e) {
                     Logger.error(e, "Failed to parse in-app automation edits: %s", scheduleId);
                 }
@@ -276,11 +276,6 @@ class InAppRemoteDataObserver {
             }
         }
 
-        // Schedule new in-app messages
-        if (!newSchedules.isEmpty()) {
-            delegate.schedule(newSchedules).get();
-        }
-
         // End any messages that are no longer in the listing
         Set<String> schedulesToRemove = new HashSet<>(scheduledRemoteIds);
         schedulesToRemove.removeAll(incomingScheduleIds);
@@ -297,7 +292,18 @@ class InAppRemoteDataObserver {
                                                                        .build();
 
             for (String scheduleId : schedulesToRemove) {
-                delegate.editSchedule(scheduleId, edits).get();
+                scheduleEdits.put(scheduleId, edits);
+            }
+        }
+
+        // Schedule new in-app messages and apply the edits in a single pass
+        if (!newSchedules.isEmpty() || !scheduleEdits.isEmpty()) {
+            delegate.applyScheduleDiff(newSchedules, scheduleEdits).get();
+
+            for (Map.Entry<String, ScheduleEdits<? extends ScheduleData>> entry : scheduleEdits.entrySet()) {
+                if (!schedulesToRemove.contains(entry.getKey())) {
+                    Logger.debug("Updated in-app automation: %s with edits: %s", entry.getKey(), entry.getValue());
+                }
             }
         }
 
@@ -44,7 +44,7 @@ public class FrequencyLimitManager {
      * A frequency checker will have a strong reference to the list of constraints entities. Once
      * the checker is cleaned up this should remove the values from the map.
      */
-    private final Map<ConstraintEntity, List<OccurrenceEntity>> occurrencesMap = new WeakHashMap<>();
+    private final Map<ConstraintEntity, OccurrenceWindow> occurrencesMap = new WeakHashMap<>();
 
     /*
      * List of pending occurrences to write to the database.
@@ -84,15 +84,20 @@ public class FrequencyLimitManager {
             public void run() {
                 try {
                     final Collection<ConstraintEntity> constraints = fetchConstraints(constraintIds);
+                    final OccurrenceWindow[] windows = getWindows(constraints);
+                    final Set<String> ids = getConstraintIds(constraints);
                     FrequencyChecker checker = new FrequencyChecker() {
+                        // Keeps the constraint entities, and with them the windows in the map, alive with the checker
+                        private final Collection<ConstraintEntity> entities = constraints;
+
                         @Override
                         public boolean isOverLimit() {
-                            return FrequencyLimitManager.this.isOverLimit(constraints);
+                            return FrequencyLimitManager.this.isOverLimit(windows);
                         }
 
                         @Override
                         public boolean checkAndIncrement() {
-                            return FrequencyLimitManager.this.checkAndIncrement(constraints);
+                            return FrequencyLimitManager.this.checkAndIncrement(windows, ids);
                         }
                     };
                     pendingResult.setResult(checker);
@@ -144,6 +149,7 @@ public class FrequencyLimitManager {
                     }
 
                     dao.delete(constraintEntityMap.keySet());
+                    dao.deleteExpiredOccurrences(clock.currentTimeMillis());
                     pendingResult.setResult(true);
                 } catch (Exception e) {
                     Logger.error(e, "Failed to update constraints");
@@ -155,28 +161,29 @@ public class FrequencyLimitManager {
         return pendingResult;
     }
 
-    private boolean checkAndIncrement(@NonNull Collection<ConstraintEntity> constraints) {
-        if (constraints.isEmpty()) {
+    private boolean checkAndIncrement(@NonNull OccurrenceWindow[] windows, @NonNull Set<String> constraintIds) {
+        if (windows.length == 0) {
             return true;
         }
 
         synchronized (lock) {
-            if (isOverLimit(constraints)) {
+            if (isOverLimit(windows)) {
                 return false;
             }
-            recordOccurrence(getConstraintIds(constraints));
+            recordOccurrence(constraintIds);
             return true;
         }
     }
 
-    private boolean isOverLimit(@NonNull Collection<ConstraintEntity> constraints) {
-        if (constraints.isEmpty()) {
+    private boolean isOverLimit(@NonNull OccurrenceWindow[] windows) {
+        if (windows.length == 0) {
             return false;
         }
 
         synchronized (lock) {
-            for (ConstraintEntity constraint : constraints) {
-                if (isConstraintOverLimit(constraint)) {
+            long now = clock.currentTimeMillis();
+            for (OccurrenceWindow window : windows) {
+                if (window.isOverLimit(now)) {
                     return true;
                 }
             }
@@ -199,10 +206,10 @@ public class FrequencyLimitManager {
             pendingOccurrences.add(occurrence);
 
             // Update any constraints that are still active
-            for (Map.Entry<ConstraintEntity, List<OccurrenceEntity>> entry : occurrencesMap.entrySet()) {
+            for (Map.Entry<ConstraintEntity, OccurrenceWindow> entry : occurrencesMap.entrySet()) {
                 ConstraintEntity constraint = entry.getKey();
                 if (constraint != null && id.equals(constraint.constraintId)) {
-                    entry.getValue().add(occurrence);
+                    entry.getValue().record(timeMillis);
                 }
             }
         }
@@ -225,14 +232,20 @@ public class FrequencyLimitManager {
         Collection<ConstraintEntity> constraints = dao.getConstraints(constraintIds);
 
         for (ConstraintEntity constraint : constraints) {
-            List<OccurrenceEntity> occurrences = dao.getOccurrences(constraint.constraintId);
+            // Only the last `count` occurrences matter, newest first
+            List<OccurrenceEntity> occurrences = dao.getRecentOccurrences(constraint.constraintId, constraint.count);
+            OccurrenceWindow window = new OccurrenceWindow(constraint.count, constraint.range);
+            for (int i = occurrences.size() - 1; i >= 0; i--) {
+                window.record(occurrences.get(i).timeStamp);
+            }
+
             synchronized (lock) {
                 for (OccurrenceEntity entity : pendingOccurrences) {
                     if (entity.parentConstraintId.equals(constraint.constraintId)) {
-                        occurrences.add(entity);
+                        window.record(entity.timeStamp);
                     }
                 }
-                occurrencesMap.put(constraint, occurrences);
+                occurrencesMap.put(constraint, window);
             }
         }
 
@@ -255,15 +268,16 @@ public class FrequencyLimitManager {
         }
     }
 
-    private boolean isConstraintOverLimit(@NonNull ConstraintEntity constraint) {
-        List<OccurrenceEntity> occurrences = occurrencesMap.get(constraint);
-
-        if (occurrences == null || occurrences.size() < constraint.count) {
-            return false;
+    @NonNull
+    private OccurrenceWindow[] getWindows(@NonNull Collection<ConstraintEntity> constraints) {
+        OccurrenceWindow[] windows = new OccurrenceWindow[constraints.size()];
+        int i = 0;
+        synchronized (lock) {
+            for (ConstraintEntity constraint : constraints) {
+                windows[i++] = occurrencesMap.get(constraint);
+            }
         }
-
-        long timeSinceOccurrence = clock.currentTimeMillis() - occurrences.get(occurrences.size() - constraint.count).timeStamp;
-        return timeSinceOccurrence <= constraint.range;
+        return windows;
     }
 
     @NonNull
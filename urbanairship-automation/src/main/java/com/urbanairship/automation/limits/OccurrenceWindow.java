@@ -0,0 +1,62 @@
+/* Copyright Airship and Contributors */
+
+package com.urbanairship.automation.limits;
+
+/**
+ * Ring buffer of the most recent occurrence timestamps for a single constraint.
+ * <p>
+ * Only the last {@code count} occurrences can put a constraint over the limit, so the window never
+ * holds more than that.
+ */
+class OccurrenceWindow {
+
+    private final long[] timestamps;
+    private final long range;
+    private int head;
+    private int size;
+
+    /**
+     * Default constructor.
+     *
+     * @param count The constraint count.
+     * @param range The constraint range in milliseconds.
+     */
+    OccurrenceWindow(int count, long range) {
+        this.timestamps = new long[Math.max(count, 0)];
+        this.range = range;
+    }
+
+    /**
+     * Records an occurrence. Occurrences are expected to be recorded in time order.
+     *
+     * @param timeStamp The occurrence time in milliseconds.
+     */
+    void record(long timeStamp) {
+        if (timestamps.length == 0) {
+            return;
+        }
+
+        timestamps[head] = timeStamp;
+        head = (head + 1) % timestamps.length;
+        if (size < timestamps.length) {
+            size++;
+        }
+    }
+
+    /**
+     * Checks if the constraint is over the limit.
+     *
+     * @param now The current time in milliseconds.
+     * @return {@code true} if the last {@code count} occurrences all happened within the range,
+     * otherwise {@code false}.
+     */
+    boolean isOverLimit(long now) {
+        if (size < timestamps.length || size == 0) {
+            return false;
+        }
+
+        // When full, the head points at the oldest of the last `count` occurrences
+        return now - timestamps[head] <= range;
+    }
+
+}
@@ -40,6 +40,25 @@ public interface FrequencyLimitDao {
     @Query("SELECT * FROM occurrences WHERE parentConstraintId = :constraintId ORDER BY timeStamp ASC")
     List<OccurrenceEntity> getOccurrences(String constraintId);
 
+    /**
+     * Gets the most recent occurrences for a constraint, newest first.
+     *
+     * @param constraintId The constraint Id.
+     * @param limit The max number of occurrences.
+     * @return The occurrences.
+     */
+    @Query("SELECT * FROM occurrences WHERE parentConstraintId = :constraintId ORDER BY timeStamp DESC LIMIT :limit")
+    List<OccurrenceEntity> getRecentOccurrences(String constraintId, int limit);
+
+    /**
+     * Deletes occurrences that are older than their constraint's range and can no longer count
+     * towards the limit.
+     *
+     * @param now The current time in milliseconds.
+     */
+    @Query("DELETE FROM occurrences WHERE EXISTS (SELECT 1 FROM constraints WHERE constraints.constraintId = occurrences.parentConstraintId AND occurrences.timeStamp < :now - constraints.range)")
+    void deleteExpiredOccurrences(long now);
+
     @Delete
     @Transaction
     void delete(ConstraintEntity entity);
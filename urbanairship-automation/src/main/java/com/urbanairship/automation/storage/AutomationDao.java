@@ -142,6 +142,18 @@ public abstract class AutomationDao {
         update(entry.schedule, entry.triggers);
     }
 
+    /**
+     * Updates and inserts schedules in a single transaction.
+     *
+     * @param updates The schedules to update.
+     * @param inserts The schedules to insert.
+     */
+    @Transaction
+    public void updateAndInsert(@NonNull Collection<FullSchedule> updates, @NonNull Collection<FullSchedule> inserts) {
+        updateSchedules(updates);
+        insert(inserts);
+    }
+
     public void delete(@NonNull FullSchedule entry) {
         delete(entry.schedule);
     }
@@ -44,6 +44,15 @@ public class AutomationDaoWrapper extends AutomationDao {
         }
     }
 
+    @Override
+    public void updateAndInsert(@NonNull Collection<FullSchedule> updates, @NonNull Collection<FullSchedule> inserts) {
+        try {
+            dao.updateAndInsert(updates, inserts);
+        } catch (Exception e) {
+            Logger.error(e, "Failed to update schedules %s and insert schedules %s", updates, inserts);
+        }
+    }
+
     @Override
     public void updateTriggers(@NonNull List<TriggerEntity> entities) {
         try {
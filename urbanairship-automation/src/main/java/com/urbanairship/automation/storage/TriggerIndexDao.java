@@ -0,0 +1,445 @@
+/* Copyright Airship and Contributors */
+
+package com.urbanairship.automation.storage;
+
+import android.util.SparseArray;
+
+import com.urbanairship.util.Clock;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+import androidx.annotation.VisibleForTesting;
+
+/**
+ * AutomationDao that keeps the active triggers in memory so events can be matched without
+ * querying the database.
+ * <p>
+ * The index is loaded from the database the first time active triggers are requested and is then
+ * kept up to date from the schedules that are inserted, updated or deleted through this dao. The
+ * indexed triggers are the same instances that are returned to the caller, so trigger progress
+ * stays in memory and the database is only written to persist it.
+ * <p>
+ * Progress updated with {@link #updateTriggerProgress(List)} is only written when
+ * {@link #flushTriggers()} is called, when triggers are updated with {@link #updateTriggers(List)},
+ * or before any schedules are read or written through this dao. Schedules are always read with
+ * their latest trigger progress, so a state transition never writes stale progress back.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public class TriggerIndexDao extends AutomationDao {
+
+    private final AutomationDao dao;
+    private final Clock clock;
+    private final Object lock = new Object();
+
+    // Schedule ID -> indexed schedule
+    private final Map<String, IndexedSchedule> schedules = new HashMap<>();
+
+    // Trigger type -> schedule ID -> triggers
+    private final SparseArray<Map<String, List<TriggerEntity>>> triggers = new SparseArray<>();
+
+    // Trigger ID -> trigger with progress that has not been written
+    private final Map<Integer, TriggerEntity> pendingTriggers = new LinkedHashMap<>();
+
+    private boolean isLoaded = false;
+
+    public TriggerIndexDao(@NonNull AutomationDao dao) {
+        this(dao, Clock.DEFAULT_CLOCK);
+    }
+
+    @VisibleForTesting
+    TriggerIndexDao(@NonNull AutomationDao dao, @NonNull Clock clock) {
+        this.dao = dao;
+        this.clock = clock;
+    }
+
+    @Override
+    public void insert(@NonNull ScheduleEntity entity, @NonNull List<TriggerEntity> entities) {
+        flushTriggers();
+        dao.insert(entity, entities);
+
+        // Reload to pick up the generated trigger IDs
+        synchronized (lock) {
+            if (isLoaded) {
+                remove(entity.scheduleId);
+                FullSchedule inserted = dao.getSchedule(entity.scheduleId);
+                if (inserted != null) {
+                    index(inserted.schedule, inserted.triggers);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void insert(@NonNull Collection<FullSchedule> entries) {
+        flushTriggers();
+        dao.insert(entries);
+
+        synchronized (lock) {
+            if (isLoaded) {
+                reindexInserted(entries);
+            }
+        }
+    }
+
+    @Override
+    public void updateAndInsert(@NonNull Collection<FullSchedule> updates, @NonNull Collection<FullSchedule> inserts) {
+        flushTriggers();
+        dao.updateAndInsert(updates, inserts);
+
+        synchronized (lock) {
+            if (isLoaded) {
+                for (FullSchedule entry : updates) {
+                    if (entry != null) {
+                        remove(entry.schedule.scheduleId);
+                        index(entry.schedule, entry.triggers);
+                    }
+                }
+                reindexInserted(inserts);
+            }
+        }
+    }
+
+    @Override
+    public void update(@NonNull ScheduleEntity entity, @NonNull List<TriggerEntity> entities) {
+        flushTriggers();
+        dao.update(entity, entities);
+
+        synchronized (lock) {
+            if (isLoaded) {
+                remove(entity.scheduleId);
+                index(entity, entities);
+            }
+        }
+    }
+
+    @Override
+    public void updateTriggers(@NonNull List<TriggerEntity> entities) {
+        synchronized (lock) {
+            applyProgress(entities);
+
+            // Write any pending progress in the same batch
+            for (TriggerEntity entity : entities) {
+                pendingTriggers.remove(entity.id);
+            }
+
+            if (pendingTriggers.isEmpty()) {
+                dao.updateTriggers(entities);
+            } else {
+                List<TriggerEntity> batch = new ArrayList<>(pendingTriggers.values());
+                batch.addAll(entities);
+                pendingTriggers.clear();
+                dao.updateTriggers(batch);
+            }
+        }
+    }
+
+    /**
+     * Updates trigger progress without writing it to the database. The progress is written on the
+     * next {@link #flushTriggers()}, {@link #updateTriggers(List)}, or schedule read or write.
+     *
+     * @param entities The triggers.
+     */
+    public void updateTriggerProgress(@NonNull List<TriggerEntity> entities) {
+        synchronized (lock) {
+            applyProgress(entities);
+            for (TriggerEntity entity : entities) {
+                pendingTriggers.put(entity.id, entity);
+            }
+        }
+    }
+
+    /**
+     * Checks if there is trigger progress that has not been written.
+     *
+     * @return {@code true} if progress needs to be flushed, otherwise {@code false}.
+     */
+    public boolean hasPendingTriggers() {
+        synchronized (lock) {
+            return !pendingTriggers.isEmpty();
+        }
+    }
+
+    /**
+     * Writes any pending trigger progress in a single batch.
+     */
+    public void flushTriggers() {
+        synchronized (lock) {
+            if (pendingTriggers.isEmpty()) {
+                return;
+            }
+
+            List<TriggerEntity> batch = new ArrayList<>(pendingTriggers.values());
+            pendingTriggers.clear();
+            dao.updateTriggers(batch);
+        }
+    }
+
+    @Override
+    public void delete(@NonNull ScheduleEntity entity) {
+        flushTriggers();
+        dao.delete(entity);
+
+        synchronized (lock) {
+            if (isLoaded) {
+                remove(entity.scheduleId);
+            }
+        }
+    }
+
+    @Override
+    public int getScheduleCount() {
+        return dao.getScheduleCount();
+    }
+
+    @NonNull
+    @Override
+    public List<FullSchedule> getSchedules() {
+        flushTriggers();
+        return dao.getSchedules();
+    }
+
+    @NonNull
+    @Override
+    public List<FullSchedule> getSchedulesByType(@NonNull String type) {
+        flushTriggers();
+        return dao.getSchedulesByType(type);
+    }
+
+    @Nullable
+    @Override
+    public FullSchedule getSchedule(@NonNull String scheduleId) {
+        flushTriggers();
+        return dao.getSchedule(scheduleId);
+    }
+
+    @Nullable
+    @Override
+    public FullSchedule getSchedule(@NonNull String scheduleId, @NonNull String type) {
+        flushTriggers();
+        return dao.getSchedule(scheduleId, type);
+    }
+
+    @NonNull
+    @Override
+    public List<FullSchedule> getSchedules(@NonNull Collection<String> scheduleIds) {
+        flushTriggers();
+        return dao.getSchedules(scheduleIds);
+    }
+
+    @NonNull
+    @Override
+    public List<FullSchedule> getSchedules(@NonNull Collection<String> scheduleIds, @NonNull String type) {
+        flushTriggers();
+        return dao.getSchedules(scheduleIds, type);
+    }
+
+    @NonNull
+    @Override
+    public List<FullSchedule> getSchedulesWithGroup(@NonNull String group, @NonNull String type) {
+        flushTriggers();
+        return dao.getSchedulesWithGroup(group, type);
+    }
+
+    @NonNull
+    @Override
+    public List<FullSchedule> getSchedulesWithGroup(@NonNull String group) {
+        flushTriggers();
+        return dao.getSchedulesWithGroup(group);
+    }
+
+    @NonNull
+    @Override
+    public List<FullSchedule> getSchedulesWithStates(int... executionStates) {
+        flushTriggers();
+        return dao.getSchedulesWithStates(executionStates);
+    }
+
+    @NonNull
+    @Override
+    public List<FullSchedule> getActiveExpiredSchedules() {
+        flushTriggers();
+        return dao.getActiveExpiredSchedules();
+    }
+
+    @NonNull
+    @Override
+    public List<TriggerEntity> getActiveTriggers(int type, @NonNull String scheduleId) {
+        synchronized (lock) {
+            load();
+
+            Map<String, List<TriggerEntity>> typeTriggers = triggers.get(type);
+            if (typeTriggers == null) {
+                return Collections.emptyList();
+            }
+
+            List<TriggerEntity> scheduleTriggers = typeTriggers.get(scheduleId);
+            if (scheduleTriggers == null || !isStarted(schedules.get(scheduleId))) {
+                return Collections.emptyList();
+            }
+
+            return new ArrayList<>(scheduleTriggers);
+        }
+    }
+
+    @NonNull
+    @Override
+    public List<TriggerEntity> getActiveTriggers(int type) {
+        synchronized (lock) {
+            load();
+
+            Map<String, List<TriggerEntity>> typeTriggers = triggers.get(type);
+            if (typeTriggers == null) {
+                return Collections.emptyList();
+            }
+
+            List<TriggerEntity> result = new ArrayList<>();
+            for (Map.Entry<String, List<TriggerEntity>> entry : typeTriggers.entrySet()) {
+                if (isStarted(schedules.get(entry.getKey()))) {
+                    result.addAll(entry.getValue());
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Copies progress to the indexed triggers. Triggers handed out by the index are already up to date.
+     */
+    private void applyProgress(@NonNull List<TriggerEntity> entities) {
+        if (!isLoaded) {
+            return;
+        }
+
+        for (TriggerEntity entity : entities) {
+            IndexedSchedule indexed = schedules.get(entity.parentScheduleId);
+            if (indexed == null) {
+                continue;
+            }
+
+            for (TriggerEntity trigger : indexed.triggers) {
+                if (trigger != entity && trigger.id == entity.id) {
+                    trigger.progress = entity.progress;
+                }
+            }
+        }
+    }
+
+    private boolean isStarted(@Nullable IndexedSchedule schedule) {
+        return schedule != null && (schedule.start < 0 || schedule.start <= clock.currentTimeMillis());
+    }
+
+    private void load() {
+        if (isLoaded) {
+            return;
+        }
+
+        for (FullSchedule entry : dao.getSchedules()) {
+            index(entry.schedule, entry.triggers);
+        }
+        isLoaded = true;
+    }
+
+    private void index(@NonNull ScheduleEntity entity, @Nullable List<TriggerEntity> entities) {
+        List<TriggerEntity> active = new ArrayList<>();
+        if (entities != null) {
+            for (TriggerEntity trigger : entities) {
+                if (isActive(trigger, entity.executionState)) {
+                    active.add(trigger);
+                }
+            }
+        }
+
+        if (active.isEmpty()) {
+            return;
+        }
+
+        schedules.put(entity.scheduleId, new IndexedSchedule(entity.scheduleStart, active));
+
+        for (TriggerEntity trigger : active) {
+            Map<String, List<TriggerEntity>> typeTriggers = triggers.get(trigger.triggerType);
+            if (typeTriggers == null) {
+                typeTriggers = new LinkedHashMap<>();
+                triggers.put(trigger.triggerType, typeTriggers);
+            }
+
+            List<TriggerEntity> scheduleTriggers = typeTriggers.get(entity.scheduleId);
+            if (scheduleTriggers == null) {
+                scheduleTriggers = new ArrayList<>();
+                typeTriggers.put(entity.scheduleId, scheduleTriggers);
+            }
+            scheduleTriggers.add(trigger);
+        }
+    }
+
+    /**
+     * Reloads inserted schedules to pick up the generated trigger IDs.
+     */
+    private void reindexInserted(@NonNull Collection<FullSchedule> entries) {
+        List<String> scheduleIds = new ArrayList<>(entries.size());
+        for (FullSchedule entry : entries) {
+            if (entry != null) {
+                remove(entry.schedule.scheduleId);
+                scheduleIds.add(entry.schedule.scheduleId);
+            }
+        }
+
+        if (scheduleIds.isEmpty()) {
+            return;
+        }
+
+        for (FullSchedule inserted : dao.getSchedules(scheduleIds)) {
+            index(inserted.schedule, inserted.triggers);
+        }
+    }
+
+    private void remove(@NonNull String scheduleId) {
+        IndexedSchedule removed = schedules.remove(scheduleId);
+        if (removed == null) {
+            return;
+        }
+
+        for (TriggerEntity trigger : removed.triggers) {
+            Map<String, List<TriggerEntity>> typeTriggers = triggers.get(trigger.triggerType);
+            if (typeTriggers != null) {
+                typeTriggers.remove(scheduleId);
+            }
+        }
+    }
+
+    /**
+     * Matches the state filter of {@link AutomationDao#getActiveTriggers(int)}.
+     */
+    private static boolean isActive(@NonNull TriggerEntity trigger, int executionState) {
+        if (trigger.isCancellation) {
+            return executionState == ScheduleState.WAITING_SCHEDULE_CONDITIONS
+                    || executionState == ScheduleState.TIME_DELAYED
+                    || executionState == ScheduleState.PREPARING_SCHEDULE;
+        }
+
+        return executionState == ScheduleState.IDLE;
+    }
+
+    private static class IndexedSchedule {
+
+        private final long start;
+        private final List<TriggerEntity> triggers;
+
+        private IndexedSchedule(long start, @NonNull List<TriggerEntity> triggers) {
+            this.start = start;
+            this.triggers = triggers;
+        }
+
+    }
+
+}
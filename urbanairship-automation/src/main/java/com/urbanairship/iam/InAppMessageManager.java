@@ -35,6 +35,7 @@ import androidx.annotation.MainThread;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
+import androidx.annotation.WorkerThread;
 import androidx.arch.core.util.Function;
 
 /**
@@ -503,9 +504,35 @@ public class InAppMessageManager {
         });
     }
 
+    /**
+     * Called when a new message is scheduled. Caches the assets right away if the cache policy
+     * delegate requests it, otherwise runs the deferred callback.
+     *
+     * @param scheduleId The schedule ID.
+     * @param message The message.
+     * @param onCacheDeferred Called if the assets were not cached.
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    public void onNewMessageSchedule(@NonNull final String scheduleId, @NonNull final InAppMessage message, @NonNull final Runnable onCacheDeferred) {
+        executor.execute(() -> {
+            if (!assetManager.onSchedule(scheduleId, () -> extendMessage(message))) {
+                onCacheDeferred.run();
+            }
+        });
+    }
+
+    /**
+     * Prefetches the assets for a message schedule on the calling thread.
+     *
+     * @param scheduleId The schedule ID.
+     * @param message The message.
+     * @hide
+     */
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
-    public void onNewMessageSchedule(@NonNull final String scheduleId, @NonNull final InAppMessage message) {
-        executor.execute(() -> assetManager.onSchedule(scheduleId, () -> extendMessage(message)));
+    @WorkerThread
+    public void prefetchAssets(@NonNull String scheduleId, @NonNull InAppMessage message) {
+        assetManager.onPrefetch(scheduleId, () -> extendMessage(message));
     }
 
     /**
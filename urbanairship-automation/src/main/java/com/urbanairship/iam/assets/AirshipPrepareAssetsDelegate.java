@@ -2,9 +2,8 @@
 
 package com.urbanairship.iam.assets;
 
-import android.graphics.BitmapFactory;
-
 import com.urbanairship.Logger;
+import com.urbanairship.UAirship;
 import com.urbanairship.android.layout.util.UrlInfo;
 import com.urbanairship.iam.InAppMessage;
 import com.urbanairship.iam.MediaInfo;
@@ -16,15 +15,16 @@ import com.urbanairship.json.JsonMap;
 import com.urbanairship.util.FileUtils;
 import com.urbanairship.util.UAHttpStatusUtil;
 
-import java.io.File;
 import java.io.IOException;
-import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 
 /**
  * Default {@link PrepareAssetsDelegate} for Airship message types.
@@ -43,6 +43,20 @@ public class AirshipPrepareAssetsDelegate implements PrepareAssetsDelegate {
     @NonNull
     public static final String IMAGE_HEIGHT_CACHE_KEY = "height";
 
+    @Nullable
+    private SharedAssetStore store;
+
+    /**
+     * Default constructor.
+     */
+    public AirshipPrepareAssetsDelegate() {
+    }
+
+    @VisibleForTesting
+    AirshipPrepareAssetsDelegate(@NonNull SharedAssetStore store) {
+        this.store = store;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -57,12 +71,20 @@ public class AirshipPrepareAssetsDelegate implements PrepareAssetsDelegate {
     @Override
     @AssetManager.PrepareResult
     public int onPrepare(@NonNull String scheduleId, @NonNull InAppMessage message, @NonNull Assets assets) {
-        List<String> cacheableUrls = getCacheableUrls(message);
-        for (String url : cacheableUrls) {
-            if (assets.file(url).exists()) {
-                continue;
+        List<String> cacheableUrls = new ArrayList<>();
+        for (String url : getCacheableUrls(message)) {
+            if (!assets.file(url).exists()) {
+                cacheableUrls.add(url);
             }
+        }
+
+        // Start all the downloads before waiting on any of them
+        SharedAssetStore store = getStore();
+        for (String url : cacheableUrls) {
+            store.fetch(url);
+        }
 
+        for (String url : cacheableUrls) {
             try {
                 FileUtils.DownloadResult result = cacheImage(assets, url);
                 if (!result.isSuccess) {
@@ -83,6 +105,8 @@ public class AirshipPrepareAssetsDelegate implements PrepareAssetsDelegate {
 
     /**
      * Helper method that caches an image in the assets.
+     * <p>
+     * The image is downloaded once into a store shared by all schedules and linked into the assets.
      *
      * @param assets The assets.
      * @param url The image URL.
@@ -91,24 +115,49 @@ public class AirshipPrepareAssetsDelegate implements PrepareAssetsDelegate {
      */
     @NonNull
     protected FileUtils.DownloadResult cacheImage(@NonNull Assets assets, @NonNull String url) throws IOException {
-        File file = assets.file(url);
-        FileUtils.DownloadResult result = FileUtils.downloadFile(new URL(url), file);
+        SharedAssetStore store = getStore();
+        FileUtils.DownloadResult result = await(store.fetch(url));
 
         if (result.isSuccess) {
-            // Cache the width and height for view resizing
-            BitmapFactory.Options options = new BitmapFactory.Options();
-            options.inJustDecodeBounds = true;
-            BitmapFactory.decodeFile(file.getAbsolutePath(), options);
+            if (!store.link(url, assets.file(url))) {
+                return new FileUtils.DownloadResult(false, -1);
+            }
 
+            JsonMap metadata = store.getMetadata(url);
             assets.setMetadata(url, JsonMap.newBuilder()
-                                           .putOpt(IMAGE_WIDTH_CACHE_KEY, options.outWidth)
-                                           .putOpt(IMAGE_HEIGHT_CACHE_KEY, options.outHeight)
+                                           .putOpt(IMAGE_WIDTH_CACHE_KEY, metadata.opt(IMAGE_WIDTH_CACHE_KEY).getInt(0))
+                                           .putOpt(IMAGE_HEIGHT_CACHE_KEY, metadata.opt(IMAGE_HEIGHT_CACHE_KEY).getInt(0))
                                            .build());
         }
 
         return result;
     }
 
+    @NonNull
+    private SharedAssetStore getStore() {
+        synchronized (this) {
+            if (store == null) {
+                store = SharedAssetStore.shared(UAirship.getApplicationContext());
+            }
+            return store;
+        }
+    }
+
+    @NonNull
+    private static FileUtils.DownloadResult await(@NonNull Future<FileUtils.DownloadResult> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
     /**
      * Helper method that parses all the cachable urls.
      *
@@ -26,6 +26,7 @@ class AssetCache {
     private static final String CACHE_DIRECTORY = "com.urbanairship.iam.assets";
     private final File storageDirectory;
     private final StorageManager storageManager;
+    private final SharedAssetStore sharedAssetStore;
 
     /**
      * A map of active schedule IDs to assets. Prevents needed to load the asset's metadata
@@ -43,6 +44,7 @@ class AssetCache {
     AssetCache(@NonNull Context context) {
         this.storageDirectory = new File(context.getCacheDir(), CACHE_DIRECTORY);
         this.storageManager = findStorageManager(context);
+        this.sharedAssetStore = SharedAssetStore.shared(context);
     }
 
     /**
@@ -76,6 +78,9 @@ class AssetCache {
         synchronized (activeAssets) {
             if (wipeFromDisk) {
                 FileUtils.deleteRecursively(getAssetsDirectory(scheduleId));
+
+                // Deleting the assets releases their links to the shared store
+                sharedAssetStore.trim();
             }
 
             activeAssets.remove(scheduleId);
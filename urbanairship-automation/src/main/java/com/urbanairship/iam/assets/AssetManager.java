@@ -92,15 +92,17 @@ public class AssetManager {
     }
 
     /**
-     * Called when a new schedule is available.
+     * Called when a new schedule is available. Caches the assets if the cache policy delegate
+     * requests caching on schedule.
      *
      * @param scheduleId The schedule ID.
      * @param extendedMessageCallable Callback used to get the extended message.
+     * @return {@code true} if the assets were cached, otherwise {@code false}.
      * @hide
      */
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
     @WorkerThread
-    public void onSchedule(@NonNull String scheduleId, @NonNull Callable<InAppMessage> extendedMessageCallable) {
+    public boolean onSchedule(@NonNull String scheduleId, @NonNull Callable<InAppMessage> extendedMessageCallable) {
         CachePolicyDelegate cachePolicyDelegate = this.cachePolicyDelegate;
         PrepareAssetsDelegate assetsDelegate = this.assetsDelegate;
 
@@ -108,14 +110,36 @@ public class AssetManager {
             try {
                 InAppMessage message = extendedMessageCallable.call();
                 if (cachePolicyDelegate.shouldCacheOnSchedule(scheduleId, message)) {
-                    Assets assets = assetCache.getAssets(scheduleId);
-                    assetsDelegate.onSchedule(scheduleId, message, assets);
-                    assetCache.releaseAssets(scheduleId, false);
+                    cacheAssets(scheduleId, message, assetsDelegate);
+                    return true;
                 }
             } catch (Exception e) {
                 Logger.error(e, "Unable to prepare assets for schedule: %s", scheduleId);
             }
         }
+
+        return false;
+    }
+
+    /**
+     * Caches the assets for a schedule ahead of time, regardless of the cache policy delegate.
+     *
+     * @param scheduleId The schedule ID.
+     * @param extendedMessageCallable Callback used to get the extended message.
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    @WorkerThread
+    public void onPrefetch(@NonNull String scheduleId, @NonNull Callable<InAppMessage> extendedMessageCallable) {
+        PrepareAssetsDelegate assetsDelegate = this.assetsDelegate;
+
+        if (assetsDelegate != null) {
+            try {
+                cacheAssets(scheduleId, extendedMessageCallable.call(), assetsDelegate);
+            } catch (Exception e) {
+                Logger.error(e, "Unable to prefetch assets for schedule: %s", scheduleId);
+            }
+        }
     }
 
     /**
@@ -179,4 +203,11 @@ public class AssetManager {
         return assetCache.getAssets(scheduleId);
     }
 
+    @WorkerThread
+    private void cacheAssets(@NonNull String scheduleId, @NonNull InAppMessage message, @NonNull PrepareAssetsDelegate assetsDelegate) {
+        Assets assets = assetCache.getAssets(scheduleId);
+        assetsDelegate.onSchedule(scheduleId, message, assets);
+        assetCache.releaseAssets(scheduleId, false);
+    }
+
 }
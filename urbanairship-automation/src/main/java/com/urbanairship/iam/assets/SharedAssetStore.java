@@ -0,0 +1,478 @@
+/* Copyright Airship and Contributors */
+
+package com.urbanairship.iam.assets;
+
+import android.content.Context;
+import android.graphics.BitmapFactory;
+import android.system.ErrnoException;
+import android.system.Os;
+
+import com.urbanairship.Logger;
+import com.urbanairship.json.JsonException;
+import com.urbanairship.json.JsonList;
+import com.urbanairship.json.JsonMap;
+import com.urbanairship.json.JsonValue;
+import com.urbanairship.util.AirshipThreadFactory;
+import com.urbanairship.util.Clock;
+import com.urbanairship.util.FileUtils;
+import com.urbanairship.util.UAHttpStatusUtil;
+import com.urbanairship.util.UAStringUtil;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+/**
+ * Content addressed store of downloaded assets shared by all schedules.
+ * <p>
+ * Each URL is downloaded once into the store and hard linked into the schedule's {@link Assets},
+ * so schedules that share an image share its bytes on disk. Every linked or copied file is
+ * recorded as a reference in the stored file's metadata. Deleting a schedule's assets releases its
+ * references, and unreferenced files are evicted least recently used first once the store is over
+ * its disk budget.
+ */
+class SharedAssetStore {
+
+    private static final String STORE_DIRECTORY = "com.urbanairship.iam.shared_assets";
+    private static final String METADATA_EXTENSION = ".metadata";
+    private static final String TEMP_EXTENSION = ".tmp";
+
+    private static final String URL_KEY = "url";
+    private static final String ETAG_KEY = "etag";
+    private static final String LAST_MODIFIED_KEY = "last_modified";
+    private static final String VALIDATED_KEY = "validated";
+    private static final String REFERENCES_KEY = "references";
+
+    /**
+     * Max number of concurrent downloads.
+     */
+    static final int MAX_CONCURRENT_DOWNLOADS = 4;
+
+    /**
+     * Disk budget for unreferenced assets.
+     */
+    static final long DISK_BUDGET_BYTES = 50 * 1024 * 1024;
+
+    /**
+     * Time after which a stored asset is revalidated before it is used again.
+     */
+    static final long REVALIDATE_AFTER_MS = TimeUnit.DAYS.toMillis(1);
+
+    private static SharedAssetStore instance;
+
+    private final File directory;
+    private final Executor executor;
+    private final Clock clock;
+    private final long diskBudgetBytes;
+    private final Map<String, Future<FileUtils.DownloadResult>> inFlight = new HashMap<>();
+
+    /**
+     * Gets the shared instance.
+     *
+     * @param context The context.
+     * @return The shared asset store.
+     */
+    @NonNull
+    static SharedAssetStore shared(@NonNull Context context) {
+        synchronized (SharedAssetStore.class) {
+            if (instance == null) {
+                ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_CONCURRENT_DOWNLOADS, MAX_CONCURRENT_DOWNLOADS,
+                        30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), AirshipThreadFactory.DEFAULT_THREAD_FACTORY);
+                executor.allowCoreThreadTimeOut(true);
+
+                File directory = new File(context.getApplicationContext().getCacheDir(), STORE_DIRECTORY);
+                instance = new SharedAssetStore(directory, executor, Clock.DEFAULT_CLOCK, DISK_BUDGET_BYTES);
+            }
+            return instance;
+        }
+    }
+
+    @VisibleForTesting
+    SharedAssetStore(@NonNull File directory, @NonNull Executor executor, @NonNull Clock clock, long diskBudgetBytes) {
+        this.directory = directory;
+        this.executor = executor;
+        this.clock = clock;
+        this.diskBudgetBytes = diskBudgetBytes;
+    }
+
+    /**
+     * Fetches a URL into the store. Concurrent fetches of the same URL share a single download.
+     *
+     * @param url The URL.
+     * @return A future for the download result.
+     */
+    @NonNull
+    Future<FileUtils.DownloadResult> fetch(@NonNull final String url) {
+        final String key = getKey(url);
+        synchronized (inFlight) {
+            Future<FileUtils.DownloadResult> future = inFlight.get(key);
+            if (future != null) {
+                return future;
+            }
+
+            FutureTask<FileUtils.DownloadResult> task = new FutureTask<>(new Callable<FileUtils.DownloadResult>() {
+                @Override
+                public FileUtils.DownloadResult call() throws Exception {
+                    try {
+                        return download(url, key);
+                    } finally {
+                        synchronized (inFlight) {
+                            inFlight.remove(key);
+                        }
+                    }
+                }
+            });
+
+            inFlight.put(key, task);
+            executor.execute(task);
+            return task;
+        }
+    }
+
+    /**
+     * Links a stored URL into a file and records the file as a reference to the stored asset.
+     *
+     * @param url The URL.
+     * @param target The target file.
+     * @return {@code true} if the file was linked or copied, otherwise {@code false}.
+     */
+    @WorkerThread
+    boolean link(@NonNull String url, @NonNull File target) {
+        String key = getKey(url);
+
+        synchronized (this) {
+            File file = getFile(key);
+            if (!file.exists()) {
+                return false;
+            }
+
+            if (target.exists() && !target.delete()) {
+                Logger.error("Failed to replace asset: %s", target.getAbsolutePath());
+                return false;
+            }
+
+            try {
+                Os.link(file.getAbsolutePath(), target.getAbsolutePath());
+            } catch (ErrnoException e) {
+                Logger.verbose("Unable to link asset, copying instead: %s", e.getMessage());
+
+                try {
+                    copy(file, target);
+                } catch (IOException copyException) {
+                    Logger.error(copyException, "Failed to copy asset: %s", url);
+                    target.delete();
+                    return false;
+                }
+            }
+
+            addReference(key, target);
+            return true;
+        }
+    }
+
+    /**
+     * Gets the stored metadata for a URL.
+     *
+     * @param url The URL.
+     * @return The metadata.
+     */
+    @NonNull
+    JsonMap getMetadata(@NonNull String url) {
+        return readMetadata(getKey(url));
+    }
+
+    /**
+     * Evicts unreferenced assets, least recently used first, until the store is within its disk
+     * budget.
+     */
+    @WorkerThread
+    void trim() {
+        synchronized (this) {
+            File[] files = directory.listFiles();
+            if (files == null) {
+                return;
+            }
+
+            List<File> assets = new ArrayList<>();
+            long size = 0;
+            for (File file : files) {
+                if (file.getName().endsWith(METADATA_EXTENSION) || file.getName().endsWith(TEMP_EXTENSION)) {
+                    continue;
+                }
+                assets.add(file);
+                size += file.length();
+            }
+
+            if (size <= diskBudgetBytes) {
+                return;
+            }
+
+            Collections.sort(assets, new Comparator<File>() {
+                @Override
+                public int compare(File lh, File rh) {
+                    long lhModified = lh.lastModified();
+                    long rhModified = rh.lastModified();
+                    return lhModified < rhModified ? -1 : (lhModified == rhModified ? 0 : 1);
+                }
+            });
+
+            for (File file : assets) {
+                if (size <= diskBudgetBytes) {
+                    break;
+                }
+
+                if (isInFlight(file.getName()) || isReferenced(file.getName())) {
+                    continue;
+                }
+
+                long length = file.length();
+                if (file.delete()) {
+                    new File(directory, file.getName() + METADATA_EXTENSION).delete();
+                    size -= length;
+                }
+            }
+        }
+    }
+
+    @WorkerThread
+    @NonNull
+    private FileUtils.DownloadResult download(@NonNull String url, @NonNull String key) throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            Logger.error("Failed to create shared asset directory.");
+        }
+
+        File file = getFile(key);
+        JsonMap metadata = readMetadata(key);
+        long now = clock.currentTimeMillis();
+        boolean isStored = file.exists();
+
+        if (isStored && now - metadata.opt(VALIDATED_KEY).getLong(0) < REVALIDATE_AFTER_MS) {
+            file.setLastModified(now);
+            return new FileUtils.DownloadResult(true, HttpURLConnection.HTTP_OK);
+        }
+
+        String eTag = isStored ? metadata.opt(ETAG_KEY).getString() : null;
+        String lastModified = isStored ? metadata.opt(LAST_MODIFIED_KEY).getString() : null;
+
+        File temp = new File(directory, key + TEMP_EXTENSION);
+        FileUtils.DownloadResult result;
+        try {
+            result = FileUtils.downloadFile(new URL(url), temp, eTag, lastModified);
+        } catch (IOException e) {
+            temp.delete();
+            if (!isStored) {
+                throw e;
+            }
+
+            // Keep using the stored asset if it could not be revalidated
+            Logger.debug(e, "Unable to revalidate asset, using stored copy: %s", url);
+            file.setLastModified(now);
+            return new FileUtils.DownloadResult(true, HttpURLConnection.HTTP_OK);
+        }
+
+        if (result.isSuccess && result.statusCode == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            synchronized (this) {
+                writeMetadata(key, JsonMap.newBuilder()
+                                          .putAll(readMetadata(key))
+                                          .put(VALIDATED_KEY, now)
+                                          .build());
+                file.setLastModified(now);
+            }
+            return result;
+        }
+
+        if (!result.isSuccess) {
+            temp.delete();
+
+            // Keep using the stored asset unless the server rejected the request
+            if (isStored && !UAHttpStatusUtil.inClientErrorRange(result.statusCode)) {
+                file.setLastModified(now);
+                return new FileUtils.DownloadResult(true, HttpURLConnection.HTTP_OK);
+            }
+            return result;
+        }
+
+        // Cache the width and height for view resizing
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(temp.getAbsolutePath(), options);
+
+        synchronized (this) {
+            if (!temp.renameTo(file)) {
+                temp.delete();
+                Logger.error("Failed to store asset: %s", url);
+                return new FileUtils.DownloadResult(false, -1);
+            }
+
+            // Files linked to the previous download still reference this URL
+            writeMetadata(key, JsonMap.newBuilder()
+                                      .put(URL_KEY, url)
+                                      .putOpt(ETAG_KEY, result.eTag)
+                                      .putOpt(LAST_MODIFIED_KEY, result.lastModified)
+                                      .put(VALIDATED_KEY, now)
+                                      .put(AirshipPrepareAssetsDelegate.IMAGE_WIDTH_CACHE_KEY, options.outWidth)
+                                      .put(AirshipPrepareAssetsDelegate.IMAGE_HEIGHT_CACHE_KEY, options.outHeight)
+                                      .putOpt(REFERENCES_KEY, readMetadata(key).opt(REFERENCES_KEY))
+                                      .build());
+        }
+
+        trim();
+        return result;
+    }
+
+    @NonNull
+    private JsonMap readMetadata(@NonNull String key) {
+        File file = new File(directory, key + METADATA_EXTENSION);
+        if (!file.exists()) {
+            return JsonMap.EMPTY_MAP;
+        }
+
+        InputStream inputStream = null;
+        try {
+            inputStream = new FileInputStream(file);
+            byte[] bytes = new byte[(int) file.length()];
+            int offset = 0;
+            int count;
+            while (offset < bytes.length && (count = inputStream.read(bytes, offset, bytes.length - offset)) != -1) {
+                offset += count;
+            }
+            return JsonValue.parseString(new String(bytes, 0, offset, "UTF-8")).optMap();
+        } catch (IOException | JsonException e) {
+            Logger.error(e, "Failed to read asset metadata.");
+            return JsonMap.EMPTY_MAP;
+        } finally {
+            closeQuietly(inputStream);
+        }
+    }
+
+    private void writeMetadata(@NonNull String key, @NonNull JsonMap metadata) {
+        OutputStream outputStream = null;
+        try {
+            outputStream = new FileOutputStream(new File(directory, key + METADATA_EXTENSION));
+            outputStream.write(metadata.toString().getBytes("UTF-8"));
+        } catch (IOException e) {
+            Logger.error(e, "Failed to write asset metadata.");
+        } finally {
+            closeQuietly(outputStream);
+        }
+    }
+
+    @NonNull
+    private File getFile(@NonNull String key) {
+        return new File(directory, key);
+    }
+
+    @NonNull
+    private static String getKey(@NonNull String url) {
+        String key = UAStringUtil.sha256(url);
+        return key == null ? String.valueOf(url.hashCode()) : key;
+    }
+
+    private boolean isInFlight(@NonNull String key) {
+        synchronized (inFlight) {
+            return inFlight.containsKey(key);
+        }
+    }
+
+    /**
+     * Records a file as a reference to a stored asset. Must be called while holding the store lock.
+     *
+     * @param key The asset key.
+     * @param target The linked or copied file.
+     */
+    private void addReference(@NonNull String key, @NonNull File target) {
+        JsonMap metadata = readMetadata(key);
+        List<JsonValue> references = new ArrayList<>();
+        for (JsonValue reference : metadata.opt(REFERENCES_KEY).optList()) {
+            if (!target.getAbsolutePath().equals(reference.getString())) {
+                references.add(reference);
+            }
+        }
+        references.add(JsonValue.wrap(target.getAbsolutePath()));
+
+        writeMetadata(key, JsonMap.newBuilder()
+                                  .putAll(metadata)
+                                  .put(REFERENCES_KEY, new JsonList(references))
+                                  .build());
+    }
+
+    /**
+     * Checks if any recorded reference to a stored asset still exists. References whose files were
+     * deleted are released. Must be called while holding the store lock.
+     *
+     * @param key The asset key.
+     * @return {@code true} if the asset is referenced, otherwise {@code false}.
+     */
+    private boolean isReferenced(@NonNull String key) {
+        JsonMap metadata = readMetadata(key);
+        JsonList references = metadata.opt(REFERENCES_KEY).optList();
+
+        List<JsonValue> remaining = new ArrayList<>();
+        for (JsonValue reference : references) {
+            String path = reference.getString();
+            if (path != null && new File(path).exists()) {
+                remaining.add(reference);
+            }
+        }
+
+        if (remaining.size() != references.size()) {
+            writeMetadata(key, JsonMap.newBuilder()
+                                      .putAll(metadata)
+                                      .put(REFERENCES_KEY, new JsonList(remaining))
+                                      .build());
+        }
+
+        return !remaining.isEmpty();
+    }
+
+    private static void copy(@NonNull File source, @NonNull File target) throws IOException {
+        InputStream inputStream = null;
+        OutputStream outputStream = null;
+        try {
+            inputStream = new FileInputStream(source);
+            outputStream = new FileOutputStream(target);
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, count);
+            }
+        } finally {
+            closeQuietly(inputStream);
+            closeQuietly(outputStream);
+        }
+    }
+
+    private static void closeQuietly(@Nullable java.io.Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                Logger.error(e);
+            }
+        }
+    }
+
+}
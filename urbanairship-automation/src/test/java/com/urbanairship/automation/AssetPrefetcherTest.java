@@ -0,0 +1,204 @@
+/* Copyright Airship and Contributors */
+
+package com.urbanairship.automation;
+
+import android.content.Context;
+
+import com.urbanairship.PendingResult;
+import com.urbanairship.PreferenceDataStore;
+import com.urbanairship.automation.actions.Actions;
+import com.urbanairship.iam.InAppMessage;
+import com.urbanairship.iam.InAppMessageManager;
+import com.urbanairship.iam.custom.CustomDisplayContent;
+import com.urbanairship.job.JobDispatcher;
+import com.urbanairship.job.JobInfo;
+import com.urbanairship.job.JobResult;
+import com.urbanairship.json.JsonValue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import androidx.annotation.NonNull;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link AssetPrefetcher}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class AssetPrefetcherTest {
+
+    private final Context context = ApplicationProvider.getApplicationContext();
+    private final PreferenceDataStore dataStore = PreferenceDataStore.inMemoryStore(context);
+
+    private JobDispatcher mockDispatcher;
+    private AutomationEngine mockEngine;
+    private InAppMessageManager mockMessageManager;
+    private AssetPrefetcher prefetcher;
+
+    @Before
+    public void setup() {
+        mockDispatcher = mock(JobDispatcher.class);
+        mockEngine = mock(AutomationEngine.class);
+        mockMessageManager = mock(InAppMessageManager.class);
+        prefetcher = new AssetPrefetcher(dataStore, mockDispatcher, mockEngine, mockMessageManager);
+    }
+
+    @Test
+    public void testEnqueueDispatchesConstrainedJobs() {
+        prefetcher.enqueue(createSchedule("schedule", 0, Triggers.newAppInitTriggerBuilder().setGoal(1).build()));
+
+        ArgumentCaptor<JobInfo> captor = ArgumentCaptor.forClass(JobInfo.class);
+        verify(mockDispatcher, times(2)).dispatch(captor.capture());
+
+        JobInfo unmetered = captor.getAllValues().get(0);
+        assertEquals(AssetPrefetcher.ACTION_PREFETCH_UNMETERED, unmetered.getAction());
+        assertEquals(InAppAutomation.class.getName(), unmetered.getAirshipComponentName());
+        assertEquals(JobInfo.KEEP, unmetered.getConflictStrategy());
+        assertTrue(unmetered.isUnmeteredNetworkRequired());
+        assertFalse(unmetered.isChargingRequired());
+
+        JobInfo charging = captor.getAllValues().get(1);
+        assertEquals(AssetPrefetcher.ACTION_PREFETCH_CHARGING, charging.getAction());
+        assertEquals(JobInfo.KEEP, charging.getConflictStrategy());
+        assertTrue(charging.isNetworkAccessRequired());
+        assertTrue(charging.isChargingRequired());
+    }
+
+    @Test
+    public void testEnqueueIgnoresActions() {
+        Schedule<Actions> schedule = Schedule.newBuilder(new Actions(JsonValue.NULL.optMap()))
+                                             .addTrigger(Triggers.newAppInitTriggerBuilder().setGoal(1).build())
+                                             .build();
+
+        prefetcher.enqueue(schedule);
+        verifyNoInteractions(mockDispatcher);
+    }
+
+    @Test
+    public void testPrefetchOrder() {
+        Schedule<InAppMessage> screen = createSchedule("screen", 0, Triggers.newScreenTriggerBuilder().setGoal(1).build());
+        Schedule<InAppMessage> foreground = createSchedule("foreground", 0, Triggers.newForegroundTriggerBuilder().setGoal(1).build());
+        Schedule<InAppMessage> important = createSchedule("important", -1, Triggers.newScreenTriggerBuilder().setGoal(3).build());
+
+        prefetcher.enqueue(screen);
+        prefetcher.enqueue(foreground);
+        prefetcher.enqueue(important);
+
+        mockSchedules(screen, foreground, important);
+        assertEquals(JobResult.SUCCESS, prefetcher.onPrefetch());
+
+        InOrder inOrder = inOrder(mockMessageManager);
+        inOrder.verify(mockMessageManager).prefetchAssets(eq("important"), any(InAppMessage.class));
+        inOrder.verify(mockMessageManager).prefetchAssets(eq("foreground"), any(InAppMessage.class));
+        inOrder.verify(mockMessageManager).prefetchAssets(eq("screen"), any(InAppMessage.class));
+    }
+
+    @Test
+    public void testPrefetchDrainsQueue() {
+        Schedule<InAppMessage> schedule = createSchedule("schedule", 0, Triggers.newAppInitTriggerBuilder().setGoal(1).build());
+        prefetcher.enqueue(schedule);
+
+        mockSchedules(schedule);
+        assertEquals(JobResult.SUCCESS, prefetcher.onPrefetch());
+        verify(mockMessageManager).prefetchAssets(eq("schedule"), any(InAppMessage.class));
+
+        // Persisted queue is empty
+        AssetPrefetcher restored = new AssetPrefetcher(dataStore, mockDispatcher, mockEngine, mockMessageManager);
+        assertEquals(JobResult.SUCCESS, restored.onPrefetch());
+        verify(mockMessageManager, times(1)).prefetchAssets(anyString(), any(InAppMessage.class));
+    }
+
+    @Test
+    public void testPrefetchSkipsRemovedSchedules() {
+        prefetcher.enqueue(createSchedule("removed", 0, Triggers.newAppInitTriggerBuilder().setGoal(1).build()));
+
+        mockSchedules();
+        assertEquals(JobResult.SUCCESS, prefetcher.onPrefetch());
+        verify(mockMessageManager, never()).prefetchAssets(anyString(), any(InAppMessage.class));
+    }
+
+    @Test
+    public void testPrefetchKeepsRequeuedSchedule() {
+        final Schedule<InAppMessage> schedule = createSchedule("schedule", 0, Triggers.newAppInitTriggerBuilder().setGoal(1).build());
+        prefetcher.enqueue(schedule);
+        mockSchedules(schedule);
+
+        // Schedule is updated while its assets are being prefetched
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                prefetcher.enqueue(schedule);
+                return null;
+            }
+        }).doNothing().when(mockMessageManager).prefetchAssets(eq("schedule"), any(InAppMessage.class));
+
+        assertEquals(JobResult.SUCCESS, prefetcher.onPrefetch());
+        assertEquals(JobResult.SUCCESS, prefetcher.onPrefetch());
+        assertEquals(JobResult.SUCCESS, prefetcher.onPrefetch());
+        verify(mockMessageManager, times(2)).prefetchAssets(eq("schedule"), any(InAppMessage.class));
+    }
+
+    @Test
+    public void testTriggerLikelihood() {
+        double foreground = AssetPrefetcher.getTriggerLikelihood(Collections.singletonList(Triggers.newForegroundTriggerBuilder().setGoal(1).build()));
+        double screen = AssetPrefetcher.getTriggerLikelihood(Collections.singletonList(Triggers.newScreenTriggerBuilder().setGoal(1).build()));
+        double screenCount = AssetPrefetcher.getTriggerLikelihood(Collections.singletonList(Triggers.newScreenTriggerBuilder().setGoal(4).build()));
+        double either = AssetPrefetcher.getTriggerLikelihood(Arrays.asList(Triggers.newScreenTriggerBuilder().setGoal(1).build(),
+                Triggers.newForegroundTriggerBuilder().setGoal(1).build()));
+
+        assertTrue(foreground > screen);
+        assertTrue(screen > screenCount);
+        assertEquals(foreground, either, 0);
+    }
+
+    private void mockSchedules(@NonNull Schedule<?>... schedules) {
+        List<Schedule<? extends ScheduleData>> list = new ArrayList<>();
+        Collections.addAll(list, schedules);
+
+        PendingResult<Collection<Schedule<? extends ScheduleData>>> pendingResult = new PendingResult<>();
+        pendingResult.setResult(list);
+        when(mockEngine.getSchedules(any(Set.class))).thenReturn(pendingResult);
+    }
+
+    @NonNull
+    private static Schedule<InAppMessage> createSchedule(@NonNull String id, int priority, @NonNull Trigger trigger) {
+        InAppMessage message = InAppMessage.newBuilder()
+                                           .setDisplayContent(new CustomDisplayContent(JsonValue.NULL))
+                                           .build();
+
+        return Schedule.newBuilder(message)
+                       .setId(id)
+                       .setPriority(priority)
+                       .addTrigger(trigger)
+                       .build();
+    }
+
+}
@@ -32,6 +32,7 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.Mockito;
 import org.robolectric.Shadows;
 import org.robolectric.annotation.Config;
 import org.robolectric.annotation.LooperMode;
@@ -223,6 +224,34 @@ public class AutomationEngineTest {
         }, event.toJsonValue());
     }
 
+    @Test
+    public void testTriggerProgressWritten() throws Exception {
+        Schedule<Actions> schedule = Schedule.newBuilder(new Actions(JsonMap.EMPTY_MAP))
+                                             .addTrigger(Triggers.newCustomEventTriggerBuilder()
+                                                                 .setCountGoal(3)
+                                                                 .setEventName("name")
+                                                                 .build())
+                                             .build();
+        schedule(schedule);
+
+        CustomEvent.newBuilder("name").build().track();
+        CustomEvent.newBuilder("name").build().track();
+        runLooperTasks();
+
+        // Progress is written by the flush timer
+        FullSchedule entry = dao.getSchedule(schedule.getId());
+        assertEquals(2.0, entry.triggers.get(0).progress);
+        verifyState(schedule, ScheduleState.IDLE);
+
+        // Reaching the goal resets the progress
+        CustomEvent.newBuilder("name").build().track();
+        runLooperTasks();
+
+        entry = dao.getSchedule(schedule.getId());
+        assertEquals(0.0, entry.triggers.get(0).progress);
+        verifyState(schedule, ScheduleState.PREPARING_SCHEDULE);
+    }
+
     @Test
     public void testEnterRegionEvent() throws Exception {
         Trigger trigger = Triggers.newEnterRegionTriggerBuilder()
@@ -713,6 +742,53 @@ public class AutomationEngineTest {
         assertEquals(edits.getEnd().longValue(), updated.getEnd());
     }
 
+    @Test
+    public void testApplyScheduleDiff() throws Exception {
+        Schedule<Actions> ending = Schedule.newBuilder(new Actions(JsonMap.EMPTY_MAP))
+                                           .addTrigger(Triggers.newCustomEventTriggerBuilder()
+                                                               .setCountGoal(1)
+                                                               .setEventName("event")
+                                                               .build())
+                                           .setId("ending")
+                                           .build();
+
+        Schedule<Actions> newSchedule = Schedule.newBuilder(new Actions(JsonMap.EMPTY_MAP))
+                                                .addTrigger(Triggers.newCustomEventTriggerBuilder()
+                                                                    .setCountGoal(1)
+                                                                    .setEventName("event")
+                                                                    .build())
+                                                .setId("new")
+                                                .build();
+
+        schedule(schedule);
+        schedule(ending);
+
+        AutomationEngine.ScheduleListener listener = mock(AutomationEngine.ScheduleListener.class);
+        automationEngine.setScheduleListener(listener);
+
+        Map<String, ScheduleEdits<? extends ScheduleData>> edits = new HashMap<>();
+        edits.put(schedule.getId(), ScheduleEdits.newBuilder().setPriority(10).build());
+        edits.put(ending.getId(), ScheduleEdits.newBuilder().setStart(0).setEnd(1).build());
+        edits.put("missing", ScheduleEdits.newBuilder().setPriority(10).build());
+
+        Future<Boolean> future = automationEngine.applyScheduleDiff(Collections.<Schedule<? extends ScheduleData>>singletonList(newSchedule), edits);
+        runLooperTasks();
+        assertTrue(future.get());
+
+        // Verify the edits
+        assertEquals(10, dao.getSchedule(schedule.getId()).schedule.priority);
+        verifyState(schedule, ScheduleState.IDLE);
+        verifyState(ending, ScheduleState.FINISHED);
+        assertNull(dao.getSchedule("missing"));
+
+        // Verify the insert
+        verifyState(newSchedule, ScheduleState.IDLE);
+
+        verify(listener).onNewSchedule(newSchedule);
+        verify(listener).onScheduleExpired(Mockito.<Schedule<? extends ScheduleData>>any());
+        Mockito.verifyNoMoreInteractions(listener);
+    }
+
     @Test
     public void testInterval() throws Exception {
         final Schedule schedule = Schedule.newBuilder(this.schedule)
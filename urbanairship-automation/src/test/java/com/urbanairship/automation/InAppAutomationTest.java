@@ -144,7 +144,7 @@ public class InAppAutomationTest {
 
         inAppAutomation = new InAppAutomation(TestApplication.getApplication(), TestApplication.getApplication().preferenceDataStore,
                 privacyManager, mockEngine, mockChannel, mockAudienceManager, mockObserver, mockIamManager, executor, mockDeferredScheduleClient,
-                mockActionsScheduleDelegate, mockMessageScheduleDelegate, mockFrequencyLimitManager);
+                mockActionsScheduleDelegate, mockMessageScheduleDelegate, mock(AssetPrefetcher.class), mockFrequencyLimitManager);
 
         inAppAutomation.init();
         inAppAutomation.onAirshipReady(UAirship.shared());
@@ -62,13 +62,16 @@ public class InAppRemoteDataObserverTest {
     private TestDelegate delegate;
     private RemoteData remoteData;
     private Subject<RemoteDataPayload> updates;
+    private Subject<RemoteDataPayload> metadataUpdates;
     private Subscription subscription;
 
     @Before
     public void setup() {
         remoteData = mock(RemoteData.class);
         updates = Subject.create();
+        metadataUpdates = Subject.create();
         when(remoteData.payloadsForType(anyString())).thenReturn(updates);
+        when(remoteData.metadataUpdatesForType(anyString())).thenReturn(metadataUpdates);
 
         delegate = new TestDelegate();
 
@@ -314,6 +317,9 @@ public class InAppRemoteDataObserverTest {
         ScheduleEdits<? extends ScheduleData> edits = delegate.getScheduleEdits("bar");
         assertEquals(Long.valueOf(payload.getTimestamp()), edits.getEnd());
         assertEquals(Long.valueOf(payload.getTimestamp()), edits.getStart());
+
+        // Verify each payload was applied with a single diff
+        assertEquals(2, delegate.diffCount);
     }
 
     @Test
@@ -434,6 +440,55 @@ public class InAppRemoteDataObserverTest {
         assertEquals(expected, edits.getMetadata());
     }
 
+    @Test
+    public void testMetadataOnlyUpdate() {
+        JsonMap metadata = JsonMap.newBuilder()
+                                  .putOpt("meta", "data").build();
+
+        JsonMap expectedMetadata = JsonMap.newBuilder()
+                                          .put("com.urbanairship.iaa.REMOTE_DATA_METADATA", metadata)
+                                          .build();
+
+        Schedule<InAppMessage> fooSchedule = Schedule.newBuilder(InAppMessage.newBuilder()
+                                                                             .setName("foo")
+                                                                             .setDisplayContent(new CustomDisplayContent(JsonValue.NULL))
+                                                                             .build())
+                                                     .addTrigger(Triggers.newAppInitTriggerBuilder()
+                                                                         .setGoal(1)
+                                                                         .build())
+                                                     .setId("foo")
+                                                     .setMetadata(expectedMetadata)
+                                                     .build();
+
+        // Schedule messages
+        RemoteDataPayload payload = new TestPayloadBuilder()
+                .addSchedule(fooSchedule, TimeUnit.DAYS.toMillis(1), TimeUnit.DAYS.toMillis(1))
+                .setTimeStamp(TimeUnit.DAYS.toMillis(1))
+                .setMetadata(metadata)
+                .build();
+
+        // Process payload
+        updates.onNext(payload);
+
+        JsonMap updatedMetadata = JsonMap.newBuilder().putOpt("fun", "fun").build();
+
+        // Refresh with the same content
+        payload = new TestPayloadBuilder()
+                .addSchedule(fooSchedule, TimeUnit.DAYS.toMillis(1), TimeUnit.DAYS.toMillis(1))
+                .setTimeStamp(TimeUnit.DAYS.toMillis(1))
+                .setMetadata(updatedMetadata)
+                .build();
+
+        metadataUpdates.onNext(payload);
+
+        // Verify "foo" was edited with the updated metadata
+        ScheduleEdits<? extends ScheduleData> edits = delegate.getScheduleEdits("foo");
+        JsonMap expected = JsonMap.newBuilder()
+                                  .put("com.urbanairship.iaa.REMOTE_DATA_METADATA", updatedMetadata)
+                                  .build();
+        assertEquals(expected, edits.getMetadata());
+    }
+
     @Test
     public void testDefaultNewUserCutoffTime() {
         assertEquals(-1, observer.getScheduleNewUserCutOffTime());
@@ -647,9 +702,20 @@ public class InAppRemoteDataObserverTest {
         private final Map<String, ScheduleEdits<? extends ScheduleData>> scheduleEdits = new HashMap<>();
         private final List<Collection<FrequencyConstraint>> constraintUpdates = new ArrayList<>();
 
+        private int diffCount;
+
         @NonNull
         @Override
-        public PendingResult<Boolean> schedule(@NonNull List<Schedule<? extends ScheduleData>> schedules) {
+        public PendingResult<Boolean> applyScheduleDiff(@NonNull List<Schedule<? extends ScheduleData>> schedules,
+                                                        @NonNull Map<String, ScheduleEdits<? extends ScheduleData>> edits) {
+            diffCount++;
+
+            for (Map.Entry<String, ScheduleEdits<? extends ScheduleData>> entry : edits.entrySet()) {
+                if (this.schedules.containsKey(entry.getKey())) {
+                    scheduleEdits.put(entry.getKey(), entry.getValue());
+                }
+            }
+
             for (Schedule<? extends ScheduleData> schedule : schedules) {
                 this.schedules.put(schedule.getId(), schedule);
             }
@@ -674,22 +740,6 @@ public class InAppRemoteDataObserverTest {
             return pendingResult;
         }
 
-        @NonNull
-        @Override
-        public PendingResult<Boolean> editSchedule(@NonNull String scheduleId, @NonNull ScheduleEdits<? extends ScheduleData> edits) {
-            PendingResult<Boolean> result = new PendingResult<>();
-            Schedule<?> schedule = schedules.get(scheduleId);
-
-            if (schedule != null) {
-                scheduleEdits.put(scheduleId, edits);
-                result.setResult(true);
-            } else {
-                result.setResult(false);
-            }
-
-            return result;
-        }
-
         public ScheduleEdits<? extends ScheduleData> getScheduleEdits(@NonNull String scheduleId) {
             return scheduleEdits.get(scheduleId);
         }
@@ -0,0 +1,216 @@
+/* Copyright Airship and Contributors */
+
+package com.urbanairship.automation;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.urbanairship.Benchmarks;
+import com.urbanairship.CancelableOperation;
+import com.urbanairship.PendingResult;
+import com.urbanairship.ShadowAirshipExecutorsLegacy;
+import com.urbanairship.TestActivityMonitor;
+import com.urbanairship.TestApplication;
+import com.urbanairship.UAirship;
+import com.urbanairship.automation.actions.Actions;
+import com.urbanairship.automation.alarms.OperationScheduler;
+import com.urbanairship.automation.storage.AutomationDao;
+import com.urbanairship.automation.storage.AutomationDaoWrapper;
+import com.urbanairship.automation.storage.AutomationDatabase;
+import com.urbanairship.automation.storage.FullSchedule;
+import com.urbanairship.automation.storage.LegacyDataMigrator;
+import com.urbanairship.automation.storage.ScheduleEntity;
+import com.urbanairship.automation.storage.TriggerEntity;
+import com.urbanairship.json.JsonMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Shadows;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.LooperMode;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Compares editing a remote data listing one schedule at a time against applying it as a single
+ * schedule diff.
+ * <p>
+ * Only runs when benchmarks are enabled, see {@link Benchmarks}.
+ */
+@Config(
+        sdk = 28,
+        shadows = { ShadowAirshipExecutorsLegacy.class },
+        application = TestApplication.class
+)
+@RunWith(AndroidJUnit4.class)
+@LooperMode(LooperMode.Mode.LEGACY)
+public class ScheduleDiffBenchmarkTest {
+
+    private static final int SCHEDULE_COUNT = 500;
+
+    private AutomationDatabase database;
+    private CountingDao countingDao;
+    private AutomationEngine automationEngine;
+
+    private final OperationScheduler handlerScheduler = new OperationScheduler() {
+        @Override
+        public void schedule(long delay, @NonNull Runnable runnable) {
+            Handler handler;
+            if (runnable instanceof CancelableOperation) {
+                handler = ((CancelableOperation) runnable).getHandler();
+            } else {
+                handler = new Handler(Looper.getMainLooper());
+            }
+
+            handler.postDelayed(runnable, delay);
+        }
+    };
+
+    @Before
+    public void setup() throws Exception {
+        Benchmarks.assumeEnabled();
+
+        Context context = ApplicationProvider.getApplicationContext();
+        database = Room.inMemoryDatabaseBuilder(context, AutomationDatabase.class)
+                       .allowMainThreadQueries()
+                       .build();
+
+        countingDao = new CountingDao(database.getScheduleDao());
+        automationEngine = new AutomationEngine(UAirship.shared().getAnalytics(), new TestActivityMonitor(),
+                handlerScheduler, countingDao, mock(LegacyDataMigrator.class));
+        automationEngine.start(mock(AutomationDriver.class));
+        runLooperTasks();
+
+        List<Schedule<? extends ScheduleData>> schedules = new ArrayList<>();
+        for (int i = 0; i < SCHEDULE_COUNT; i++) {
+            schedules.add(Schedule.newBuilder(new Actions(JsonMap.EMPTY_MAP))
+                                  .addTrigger(Triggers.newCustomEventTriggerBuilder()
+                                                      .setCountGoal(1)
+                                                      .setEventName("event")
+                                                      .build())
+                                  .setId("schedule-" + i)
+                                  .build());
+        }
+
+        PendingResult<Boolean> result = automationEngine.schedule(schedules);
+        runLooperTasks();
+        assertTrue(result.get());
+    }
+
+    @After
+    public void teardown() {
+        if (automationEngine != null) {
+            automationEngine.stop();
+        }
+
+        if (database != null) {
+            database.close();
+        }
+    }
+
+    @Test
+    public void benchmarkScheduleDiff() throws Exception {
+        // One edit at a time
+        countingDao.reset();
+        long start = System.nanoTime();
+        List<PendingResult<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < SCHEDULE_COUNT; i++) {
+            results.add(automationEngine.editSchedule("schedule-" + i, ScheduleEdits.newBuilder().setPriority(1).build()));
+        }
+        runLooperTasks();
+        for (PendingResult<Boolean> result : results) {
+            assertTrue(result.get());
+        }
+        long editTime = System.nanoTime() - start;
+        int editTransactions = countingDao.transactions;
+
+        // Single diff
+        countingDao.reset();
+        start = System.nanoTime();
+        Map<String, ScheduleEdits<? extends ScheduleData>> edits = new HashMap<>();
+        for (int i = 0; i < SCHEDULE_COUNT; i++) {
+            edits.put("schedule-" + i, ScheduleEdits.newBuilder().setPriority(2).build());
+        }
+        PendingResult<Boolean> diffResult = automationEngine.applyScheduleDiff(Collections.<Schedule<? extends ScheduleData>>emptyList(), edits);
+        runLooperTasks();
+        assertTrue(diffResult.get());
+        long diffTime = System.nanoTime() - start;
+        int diffTransactions = countingDao.transactions;
+
+        // All edits made it to the database
+        for (FullSchedule entry : database.getScheduleDao().getSchedules()) {
+            assertEquals(2, entry.schedule.priority);
+        }
+
+        assertEquals(SCHEDULE_COUNT, editTransactions);
+        assertEquals(1, diffTransactions);
+
+        System.out.println(String.format(Locale.ROOT, "ScheduleDiffBenchmark: %d edits, one at a time %d handler posts and %d transactions (%.1f ms), diff 1 handler post and %d transactions (%.1f ms)",
+                SCHEDULE_COUNT,
+                SCHEDULE_COUNT,
+                editTransactions,
+                editTime / 1e6,
+                diffTransactions,
+                diffTime / 1e6));
+    }
+
+    private void runLooperTasks() {
+        ShadowLooper mainLooper = Shadows.shadowOf(Looper.getMainLooper());
+        ShadowLooper automationLooper = Shadows.shadowOf(automationEngine.backgroundThread.getLooper());
+
+        do {
+            mainLooper.runToEndOfTasks();
+            automationLooper.runToEndOfTasks();
+        }
+        while (mainLooper.getScheduler().areAnyRunnable() || automationLooper.getScheduler().areAnyRunnable());
+    }
+
+    /**
+     * Counts schedule write transactions.
+     */
+    private static class CountingDao extends AutomationDaoWrapper {
+
+        int transactions;
+
+        CountingDao(@NonNull AutomationDao dao) {
+            super(dao);
+        }
+
+        void reset() {
+            transactions = 0;
+        }
+
+        @Override
+        public void update(@NonNull ScheduleEntity entity, @NonNull List<TriggerEntity> entities) {
+            transactions++;
+            super.update(entity, entities);
+        }
+
+        @Override
+        public void updateAndInsert(@NonNull Collection<FullSchedule> updates, @NonNull Collection<FullSchedule> inserts) {
+            transactions++;
+            super.updateAndInsert(updates, inserts);
+        }
+
+    }
+
+}
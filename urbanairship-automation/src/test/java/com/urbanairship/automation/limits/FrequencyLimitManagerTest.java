@@ -298,6 +298,64 @@ public class FrequencyLimitManagerTest {
         assertEquals(1, dao.getOccurrences("foo").size());
     }
 
+    @Test
+    public void testExistingOccurrences() throws ExecutionException, InterruptedException {
+        limitManager.updateConstraints(Collections.singletonList(FrequencyConstraint.newBuilder()
+                                                                                    .setCount(2)
+                                                                                    .setRange(TimeUnit.MILLISECONDS, 10)
+                                                                                    .setId("foo")
+                                                                                    .build()));
+
+        clock.currentTimeMillis = 100;
+        FrequencyChecker checker = limitManager.getFrequencyChecker(ids("foo")).get();
+        assertTrue(checker.checkAndIncrement());
+        clock.currentTimeMillis = 101;
+        assertTrue(checker.checkAndIncrement());
+        clock.currentTimeMillis = 105;
+
+        // New checker loads the occurrences from the database
+        FrequencyChecker otherChecker = limitManager.getFrequencyChecker(ids("foo")).get();
+        assertTrue(otherChecker.isOverLimit());
+
+        clock.currentTimeMillis = 111;
+        assertFalse(otherChecker.isOverLimit());
+        assertTrue(otherChecker.checkAndIncrement());
+        assertTrue(checker.isOverLimit());
+        assertTrue(otherChecker.isOverLimit());
+    }
+
+    @Test
+    public void testUpdateConstraintsPrunesExpiredOccurrences() throws ExecutionException, InterruptedException {
+        List<FrequencyConstraint> constraints = new ArrayList<>();
+        constraints.add(FrequencyConstraint.newBuilder()
+                                           .setCount(5)
+                                           .setRange(TimeUnit.MILLISECONDS, 10)
+                                           .setId("foo")
+                                           .build());
+        constraints.add(FrequencyConstraint.newBuilder()
+                                           .setCount(5)
+                                           .setRange(TimeUnit.MILLISECONDS, 100)
+                                           .setId("bar")
+                                           .build());
+
+        limitManager.updateConstraints(constraints);
+
+        FrequencyChecker checker = limitManager.getFrequencyChecker(ids("foo", "bar")).get();
+        clock.currentTimeMillis = 0;
+        assertTrue(checker.checkAndIncrement());
+        clock.currentTimeMillis = 20;
+        assertTrue(checker.checkAndIncrement());
+
+        clock.currentTimeMillis = 25;
+        assertTrue(limitManager.updateConstraints(constraints).get());
+
+        List<OccurrenceEntity> fooList = dao.getOccurrences("foo");
+        assertEquals(1, fooList.size());
+        assertEquals(20, fooList.get(0).timeStamp);
+
+        assertEquals(2, dao.getOccurrences("bar").size());
+    }
+
     private static Collection<String> ids(String... ids) {
         return Arrays.asList(ids);
     }
@@ -0,0 +1,276 @@
+/* Copyright Airship and Contributors */
+
+package com.urbanairship.automation.storage;
+
+import android.content.Context;
+
+import com.urbanairship.TestClock;
+import com.urbanairship.automation.Trigger;
+import com.urbanairship.json.JsonMatcher;
+import com.urbanairship.json.JsonPredicate;
+import com.urbanairship.json.JsonValue;
+import com.urbanairship.json.ValueMatcher;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import androidx.annotation.NonNull;
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(AndroidJUnit4.class)
+public class TriggerIndexDaoTest {
+
+    private AutomationDatabase database;
+    private AutomationDao roomDao;
+    private TestClock clock;
+    private TriggerIndexDao dao;
+
+    @Before
+    public void setup() {
+        Context context = ApplicationProvider.getApplicationContext();
+        database = Room.inMemoryDatabaseBuilder(context, AutomationDatabase.class)
+                       .allowMainThreadQueries()
+                       .build();
+
+        roomDao = spy(new AutomationDaoWrapper(database.getScheduleDao()));
+        clock = new TestClock();
+        clock.currentTimeMillis = 1000;
+        dao = new TriggerIndexDao(roomDao, clock);
+    }
+
+    @After
+    public void teardown() {
+        database.close();
+    }
+
+    @Test
+    public void testActiveTriggersMatchDatabase() {
+        dao.insert(createSchedule("idle", ScheduleState.IDLE, -1));
+        dao.insert(createSchedule("delayed", ScheduleState.TIME_DELAYED, -1));
+        dao.insert(createSchedule("finished", ScheduleState.FINISHED, -1));
+
+        assertTriggers(roomDao.getActiveTriggers(Trigger.CUSTOM_EVENT_COUNT), dao.getActiveTriggers(Trigger.CUSTOM_EVENT_COUNT));
+        assertTriggers(roomDao.getActiveTriggers(Trigger.SCREEN_VIEW), dao.getActiveTriggers(Trigger.SCREEN_VIEW));
+        assertTriggers(roomDao.getActiveTriggers(Trigger.SCREEN_VIEW, "delayed"), dao.getActiveTriggers(Trigger.SCREEN_VIEW, "delayed"));
+
+        List<TriggerEntity> triggers = dao.getActiveTriggers(Trigger.CUSTOM_EVENT_COUNT);
+        assertEquals(1, triggers.size());
+        assertEquals("idle", triggers.get(0).parentScheduleId);
+        assertNotNull(triggers.get(0).jsonPredicate);
+
+        triggers = dao.getActiveTriggers(Trigger.SCREEN_VIEW);
+        assertEquals(1, triggers.size());
+        assertEquals("delayed", triggers.get(0).parentScheduleId);
+        assertTrue(triggers.get(0).isCancellation);
+    }
+
+    @Test
+    public void testActiveTriggersLoadedOnce() {
+        dao.insert(createSchedule("idle", ScheduleState.IDLE, -1));
+
+        dao.getActiveTriggers(Trigger.CUSTOM_EVENT_COUNT);
+        dao.getActiveTriggers(Trigger.CUSTOM_EVENT_COUNT);
+        dao.getActiveTriggers(Trigger.SCREEN_VIEW, "idle");
+
+        verify(roomDao, times(1)).getSchedules();
+    }
+
+    @Test
+    public void testInsertAfterLoad() {
+        assertTrue(dao.getActiveTriggers(Trigger.CUSTOM_EVENT_COUNT).isEmpty());
+
+        dao.insert(Arrays.asList(createSchedule("one", ScheduleState.IDLE, -1), createSchedule("two", ScheduleState.IDLE, -1)));
+
+        List<TriggerEntity> triggers = dao.getActiveTriggers(Trigger.CUSTOM_EVENT_COUNT);
+        assertEquals(2, triggers.size());
+        assertTriggers(roomDao.getActiveTriggers(Trigger.CUSTOM_EVENT_COUNT), triggers);
+    }
+
+    @Test
+    public void testStateTransitions() {
+        dao.insert(createSchedule("schedule", ScheduleState.IDLE, -1));
+        assertEquals(1, dao.getActiveTriggers(Trigger.CUSTOM_EVENT_COUNT).size());
+        assertTrue(dao.getActiveTriggers(Trigger.SCREEN_VIEW).isEmpty());
+
+        FullSchedule entry = dao.getSchedule("schedule");
+        entry.schedule.executionState = ScheduleState.WAITING_SCHEDULE_CONDITIONS;
+        dao.update(entry);
+
+        assertTrue(dao.getActiveTriggers(Trigger.CUSTOM_EVENT_COUNT).isEmpty());
+        assertEquals(1, dao.getActiveTriggers(Trigger.SCREEN_VIEW).size());
+
+        entry.schedule.executionState = ScheduleState.EXECUTING;
+        dao.update(entry);
+
+        assertTrue(dao.getActiveTriggers(Trigger.CUSTOM_EVENT_COUNT).isEmpty());
+        assertTrue(dao.getActiveTriggers(Trigger.SCREEN_VIEW).isEmpty());
+
+        entry.schedule.executionState = ScheduleState.IDLE;
+        dao.update(entry);
+
+        assertTriggers(roomDao.getActiveTriggers(Trigger.CUSTOM_EVENT_COUNT), dao.getActiveTriggers(Trigger.CUSTOM_EVENT_COUNT));
+    }
+
+    @Test
+    public void testDelete() {
+        dao.insert(createSchedule("schedule", ScheduleState.IDLE, -1));
+        assertEquals(1, dao.getActiveTriggers(Trigger.CUSTOM_EVENT_COUNT).size());
+
+        dao.delete(dao.getSchedule("schedule"));
+        assertTrue(dao.getActiveTriggers(Trigger.CUSTOM_EVENT_COUNT).isEmpty());
+    }
+
+    @Test
+    public void testScheduleStart() {
+        dao.insert(createSchedule("schedule", ScheduleState.IDLE, 2000));
+        assertTrue(dao.getActiveTriggers(Trigger.CUSTOM_EVENT_COUNT).isEmpty());
+        assertTrue(dao.getActiveTriggers(Trigger.CUSTOM_EVENT_COUNT, "schedule").isEmpty());
+
+        clock.currentTimeMillis = 2000;
+        assertEquals(1, dao.getActiveTriggers(Trigger.CUSTOM_EVENT_COUNT).size());
+        assertEquals(1, dao.getActiveTriggers(Trigger.CUSTOM_EVENT_COUNT, "schedule").size());
+    }
+
+    @Test
+    public void testUpdateTriggersKeepsProgress() {
+        dao.insert(createSchedule("schedule", ScheduleState.IDLE, -1));
+
+        TriggerEntity trigger = dao.getActiveTriggers(Trigger.CUSTOM_EVENT_COUNT).get(0);
+        trigger.progress = 2;
+        dao.updateTriggers(Collections.singletonList(trigger));
+
+        TriggerEntity indexed = dao.getActiveTriggers(Trigger.CUSTOM_EVENT_COUNT).get(0);
+        assertSame(trigger, indexed);
+        assertEquals(2, indexed.progress, 0);
+        assertEquals(2, roomDao.getActiveTriggers(Trigger.CUSTOM_EVENT_COUNT).get(0).progress, 0);
+
+        // Progress from a copy of the trigger is applied to the indexed trigger
+        TriggerEntity copy = roomDao.getActiveTriggers(Trigger.CUSTOM_EVENT_COUNT).get(0);
+        copy.progress = 3;
+        dao.updateTriggers(Collections.singletonList(copy));
+
+        assertEquals(3, indexed.progress, 0);
+    }
+
+    @Test
+    public void testUpdateTriggerProgress() {
+        dao.insert(createSchedule("schedule", ScheduleState.IDLE, -1));
+
+        TriggerEntity trigger = dao.getActiveTriggers(Trigger.CUSTOM_EVENT_COUNT).get(0);
+        trigger.progress = 2;
+        dao.updateTriggerProgress(Collections.singletonList(trigger));
+
+        trigger.progress = 3;
+        dao.updateTriggerProgress(Collections.singletonList(trigger));
+
+        assertTrue(dao.hasPendingTriggers());
+        assertEquals(0, roomDao.getActiveTriggers(Trigger.CUSTOM_EVENT_COUNT).get(0).progress, 0);
+
+        dao.flushTriggers();
+
+        assertFalse(dao.hasPendingTriggers());
+        assertEquals(3, roomDao.getActiveTriggers(Trigger.CUSTOM_EVENT_COUNT).get(0).progress, 0);
+        verify(roomDao, times(1)).updateTriggers(Collections.singletonList(trigger));
+    }
+
+    @Test
+    public void testScheduleReadWritesTriggerProgress() {
+        dao.insert(createSchedule("schedule", ScheduleState.IDLE, -1));
+
+        TriggerEntity trigger = dao.getActiveTriggers(Trigger.CUSTOM_EVENT_COUNT).get(0);
+        trigger.progress = 4;
+        dao.updateTriggerProgress(Collections.singletonList(trigger));
+
+        // Schedules are read with the latest progress so a state change never writes stale progress
+        FullSchedule entry = dao.getSchedule("schedule");
+        assertFalse(dao.hasPendingTriggers());
+        for (TriggerEntity entity : entry.triggers) {
+            if (entity.triggerType == Trigger.CUSTOM_EVENT_COUNT) {
+                assertEquals(4, entity.progress, 0);
+            }
+        }
+
+        entry.schedule.executionState = ScheduleState.PREPARING_SCHEDULE;
+        dao.update(entry);
+        assertEquals(4, roomDao.getSchedule("schedule").triggers.get(0).progress, 0);
+    }
+
+    @Test
+    public void testUpdateTriggersWritesPendingProgress() {
+        dao.insert(createSchedule("one", ScheduleState.IDLE, -1));
+        dao.insert(createSchedule("two", ScheduleState.IDLE, -1));
+
+        List<TriggerEntity> triggers = dao.getActiveTriggers(Trigger.CUSTOM_EVENT_COUNT);
+        triggers.get(0).progress = 1;
+        dao.updateTriggerProgress(Collections.singletonList(triggers.get(0)));
+
+        // Goal reached on the other trigger, both are written in one batch
+        triggers.get(1).progress = 0;
+        dao.updateTriggers(Collections.singletonList(triggers.get(1)));
+
+        assertFalse(dao.hasPendingTriggers());
+        verify(roomDao).updateTriggers(Arrays.asList(triggers.get(0), triggers.get(1)));
+        assertEquals(1, roomDao.getActiveTriggers(Trigger.CUSTOM_EVENT_COUNT, "one").get(0).progress, 0);
+    }
+
+    @NonNull
+    private static FullSchedule createSchedule(@NonNull String scheduleId, int state, long start) {
+        ScheduleEntity entity = new ScheduleEntity();
+        entity.scheduleId = scheduleId;
+        entity.scheduleType = "actions";
+        entity.data = JsonValue.NULL;
+        entity.limit = 1;
+        entity.scheduleStart = start;
+        entity.scheduleEnd = -1;
+        entity.executionState = state;
+
+        List<TriggerEntity> triggers = new ArrayList<>();
+        triggers.add(createTrigger(scheduleId, Trigger.CUSTOM_EVENT_COUNT, false));
+        triggers.add(createTrigger(scheduleId, Trigger.SCREEN_VIEW, true));
+        return new FullSchedule(entity, triggers);
+    }
+
+    @NonNull
+    private static TriggerEntity createTrigger(@NonNull String scheduleId, int type, boolean isCancellation) {
+        TriggerEntity trigger = new TriggerEntity();
+        trigger.parentScheduleId = scheduleId;
+        trigger.triggerType = type;
+        trigger.goal = 5;
+        trigger.isCancellation = isCancellation;
+        trigger.jsonPredicate = JsonPredicate.newBuilder()
+                                             .addMatcher(JsonMatcher.newBuilder()
+                                                                    .setKey("event_name")
+                                                                    .setValueMatcher(ValueMatcher.newValueMatcher(JsonValue.wrap("name")))
+                                                                    .build())
+                                             .build();
+        return trigger;
+    }
+
+    private static void assertTriggers(@NonNull List<TriggerEntity> expected, @NonNull List<TriggerEntity> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).id, actual.get(i).id);
+            assertEquals(expected.get(i).parentScheduleId, actual.get(i).parentScheduleId);
+            assertEquals(expected.get(i).jsonPredicate, actual.get(i).jsonPredicate);
+        }
+    }
+
+}
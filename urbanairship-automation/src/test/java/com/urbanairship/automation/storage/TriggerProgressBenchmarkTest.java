@@ -0,0 +1,169 @@
+/* Copyright Airship and Contributors */
+
+package com.urbanairship.automation.storage;
+
+import android.content.Context;
+
+import com.urbanairship.Benchmarks;
+import com.urbanairship.automation.Trigger;
+import com.urbanairship.json.JsonValue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Replays a synthetic stream of custom events against the trigger index and compares writing
+ * trigger progress on every event against batching it on a flush timer.
+ * <p>
+ * Events are spaced {@link #EVENT_INTERVAL_MS} apart on a simulated clock, so the number of writes
+ * reflects the flush timer and not the speed of the test machine.
+ * <p>
+ * Only runs when benchmarks are enabled, see {@link Benchmarks}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class TriggerProgressBenchmarkTest {
+
+    private static final int EVENT_COUNT = 10000;
+    private static final int SCHEDULE_COUNT = 100;
+    private static final long EVENT_INTERVAL_MS = 10;
+    private static final long FLUSH_DELAY_MS = 1000;
+
+    private AutomationDatabase database;
+    private CountingDao countingDao;
+    private TriggerIndexDao dao;
+
+    @Before
+    public void setup() {
+        Benchmarks.assumeEnabled();
+
+        Context context = ApplicationProvider.getApplicationContext();
+        database = Room.inMemoryDatabaseBuilder(context, AutomationDatabase.class)
+                       .allowMainThreadQueries()
+                       .build();
+
+        countingDao = new CountingDao(database.getScheduleDao());
+        dao = new TriggerIndexDao(countingDao);
+
+        List<FullSchedule> schedules = new ArrayList<>();
+        for (int i = 0; i < SCHEDULE_COUNT; i++) {
+            ScheduleEntity entity = new ScheduleEntity();
+            entity.scheduleId = "schedule-" + i;
+            entity.scheduleType = "actions";
+            entity.data = JsonValue.NULL;
+            entity.scheduleStart = -1;
+            entity.scheduleEnd = -1;
+            entity.executionState = ScheduleState.IDLE;
+
+            TriggerEntity trigger = new TriggerEntity();
+            trigger.parentScheduleId = entity.scheduleId;
+            trigger.triggerType = Trigger.CUSTOM_EVENT_COUNT;
+            trigger.goal = Double.MAX_VALUE;
+
+            List<TriggerEntity> triggers = new ArrayList<>();
+            triggers.add(trigger);
+            schedules.add(new FullSchedule(entity, triggers));
+        }
+        dao.insert(schedules);
+    }
+
+    @After
+    public void teardown() {
+        if (database != null) {
+            database.close();
+        }
+    }
+
+    @Test
+    public void benchmarkTriggerProgress() {
+        // Write through
+        countingDao.triggerWrites = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            dao.updateTriggers(incrementProgress());
+        }
+        long writeThroughTime = System.nanoTime() - start;
+        int writeThroughWrites = countingDao.triggerWrites;
+
+        // Write behind
+        countingDao.triggerWrites = 0;
+        long time = 0;
+        long nextFlush = -1;
+        start = System.nanoTime();
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            time += EVENT_INTERVAL_MS;
+            dao.updateTriggerProgress(incrementProgress());
+            if (nextFlush < 0) {
+                nextFlush = time + FLUSH_DELAY_MS;
+            } else if (time >= nextFlush) {
+                dao.flushTriggers();
+                nextFlush = -1;
+            }
+        }
+        dao.flushTriggers();
+        long writeBehindTime = System.nanoTime() - start;
+        int writeBehindWrites = countingDao.triggerWrites;
+
+        // All progress made it to the database
+        for (TriggerEntity trigger : database.getScheduleDao().getActiveTriggers(Trigger.CUSTOM_EVENT_COUNT)) {
+            assertEquals(EVENT_COUNT * 2, trigger.progress, 0);
+        }
+
+        assertEquals(EVENT_COUNT, writeThroughWrites);
+        assertTrue(writeBehindWrites < writeThroughWrites);
+
+        double streamSeconds = TimeUnit.MILLISECONDS.toSeconds(EVENT_COUNT * EVENT_INTERVAL_MS);
+        System.out.println(String.format(Locale.ROOT, "TriggerProgressBenchmark: %d events over %.0fs, write-through %d writes (%.1f writes/s, %.0f events/s), write-behind %d writes (%.1f writes/s, %.0f events/s)",
+                EVENT_COUNT,
+                streamSeconds,
+                writeThroughWrites,
+                writeThroughWrites / streamSeconds,
+                EVENT_COUNT / (writeThroughTime / 1e9),
+                writeBehindWrites,
+                writeBehindWrites / streamSeconds,
+                EVENT_COUNT / (writeBehindTime / 1e9)));
+    }
+
+    @NonNull
+    private List<TriggerEntity> incrementProgress() {
+        List<TriggerEntity> triggers = dao.getActiveTriggers(Trigger.CUSTOM_EVENT_COUNT);
+        for (TriggerEntity trigger : triggers) {
+            trigger.progress += 1;
+        }
+        return triggers;
+    }
+
+    /**
+     * Counts trigger write transactions.
+     */
+    private static class CountingDao extends AutomationDaoWrapper {
+
+        int triggerWrites;
+
+        CountingDao(@NonNull AutomationDao dao) {
+            super(dao);
+        }
+
+        @Override
+        public void updateTriggers(@NonNull List<TriggerEntity> entities) {
+            triggerWrites++;
+            super.updateTriggers(entities);
+        }
+
+    }
+
+}
@@ -432,7 +432,8 @@ public class InAppMessageManagerTest {
             }
         });
 
-        manager.onNewMessageSchedule(scheduleId, extended);
+        Runnable onCacheDeferred = mock(Runnable.class);
+        manager.onNewMessageSchedule(scheduleId, extended, onCacheDeferred);
         verify(mockAssetManager).onSchedule(eq(scheduleId), argThat(new ArgumentMatcher<Callable<InAppMessage>>() {
             @Override
             public boolean matches(Callable<InAppMessage> argument) {
@@ -444,6 +445,18 @@ public class InAppMessageManagerTest {
                 }
             }
         }));
+
+        // Assets were not cached on schedule
+        verify(onCacheDeferred).run();
+    }
+
+    @Test
+    public void testNewScheduleCachedOnSchedule() {
+        when(mockAssetManager.onSchedule(eq(scheduleId), any(Callable.class))).thenReturn(true);
+
+        Runnable onCacheDeferred = mock(Runnable.class);
+        manager.onNewMessageSchedule(scheduleId, message, onCacheDeferred);
+        verify(onCacheDeferred, never()).run();
     }
 
     @Test
@@ -15,6 +15,8 @@ import java.util.concurrent.Callable;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
@@ -58,12 +60,12 @@ public class AssetManagerTest {
         when(mockCache.getAssets("some-id")).thenReturn(mockAssets);
         when(mockCachePolicyDelegate.shouldCacheOnSchedule("some-id", extendedMessage)).thenReturn(true);
 
-        assetManager.onSchedule("some-id", new Callable<InAppMessage>() {
+        assertTrue(assetManager.onSchedule("some-id", new Callable<InAppMessage>() {
             @Override
             public InAppMessage call() {
                 return extendedMessage;
             }
-        });
+        }));
 
         verify(mockAssetsDelegate).onSchedule("some-id", extendedMessage, mockAssets);
     }
@@ -77,16 +79,36 @@ public class AssetManagerTest {
         when(mockCache.getAssets("some-id")).thenReturn(mockAssets);
         when(mockCachePolicyDelegate.shouldCacheOnSchedule("some-id", MESSAGE)).thenReturn(false);
 
-        assetManager.onSchedule("Some-id", new Callable<InAppMessage>() {
+        assertFalse(assetManager.onSchedule("Some-id", new Callable<InAppMessage>() {
             @Override
             public InAppMessage call() {
                 return MESSAGE;
             }
-        });
+        }));
 
         verifyNoInteractions(mockAssetsDelegate);
     }
 
+    /**
+     * Test prefetching assets ignores the cache policy.
+     */
+    @Test
+    public void testPrefetch() {
+        Assets mockAssets = mock(Assets.class);
+        when(mockCache.getAssets("some-id")).thenReturn(mockAssets);
+        when(mockCachePolicyDelegate.shouldCacheOnSchedule("some-id", MESSAGE)).thenReturn(false);
+
+        assetManager.onPrefetch("some-id", new Callable<InAppMessage>() {
+            @Override
+            public InAppMessage call() {
+                return MESSAGE;
+            }
+        });
+
+        verify(mockAssetsDelegate).onSchedule("some-id", MESSAGE, mockAssets);
+        verify(mockCache).releaseAssets("some-id", false);
+    }
+
     /**
      * Test preparing assets when a message is being prepared for display.
      */
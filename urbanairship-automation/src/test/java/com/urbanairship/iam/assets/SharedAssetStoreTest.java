@@ -0,0 +1,144 @@
+/* Copyright Airship and Contributors */
+
+package com.urbanairship.iam.assets;
+
+import android.content.Context;
+
+import com.urbanairship.TestClock;
+import com.urbanairship.util.FileUtils;
+import com.urbanairship.util.UAStringUtil;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+import androidx.annotation.NonNull;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link SharedAssetStore}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SharedAssetStoreTest {
+
+    private SharedAssetStore store;
+    private QueueExecutor executor;
+    private File directory;
+
+    @Before
+    public void setup() {
+        Context context = ApplicationProvider.getApplicationContext();
+        directory = new File(context.getCacheDir(), "shared_asset_store_test");
+        FileUtils.deleteRecursively(directory);
+
+        executor = new QueueExecutor();
+        store = new SharedAssetStore(directory, executor, new TestClock(), SharedAssetStore.DISK_BUDGET_BYTES);
+    }
+
+    /**
+     * Test concurrent fetches of the same URL share a single download.
+     */
+    @Test
+    public void testFetchDeduplicated() {
+        Future<FileUtils.DownloadResult> first = store.fetch("https://example.com/image.png");
+        Future<FileUtils.DownloadResult> second = store.fetch("https://example.com/image.png");
+        Future<FileUtils.DownloadResult> other = store.fetch("https://example.com/other.png");
+
+        assertSame(first, second);
+        assertNotSame(first, other);
+        assertEquals(2, executor.runnables.size());
+    }
+
+    /**
+     * Test a URL is fetched again once its previous fetch finishes.
+     */
+    @Test
+    public void testFetchAfterFinished() {
+        Future<FileUtils.DownloadResult> first = store.fetch("not a url");
+        executor.runAll();
+        assertTrue(first.isDone());
+
+        Future<FileUtils.DownloadResult> second = store.fetch("not a url");
+        assertNotSame(first, second);
+    }
+
+    /**
+     * Test linking a URL that is not stored.
+     */
+    @Test
+    public void testLinkNotStored() {
+        File target = new File(directory, "target");
+        assertFalse(store.link("https://example.com/image.png", target));
+        assertFalse(target.exists());
+        assertTrue(store.getMetadata("https://example.com/image.png").isEmpty());
+    }
+
+    /**
+     * Test stored assets are only evicted once every linked file is deleted.
+     */
+    @Test
+    public void testTrimKeepsReferencedAssets() throws IOException {
+        store = new SharedAssetStore(directory, executor, new TestClock(), 0);
+
+        String url = "https://example.com/image.png";
+        File stored = new File(directory, UAStringUtil.sha256(url));
+        assertTrue(directory.mkdirs());
+        FileOutputStream outputStream = new FileOutputStream(stored);
+        outputStream.write(new byte[] { 1, 2, 3 });
+        outputStream.close();
+
+        File assets = new File(directory.getParentFile(), "shared_asset_store_test_assets");
+        FileUtils.deleteRecursively(assets);
+        assertTrue(assets.mkdirs());
+
+        File first = new File(assets, "first");
+        File second = new File(assets, "second");
+        assertTrue(store.link(url, first));
+        assertTrue(store.link(url, second));
+        store.trim();
+        assertTrue(stored.exists());
+
+        assertTrue(first.delete());
+        store.trim();
+        assertTrue(stored.exists());
+
+        assertTrue(second.delete());
+        store.trim();
+        assertFalse(stored.exists());
+    }
+
+    private static class QueueExecutor implements Executor {
+
+        final List<Runnable> runnables = new ArrayList<>();
+
+        @Override
+        public void execute(@NonNull Runnable runnable) {
+            runnables.add(runnable);
+        }
+
+        void runAll() {
+            List<Runnable> pending = new ArrayList<>(runnables);
+            runnables.clear();
+            for (Runnable runnable : pending) {
+                runnable.run();
+            }
+        }
+
+    }
+
+}
@@ -47,3 +47,6 @@
 -dontwarn com.urbanairship.location.FusedLocationAdapter*
 -dontwarn com.urbanairship.activity.ThemedActivity*
 -dontnote com.urbanairship.google.PlayServicesUtils
+-dontwarn com.urbanairship.http.OkHttpTransport*
+-dontwarn okhttp3.**
+-dontwarn okio.**
@@ -55,6 +55,23 @@ public class AnalyticsDatabaseMigrationTest {
         assertFalse(hasDuplicates(db));
     }
 
+    @Test
+    public void migrate3to4() throws IOException {
+        SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 3);
+        for (int i = 0; i < 4; i++) {
+            insertEvent(db, "event-" + i, "session-1");
+        }
+        db.close();
+
+        db = helper.runMigrationsAndValidate(TEST_DB, 4, true, AnalyticsDatabase.MIGRATION_3_4);
+
+        // Validate the data is untouched and the session index exists.
+        assertEquals(4, getEventCount(db));
+        Cursor cursor = db.query("SELECT name FROM sqlite_master WHERE type = 'index' AND name = 'index_events_sessionId'");
+        assertEquals(1, cursor.getCount());
+        cursor.close();
+    }
+
     @SuppressWarnings("SameParameterValue")
     private static void insertEvent(SupportSQLiteDatabase db, String eventId, String sessionId) {
         ContentValues values = new ContentValues();
@@ -3,6 +3,7 @@
 package com.urbanairship;
 
 import java.util.List;
+import java.util.Map;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.RestrictTo;
@@ -47,4 +48,21 @@ public abstract class PreferenceDataDao {
     @Query("SELECT _id FROM preferences")
     @NonNull
     public abstract List<String> queryKeys();
+
+    /**
+     * Writes a batch of preferences in a single transaction.
+     *
+     * @param values The preference values by key. A {@code null} value deletes the preference.
+     */
+    @Transaction
+    public void write(@NonNull Map<String, String> values) {
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            if (entry.getValue() == null) {
+                delete(entry.getKey());
+            } else {
+                upsert(new PreferenceData(entry.getKey(), entry.getValue()));
+            }
+        }
+    }
+
 }
@@ -12,6 +12,7 @@ import com.urbanairship.util.UAStringUtil;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executor;
@@ -42,6 +43,33 @@ public final class PreferenceDataStore {
     Executor executor = AirshipExecutors.newSerialExecutor();
     private final Map<String, Preference> preferences = new HashMap<>();
 
+    /*
+     * Write-back journal of values that have not been written to the database yet, in the order
+     * the keys were first changed. A null value deletes the preference.
+     */
+    private final Map<String, String> pendingWrites = new LinkedHashMap<>();
+    private boolean isFlushScheduled = false;
+
+    /*
+     * Number of batches being applied. Flushes wait for them so a batch is never written in part.
+     */
+    private int openBatches = 0;
+
+    /*
+     * Held while writing to the database so journal flushes and sync puts are written in order.
+     */
+    private final Object writeLock = new Object();
+
+    private final Runnable flushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (pendingWrites) {
+                isFlushScheduled = false;
+            }
+            flush();
+        }
+    };
+
     private final PreferenceDataDao dao;
     private final PreferenceDataDatabase db;
 
@@ -175,9 +203,81 @@ public final class PreferenceDataStore {
      */
     public void tearDown() {
         listeners.clear();
+        flush();
         db.close();
     }
 
+    /**
+     * Writes any pending preference changes to the database in a single transaction. This method
+     * will block on the database write.
+     */
+    public void flush() {
+        synchronized (writeLock) {
+            Map<String, String> writes;
+            synchronized (pendingWrites) {
+                awaitOpenBatches();
+                if (pendingWrites.isEmpty()) {
+                    return;
+                }
+                writes = new LinkedHashMap<>(pendingWrites);
+                pendingWrites.clear();
+            }
+
+            try {
+                Logger.verbose("Saving preferences: %s", writes.keySet());
+                dao.write(writes);
+            } catch (Exception e) {
+                Logger.error(e, "Failed to write preferences %s", writes.keySet());
+            }
+        }
+    }
+
+    /**
+     * Waits for any open batches to finish. Must be called while holding the pending writes lock.
+     */
+    private void awaitOpenBatches() {
+        boolean interrupted = false;
+        while (openBatches > 0) {
+            try {
+                pendingWrites.wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Adds a value to the write-back journal, replacing any pending value for the key.
+     *
+     * @param key The preference key.
+     * @param value The value, or {@code null} to delete the preference.
+     */
+    private void enqueueWrite(@NonNull String key, @Nullable String value) {
+        synchronized (pendingWrites) {
+            pendingWrites.put(key, value);
+            if (isFlushScheduled) {
+                return;
+            }
+            isFlushScheduled = true;
+        }
+        executor.execute(flushRunnable);
+    }
+
+    /**
+     * Removes any pending value for the key from the write-back journal.
+     *
+     * @param key The preference key.
+     */
+    private void cancelWrite(@NonNull String key) {
+        synchronized (pendingWrites) {
+            pendingWrites.remove(key);
+        }
+    }
+
     /**
      * Checks if the value is set.
      *
@@ -196,8 +296,7 @@ public final class PreferenceDataStore {
      * @return The boolean value for the preference or defaultValue if it doesn't exist.
      */
     public boolean getBoolean(@NonNull String key, boolean defaultValue) {
-        String value = getPreference(key).get();
-        return value == null ? defaultValue : Boolean.parseBoolean(value);
+        return getPreference(key).getBoolean(defaultValue);
     }
 
     /**
@@ -222,16 +321,7 @@ public final class PreferenceDataStore {
      * @return The long value for the preference or defaultValue if it doesn't exist.
      */
     public long getLong(@NonNull String key, long defaultValue) {
-        String value = getPreference(key).get();
-        if (value == null) {
-            return defaultValue;
-        }
-
-        try {
-            return Long.parseLong(value);
-        } catch (NumberFormatException e) {
-            return defaultValue;
-        }
+        return getPreference(key).getLong(defaultValue);
     }
 
     /**
@@ -243,16 +333,7 @@ public final class PreferenceDataStore {
      * @return The integer value for the preference or defaultValue if it doesn't exist.
      */
     public int getInt(@NonNull String key, int defaultValue) {
-        String value = getPreference(key).get();
-        if (value == null) {
-            return defaultValue;
-        }
-
-        try {
-            return Integer.parseInt(value);
-        } catch (NumberFormatException e) {
-            return defaultValue;
-        }
+        return getPreference(key).getInt(defaultValue);
     }
 
     /**
@@ -263,13 +344,7 @@ public final class PreferenceDataStore {
      */
     @NonNull
     public JsonValue getJsonValue(@NonNull String key) {
-        try {
-            return JsonValue.parseString(getPreference(key).get());
-        } catch (JsonException e) {
-            // Should never happen
-            Logger.debug(e, "Unable to parse preference value: %s", key);
-            return JsonValue.NULL;
-        }
+        return getPreference(key).getJsonValue();
     }
 
     /**
@@ -362,6 +437,31 @@ public final class PreferenceDataStore {
         }
     }
 
+    /**
+     * Stores several values in the preferences. The values are written to the database in the
+     * same transaction, so a partial batch is never persisted.
+     *
+     * @param values The preference values by name. A {@code null} value deletes the preference.
+     */
+    public void putAll(@NonNull Map<String, JsonValue> values) {
+        synchronized (pendingWrites) {
+            openBatches++;
+        }
+
+        try {
+            for (Map.Entry<String, JsonValue> entry : values.entrySet()) {
+                put(entry.getKey(), entry.getValue());
+            }
+        } finally {
+            synchronized (pendingWrites) {
+                openBatches--;
+                if (openBatches == 0) {
+                    pendingWrites.notifyAll();
+                }
+            }
+        }
+    }
+
     /**
      * Put new or replace an existing preference. This method will block on the
      * database write.
@@ -409,12 +509,20 @@ public final class PreferenceDataStore {
     /**
      * A helper class that handles fetching, writing, and syncing with the
      * preference provider.
+     * <p>
+     * Parsed values are cached next to the string value and cleared whenever the value changes,
+     * so repeated typed reads only parse the string once.
      */
     private class Preference {
 
         private final String key;
         private String value;
 
+        private JsonValue jsonValue;
+        private Long longValue;
+        private Integer intValue;
+        private Boolean booleanValue;
+
         Preference(String key, String value) {
             this.key = key;
             this.value = value;
@@ -432,21 +540,102 @@ public final class PreferenceDataStore {
         }
 
         /**
-         * Put a new value for the preference.
+         * Gets the value as a boolean.
          *
-         * @param value Value of the preference.
+         * @param defaultValue The value to return if the preference doesn't exist.
+         * @return The boolean value.
          */
-        void put(final String value) {
-            if (setValue(value)) {
-                executor.execute(new Runnable() {
-                    @Override
-                    public void run() {
-                        writeValue(value);
+        boolean getBoolean(boolean defaultValue) {
+            synchronized (this) {
+                if (booleanValue == null) {
+                    if (value == null) {
+                        return defaultValue;
+                    }
+                    booleanValue = Boolean.parseBoolean(value);
+                }
+                return booleanValue;
+            }
+        }
+
+        /**
+         * Gets the value as a long.
+         *
+         * @param defaultValue The value to return if the preference doesn't exist or cannot be
+         * coerced into a long.
+         * @return The long value.
+         */
+        long getLong(long defaultValue) {
+            synchronized (this) {
+                if (longValue == null) {
+                    if (value == null) {
+                        return defaultValue;
+                    }
+
+                    try {
+                        longValue = Long.parseLong(value);
+                    } catch (NumberFormatException e) {
+                        return defaultValue;
+                    }
+                }
+                return longValue;
+            }
+        }
+
+        /**
+         * Gets the value as an int.
+         *
+         * @param defaultValue The value to return if the preference doesn't exist or cannot be
+         * coerced into an int.
+         * @return The int value.
+         */
+        int getInt(int defaultValue) {
+            synchronized (this) {
+                if (intValue == null) {
+                    if (value == null) {
+                        return defaultValue;
+                    }
+
+                    try {
+                        intValue = Integer.parseInt(value);
+                    } catch (NumberFormatException e) {
+                        return defaultValue;
                     }
-                });
+                }
+                return intValue;
             }
         }
 
+        /**
+         * Gets the value as a {@link JsonValue}.
+         *
+         * @return The parsed value, or {@link JsonValue#NULL} if the preference doesn't exist.
+         */
+        @NonNull
+        JsonValue getJsonValue() {
+            synchronized (this) {
+                if (jsonValue == null) {
+                    try {
+                        jsonValue = JsonValue.parseString(value);
+                    } catch (JsonException e) {
+                        // Should never happen
+                        Logger.debug(e, "Unable to parse preference value: %s", key);
+                        jsonValue = JsonValue.NULL;
+                    }
+                }
+                return jsonValue;
+            }
+        }
+
+        /**
+         * Put a new value for the preference. The value is written to the database
+         * on the next journal flush.
+         *
+         * @param value Value of the preference.
+         */
+        void put(final String value) {
+            setValue(value, true);
+        }
+
         /**
          * Puts the preferences value.
          * <p>
@@ -458,11 +647,19 @@ public final class PreferenceDataStore {
          */
         boolean putSync(String value) {
             synchronized (this) {
-                if (writeValue(value)) {
-                    setValue(value);
-                    return true;
+                boolean written;
+                synchronized (writeLock) {
+                    written = writeValue(value);
+                    if (written) {
+                        // Any pending value is older, drop it so it does not overwrite this one
+                        cancelWrite(key);
+                    }
                 }
-                return false;
+
+                if (written) {
+                    setValue(value, false);
+                }
+                return written;
             }
         }
 
@@ -471,14 +668,23 @@ public final class PreferenceDataStore {
          * method.
          *
          * @param value The value of the preference.
+         * @param writeBack {@code true} to add the value to the write-back journal if it changed.
          * @return {@code true} if the value changed, otherwise {@code false}.
          */
-        private boolean setValue(String value) {
+        private boolean setValue(String value, boolean writeBack) {
             synchronized (this) {
                 if (UAStringUtil.equals(value, this.value)) {
                     return false;
                 }
                 this.value = value;
+                this.jsonValue = null;
+                this.longValue = null;
+                this.intValue = null;
+                this.booleanValue = null;
+
+                if (writeBack) {
+                    enqueueWrite(key, value);
+                }
             }
             Logger.verbose("Preference updated: %s", key);
             onPreferenceChanged(key);
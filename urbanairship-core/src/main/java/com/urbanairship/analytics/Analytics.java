@@ -68,6 +68,25 @@ public class Analytics extends AirshipComponent {
         void onEventAdded(@NonNull Event event, @NonNull String sessionId);
     }
 
+    /**
+     * Listener for event uploads.
+     *
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    public interface UploadListener {
+
+        /**
+         * Called after a batch of events is uploaded.
+         *
+         * @param eventCount The number of events in the batch.
+         * @param bodySize The request body size in bytes before compression.
+         * @param wireSize The request body size in bytes that was sent.
+         */
+        void onEventsUploaded(int eventCount, long bodySize, long wireSize);
+
+    }
+
     /**
      * Delegate to add analytics headers.
      *
@@ -241,6 +260,16 @@ public class Analytics extends AirshipComponent {
         eventListeners.add(eventListener);
     }
 
+    /**
+     * Adds an upload listener.
+     *
+     * @hide
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    public void addUploadListener(@NonNull UploadListener uploadListener) {
+        eventManager.addUploadListener(uploadListener);
+    }
+
     @Override
     protected void init() {
         super.init();
@@ -443,6 +472,14 @@ public class Analytics extends AirshipComponent {
         setConversionSendId(null);
         setConversionMetadata(null);
 
+        // Write buffered events right away, the process may be killed once backgrounded
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                eventManager.flushEvents();
+            }
+        });
+
         if (privacyManager.isEnabled(PrivacyManager.FEATURE_ANALYTICS)) {
             eventManager.scheduleEventUpload(0, TimeUnit.MILLISECONDS);
         }
@@ -7,16 +7,20 @@ import android.net.Uri;
 import com.urbanairship.Logger;
 import com.urbanairship.config.AirshipRuntimeConfig;
 import com.urbanairship.http.Request;
+import com.urbanairship.http.RequestBody;
 import com.urbanairship.http.RequestException;
 import com.urbanairship.http.RequestFactory;
 import com.urbanairship.http.Response;
-import com.urbanairship.http.ResponseParser;
-import com.urbanairship.json.JsonException;
-import com.urbanairship.json.JsonList;
+import com.urbanairship.http.StreamResponseParser;
 import com.urbanairship.json.JsonValue;
-
-import java.util.ArrayList;
-import java.util.Collection;
+import com.urbanairship.json.JsonWriter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
@@ -37,6 +41,7 @@ import androidx.annotation.VisibleForTesting;
 public class EventApiClient {
 
     private static final String WARP9_PATH = "warp9/";
+    private static final int BUFFER_SIZE = 8192;
 
     private final RequestFactory requestFactory;
     private final AirshipRuntimeConfig runtimeConfig;
@@ -65,7 +70,34 @@ public class EventApiClient {
      * @return eventResponse
      */
     @NonNull
-    Response<EventResponse> sendEvents(@NonNull List<JsonValue> events,
+    Response<EventResponse> sendEvents(@NonNull final List<JsonValue> events,
+                                       @NonNull @Size(min=1) Map<String, String> headers) throws RequestException {
+        return sendEvents(new PayloadWriter() {
+            @Override
+            public int write(@NonNull JsonWriter writer) throws IOException {
+                int count = 0;
+                for (JsonValue event : events) {
+                    if (event == null || event.isNull()) {
+                        continue;
+                    }
+                    writer.value(event);
+                    count++;
+                }
+                return count;
+            }
+        }, headers);
+    }
+
+    /**
+     * Sends a batch of events. The payloads are streamed into the compressed request body so the
+     * full batch is never held in memory.
+     *
+     * @param payloadWriter Writes the event payloads.
+     * @param headers Headers
+     * @return eventResponse
+     */
+    @NonNull
+    Response<EventResponse> sendEvents(@NonNull PayloadWriter payloadWriter,
                                        @NonNull @Size(min=1) Map<String, String> headers) throws RequestException {
 
         Uri url = runtimeConfig.getUrlConfig()
@@ -73,27 +105,88 @@ public class EventApiClient {
                                .appendEncodedPath(WARP9_PATH)
                                .build();
 
-        String payload = JsonValue.wrapOpt(events).toString();
         double sentAt = System.currentTimeMillis() / 1000.0;
 
+        EventsRequestBody body = new EventsRequestBody(payloadWriter);
         Request request = requestFactory.createRequest()
                                         .setOperation("POST", url)
-                                        .setRequestBody(payload, "application/json")
+                                        .setRequestBody(body)
                                         .setCompressRequestBody(true)
                                         .setHeader("X-UA-Sent-At", String.format(Locale.US, "%.3f", sentAt))
                                         .setAirshipUserAgent(runtimeConfig)
                                         .addHeaders(headers);
 
-        Logger.debug("Sending analytics events. Request: %s Events: %s", request, events);
-        Response<EventResponse> response = request.execute(new ResponseParser<EventResponse>() {
+        Logger.debug("Sending analytics events. Request: %s", request);
+        // The body is never read, only the headers are needed
+        Response<EventResponse> response = request.executeStreaming(new StreamResponseParser<EventResponse>() {
             @Override
-            public EventResponse parseResponse(int status, @Nullable Map<String, List<String>> headers, @Nullable String responseBody) {
+            public EventResponse parseResponse(int status, @Nullable Map<String, List<String>> headers, @Nullable InputStream responseBody) {
                 headers = headers == null ? Collections.<String, List<String>>emptyMap() : headers;
                 return new EventResponse(headers);
             }
         });
 
-        Logger.debug("Analytics event response: %s", response);
+        long size = response.getRequestBodySize();
+        long wireSize = response.getRequestBodyWireSize();
+        Logger.debug("Analytics event response: %s Events: %s Body size: %s bytes, on the wire: %s bytes (%.1f%%)",
+                response, body.getEventCount(), size, wireSize, size > 0 ? wireSize * 100.0 / size : 0.0);
         return response;
     }
+
+    /**
+     * Writes event payloads into an upload.
+     */
+    interface PayloadWriter {
+
+        /**
+         * Writes each event payload as an array element. May be called more than once if the
+         * request is retried.
+         *
+         * @param writer The JSON writer, positioned inside the events array.
+         * @return The number of events written.
+         * @throws IOException If the payloads are unable to be written.
+         */
+        int write(@NonNull JsonWriter writer) throws IOException;
+
+    }
+
+    /**
+     * Request body that writes the events array straight to the request stream.
+     */
+    private static class EventsRequestBody implements RequestBody {
+
+        private final PayloadWriter payloadWriter;
+        private volatile int eventCount;
+
+        EventsRequestBody(@NonNull PayloadWriter payloadWriter) {
+            this.payloadWriter = payloadWriter;
+        }
+
+        @Nullable
+        @Override
+        public String getContentType() {
+            return "application/json";
+        }
+
+        @Override
+        public long getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public void writeTo(@NonNull OutputStream outputStream) throws IOException {
+            Writer out = new BufferedWriter(new OutputStreamWriter(outputStream, "UTF-8"), BUFFER_SIZE);
+            JsonWriter writer = new JsonWriter(out);
+            writer.beginArray();
+            eventCount = payloadWriter.write(writer);
+            writer.endArray();
+            writer.flush();
+        }
+
+        int getEventCount() {
+            return eventCount;
+        }
+
+    }
+
 }
@@ -1,11 +1,15 @@
 package com.urbanairship.analytics.data;
 
+import android.database.Cursor;
+
 import com.urbanairship.Logger;
 import com.urbanairship.util.UAStringUtil;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import androidx.annotation.RestrictTo;
+import androidx.core.util.Consumer;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
@@ -23,6 +27,9 @@ public abstract class EventDao {
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     public abstract void insert(EventEntity event);
 
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    public abstract void insert(List<EventEntity> events);
+
     @Transaction
     @Query("SELECT * FROM events ORDER BY id ASC")
     public abstract List<EventEntity> get();
@@ -31,13 +38,53 @@ public abstract class EventDao {
     @Query("SELECT id, eventId, data FROM events ORDER BY id ASC LIMIT :limit")
     public abstract List<EventEntity.EventIdAndData> getBatch(int limit);
 
+    /**
+     * Gets the ID of the last event in the next batch.
+     *
+     * @param limit The max number of events in the batch.
+     * @return The ID of the last event in the batch, or 0 if there are no events.
+     */
+    @Query("SELECT MAX(id) FROM (SELECT id FROM events ORDER BY id ASC LIMIT :limit)")
+    public abstract int getBatchLastId(int limit);
+
+    /**
+     * Queries the raw event payloads up to and including the given event ID. The payloads are
+     * read from the cursor as encoded JSON strings so they can be streamed without parsing.
+     *
+     * @param lastId The ID of the last event.
+     * @return A cursor with a single data column.
+     */
+    @Query("SELECT data FROM events WHERE id <= :lastId ORDER BY id ASC")
+    public abstract Cursor getBatchPayloads(int lastId);
+
+    /**
+     * Deletes all events up to and including the given event ID.
+     *
+     * @param lastId The ID of the last event.
+     * @return The number of deleted events.
+     */
+    @Query("DELETE FROM events WHERE id <= :lastId")
+    public abstract int deleteBatch(int lastId);
+
     @Transaction
     public void deleteBatch(List<EventEntity.EventIdAndData> events) {
+        List<String> eventIds = new ArrayList<>(events.size());
         for (EventEntity.EventIdAndData event : events) {
-            delete(event.eventId);
+            eventIds.add(event.eventId);
         }
+
+        //noinspection Convert2MethodRef
+        Consumer<List<String>> consumer = ids -> deleteBatchInternal(ids);
+        BatchedQueryHelper.runBatched(eventIds, consumer);
     }
 
+    /**
+     * This query is only for internal use, with a {@code BatchedQueryHelper},
+     * which stops us from bumping into the max query params limit of 999.
+     */
+    @Query("DELETE FROM events WHERE eventId IN (:eventIds)")
+    abstract void deleteBatchInternal(List<String> eventIds);
+
     @Query("DELETE FROM events WHERE eventId = :eventId")
     abstract void delete(String eventId);
 
@@ -56,25 +103,40 @@ public abstract class EventDao {
     @Query("SELECT sessionId FROM events ORDER BY id ASC LIMIT 1")
     abstract String oldestSessionId();
 
+    @Query("SELECT SUM(eventSize) FROM events WHERE sessionId = :sessionId")
+    abstract int sessionSize(String sessionId);
+
     @Query("DELETE FROM events WHERE sessionId = :sessionId")
     abstract int deleteSession(String sessionId);
 
+    /**
+     * Deletes the oldest sessions until the database size is within the max size.
+     *
+     * @param maxDatabaseSize The max database size.
+     * @return The database size after trimming.
+     */
     @Transaction
-    public void trimDatabase(int maxDatabaseSize) {
-        while (databaseSize() > maxDatabaseSize) {
+    public int trimDatabase(int maxDatabaseSize) {
+        int size = databaseSize();
+        while (size > maxDatabaseSize) {
             String sessionId = oldestSessionId();
             if (UAStringUtil.isEmpty(sessionId)) {
-                return;
+                return size;
             }
 
             Logger.debug("Event database size exceeded. Deleting oldest session: %s", sessionId);
 
+            int sessionSize = sessionSize(sessionId);
             int deleted = deleteSession(sessionId);
             Logger.debug("Deleted %d rows with session ID %s", deleted, sessionId);
 
             if (deleted == 0) {
-                return;
+                return size;
             }
+
+            size -= sessionSize;
         }
+
+        return size;
     }
 }
@@ -20,7 +20,8 @@ import androidx.room.PrimaryKey;
  * @hide
  */
 @Entity(tableName = "events", indices = {
-    @Index(value = { "eventId" }, unique = true)
+    @Index(value = { "eventId" }, unique = true),
+    @Index(value = { "sessionId" })
 })
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
 public class EventEntity {
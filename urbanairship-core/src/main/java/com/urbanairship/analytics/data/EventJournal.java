@@ -0,0 +1,210 @@
+/* Copyright Airship and Contributors */
+
+package com.urbanairship.analytics.data;
+
+import com.urbanairship.Logger;
+import com.urbanairship.json.JsonException;
+import com.urbanairship.json.JsonMap;
+import com.urbanairship.json.JsonValue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Append-only journal for events that are buffered but not yet written to the database.
+ * <p>
+ * Each event is appended as one JSON line before it is buffered, so the buffer survives the
+ * process being killed. Before a flush the journal is rotated. The rotated file is deleted once
+ * the events are in the database. Anything left in the journal is replayed on the next start.
+ */
+class EventJournal {
+
+    private static final String TYPE_KEY = "type";
+    private static final String EVENT_ID_KEY = "event_id";
+    private static final String TIME_KEY = "time";
+    private static final String DATA_KEY = "data";
+    private static final String SESSION_ID_KEY = "session_id";
+    private static final String EVENT_SIZE_KEY = "event_size";
+
+    private static final String FLUSHING_SUFFIX = ".flushing";
+
+    private final File file;
+    private final File flushingFile;
+
+    @Nullable
+    private OutputStream output;
+
+    /**
+     * Default constructor.
+     *
+     * @param file The journal file.
+     */
+    EventJournal(@NonNull File file) {
+        this.file = file;
+        this.flushingFile = new File(file.getPath() + FLUSHING_SUFFIX);
+    }
+
+    /**
+     * Appends an event.
+     *
+     * @param entity The event.
+     * @throws IOException If the event could not be written.
+     */
+    synchronized void append(@NonNull EventEntity entity) throws IOException {
+        if (output == null) {
+            File parent = file.getParentFile();
+            if (parent != null && !parent.exists() && !parent.mkdirs()) {
+                throw new IOException("Unable to create journal directory: " + parent);
+            }
+            output = new FileOutputStream(file, true);
+        }
+
+        String line = JsonMap.newBuilder()
+                             .put(TYPE_KEY, entity.type)
+                             .put(EVENT_ID_KEY, entity.eventId)
+                             .put(TIME_KEY, entity.time)
+                             .put(DATA_KEY, entity.data)
+                             .put(SESSION_ID_KEY, entity.sessionId)
+                             .put(EVENT_SIZE_KEY, entity.eventSize)
+                             .build()
+                             .toString() + "\n";
+
+        // Unbuffered, so the line is handed to the OS before the event is acknowledged
+        output.write(line.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Moves the journaled events aside so they can be written to the database. Events appended
+     * afterwards go to a new journal. If a previous flush never completed, the events are added to
+     * the ones already waiting.
+     */
+    synchronized void rotate() {
+        close();
+
+        if (!file.exists()) {
+            return;
+        }
+
+        if (!flushingFile.exists()) {
+            if (file.renameTo(flushingFile)) {
+                return;
+            }
+            Logger.warn("EventJournal - Failed to rotate journal %s", file);
+        }
+
+        try {
+            copy(file, flushingFile);
+            delete(file);
+        } catch (IOException e) {
+            Logger.error(e, "EventJournal - Failed to rotate journal %s", file);
+        }
+    }
+
+    /**
+     * Reads the events waiting to be written by the last rotation.
+     *
+     * @return The events.
+     */
+    @NonNull
+    synchronized List<EventEntity> readRotated() {
+        List<EventEntity> entities = new ArrayList<>();
+        if (!flushingFile.exists()) {
+            return entities;
+        }
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(flushingFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                EventEntity entity = parse(line);
+                if (entity != null) {
+                    entities.add(entity);
+                }
+            }
+        } catch (IOException e) {
+            Logger.error(e, "EventJournal - Failed to read journal %s", flushingFile);
+        }
+
+        return entities;
+    }
+
+    /**
+     * Deletes the rotated events once they are written to the database.
+     */
+    synchronized void clearRotated() {
+        delete(flushingFile);
+    }
+
+    /**
+     * Deletes all journaled events.
+     */
+    synchronized void clear() {
+        close();
+        delete(file);
+        delete(flushingFile);
+    }
+
+    private void close() {
+        if (output == null) {
+            return;
+        }
+
+        try {
+            output.close();
+        } catch (IOException e) {
+            Logger.error(e, "EventJournal - Failed to close journal %s", file);
+        }
+        output = null;
+    }
+
+    @Nullable
+    private static EventEntity parse(@NonNull String line) {
+        if (line.isEmpty()) {
+            return null;
+        }
+
+        try {
+            JsonMap json = JsonValue.parseString(line).optMap();
+            return new EventEntity(
+                    json.opt(TYPE_KEY).getString(),
+                    json.opt(EVENT_ID_KEY).getString(),
+                    json.opt(TIME_KEY).getString(),
+                    json.opt(DATA_KEY),
+                    json.opt(SESSION_ID_KEY).getString(),
+                    json.opt(EVENT_SIZE_KEY).getInt(0)
+            );
+        } catch (JsonException e) {
+            // A partial line left by the process dying mid write
+            Logger.debug(e, "EventJournal - Skipping invalid journal entry");
+            return null;
+        }
+    }
+
+    private static void copy(@NonNull File from, @NonNull File to) throws IOException {
+        try (InputStream in = new FileInputStream(from); OutputStream out = new FileOutputStream(to, true)) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+    }
+
+    private static void delete(@NonNull File file) {
+        if (file.exists() && !file.delete()) {
+            Logger.warn("EventJournal - Failed to delete %s", file);
+        }
+    }
+
+}
@@ -1,7 +1,11 @@
 package com.urbanairship.analytics.data;
 
 import android.content.Context;
+import android.database.Cursor;
+import android.os.Handler;
+import android.os.Looper;
 
+import com.urbanairship.AirshipLoopers;
 import com.urbanairship.Logger;
 import com.urbanairship.PreferenceDataStore;
 import com.urbanairship.analytics.Analytics;
@@ -14,17 +18,22 @@ import com.urbanairship.http.Response;
 import com.urbanairship.job.JobDispatcher;
 import com.urbanairship.job.JobInfo;
 import com.urbanairship.json.JsonException;
-import com.urbanairship.json.JsonValue;
+import com.urbanairship.json.JsonWriter;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.RestrictTo;
 import androidx.annotation.VisibleForTesting;
 import androidx.annotation.WorkerThread;
+import androidx.core.content.ContextCompat;
 
 /**
  * Handles event storage and uploading.
@@ -68,23 +77,57 @@ public class EventManager {
      */
     private static final long MULTIPLE_BATCH_DELAY = 1000; // 1s
 
+    /**
+     * Max time added events are buffered before they are written in milliseconds.
+     */
+    private static final long FLUSH_DELAY = 25; // 25ms
+
+    /**
+     * Max number of added events buffered before they are written.
+     */
+    private static final int MAX_PENDING_EVENTS = 50;
+
+    private static final String JOURNAL_NAME = "_analytics_journal";
+
     private final PreferenceDataStore preferenceDataStore;
     private final JobDispatcher jobDispatcher;
     private final ActivityMonitor activityMonitor;
     private final EventDao eventDao;
     private final EventApiClient apiClient;
     private final AirshipRuntimeConfig runtimeConfig;
+    private final EventJournal journal;
+    private final List<Analytics.UploadListener> uploadListeners = new CopyOnWriteArrayList<>();
+
+    private final Handler flushHandler;
+    private final Runnable flushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flushEvents();
+        }
+    };
 
     private final Object eventLock = new Object();
     private final Object scheduleLock = new Object();
+    private final Object pendingLock = new Object();
 
     private boolean isScheduled;
 
+    // Events waiting to be written, guarded by pendingLock
+    private List<EventEntity> pendingEvents = new ArrayList<>();
+    private int pendingPriority = Event.LOW_PRIORITY;
+
+    // If the rotated journal may hold events that are not in the database, guarded by eventLock
+    private boolean replayJournal = true;
+
+    // Running total of the event sizes, guarded by eventLock. -1 if unknown.
+    private int databaseSize = -1;
+
     public EventManager(@NonNull Context context,
                         @NonNull PreferenceDataStore preferenceDataStore,
                         @NonNull AirshipRuntimeConfig runtimeConfig) {
         this(preferenceDataStore, runtimeConfig, JobDispatcher.shared(context), GlobalActivityMonitor.shared(context),
-                AnalyticsDatabase.createDatabase(context, runtimeConfig).getEventDao(), new EventApiClient(runtimeConfig));
+                AnalyticsDatabase.createDatabase(context, runtimeConfig).getEventDao(), new EventApiClient(runtimeConfig),
+                new EventJournal(new File(ContextCompat.getNoBackupFilesDir(context), runtimeConfig.getConfigOptions().appKey + JOURNAL_NAME)));
     }
 
     @VisibleForTesting
@@ -93,7 +136,21 @@ public class EventManager {
                  @NonNull JobDispatcher jobDispatcher,
                  @NonNull ActivityMonitor activityMonitor,
                  @NonNull EventDao eventDao,
-                 @NonNull EventApiClient apiClient) {
+                 @NonNull EventApiClient apiClient,
+                 @NonNull EventJournal journal) {
+        this(preferenceDataStore, runtimeConfig, jobDispatcher, activityMonitor, eventDao, apiClient, journal,
+                AirshipLoopers.getBackgroundLooper());
+    }
+
+    @VisibleForTesting
+    EventManager(@NonNull PreferenceDataStore preferenceDataStore,
+                 @NonNull AirshipRuntimeConfig runtimeConfig,
+                 @NonNull JobDispatcher jobDispatcher,
+                 @NonNull ActivityMonitor activityMonitor,
+                 @NonNull EventDao eventDao,
+                 @NonNull EventApiClient apiClient,
+                 @NonNull EventJournal journal,
+                 @NonNull Looper flushLooper) {
 
         this.preferenceDataStore = preferenceDataStore;
         this.runtimeConfig = runtimeConfig;
@@ -101,7 +158,11 @@ public class EventManager {
         this.activityMonitor = activityMonitor;
         this.eventDao = eventDao;
         this.apiClient = apiClient;
+        this.journal = journal;
+        this.flushHandler = new Handler(flushLooper);
 
+        // Write any events journaled by a previous process
+        flushHandler.post(flushRunnable);
     }
 
     /**
@@ -149,6 +210,11 @@ public class EventManager {
 
     /**
      * Adds an event.
+     * <p>
+     * Events are appended to a journal file and buffered for up to {@link #FLUSH_DELAY} ms or
+     * {@link #MAX_PENDING_EVENTS} events, then written in a single transaction. The journal is
+     * replayed on the next start if the process dies first. The buffer is flushed before
+     * uploading, and {@link #flushEvents()} can be called to write it immediately.
      *
      * @param event The event.
      * @param sessionId The event's session ID.
@@ -163,15 +229,42 @@ public class EventManager {
             return;
         }
 
-        synchronized (eventLock) {
-            eventDao.insert(entity);
+        boolean flush;
+        synchronized (pendingLock) {
+            boolean journaled;
+            try {
+                journal.append(entity);
+                journaled = true;
+            } catch (IOException e) {
+                Logger.error(e, "Analytics - Failed to journal event, writing it immediately.");
+                journaled = false;
+            }
 
-            // Handle database max size exceeded
-            int maxSize = preferenceDataStore.getInt(MAX_TOTAL_DB_SIZE_KEY, EventResponse.MAX_TOTAL_DB_SIZE_BYTES);
-            eventDao.trimDatabase(maxSize);
+            pendingEvents.add(entity);
+            pendingPriority = Math.max(pendingPriority, event.getPriority());
+
+            flush = !journaled || pendingEvents.size() >= MAX_PENDING_EVENTS;
+            if (!flush && pendingEvents.size() == 1) {
+                flushHandler.postDelayed(flushRunnable, FLUSH_DELAY);
+            }
+        }
+
+        if (flush) {
+            flushEvents();
+        }
+    }
+
+    /**
+     * Writes any buffered events and schedules an upload.
+     */
+    @WorkerThread
+    public void flushEvents() {
+        int priority = writePendingEvents();
+        if (priority < 0) {
+            return;
         }
 
-        switch (event.getPriority()) {
+        switch (priority) {
             case Event.HIGH_PRIORITY:
                 scheduleEventUpload(HIGH_PRIORITY_BATCH_DELAY, TimeUnit.MILLISECONDS);
                 break;
@@ -195,13 +288,99 @@ public class EventManager {
         }
     }
 
+    /**
+     * Writes any buffered events in a single transaction and trims the database.
+     *
+     * @return The highest priority of the written events, or -1 if there were no events.
+     */
+    private int writePendingEvents() {
+        List<EventEntity> events;
+        int priority;
+
+        synchronized (eventLock) {
+            synchronized (pendingLock) {
+                if (pendingEvents.isEmpty() && !replayJournal) {
+                    return -1;
+                }
+
+                flushHandler.removeCallbacks(flushRunnable);
+                events = pendingEvents;
+                priority = pendingPriority;
+                pendingEvents = new ArrayList<>();
+                pendingPriority = Event.LOW_PRIORITY;
+                journal.rotate();
+            }
+
+            if (replayJournal) {
+                events = mergeJournaledEvents(events);
+                if (events.isEmpty()) {
+                    replayJournal = false;
+                    return -1;
+                }
+                databaseSize = -1;
+            }
+
+            // Until the insert succeeds the events only exist in the rotated journal
+            replayJournal = true;
+            eventDao.insert(events);
+            journal.clearRotated();
+            replayJournal = false;
+
+            if (databaseSize < 0) {
+                databaseSize = eventDao.databaseSize();
+            } else {
+                for (EventEntity entity : events) {
+                    databaseSize += entity.eventSize;
+                }
+            }
+
+            // Handle database max size exceeded
+            int maxSize = preferenceDataStore.getInt(MAX_TOTAL_DB_SIZE_KEY, EventResponse.MAX_TOTAL_DB_SIZE_BYTES);
+            if (databaseSize > maxSize) {
+                databaseSize = eventDao.trimDatabase(maxSize);
+            }
+        }
+
+        return priority;
+    }
+
+    /**
+     * Combines the events left in the rotated journal with the buffered events. Journaled events
+     * that are also buffered are only written once.
+     *
+     * @param events The buffered events.
+     * @return The events to write.
+     */
+    @NonNull
+    private List<EventEntity> mergeJournaledEvents(@NonNull List<EventEntity> events) {
+        Map<String, EventEntity> merged = new LinkedHashMap<>();
+        for (EventEntity entity : journal.readRotated()) {
+            merged.put(entity.eventId, entity);
+        }
+
+        for (EventEntity entity : events) {
+            merged.put(entity.eventId, entity);
+        }
+
+        return new ArrayList<>(merged.values());
+    }
+
     /**
      * Deletes all events.
      */
     @WorkerThread
     public void deleteEvents() {
         synchronized (eventLock) {
+            synchronized (pendingLock) {
+                flushHandler.removeCallbacks(flushRunnable);
+                pendingEvents = new ArrayList<>();
+                pendingPriority = Event.LOW_PRIORITY;
+                journal.clear();
+            }
+
+            replayJournal = false;
             eventDao.deleteAll();
+            databaseSize = 0;
         }
     }
 
@@ -218,6 +397,15 @@ public class EventManager {
         return Math.max(nextSendTime - System.currentTimeMillis(), 0);
     }
 
+    /**
+     * Adds an upload listener.
+     *
+     * @param uploadListener The listener.
+     */
+    public void addUploadListener(@NonNull Analytics.UploadListener uploadListener) {
+        uploadListeners.add(uploadListener);
+    }
+
     /**
      * Uploads events.
      *
@@ -231,8 +419,11 @@ public class EventManager {
             preferenceDataStore.put(LAST_SEND_KEY, System.currentTimeMillis());
         }
 
+        // Include any buffered events in this upload
+        writePendingEvents();
+
         int eventCount;
-        List<EventEntity.EventIdAndData> events;
+        int lastEventId;
 
         synchronized (eventLock) {
             eventCount = eventDao.count();
@@ -242,33 +433,39 @@ public class EventManager {
                 return true;
             }
 
-            final int avgSize = Math.max(1, eventDao.databaseSize() / eventCount);
+            if (databaseSize < 0) {
+                databaseSize = eventDao.databaseSize();
+            }
+
+            final int avgSize = Math.max(1, databaseSize / eventCount);
 
             //pull enough events to fill a batch (roughly)
             int batchEventCount = Math.min(MAX_BATCH_EVENT_COUNT, preferenceDataStore.getInt(MAX_BATCH_SIZE_KEY, EventResponse.MAX_BATCH_SIZE_BYTES) / avgSize);
-            events = eventDao.getBatch(batchEventCount);
+            lastEventId = eventDao.getBatchLastId(batchEventCount);
         }
 
-        if (events.isEmpty()) {
+        if (lastEventId <= 0) {
             Logger.verbose("No analytics events to send.");
             return false;
         }
 
-        List<JsonValue> eventPayloads = new ArrayList<>(events.size());
-        for (EventEntity.EventIdAndData event : events) {
-            eventPayloads.add(event.data);
-        }
-
         try {
-            Response<EventResponse> response = apiClient.sendEvents(eventPayloads, headers);
+            Response<EventResponse> response = apiClient.sendEvents(createPayloadWriter(lastEventId), headers);
             if (!response.isSuccessful()) {
                 Logger.debug("Analytic upload failed.");
                 return false;
             }
 
             Logger.debug("Analytic events uploaded.");
+            int deleted;
             synchronized (eventLock) {
-                eventDao.deleteBatch(events);
+                deleted = eventDao.deleteBatch(lastEventId);
+                // Recalculated on the next access
+                databaseSize = -1;
+            }
+
+            for (Analytics.UploadListener listener : uploadListeners) {
+                listener.onEventsUploaded(deleted, response.getRequestBodySize(), response.getRequestBodyWireSize());
             }
 
             // Update preferences
@@ -277,7 +474,7 @@ public class EventManager {
             preferenceDataStore.put(MIN_BATCH_INTERVAL_KEY, response.getResult().getMinBatchInterval());
 
             // If there are still events left, schedule the next send
-            if (eventCount - events.size() > 0) {
+            if (eventCount - deleted > 0) {
                 scheduleEventUpload(MULTIPLE_BATCH_DELAY, TimeUnit.MILLISECONDS);
             }
 
@@ -289,4 +486,39 @@ public class EventManager {
         }
     }
 
+    /**
+     * Creates a payload writer that streams the stored event payloads straight from the database.
+     *
+     * @param lastEventId The ID of the last event in the batch.
+     * @return The payload writer.
+     */
+    @NonNull
+    private EventApiClient.PayloadWriter createPayloadWriter(final int lastEventId) {
+        return new EventApiClient.PayloadWriter() {
+            @Override
+            public int write(@NonNull JsonWriter writer) throws IOException {
+                Cursor cursor = eventDao.getBatchPayloads(lastEventId);
+                if (cursor == null) {
+                    return 0;
+                }
+
+                int count = 0;
+                try {
+                    while (cursor.moveToNext()) {
+                        String payload = cursor.getString(0);
+                        if (payload == null || "null".equals(payload)) {
+                            continue;
+                        }
+                        writer.rawValue(payload);
+                        count++;
+                    }
+                } finally {
+                    cursor.close();
+                }
+
+                return count;
+            }
+        };
+    }
+
 }
@@ -48,6 +48,7 @@ import java.util.Locale;
 import java.util.Set;
 import java.util.TimeZone;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Airship channel access.
@@ -105,10 +106,19 @@ public class AirshipChannel extends AirshipComponent {
     private final List<ChannelRegistrationPayloadExtender> channelRegistrationPayloadExtenders = new CopyOnWriteArrayList<>();
 
     private final Object tagLock = new Object();
+    private final Object payloadLock = new Object();
+
+    // Bumped whenever an input to the registration payload may have changed
+    private final AtomicInteger registrationStateVersion = new AtomicInteger();
+    private ChannelRegistrationPayload cachedPayload;
+    private int cachedPayloadVersion;
+    private ChannelRegistrationPayload lastRegistrationPayload;
+    private boolean lastRegistrationPayloadLoaded;
 
     private final TagGroupRegistrar tagGroupRegistrar;
     private final AttributeRegistrar attributeRegistrar;
     private final SubscriptionListRegistrar subscriptionListRegistrar;
+    private final ChannelMutationUploader mutationUploader;
 
     @NonNull
     private final CachedValue<Set<String>> subscriptionListCache;
@@ -122,6 +132,9 @@ public class AirshipChannel extends AirshipComponent {
 
     /**
      * Channel registration extender.
+     * <p>
+     * The registration payload is only rebuilt after a state change, so extenders must call
+     * {@link #updateRegistration()} whenever the data they add changes.
      *
      * @hide
      */
@@ -192,6 +205,8 @@ public class AirshipChannel extends AirshipComponent {
         this.attributeRegistrar = attributeRegistrar;
         this.tagGroupRegistrar = tagGroupRegistrar;
         this.subscriptionListRegistrar = subscriptionListRegistrar;
+        this.mutationUploader = new ChannelMutationUploader(AirshipExecutors.threadPoolExecutor(),
+                attributeRegistrar, tagGroupRegistrar, subscriptionListRegistrar);
         this.clock = clock;
         this.subscriptionListCache = subscriptionListCache;
         this.activityMonitor = activityMonitor;
@@ -258,6 +273,7 @@ public class AirshipChannel extends AirshipComponent {
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
     public void addChannelRegistrationPayloadExtender(@NonNull ChannelRegistrationPayloadExtender extender) {
         this.channelRegistrationPayloadExtenders.add(extender);
+        registrationStateVersion.incrementAndGet();
     }
 
     /**
@@ -266,6 +282,7 @@ public class AirshipChannel extends AirshipComponent {
     @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
     public void removeChannelRegistrationPayloadExtender(@NonNull ChannelRegistrationPayloadExtender extender) {
         this.channelRegistrationPayloadExtenders.remove(extender);
+        registrationStateVersion.incrementAndGet();
     }
 
     /**
@@ -320,6 +337,7 @@ public class AirshipChannel extends AirshipComponent {
      */
     @Override
     public void onUrlConfigUpdated() {
+        registrationStateVersion.incrementAndGet();
         dispatchUpdateJob(true, JobInfo.REPLACE);
     }
 
@@ -481,7 +499,7 @@ public class AirshipChannel extends AirshipComponent {
 
                 if (!collapsedMutations.isEmpty()) {
                     tagGroupRegistrar.addPendingMutations(collapsedMutations);
-                    dispatchUpdateJob();
+                    dispatchMutationUploadJob();
                 }
             }
         };
@@ -504,7 +522,7 @@ public class AirshipChannel extends AirshipComponent {
 
                 if (!mutations.isEmpty()) {
                     attributeRegistrar.addPendingMutations(mutations);
-                    dispatchUpdateJob();
+                    dispatchMutationUploadJob();
                 }
             }
         };
@@ -631,7 +649,7 @@ public class AirshipChannel extends AirshipComponent {
 
                 if (!collapsedMutations.isEmpty()) {
                     subscriptionListRegistrar.addPendingMutations(collapsedMutations);
-                    dispatchUpdateJob();
+                    dispatchMutationUploadJob();
                 }
             }
         };
@@ -662,13 +680,32 @@ public class AirshipChannel extends AirshipComponent {
     }
 
     /**
-     * Returns the payload for the next channel registration
+     * Returns the payload for the next channel registration. The payload is only rebuilt if the
+     * registration state changed since it was last built.
      *
      * @return The ChannelRegistrationPayload payload
      */
     @WorkerThread
     @NonNull
     private ChannelRegistrationPayload getNextChannelRegistrationPayload() {
+        synchronized (payloadLock) {
+            int version = registrationStateVersion.get();
+            if (cachedPayload == null || cachedPayloadVersion != version) {
+                cachedPayload = buildChannelRegistrationPayload();
+                cachedPayloadVersion = version;
+            }
+            return cachedPayload;
+        }
+    }
+
+    /**
+     * Builds the channel registration payload from the current state and all extenders.
+     *
+     * @return The ChannelRegistrationPayload payload
+     */
+    @WorkerThread
+    @NonNull
+    private ChannelRegistrationPayload buildChannelRegistrationPayload() {
         boolean shouldSetTags = getChannelTagRegistrationEnabled();
 
         ChannelRegistrationPayload.Builder builder = new ChannelRegistrationPayload.Builder()
@@ -738,6 +775,7 @@ public class AirshipChannel extends AirshipComponent {
      */
     public void setChannelTagRegistrationEnabled(boolean enabled) {
         channelTagRegistrationEnabled = enabled;
+        registrationStateVersion.incrementAndGet();
     }
 
     /**
@@ -818,17 +856,32 @@ public class AirshipChannel extends AirshipComponent {
      * @param channelPayload A ChannelRegistrationPayload.
      */
     private void setLastRegistrationPayload(ChannelRegistrationPayload channelPayload) {
+        synchronized (payloadLock) {
+            lastRegistrationPayload = channelPayload;
+            lastRegistrationPayloadLoaded = true;
+        }
         getDataStore().put(LAST_REGISTRATION_PAYLOAD_KEY, channelPayload);
         getDataStore().put(LAST_REGISTRATION_TIME_KEY, System.currentTimeMillis());
     }
 
     /**
-     * Gets the last registration payload
+     * Gets the last registration payload. The stored payload is only parsed once.
      *
      * @return a ChannelRegistrationPayload
      */
     @Nullable
     private ChannelRegistrationPayload getLastRegistrationPayload() {
+        synchronized (payloadLock) {
+            if (!lastRegistrationPayloadLoaded) {
+                lastRegistrationPayload = loadLastRegistrationPayload();
+                lastRegistrationPayloadLoaded = true;
+            }
+            return lastRegistrationPayload;
+        }
+    }
+
+    @Nullable
+    private ChannelRegistrationPayload loadLastRegistrationPayload() {
         JsonValue jsonValue = getDataStore().getJsonValue(LAST_REGISTRATION_PAYLOAD_KEY);
         if (jsonValue.isNull()) {
             return null;
@@ -932,11 +985,7 @@ public class AirshipChannel extends AirshipComponent {
             channelId = getId();
             if (channelId != null && privacyManager.isEnabled(PrivacyManager.FEATURE_TAGS_AND_ATTRIBUTES)) {
                 // Update tag groups, attributes, and subscription lists
-                boolean attributeResult = attributeRegistrar.uploadPendingMutations();
-                boolean tagResult = tagGroupRegistrar.uploadPendingMutations();
-                boolean subscriptionListResult = subscriptionListRegistrar.uploadPendingMutations();
-
-                if (!attributeResult || !tagResult || !subscriptionListResult) {
+                if (!mutationUploader.upload()) {
                     return JobResult.RETRY;
                 }
             }
@@ -1008,6 +1057,15 @@ public class AirshipChannel extends AirshipComponent {
      * Dispatches a job to update registration.
      */
     private void dispatchUpdateJob() {
+        registrationStateVersion.incrementAndGet();
+        dispatchUpdateJob(false, JobInfo.KEEP);
+    }
+
+    /**
+     * Dispatches a job to upload pending mutations. The registration payload is unchanged so
+     * the job will not rebuild it.
+     */
+    private void dispatchMutationUploadJob() {
         dispatchUpdateJob(false, JobInfo.KEEP);
     }
 
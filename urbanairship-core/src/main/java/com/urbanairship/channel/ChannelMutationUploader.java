@@ -0,0 +1,82 @@
+/* Copyright Airship and Contributors */
+
+package com.urbanairship.channel;
+
+import com.urbanairship.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+/**
+ * Uploads pending channel attributes, tags, and subscription lists as one sync step.
+ * <p>
+ * The uploads are independent of each other so they are started together instead of waiting on
+ * each other's round trip. Each upload is its own request, so with the default HTTP/1.1 transport
+ * they run on separate connections. The result is a single success or retry for the whole step so
+ * the channel update job owns the retry and backoff.
+ */
+class ChannelMutationUploader {
+
+    private final Executor executor;
+    private final AttributeRegistrar attributeRegistrar;
+    private final TagGroupRegistrar tagGroupRegistrar;
+    private final SubscriptionListRegistrar subscriptionListRegistrar;
+
+    /**
+     * Default constructor.
+     *
+     * @param executor The executor used to run the uploads concurrently.
+     * @param attributeRegistrar The attribute registrar.
+     * @param tagGroupRegistrar The tag group registrar.
+     * @param subscriptionListRegistrar The subscription list registrar.
+     */
+    ChannelMutationUploader(@NonNull Executor executor,
+                            @NonNull AttributeRegistrar attributeRegistrar,
+                            @NonNull TagGroupRegistrar tagGroupRegistrar,
+                            @NonNull SubscriptionListRegistrar subscriptionListRegistrar) {
+        this.executor = executor;
+        this.attributeRegistrar = attributeRegistrar;
+        this.tagGroupRegistrar = tagGroupRegistrar;
+        this.subscriptionListRegistrar = subscriptionListRegistrar;
+    }
+
+    /**
+     * Uploads all pending mutations.
+     *
+     * @return {@code true} if every upload finished, {@code false} if any of them should be retried.
+     */
+    @WorkerThread
+    boolean upload() {
+        List<FutureTask<Boolean>> tasks = new ArrayList<>();
+        tasks.add(new FutureTask<>(attributeRegistrar::uploadPendingMutations));
+        tasks.add(new FutureTask<>(tagGroupRegistrar::uploadPendingMutations));
+
+        for (FutureTask<Boolean> task : tasks) {
+            executor.execute(task);
+        }
+
+        // Use the job thread for the last upload
+        boolean result = subscriptionListRegistrar.uploadPendingMutations();
+
+        for (FutureTask<Boolean> task : tasks) {
+            try {
+                result &= task.get();
+            } catch (ExecutionException e) {
+                Logger.error(e, "Failed to upload pending channel mutations");
+                result = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                result = false;
+            }
+        }
+
+        return result;
+    }
+
+}
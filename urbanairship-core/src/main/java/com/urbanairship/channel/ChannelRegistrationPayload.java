@@ -88,6 +88,9 @@ public class ChannelRegistrationPayload implements JsonSerializable {
     public final String contactId;
     public final boolean isActive;
 
+    // Payloads are immutable, so the hash doubles as a precomputed fingerprint
+    private int hash;
+
     /**
      * Builds the ChannelRegistrationPayload
      */
@@ -585,6 +588,15 @@ public class ChannelRegistrationPayload implements JsonSerializable {
             return false;
         }
 
+        if (this == payload) {
+            return true;
+        }
+
+        // The hash excludes isActive, so a mismatch always means the payloads differ
+        if (hashCode() != payload.hashCode()) {
+            return false;
+        }
+
         return optIn == payload.optIn
                 && backgroundEnabled == payload.backgroundEnabled
                 && setTags == payload.setTags
@@ -617,7 +629,12 @@ public class ChannelRegistrationPayload implements JsonSerializable {
 
     @Override
     public int hashCode() {
-        return ObjectsCompat.hash(optIn, backgroundEnabled, deviceType, pushAddress, setTags, tags, tagChanges, userId, timezone, language, country, locationSettings, appVersion, sdkVersion, deviceModel, apiVersion, carrier, accengageDeviceId, deliveryType, contactId);
+        int result = hash;
+        if (result == 0) {
+            result = ObjectsCompat.hash(optIn, backgroundEnabled, deviceType, pushAddress, setTags, tags, tagChanges, userId, timezone, language, country, locationSettings, appVersion, sdkVersion, deviceModel, apiVersion, carrier, accengageDeviceId, deliveryType, contactId);
+            hash = result;
+        }
+        return result;
     }
 
     @NonNull
@@ -41,9 +41,12 @@ import com.urbanairship.json.JsonException;
 import com.urbanairship.json.JsonValue;
 import com.urbanairship.util.CachedValue;
 import com.urbanairship.util.Clock;
+import com.urbanairship.util.JsonDataStoreQueue;
 import com.urbanairship.util.UAStringUtil;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -94,6 +97,23 @@ public class Contact extends AirshipComponent {
 
     private static final long FOREGROUND_RESOLVE_INTERVAL = 24 * 60 * 60 * 1000; // 24 hours
 
+    /**
+     * Max operations performed in a single update job.
+     */
+    private static final int MAX_OPERATIONS_PER_JOB = 50;
+
+    /**
+     * Max queued operations read when preparing the next operation. Operations past the window are
+     * merged when they reach it.
+     */
+    private static final int OPERATION_LOOK_AHEAD = 50;
+
+    /**
+     * Max time an update job will wait on a rate limit before handing the rest of the queue
+     * back to the job dispatcher.
+     */
+    private static final long MAX_RATE_LIMIT_WAIT_MS = 1000;
+
     private final PreferenceDataStore preferenceDataStore;
     private final JobDispatcher jobDispatcher;
     private final AirshipChannel airshipChannel;
@@ -107,7 +127,9 @@ public class Contact extends AirshipComponent {
     private final CachedValue<Map<String, Set<Scope>>> subscriptionListCache;
     private final List<CachedValue<ScopedSubscriptionListMutation>> subscriptionListLocalHistory;
     private final Object operationLock = new Object();
+    private final JsonDataStoreQueue<ContactOperation> operationQueue;
     private final ContactApiClient contactApiClient;
+    private final ContactOperationMetrics operationMetrics = new ContactOperationMetrics();
     private boolean isContactIdRefreshed = false;
 
 
@@ -150,6 +172,14 @@ public class Contact extends AirshipComponent {
         this.subscriptionListCache = subscriptionListCache;
         this.subscriptionListLocalHistory = subscriptionListLocalHistory;
         this.executor = executor == null ? defaultExecutor : executor;
+        this.operationQueue = new JsonDataStoreQueue<>(preferenceDataStore, OPERATIONS_KEY, operation -> operation, value -> {
+            try {
+                return ContactOperation.fromJson(value);
+            } catch (JsonException e) {
+                Logger.error("Failed to parse contact operation", e);
+                return null;
+            }
+        });
     }
 
     @Override
@@ -514,9 +544,7 @@ public class Contact extends AirshipComponent {
 
     private void addOperation(@NonNull ContactOperation operation) {
         synchronized (operationLock) {
-            List<ContactOperation> operations = getOperations();
-            operations.add(operation);
-            storeOperations(operations);
+            operationQueue.add(operation);
         }
     }
 
@@ -524,12 +552,9 @@ public class Contact extends AirshipComponent {
     private List<ContactOperation> getOperations() {
         List<ContactOperation> operations = new ArrayList<>();
         synchronized (operationLock) {
-            for (JsonValue value : preferenceDataStore.getJsonValue(OPERATIONS_KEY).optList()) {
-                try {
-                    ContactOperation operation = ContactOperation.fromJson(value);
+            for (ContactOperation operation : operationQueue.getList()) {
+                if (operation != null) {
                     operations.add(operation);
-                } catch (JsonException e) {
-                    Logger.error("Failed to parse contact operation", e);
                 }
             }
         }
@@ -537,19 +562,9 @@ public class Contact extends AirshipComponent {
         return operations;
     }
 
-    private void storeOperations(@NonNull List<ContactOperation> operations) {
-        synchronized (operationLock) {
-            preferenceDataStore.put(OPERATIONS_KEY, JsonValue.wrapOpt(operations));
-        }
-    }
-
     private void removeFirstOperation() {
         synchronized (operationLock) {
-            List<ContactOperation> operations = getOperations();
-            if (!operations.isEmpty()) {
-                operations.remove(0);
-                storeOperations(operations);
-            }
+            operationQueue.pop();
         }
     }
 
@@ -580,20 +595,35 @@ public class Contact extends AirshipComponent {
                                          .setAction(ACTION_UPDATE_CONTACT)
                                          .setNetworkAccessRequired(true)
                                          .setAirshipComponent(Contact.class)
-                                         .setConflictStrategy(conflictStrategy)
-                                         .addRateLimit(UPDATE_RATE_LIMIT);
+                                         .setConflictStrategy(conflictStrategy);
 
-        switch (next.getType()) {
-            case ContactOperation.OPERATION_IDENTIFY:
-            case ContactOperation.OPERATION_RESET:
-            case ContactOperation.OPERATION_RESOLVE:
-                builder.addRateLimit(IDENTITY_RATE_LIMIT);
-                break;
+        for (String rateLimitId : getRateLimitIds(next)) {
+            builder.addRateLimit(rateLimitId);
         }
 
         jobDispatcher.dispatch(builder.build());
     }
 
+    @NonNull
+    private static List<String> getRateLimitIds(@NonNull ContactOperation operation) {
+        if (isIdentityOperation(operation)) {
+            return Arrays.asList(UPDATE_RATE_LIMIT, IDENTITY_RATE_LIMIT);
+        }
+        return Collections.singletonList(UPDATE_RATE_LIMIT);
+    }
+
+    /**
+     * Gets the contact operation queue metrics.
+     *
+     * @return A snapshot of the metrics.
+     * @hide
+     */
+    @NonNull
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    public ContactOperationMetrics getOperationMetrics() {
+        return operationMetrics.snapshot();
+    }
+
     /**
      * @hide
      */
@@ -608,7 +638,9 @@ public class Contact extends AirshipComponent {
     }
 
     /**
-     * Handles contact update job.
+     * Handles contact update job. Operations are performed until the queue is empty, an operation
+     * needs to be retried, or the next operation is rate limited for longer than
+     * {@link #MAX_RATE_LIMIT_WAIT_MS}, in which case a new job is dispatched for the rest.
      *
      * @return The job result.
      */
@@ -621,30 +653,48 @@ public class Contact extends AirshipComponent {
             return JobResult.SUCCESS;
         }
 
-        ContactOperation nextOperation = prepareNextOperation();
-        if (nextOperation == null) {
-            return JobResult.SUCCESS;
-        }
+        long start = clock.currentTimeMillis();
+        int performed = 0;
+        JobResult result = JobResult.SUCCESS;
 
-        try {
-            Response response = performOperation(nextOperation, channelId);
-            Logger.debug("Operation %s finished with response %s", nextOperation, response);
-            if (response.isServerError() || response.isTooManyRequestsError()) {
-                return JobResult.RETRY;
-            } else {
-                removeFirstOperation();
+        while (performed < MAX_OPERATIONS_PER_JOB) {
+            ContactOperation nextOperation = prepareNextOperation();
+            if (nextOperation == null) {
+                break;
+            }
+
+            // The job dispatcher tracked the rate limits for the first operation
+            if (performed > 0 && !jobDispatcher.acquireRateLimits(MAX_RATE_LIMIT_WAIT_MS, getRateLimitIds(nextOperation))) {
                 dispatchContactUpdateJob(JobInfo.REPLACE);
-                return JobResult.SUCCESS;
+                break;
             }
-        } catch (RequestException e) {
-            Logger.debug("Failed to update operation: %s, will retry.", e.getMessage());
-            return JobResult.RETRY;
-        } catch (IllegalStateException e) {
-            Logger.error("Unable to process operation %s, skipping.", nextOperation, e);
+
+            performed++;
+
+            try {
+                Response<?> response = performOperation(nextOperation, channelId);
+                Logger.debug("Operation %s finished with response %s", nextOperation, response);
+                if (response.isServerError() || response.isTooManyRequestsError()) {
+                    result = JobResult.RETRY;
+                    break;
+                }
+            } catch (RequestException e) {
+                Logger.debug("Failed to update operation: %s, will retry.", e.getMessage());
+                result = JobResult.RETRY;
+                break;
+            } catch (IllegalStateException e) {
+                Logger.error("Unable to process operation %s, skipping.", nextOperation, e);
+            }
+
             removeFirstOperation();
+        }
+
+        if (result == JobResult.SUCCESS && performed == MAX_OPERATIONS_PER_JOB) {
             dispatchContactUpdateJob(JobInfo.REPLACE);
-            return JobResult.SUCCESS;
         }
+
+        operationMetrics.recordJob(performed, clock.currentTimeMillis() - start);
+        return result;
     }
 
     @Nullable
@@ -652,7 +702,13 @@ public class Contact extends AirshipComponent {
         ContactOperation next = null;
 
         synchronized (operationLock) {
-            List<ContactOperation> operations = getOperations();
+            List<ContactOperation> window = operationQueue.peek(OPERATION_LOOK_AHEAD);
+            List<ContactOperation> operations = new ArrayList<>();
+            for (ContactOperation operation : window) {
+                if (operation != null) {
+                    operations.add(operation);
+                }
+            }
 
             while (!operations.isEmpty()) {
                 ContactOperation first = operations.remove(0);
@@ -665,7 +721,10 @@ public class Contact extends AirshipComponent {
             if (next != null) {
                 switch (next.getType()) {
                     case ContactOperation.OPERATION_UPDATE:
-                        // Collapse any sequential updates (ignoring anything that can be skipped inbetween)
+                        // Collapse any updates up to the next identity change (ignoring anything that can be skipped inbetween).
+                        // Channel registrations do not depend on tags, attributes, or subscription lists so updates
+                        // are merged past them.
+                        List<ContactOperation> passed = new ArrayList<>();
                         while (!operations.isEmpty()) {
                             ContactOperation nextNext = operations.get(0);
 
@@ -692,10 +751,17 @@ public class Contact extends AirshipComponent {
 
                                 operations.remove(0);
                                 next = ContactOperation.update(combinedTags, combinedAttributes, combinedSubscriptionLists);
+                                operationMetrics.recordMerged(1);
                                 continue;
                             }
-                            break;
+
+                            if (isIdentityOperation(nextNext)) {
+                                break;
+                            }
+
+                            passed.add(operations.remove(0));
                         }
+                        operations.addAll(0, passed);
                         break;
 
                     case ContactOperation.OPERATION_IDENTIFY:
@@ -712,6 +778,7 @@ public class Contact extends AirshipComponent {
 
                                 if (nextNext.getType().equals(ContactOperation.OPERATION_IDENTIFY)) {
                                     next = operations.remove(0);
+                                    operationMetrics.recordMerged(1);
                                     continue;
                                 }
 
@@ -726,18 +793,34 @@ public class Contact extends AirshipComponent {
             }
 
             if (next != null) {
-                ArrayList<ContactOperation> nextList = new ArrayList<>();
-                nextList.add(next);
-                nextList.addAll(operations);
-                storeOperations(nextList);
-            } else {
-                storeOperations(operations);
+                operations.add(0, next);
+            }
+
+            // Nothing was skipped or merged if the window is the same size
+            if (operations.size() != window.size()) {
+                operationQueue.replaceFront(OPERATION_LOOK_AHEAD, operations);
+            }
+
+            // Everything in the window was skipped, check the rest of the queue
+            if (next == null && !window.isEmpty()) {
+                return prepareNextOperation();
             }
         }
 
         return next;
     }
 
+    private static boolean isIdentityOperation(@NonNull ContactOperation operation) {
+        switch (operation.getType()) {
+            case ContactOperation.OPERATION_IDENTIFY:
+            case ContactOperation.OPERATION_RESET:
+            case ContactOperation.OPERATION_RESOLVE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
     private boolean shouldSkipOperation(@NonNull ContactOperation operation, boolean isNext) {
 
         ContactIdentity contactIdentity = getLastContactIdentity();
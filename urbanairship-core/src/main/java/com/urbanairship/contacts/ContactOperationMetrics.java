@@ -0,0 +1,101 @@
+/* Copyright Airship and Contributors */
+
+package com.urbanairship.contacts;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
+
+/**
+ * Collects throughput of the contact operation queue.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public class ContactOperationMetrics {
+
+    private int jobCount;
+    private int performedCount;
+    private int mergedCount;
+    private long totalRunTimeMs;
+
+    ContactOperationMetrics() {}
+
+    ContactOperationMetrics(@NonNull ContactOperationMetrics metrics) {
+        this.jobCount = metrics.jobCount;
+        this.performedCount = metrics.performedCount;
+        this.mergedCount = metrics.mergedCount;
+        this.totalRunTimeMs = metrics.totalRunTimeMs;
+    }
+
+    synchronized void recordJob(int performed, long runTimeMs) {
+        jobCount++;
+        performedCount += performed;
+        totalRunTimeMs += runTimeMs;
+    }
+
+    synchronized void recordMerged(int merged) {
+        mergedCount += merged;
+    }
+
+    @NonNull
+    synchronized ContactOperationMetrics snapshot() {
+        return new ContactOperationMetrics(this);
+    }
+
+    /**
+     * Gets the number of update jobs that ran.
+     *
+     * @return The job count.
+     */
+    public int getJobCount() {
+        return jobCount;
+    }
+
+    /**
+     * Gets the number of operations sent to the server.
+     *
+     * @return The performed operation count.
+     */
+    public int getPerformedCount() {
+        return performedCount;
+    }
+
+    /**
+     * Gets the number of queued operations that were merged into another operation.
+     *
+     * @return The merged operation count.
+     */
+    public int getMergedCount() {
+        return mergedCount;
+    }
+
+    /**
+     * Gets the total time update jobs spent draining the queue.
+     *
+     * @return The total run time in milliseconds.
+     */
+    public long getTotalRunTimeMs() {
+        return totalRunTimeMs;
+    }
+
+    /**
+     * Gets the average number of operations performed per job.
+     *
+     * @return The operations per job, or 0 if no jobs ran.
+     */
+    public double getOperationsPerJob() {
+        return jobCount == 0 ? 0 : (double) performedCount / jobCount;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "ContactOperationMetrics{" +
+                "jobCount=" + jobCount +
+                ", performedCount=" + performedCount +
+                ", mergedCount=" + mergedCount +
+                ", totalRunTimeMs=" + totalRunTimeMs +
+                '}';
+    }
+
+}
@@ -0,0 +1,33 @@
+/* Copyright Airship and Contributors */
+
+package com.urbanairship.http;
+
+import java.io.IOException;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
+import androidx.annotation.WorkerThread;
+
+/**
+ * Performs the network exchange for a {@link Request}. Implementations own connection management,
+ * so a transport that keeps connections alive can be shared by every request created by a
+ * {@link RequestFactory}.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public interface HttpTransport {
+
+    /**
+     * Executes the request. The returned response must be closed once the body is consumed so the
+     * underlying connection can be released.
+     *
+     * @param request The request.
+     * @return The response.
+     * @throws IOException If the request failed.
+     */
+    @WorkerThread
+    @NonNull
+    TransportResponse execute(@NonNull TransportRequest request) throws IOException;
+
+}
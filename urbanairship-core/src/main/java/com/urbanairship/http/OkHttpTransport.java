@@ -0,0 +1,375 @@
+/* Copyright Airship and Contributors */
+
+package com.urbanairship.http;
+
+import com.urbanairship.Logger;
+import com.urbanairship.UAirship;
+import com.urbanairship.util.ConnectionUtils;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+import okhttp3.ConnectionPool;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.ResponseBody;
+import okio.BufferedSink;
+
+/**
+ * {@link HttpTransport} backed by OkHttp. A single client is shared by every request so
+ * connections are pooled and kept alive between calls, and HTTP/2 is negotiated when the server
+ * supports it so concurrent requests to the same host are multiplexed over one connection.
+ * <p>
+ * OkHttp is an optional dependency and only OkHttp 4 or newer is supported. Check
+ * {@link #isAvailable()} before creating the transport.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public class OkHttpTransport implements HttpTransport {
+
+    private static final String OKHTTP_CLASS = "okhttp3.OkHttpClient";
+    // Only available in OkHttp 4+
+    private static final String OKHTTP_VERSION_CLASS = "okhttp3.OkHttp";
+    private static final int MIN_MAJOR_VERSION = 4;
+    private static Boolean isOkHttpAvailable;
+
+    private final OkHttpClient client;
+    private final OkHttpClient noRedirectClient;
+    private final int maxRequestsPerHost;
+    private final ConcurrentHashMap<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+
+    private OkHttpTransport(@NonNull Builder builder) {
+        OkHttpClient.Builder clientBuilder = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(builder.maxIdleConnections, builder.keepAliveMs, TimeUnit.MILLISECONDS))
+                .protocols(builder.enableHttp2 ? Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1) : Arrays.asList(Protocol.HTTP_1_1))
+                .connectTimeout(builder.connectTimeoutMs, TimeUnit.MILLISECONDS)
+                .readTimeout(builder.readTimeoutMs, TimeUnit.MILLISECONDS)
+                .writeTimeout(builder.readTimeoutMs, TimeUnit.MILLISECONDS)
+                .retryOnConnectionFailure(true);
+
+        this.client = clientBuilder.build();
+
+        // Shares the connection pool with the main client
+        this.noRedirectClient = client.newBuilder()
+                                      .followRedirects(false)
+                                      .followSslRedirects(false)
+                                      .build();
+
+        this.maxRequestsPerHost = builder.maxRequestsPerHost;
+    }
+
+    /**
+     * Checks if a supported version of OkHttp is available on the classpath.
+     *
+     * @return {@code true} if OkHttp 4 or newer is available, otherwise {@code false}.
+     */
+    public static synchronized boolean isAvailable() {
+        if (isOkHttpAvailable == null) {
+            isOkHttpAvailable = checkOkHttpVersion();
+        }
+
+        return isOkHttpAvailable;
+    }
+
+    private static boolean checkOkHttpVersion() {
+        try {
+            Class.forName(OKHTTP_CLASS);
+            Object version = Class.forName(OKHTTP_VERSION_CLASS).getField("VERSION").get(null);
+            if (!(version instanceof String)) {
+                return false;
+            }
+
+            String major = ((String) version).split("\\.")[0];
+            return Integer.parseInt(major) >= MIN_MAJOR_VERSION;
+        } catch (Exception | LinkageError e) {
+            Logger.debug("OkHttp 4+ not available, falling back to HttpURLConnection.");
+            return false;
+        }
+    }
+
+    /**
+     * Factory method to create a new builder.
+     *
+     * @return A builder.
+     */
+    @NonNull
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    @NonNull
+    @Override
+    public TransportResponse execute(@NonNull TransportRequest request) throws IOException {
+        if (UAirship.isTakingOff() || UAirship.isFlying()) {
+            ConnectionUtils.installSecurityProvider(UAirship.getApplicationContext());
+        }
+
+        okhttp3.Request.Builder builder = new okhttp3.Request.Builder().url(request.getUrl());
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            builder.header(header.getKey(), header.getValue());
+        }
+
+        builder.method(request.getMethod(), createBody(request));
+
+        Semaphore permits = acquirePermit(request.getUrl().getHost());
+        OkHttpResponse transportResponse = null;
+        try {
+            OkHttpClient callClient = request.isFollowRedirects() ? client : noRedirectClient;
+            okhttp3.Response response = callClient.newCall(builder.build()).execute();
+            transportResponse = new OkHttpResponse(response, permits);
+            return transportResponse;
+        } finally {
+            // The response releases the permit once closed
+            if (transportResponse == null) {
+                permits.release();
+            }
+        }
+    }
+
+    @Nullable
+    private static okhttp3.RequestBody createBody(@NonNull TransportRequest request) {
+        final RequestBody body = request.getBody();
+        if (body == null) {
+            switch (request.getMethod()) {
+                case "POST":
+                case "PUT":
+                case "PATCH":
+                    // Available in both OkHttp 3 and 4
+                    return okhttp3.RequestBody.create((MediaType) null, new byte[0]);
+                default:
+                    return null;
+            }
+        }
+
+        final MediaType mediaType = body.getContentType() == null ? null : MediaType.parse(body.getContentType());
+        return new okhttp3.RequestBody() {
+            @Nullable
+            @Override
+            public MediaType contentType() {
+                return mediaType;
+            }
+
+            @Override
+            public long contentLength() {
+                return body.getContentLength();
+            }
+
+            @Override
+            public void writeTo(@NonNull BufferedSink sink) throws IOException {
+                // OkHttp owns the sink, so keep the body from closing it
+                OutputStream out = new FilterOutputStream(sink.outputStream()) {
+                    @Override
+                    public void write(@NonNull byte[] b, int off, int len) throws IOException {
+                        this.out.write(b, off, len);
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        flush();
+                    }
+                };
+
+                body.writeTo(out);
+                out.flush();
+            }
+        };
+    }
+
+    @NonNull
+    private Semaphore acquirePermit(@NonNull String host) throws IOException {
+        Semaphore permits = hostPermits.get(host);
+        if (permits == null) {
+            Semaphore created = new Semaphore(maxRequestsPerHost, true);
+            permits = hostPermits.putIfAbsent(host, created);
+            if (permits == null) {
+                permits = created;
+            }
+        }
+
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a connection to " + host);
+        }
+
+        return permits;
+    }
+
+    private static class OkHttpResponse implements TransportResponse {
+
+        private final okhttp3.Response response;
+        private final Semaphore permits;
+        private final AtomicBoolean isClosed = new AtomicBoolean(false);
+        private Map<String, List<String>> headers;
+
+        OkHttpResponse(@NonNull okhttp3.Response response, @NonNull Semaphore permits) {
+            this.response = response;
+            this.permits = permits;
+        }
+
+        @Override
+        public int getStatus() {
+            return response.code();
+        }
+
+        @NonNull
+        @Override
+        public synchronized Map<String, List<String>> getHeaders() {
+            if (headers == null) {
+                // Match HttpURLConnection lookups, OkHttp lower cases the names
+                headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+                headers.putAll(response.headers().toMultimap());
+            }
+            return headers;
+        }
+
+        @Override
+        public long getLastModified() {
+            Date date = response.headers().getDate("Last-Modified");
+            return date == null ? 0 : date.getTime();
+        }
+
+        @Nullable
+        @Override
+        public InputStream getBody() {
+            ResponseBody body = response.body();
+            return body == null ? null : body.byteStream();
+        }
+
+        @Nullable
+        @Override
+        public String getContentEncoding() {
+            return response.header("Content-Encoding");
+        }
+
+        @Override
+        public void close() {
+            if (isClosed.compareAndSet(false, true)) {
+                response.close();
+                permits.release();
+            }
+        }
+
+    }
+
+    /**
+     * OkHttpTransport builder.
+     */
+    public static class Builder {
+
+        private int maxIdleConnections = 5;
+        private long keepAliveMs = TimeUnit.MINUTES.toMillis(5);
+        private int maxRequestsPerHost = 4;
+        private long connectTimeoutMs = TimeUnit.SECONDS.toMillis(60);
+        private long readTimeoutMs = TimeUnit.SECONDS.toMillis(60);
+        private boolean enableHttp2 = true;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the max idle connections kept in the pool.
+         *
+         * @param maxIdleConnections The max idle connections.
+         * @return The builder.
+         */
+        @NonNull
+        public Builder setMaxIdleConnections(int maxIdleConnections) {
+            this.maxIdleConnections = maxIdleConnections;
+            return this;
+        }
+
+        /**
+         * Sets how long idle connections are kept alive.
+         *
+         * @param duration The duration.
+         * @param unit The time unit.
+         * @return The builder.
+         */
+        @NonNull
+        public Builder setKeepAlive(long duration, @NonNull TimeUnit unit) {
+            this.keepAliveMs = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Sets the max number of concurrent requests per host.
+         *
+         * @param maxRequestsPerHost The max requests per host.
+         * @return The builder.
+         */
+        @NonNull
+        public Builder setMaxRequestsPerHost(int maxRequestsPerHost) {
+            this.maxRequestsPerHost = Math.max(1, maxRequestsPerHost);
+            return this;
+        }
+
+        /**
+         * Sets the connect timeout.
+         *
+         * @param duration The duration.
+         * @param unit The time unit.
+         * @return The builder.
+         */
+        @NonNull
+        public Builder setConnectTimeout(long duration, @NonNull TimeUnit unit) {
+            this.connectTimeoutMs = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Sets the read timeout.
+         *
+         * @param duration The duration.
+         * @param unit The time unit.
+         * @return The builder.
+         */
+        @NonNull
+        public Builder setReadTimeout(long duration, @NonNull TimeUnit unit) {
+            this.readTimeoutMs = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Sets whether HTTP/2 is negotiated. Defaults to {@code true}.
+         *
+         * @param enableHttp2 {@code true} to enable HTTP/2.
+         * @return The builder.
+         */
+        @NonNull
+        public Builder setHttp2Enabled(boolean enableHttp2) {
+            this.enableHttp2 = enableHttp2;
+            return this;
+        }
+
+        /**
+         * Builds the transport.
+         *
+         * @return The transport.
+         */
+        @NonNull
+        public OkHttpTransport build() {
+            return new OkHttpTransport(this);
+        }
+
+    }
+
+}
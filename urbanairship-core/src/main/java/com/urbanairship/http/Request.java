@@ -9,24 +9,31 @@ import com.urbanairship.Logger;
 import com.urbanairship.UAirship;
 import com.urbanairship.config.AirshipRuntimeConfig;
 import com.urbanairship.json.JsonSerializable;
-import com.urbanairship.util.ConnectionUtils;
 import com.urbanairship.util.PlatformUtils;
+import com.urbanairship.util.UAHttpStatusUtil;
 import com.urbanairship.util.UAStringUtil;
 
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
+import java.io.Reader;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.TimeZone;
+import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
 import androidx.annotation.NonNull;
@@ -41,7 +48,9 @@ import androidx.annotation.RestrictTo;
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
 public class Request {
 
-    private static final int NETWORK_TIMEOUT_MS = 60000;
+    private static final String HTTP_DATE_FORMAT = "EEE, dd MMM yyyy HH:mm:ss 'GMT'";
+    private static final int BUFFER_SIZE = 8192;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
 
     private static final ResponseParser<Void> EMPTY_RESPONSE_PARSER = new ResponseParser<Void>() {
         @Override
@@ -68,6 +77,9 @@ public class Request {
     @Nullable
     protected String contentType;
 
+    @Nullable
+    protected RequestBody streamingBody;
+
     protected long ifModifiedSince = 0;
 
     protected boolean compressRequestBody = false;
@@ -77,6 +89,9 @@ public class Request {
     @NonNull
     protected final Map<String, String> responseProperties;
 
+    @Nullable
+    private final HttpTransport transport;
+
     private static final String USER_AGENT_FORMAT = "(UrbanAirshipLib-%s/%s; %s)";
 
     /**
@@ -92,7 +107,17 @@ public class Request {
     }
 
     public Request() {
-        responseProperties = new HashMap<>();
+        this((HttpTransport) null);
+    }
+
+    /**
+     * Request constructor.
+     *
+     * @param transport The transport, or {@code null} to use the default transport.
+     */
+    public Request(@Nullable HttpTransport transport) {
+        this.transport = transport;
+        this.responseProperties = new HashMap<>();
     }
 
     public Request setOperation(@Nullable String requestMethod, @Nullable Uri uri) {
@@ -157,6 +182,22 @@ public class Request {
     public Request setRequestBody(@Nullable String body, @Nullable String contentType) {
         this.body = body;
         this.contentType = contentType;
+        this.streamingBody = null;
+        return this;
+    }
+
+    /**
+     * Sets a request body that is written directly to the connection. The body may be written
+     * more than once if the transport retries the request.
+     *
+     * @param body The request body.
+     * @return The request.
+     */
+    @NonNull
+    public Request setRequestBody(@NonNull RequestBody body) {
+        this.streamingBody = body;
+        this.body = null;
+        this.contentType = body.getContentType();
         return this;
     }
 
@@ -250,7 +291,45 @@ public class Request {
      * @return The request response.
      */
     @NonNull
-    public <T> Response<T> execute(@NonNull ResponseParser<T> parser) throws RequestException {
+    public <T> Response<T> execute(@NonNull final ResponseParser<T> parser) throws RequestException {
+        return execute(new ResponseHandler<T>() {
+            @Override
+            public Response<T> handle(@NonNull Response.Builder<T> builder, int status, @Nullable Map<String, List<String>> headers, @Nullable InputStream body) throws Exception {
+                String messageBody = readEntireStream(body);
+                return builder.setResult(parser.parseResponse(status, headers, messageBody))
+                              .setResponseBody(messageBody)
+                              .build();
+            }
+        });
+    }
+
+    /**
+     * Executes the request, handing the response body stream directly to the parser. Responses
+     * that are not successful are still buffered so the body is available from
+     * {@link Response#getResponseBody()} for logging.
+     *
+     * @return The request response.
+     */
+    @NonNull
+    public <T> Response<T> executeStreaming(@NonNull final StreamResponseParser<T> parser) throws RequestException {
+        return execute(new ResponseHandler<T>() {
+            @Override
+            public Response<T> handle(@NonNull Response.Builder<T> builder, int status, @Nullable Map<String, List<String>> headers, @Nullable InputStream body) throws Exception {
+                if (UAHttpStatusUtil.inSuccessRange(status) || body == null) {
+                    return builder.setResult(parser.parseResponse(status, headers, body)).build();
+                }
+
+                String messageBody = readEntireStream(body);
+                InputStream bufferedBody = new ByteArrayInputStream(messageBody.getBytes(UTF_8));
+                return builder.setResult(parser.parseResponse(status, headers, bufferedBody))
+                              .setResponseBody(messageBody)
+                              .build();
+            }
+        });
+    }
+
+    @NonNull
+    private <T> Response<T> execute(@NonNull ResponseHandler<T> handler) throws RequestException {
         if (uri == null) {
             throw new RequestException("Unable to perform request: missing URL");
         }
@@ -266,105 +345,263 @@ public class Request {
             throw new RequestException("Unable to perform request: missing request method");
         }
 
-        HttpURLConnection conn = null;
+        Map<String, String> headers = new HashMap<>(responseProperties);
 
-        try {
-            conn = (HttpURLConnection) ConnectionUtils.openSecureConnection(UAirship.getApplicationContext(), url);
-            conn.setRequestMethod(requestMethod);
-            conn.setConnectTimeout(NETWORK_TIMEOUT_MS);
+        if (ifModifiedSince > 0) {
+            headers.put("If-Modified-Since", formatHttpDate(ifModifiedSince));
+        }
 
-            if (body != null) {
-                conn.setDoOutput(true);
-                conn.setRequestProperty("Content-Type", contentType);
-            }
+        if (!UAStringUtil.isEmpty(user) && !UAStringUtil.isEmpty(password)) {
+            String credentials = user + ":" + password;
+            headers.put("Authorization", "Basic " + Base64.encodeToString(credentials.getBytes(), Base64.NO_WRAP));
+        }
 
-            conn.setDoInput(true);
-            conn.setUseCaches(false);
-            conn.setAllowUserInteraction(false);
-            conn.setInstanceFollowRedirects(followRedirects);
+        RequestBody sourceBody = streamingBody;
+        if (sourceBody == null && body != null) {
+            sourceBody = new StringRequestBody(body, contentType);
+        }
 
-            if (ifModifiedSince > 0) {
-                conn.setIfModifiedSince(ifModifiedSince);
+        CountingRequestBody requestBody = null;
+        if (sourceBody != null) {
+            if (compressRequestBody) {
+                headers.put("Content-Encoding", "gzip");
             }
+            requestBody = new CountingRequestBody(sourceBody, compressRequestBody);
+        }
 
-            for (String key : responseProperties.keySet()) {
-                conn.setRequestProperty(key, responseProperties.get(key));
-            }
+        TransportRequest transportRequest = new TransportRequest(url, requestMethod, headers, requestBody, followRedirects);
+        HttpTransport httpTransport = transport == null ? RequestFactory.getDefaultTransport() : transport;
 
-            if (!UAStringUtil.isEmpty(user) && !UAStringUtil.isEmpty(password)) {
-                String credentials = user + ":" + password;
-                conn.setRequestProperty("Authorization", "Basic " + Base64.encodeToString(credentials.getBytes(), Base64.NO_WRAP));
-            }
+        TransportResponse transportResponse = null;
+        InputStream responseStream = null;
 
-            // Create the form content
-            if (body != null) {
-
-                if (compressRequestBody) {
-                    conn.setRequestProperty("Content-Encoding", "gzip");
-                    OutputStream out = conn.getOutputStream();
-                    GZIPOutputStream gos = new GZIPOutputStream(out);
-                    Writer writer = new OutputStreamWriter(gos, "UTF-8");
-                    writer.write(body);
-                    writer.close();
-                    gos.close();
-                    out.close();
-                } else {
-                    OutputStream out = conn.getOutputStream();
-                    Writer writer = new OutputStreamWriter(out, "UTF-8");
-                    writer.write(body);
-                    writer.close();
-                    out.close();
-                }
-            }
+        try {
+            transportResponse = httpTransport.execute(transportRequest);
 
-            Response.Builder<T> responseBuilder = new Response.Builder<T>(conn.getResponseCode())
-                    .setResponseHeaders(conn.getHeaderFields())
-                    .setLastModified(conn.getLastModified());
+            int status = transportResponse.getStatus();
+            Map<String, List<String>> responseHeaders = transportResponse.getHeaders();
 
-            String messageBody;
-            try {
-                messageBody = readEntireStream(conn.getInputStream());
-            } catch (IOException ex) {
-                messageBody = readEntireStream(conn.getErrorStream());
+            Response.Builder<T> responseBuilder = new Response.Builder<T>(status)
+                    .setResponseHeaders(responseHeaders)
+                    .setLastModified(transportResponse.getLastModified());
+
+            if (requestBody != null) {
+                responseBuilder.setRequestBodySize(requestBody.getBytesWritten(), requestBody.getWireBytesWritten());
             }
 
-            return responseBuilder.setResult(parser.parseResponse(conn.getResponseCode(), conn.getHeaderFields(), messageBody))
-                                  .setResponseBody(messageBody)
-                                  .build();
+            responseStream = openResponseStream(transportResponse);
+            return handler.handle(responseBuilder, status, responseHeaders, responseStream);
         } catch (Exception e) {
             throw new RequestException(String.format(Locale.ROOT, "Request failed URL: %s method: %s", url, requestMethod), e);
         } finally {
-            if (conn != null) {
-                conn.disconnect();
+            if (responseStream != null) {
+                try {
+                    responseStream.close();
+                } catch (Exception e) {
+                    Logger.error(e, "Failed to close streams");
+                }
+            }
+
+            if (transportResponse != null) {
+                try {
+                    transportResponse.close();
+                } catch (Exception e) {
+                    Logger.error(e, "Failed to close response");
+                }
             }
         }
     }
 
+    /**
+     * Opens the response body stream, decoding gzip if the server compressed the response. Closing
+     * the returned stream leaves the transport stream open so the transport can release the
+     * connection.
+     */
+    @Nullable
+    private static InputStream openResponseStream(@NonNull TransportResponse response) throws IOException {
+        InputStream input = response.getBody();
+        if (input == null) {
+            return null;
+        }
+
+        InputStream nonClosing = new FilterInputStream(input) {
+            @Override
+            public void close() {
+                // Closed by the transport
+            }
+        };
+
+        BufferedInputStream buffered = new BufferedInputStream(nonClosing);
+        if (!"gzip".equalsIgnoreCase(response.getContentEncoding()) || !hasResponseBody(response.getStatus())) {
+            return buffered;
+        }
+
+        // Responses like a 304 may carry the encoding header without a body
+        buffered.mark(1);
+        if (buffered.read() == -1) {
+            return buffered;
+        }
+        buffered.reset();
+
+        return new GZIPInputStream(buffered);
+    }
+
+    private static boolean hasResponseBody(int status) {
+        return status >= 200
+                && status != HttpURLConnection.HTTP_NO_CONTENT
+                && status != HttpURLConnection.HTTP_NOT_MODIFIED;
+    }
+
+    @NonNull
+    private static String formatHttpDate(long timeMs) {
+        SimpleDateFormat format = new SimpleDateFormat(HTTP_DATE_FORMAT, Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        return format.format(new Date(timeMs));
+    }
+
     @Nullable
-    private String readEntireStream(@Nullable InputStream input) throws IOException {
+    private static String readEntireStream(@Nullable InputStream input) throws IOException {
         if (input == null) {
             return null;
         }
 
-        BufferedReader br = new BufferedReader(new InputStreamReader(input));
+        Reader reader = new InputStreamReader(input, UTF_8);
         StringBuilder sb = new StringBuilder();
+        char[] buffer = new char[BUFFER_SIZE];
 
-        try {
-            String inputLine;
-            while ((inputLine = br.readLine()) != null) {
-                sb.append(inputLine).append("\n");
-            }
-            br.close();
-        } finally {
-            try {
-                input.close();
-                br.close();
-            } catch (Exception e) {
-                Logger.error(e, "Failed to close streams");
-            }
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            sb.append(buffer, 0, read);
         }
 
         return sb.toString();
     }
 
+    /**
+     * Request body backed by a String.
+     */
+    private static class StringRequestBody implements RequestBody {
+
+        private final byte[] body;
+        private final String contentType;
+
+        StringRequestBody(@NonNull String body, @Nullable String contentType) {
+            this.body = body.getBytes(UTF_8);
+            this.contentType = contentType;
+        }
+
+        @Nullable
+        @Override
+        public String getContentType() {
+            return contentType;
+        }
+
+        @Override
+        public long getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public void writeTo(@NonNull OutputStream outputStream) throws IOException {
+            outputStream.write(body);
+        }
+
+    }
+
+    /**
+     * Request body that optionally gzips another body and records how many bytes were produced by
+     * the body and how many were actually sent.
+     */
+    private static class CountingRequestBody implements RequestBody {
+
+        private final RequestBody body;
+        private final boolean compress;
+
+        private volatile long bytesWritten;
+        private volatile long wireBytesWritten;
+
+        CountingRequestBody(@NonNull RequestBody body, boolean compress) {
+            this.body = body;
+            this.compress = compress;
+        }
+
+        @Nullable
+        @Override
+        public String getContentType() {
+            return body.getContentType();
+        }
+
+        @Override
+        public long getContentLength() {
+            // The compressed size is only known once the body is written
+            return compress ? -1 : body.getContentLength();
+        }
+
+        @Override
+        public void writeTo(@NonNull OutputStream outputStream) throws IOException {
+            CountingOutputStream wire = new CountingOutputStream(outputStream);
+            if (compress) {
+                GZIPOutputStream gos = new GZIPOutputStream(wire, BUFFER_SIZE);
+                CountingOutputStream raw = new CountingOutputStream(gos);
+                body.writeTo(raw);
+                raw.flush();
+                gos.finish();
+                bytesWritten = raw.count;
+            } else {
+                body.writeTo(wire);
+                bytesWritten = wire.count;
+            }
+
+            wire.flush();
+            wireBytesWritten = wire.count;
+        }
+
+        long getBytesWritten() {
+            return bytesWritten;
+        }
+
+        long getWireBytesWritten() {
+            return wireBytesWritten;
+        }
+
+    }
+
+    /**
+     * Output stream that counts the bytes passing through it. Closing the stream does not close
+     * the wrapped stream.
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        long count;
+
+        CountingOutputStream(@NonNull OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(@NonNull byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+
+    }
+
+    /**
+     * Builds the response from the open response body.
+     */
+    private interface ResponseHandler<T> {
+        Response<T> handle(@NonNull Response.Builder<T> builder, int status, @Nullable Map<String, List<String>> headers, @Nullable InputStream body) throws Exception;
+    }
+
 }
@@ -0,0 +1,43 @@
+/* Copyright Airship and Contributors */
+
+package com.urbanairship.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+
+/**
+ * A request body that is written directly to the connection.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public interface RequestBody {
+
+    /**
+     * The body content type.
+     *
+     * @return The content type.
+     */
+    @Nullable
+    String getContentType();
+
+    /**
+     * The number of bytes written by {@link #writeTo(OutputStream)}.
+     *
+     * @return The content length, or {@code -1} if unknown.
+     */
+    long getContentLength();
+
+    /**
+     * Writes the body.
+     *
+     * @param outputStream The connection output stream.
+     * @throws IOException If the body is unable to be written.
+     */
+    void writeTo(@NonNull OutputStream outputStream) throws IOException;
+
+}
@@ -3,6 +3,7 @@
 package com.urbanairship.http;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 
 /**
@@ -19,6 +20,27 @@ public class RequestFactory {
     @NonNull
     public static final RequestFactory DEFAULT_REQUEST_FACTORY = new RequestFactory();
 
+    private static HttpTransport defaultTransport;
+
+    @Nullable
+    private final HttpTransport transport;
+
+    /**
+     * Creates a request factory that uses the default transport.
+     */
+    public RequestFactory() {
+        this(null);
+    }
+
+    /**
+     * Creates a request factory that uses the given transport for every request.
+     *
+     * @param transport The transport, or {@code null} to use the default transport.
+     */
+    public RequestFactory(@Nullable HttpTransport transport) {
+        this.transport = transport;
+    }
+
     /**
      * Creates the request.
      *
@@ -26,7 +48,25 @@ public class RequestFactory {
      */
     @NonNull
     public Request createRequest() {
-        return new Request();
+        return new Request(transport == null ? getDefaultTransport() : transport);
+    }
+
+    /**
+     * Gets the shared default transport. Uses a pooled {@link OkHttpTransport} if OkHttp 4+ is
+     * available, otherwise falls back to {@link UrlConnectionTransport}.
+     *
+     * @return The default transport.
+     */
+    @NonNull
+    public static synchronized HttpTransport getDefaultTransport() {
+        if (defaultTransport == null) {
+            if (OkHttpTransport.isAvailable()) {
+                defaultTransport = OkHttpTransport.newBuilder().build();
+            } else {
+                defaultTransport = new UrlConnectionTransport();
+            }
+        }
+        return defaultTransport;
     }
 
 }
@@ -36,6 +36,8 @@ public class Response<T> {
     private final Map<String, List<String>> responseHeaders;
     private final int status;
     private final long lastModified;
+    private final long requestBodySize;
+    private final long requestBodyWireSize;
     private final T result;
 
     private Response(Builder<T> builder) {
@@ -43,6 +45,8 @@ public class Response<T> {
         this.responseBody = builder.responseBody;
         this.responseHeaders = builder.responseHeaders;
         this.lastModified = builder.lastModified;
+        this.requestBodySize = builder.requestBodySize;
+        this.requestBodyWireSize = builder.requestBodyWireSize;
         this.result = builder.result;
     }
 
@@ -51,6 +55,8 @@ public class Response<T> {
         this.responseBody = response.responseBody;
         this.responseHeaders = response.responseHeaders;
         this.lastModified = response.lastModified;
+        this.requestBodySize = response.requestBodySize;
+        this.requestBodyWireSize = response.requestBodyWireSize;
         this.result = response.result;
     }
 
@@ -120,6 +126,24 @@ public class Response<T> {
         return lastModified;
     }
 
+    /**
+     * Gets the size of the request body in bytes before any content encoding was applied.
+     *
+     * @return The request body size in bytes, or 0 if the request did not have a body.
+     */
+    public long getRequestBodySize() {
+        return requestBodySize;
+    }
+
+    /**
+     * Gets the size of the request body in bytes as sent on the wire, after content encoding.
+     *
+     * @return The encoded request body size in bytes, or 0 if the request did not have a body.
+     */
+    public long getRequestBodyWireSize() {
+        return requestBodyWireSize;
+    }
+
     /**
      * True if the status is 200-299, otherwise false.
      *
@@ -230,6 +254,8 @@ public class Response<T> {
         private Map<String, List<String>> responseHeaders;
         private final int status;
         private long lastModified = 0;
+        private long requestBodySize = 0;
+        private long requestBodyWireSize = 0;
         private T result;
 
         /**
@@ -277,6 +303,20 @@ public class Response<T> {
             return this;
         }
 
+        /**
+         * Set the request body sizes.
+         *
+         * @param size The body size in bytes before content encoding.
+         * @param wireSize The body size in bytes after content encoding.
+         * @return The builder with the request body sizes set.
+         */
+        @NonNull
+        public Builder<T> setRequestBodySize(long size, long wireSize) {
+            this.requestBodySize = size;
+            this.requestBodyWireSize = wireSize;
+            return this;
+        }
+
         /**
          * Sets the parsed result
          *
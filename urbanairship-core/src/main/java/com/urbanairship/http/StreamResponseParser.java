@@ -0,0 +1,25 @@
+/* Copyright Airship and Contributors */
+
+package com.urbanairship.http;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+
+/**
+ * Parses a response directly from the response body stream. Unlike {@link ResponseParser}, the
+ * body is never buffered into a String so large responses can be parsed with bounded memory.
+ * <p>
+ * The stream is already decompressed if the response was gzip encoded, and is closed by the
+ * request once the parser returns.
+ *
+ * @param <T> The result type.
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public interface StreamResponseParser<T> {
+    T parseResponse(int status, @Nullable Map<String, List<String>> headers, @Nullable InputStream responseBody) throws Exception;
+}
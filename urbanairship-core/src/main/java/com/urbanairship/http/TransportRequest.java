@@ -0,0 +1,97 @@
+/* Copyright Airship and Contributors */
+
+package com.urbanairship.http;
+
+import java.net.URL;
+import java.util.Collections;
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+
+/**
+ * The resolved request handed to a {@link HttpTransport}.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public class TransportRequest {
+
+    private final URL url;
+    private final String method;
+    private final Map<String, String> headers;
+    private final RequestBody body;
+    private final boolean followRedirects;
+
+    /**
+     * Default constructor.
+     *
+     * @param url The URL.
+     * @param method The request method.
+     * @param headers The request headers.
+     * @param body The optional body.
+     * @param followRedirects If redirects should be followed.
+     */
+    public TransportRequest(@NonNull URL url,
+                            @NonNull String method,
+                            @NonNull Map<String, String> headers,
+                            @Nullable RequestBody body,
+                            boolean followRedirects) {
+        this.url = url;
+        this.method = method;
+        this.headers = Collections.unmodifiableMap(headers);
+        this.body = body;
+        this.followRedirects = followRedirects;
+    }
+
+    /**
+     * Gets the URL.
+     *
+     * @return The URL.
+     */
+    @NonNull
+    public URL getUrl() {
+        return url;
+    }
+
+    /**
+     * Gets the request method.
+     *
+     * @return The request method.
+     */
+    @NonNull
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * Gets the request headers.
+     *
+     * @return The request headers.
+     */
+    @NonNull
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Gets the request body.
+     *
+     * @return The request body, or {@code null} if the request does not have a body.
+     */
+    @Nullable
+    public RequestBody getBody() {
+        return body;
+    }
+
+    /**
+     * If redirects should be followed.
+     *
+     * @return {@code true} to follow redirects, otherwise {@code false}.
+     */
+    public boolean isFollowRedirects() {
+        return followRedirects;
+    }
+
+}
@@ -0,0 +1,63 @@
+/* Copyright Airship and Contributors */
+
+package com.urbanairship.http;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+
+/**
+ * The raw response from a {@link HttpTransport}. Closing the response releases the connection
+ * back to the transport.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public interface TransportResponse extends Closeable {
+
+    /**
+     * Gets the status code.
+     *
+     * @return The status code.
+     */
+    int getStatus();
+
+    /**
+     * Gets the response headers.
+     *
+     * @return The response headers.
+     */
+    @Nullable
+    Map<String, List<String>> getHeaders();
+
+    /**
+     * Gets the value of the Last-Modified header in milliseconds.
+     *
+     * @return The last modified time, or 0 if not set.
+     */
+    long getLastModified();
+
+    /**
+     * Gets the response body, or the error body for unsuccessful responses. The body is not decoded
+     * if the server applied a content encoding.
+     *
+     * @return The body stream, or {@code null} if the response does not have a body.
+     * @throws IOException If the body is unable to be opened.
+     */
+    @Nullable
+    InputStream getBody() throws IOException;
+
+    /**
+     * Gets the content encoding of the body.
+     *
+     * @return The content encoding or {@code null}.
+     */
+    @Nullable
+    String getContentEncoding();
+
+}
@@ -0,0 +1,196 @@
+/* Copyright Airship and Contributors */
+
+package com.urbanairship.http;
+
+import com.urbanairship.Logger;
+import com.urbanairship.UAirship;
+import com.urbanairship.util.ConnectionUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.util.List;
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+
+/**
+ * {@link HttpTransport} backed by {@link HttpURLConnection}.
+ * <p>
+ * Connections are not disconnected after each request. Instead the response body is drained and
+ * closed so the platform connection pool can reuse the socket for the next request to the same
+ * host.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public class UrlConnectionTransport implements HttpTransport {
+
+    private static final int NETWORK_TIMEOUT_MS = 60000;
+
+    // Max bytes to read from an unconsumed body to keep the connection alive
+    private static final int MAX_DRAIN_BYTES = 64 * 1024;
+
+    private final int connectTimeoutMs;
+    private final int readTimeoutMs;
+
+    /**
+     * Default constructor.
+     */
+    public UrlConnectionTransport() {
+        this(NETWORK_TIMEOUT_MS, NETWORK_TIMEOUT_MS);
+    }
+
+    /**
+     * Creates a transport with custom timeouts.
+     *
+     * @param connectTimeoutMs The connect timeout in milliseconds.
+     * @param readTimeoutMs The read timeout in milliseconds.
+     */
+    public UrlConnectionTransport(int connectTimeoutMs, int readTimeoutMs) {
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.readTimeoutMs = readTimeoutMs;
+    }
+
+    @NonNull
+    @Override
+    public TransportResponse execute(@NonNull TransportRequest request) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) ConnectionUtils.openSecureConnection(UAirship.getApplicationContext(), request.getUrl());
+
+        try {
+            conn.setRequestMethod(request.getMethod());
+            conn.setConnectTimeout(connectTimeoutMs);
+            conn.setReadTimeout(readTimeoutMs);
+            conn.setDoInput(true);
+            conn.setUseCaches(false);
+            conn.setAllowUserInteraction(false);
+            conn.setInstanceFollowRedirects(request.isFollowRedirects());
+
+            RequestBody body = request.getBody();
+            if (body != null) {
+                conn.setDoOutput(true);
+                conn.setRequestProperty("Content-Type", body.getContentType());
+
+                // Without a streaming mode the connection buffers the whole body to set the length
+                long contentLength = body.getContentLength();
+                if (contentLength >= 0) {
+                    conn.setFixedLengthStreamingMode(contentLength);
+                } else {
+                    conn.setChunkedStreamingMode(0);
+                }
+            }
+
+            for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+                conn.setRequestProperty(header.getKey(), header.getValue());
+            }
+
+            if (body != null) {
+                OutputStream out = conn.getOutputStream();
+                try {
+                    body.writeTo(out);
+                } finally {
+                    out.close();
+                }
+            }
+
+            // Forces the request
+            conn.getResponseCode();
+            return new UrlConnectionResponse(conn);
+        } catch (IOException | RuntimeException e) {
+            conn.disconnect();
+            throw e;
+        }
+    }
+
+    private static class UrlConnectionResponse implements TransportResponse {
+
+        private final HttpURLConnection conn;
+        private InputStream body;
+
+        UrlConnectionResponse(@NonNull HttpURLConnection conn) {
+            this.conn = conn;
+        }
+
+        @Override
+        public int getStatus() {
+            try {
+                return conn.getResponseCode();
+            } catch (IOException e) {
+                // Response code is cached after the request is sent
+                return -1;
+            }
+        }
+
+        @Nullable
+        @Override
+        public Map<String, List<String>> getHeaders() {
+            return conn.getHeaderFields();
+        }
+
+        @Override
+        public long getLastModified() {
+            return conn.getLastModified();
+        }
+
+        @Nullable
+        @Override
+        public synchronized InputStream getBody() {
+            if (body == null) {
+                try {
+                    body = conn.getInputStream();
+                } catch (IOException e) {
+                    body = conn.getErrorStream();
+                }
+            }
+            return body;
+        }
+
+        @Nullable
+        @Override
+        public String getContentEncoding() {
+            return conn.getContentEncoding();
+        }
+
+        @Override
+        public synchronized void close() {
+            InputStream stream = getBody();
+            if (stream == null) {
+                return;
+            }
+
+            try {
+                if (drain(stream)) {
+                    stream.close();
+                    return;
+                }
+            } catch (IOException e) {
+                Logger.debug(e, "Failed to drain response body.");
+            }
+
+            try {
+                stream.close();
+            } catch (IOException e) {
+                Logger.debug(e, "Failed to close response body.");
+            }
+            conn.disconnect();
+        }
+
+        private static boolean drain(@NonNull InputStream stream) throws IOException {
+            byte[] buffer = new byte[4096];
+            int total = 0;
+            int read;
+            while ((read = stream.read(buffer)) != -1) {
+                total += read;
+                if (total > MAX_DRAIN_BYTES) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+    }
+
+}
@@ -21,6 +21,28 @@ import androidx.annotation.RestrictTo;
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
 public class DefaultImageLoader implements ImageLoader {
 
+    /**
+     * Cache instrumentation listener.
+     */
+    public interface CacheListener {
+
+        /**
+         * Called when an image is served from the cache.
+         *
+         * @param key The cache key.
+         * @param fromDisk {@code true} if the image was decoded from the disk cache, {@code false} if it was in memory.
+         */
+        void onHit(@NonNull String key, boolean fromDisk);
+
+        /**
+         * Called when an image is not cached and will be fetched.
+         *
+         * @param key The cache key.
+         */
+        void onMiss(@NonNull String key);
+
+    }
+
     private final Map<ImageView, ImageRequest> requestMap;
     private final ImageCache imageCache;
 
@@ -34,6 +56,25 @@ public class DefaultImageLoader implements ImageLoader {
         this.imageCache = new ImageCache(context);
     }
 
+    /**
+     * Sets the cache listener.
+     *
+     * @param listener The listener.
+     */
+    public void setCacheListener(@Nullable CacheListener listener) {
+        imageCache.setListener(listener);
+    }
+
+    /**
+     * Gets a snapshot of the cache counters.
+     *
+     * @return The cache stats.
+     */
+    @NonNull
+    public ImageCacheStats getCacheStats() {
+        return imageCache.getStats();
+    }
+
     /**
      * Cancels a request.
      *
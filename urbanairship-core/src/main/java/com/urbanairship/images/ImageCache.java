@@ -1,22 +1,56 @@
 package com.urbanairship.images;
 
 import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
 import android.net.http.HttpResponseCache;
 import android.util.LruCache;
 
+import com.urbanairship.AirshipExecutors;
 import com.urbanairship.Logger;
+import com.urbanairship.util.Clock;
+import com.urbanairship.util.ImageUtils;
+import com.urbanairship.util.UAStringUtil;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 import androidx.annotation.WorkerThread;
 
+/**
+ * Two tier image cache.
+ * <p>
+ * Decoded drawables are kept in memory. Bitmaps are also written to disk already downsampled to
+ * the requested size, so loading them again is a single small decode instead of a download and a
+ * full size decode. Disk cached bitmaps are loaded again once they are older than
+ * {@link #REVALIDATE_AFTER_MS}, which lets the HTTP cache revalidate them with the server.
+ * Concurrent loads of the same key share a single load.
+ */
 class ImageCache {
 
     private static final String CACHE_DIR = "urbanairship-cache";
+    private static final String BITMAP_CACHE_DIR = "urbanairship-bitmap-cache";
+    private static final String TEMP_EXTENSION = ".tmp";
 
     /**
      * Max amount of memory cache.
@@ -33,12 +67,68 @@ class ImageCache {
      */
     private static final int DISK_CACHE_SIZE = 1024 * 1024 * 50; // 50MB
 
+    /**
+     * Downsampled bitmap disk cache size.
+     */
+    private static final int BITMAP_DISK_CACHE_SIZE = 1024 * 1024 * 20; // 20MB
+
+    /**
+     * Decode buffer size and the max number of pooled decode buffers.
+     */
+    private static final int DECODE_BUFFER_SIZE = 16 * 1024;
+    private static final int MAX_POOLED_BUFFERS = 4;
+
+    /**
+     * Quality used to store opaque bitmaps on disk.
+     */
+    private static final int JPEG_QUALITY = 90;
+
+    /**
+     * Time after which a disk cached bitmap is loaded again.
+     */
+    static final long REVALIDATE_AFTER_MS = TimeUnit.DAYS.toMillis(1);
+
+    /**
+     * Loads an image on a cache miss.
+     */
+    interface Loader {
+
+        @Nullable
+        ImageUtils.DrawableResult load() throws IOException;
+
+    }
+
     private final LruCache<String, CacheEntry> memoryCache;
+    private final Map<String, FutureTask<Drawable>> inFlight = new HashMap<>();
+    private final ArrayDeque<byte[]> bufferPool = new ArrayDeque<>();
+    private final File bitmapCacheDir;
+    private final long bitmapDiskCacheSize;
+    private final Executor diskExecutor;
+    private final Clock clock;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
 
     private final Context context;
 
+    @Nullable
+    private volatile DefaultImageLoader.CacheListener listener;
+
     ImageCache(@NonNull Context context) {
+        this(context, new File(context.getApplicationContext().getCacheDir(), BITMAP_CACHE_DIR), BITMAP_DISK_CACHE_SIZE,
+                AirshipExecutors.newSerialExecutor(), Clock.DEFAULT_CLOCK);
+    }
+
+    @VisibleForTesting
+    ImageCache(@NonNull Context context, @NonNull File bitmapCacheDir, long bitmapDiskCacheSize,
+               @NonNull Executor diskExecutor, @NonNull Clock clock) {
         this.context = context.getApplicationContext();
+        this.bitmapCacheDir = bitmapCacheDir;
+        this.bitmapDiskCacheSize = bitmapDiskCacheSize;
+        this.diskExecutor = diskExecutor;
+        this.clock = clock;
 
         // Memory Cache - 1/8 the available memory. Taken from https://developer.android.com/topic/performance/graphics/cache-bitmap
         int memCacheSize = (int) Math.min(MAX_MEM_CACHE_SIZE, Runtime.getRuntime().maxMemory() / 8);
@@ -61,15 +151,100 @@ class ImageCache {
         }
     }
 
+    /**
+     * Gets a drawable from the memory cache.
+     *
+     * @param key The cache key.
+     * @return The drawable, or {@code null} if it is not in memory.
+     */
     @Nullable
     Drawable getDrawable(@NonNull String key) {
         CacheEntry entry = memoryCache.get(key);
         if (entry == null) {
             return null;
         }
+
+        memoryHits.incrementAndGet();
+        DefaultImageLoader.CacheListener listener = this.listener;
+        if (listener != null) {
+            listener.onHit(key, false);
+        }
         return entry.drawable;
     }
 
+    /**
+     * Gets a drawable from the memory or disk cache, or loads it with the loader. Concurrent loads
+     * of the same key share the first caller's load.
+     *
+     * @param key The cache key.
+     * @param loader The loader.
+     * @return The drawable, or {@code null} if it failed to load.
+     * @throws IOException If the loader failed.
+     */
+    @WorkerThread
+    @Nullable
+    Drawable load(@NonNull final String key, @NonNull final Loader loader) throws IOException {
+        FutureTask<Drawable> task;
+        boolean isOwner = false;
+
+        synchronized (inFlight) {
+            task = inFlight.get(key);
+            if (task == null) {
+                task = new FutureTask<>(new Callable<Drawable>() {
+                    @Override
+                    public Drawable call() throws IOException {
+                        return loadInternal(key, loader);
+                    }
+                });
+                inFlight.put(key, task);
+                isOwner = true;
+            } else {
+                coalesced.incrementAndGet();
+            }
+        }
+
+        if (isOwner) {
+            try {
+                task.run();
+            } finally {
+                synchronized (inFlight) {
+                    inFlight.remove(key);
+                }
+            }
+        }
+
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Sets the cache listener.
+     *
+     * @param listener The listener.
+     */
+    void setListener(@Nullable DefaultImageLoader.CacheListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Gets a snapshot of the cache counters.
+     *
+     * @return The cache stats.
+     */
+    @NonNull
+    ImageCacheStats getStats() {
+        return new ImageCacheStats(memoryHits.get(), diskHits.get(), misses.get(), coalesced.get());
+    }
+
     /**
      * Installs a HttpResponseCache if a cache is not already installed.
      */
@@ -90,6 +265,221 @@ class ImageCache {
         }
     }
 
+    @WorkerThread
+    @Nullable
+    private Drawable loadInternal(@NonNull final String key, @NonNull Loader loader) throws IOException {
+        // Finished by another request while this one was waiting to run
+        CacheEntry entry = memoryCache.get(key);
+        if (entry != null) {
+            return entry.drawable;
+        }
+
+        DefaultImageLoader.CacheListener listener = this.listener;
+
+        Bitmap bitmap = readBitmap(key, false);
+        if (bitmap != null) {
+            diskHits.incrementAndGet();
+            if (listener != null) {
+                listener.onHit(key, true);
+            }
+
+            return cacheBitmap(key, bitmap);
+        }
+
+        misses.incrementAndGet();
+        if (listener != null) {
+            listener.onMiss(key);
+        }
+
+        ImageUtils.DrawableResult result;
+        try {
+            result = loader.load();
+        } catch (IOException e) {
+            // Keep using an expired bitmap if it could not be revalidated
+            Bitmap expired = readBitmap(key, true);
+            if (expired == null) {
+                throw e;
+            }
+
+            Logger.debug(e, "Unable to revalidate image, using disk cached copy: %s", key);
+            return cacheBitmap(key, expired);
+        }
+
+        if (result == null) {
+            return null;
+        }
+
+        cacheDrawable(key, result.drawable, result.bytes);
+
+        // Animated and vector drawables are not bitmaps and only cached in memory
+        if (result.drawable instanceof BitmapDrawable) {
+            final Bitmap loaded = ((BitmapDrawable) result.drawable).getBitmap();
+            diskExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    writeBitmap(key, loaded);
+                }
+            });
+        }
+
+        return result.drawable;
+    }
+
+    @NonNull
+    private Drawable cacheBitmap(@NonNull String key, @NonNull Bitmap bitmap) {
+        Drawable drawable = new BitmapDrawable(context.getResources(), bitmap);
+        cacheDrawable(key, drawable, bitmap.getByteCount());
+        return drawable;
+    }
+
+    /**
+     * Reads a bitmap from the disk cache.
+     *
+     * @param key The cache key.
+     * @param allowExpired {@code true} to return the bitmap even if it needs to be revalidated.
+     * @return The bitmap, or {@code null} if it is not cached.
+     */
+    @WorkerThread
+    @Nullable
+    private Bitmap readBitmap(@NonNull String key, boolean allowExpired) {
+        File file = getBitmapFile(key);
+        if (!file.exists()) {
+            return null;
+        }
+
+        // The modified time is when the bitmap was written
+        if (!allowExpired && clock.currentTimeMillis() - file.lastModified() >= REVALIDATE_AFTER_MS) {
+            return null;
+        }
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inTempStorage = obtainBuffer();
+        try {
+            Bitmap bitmap = BitmapFactory.decodeFile(file.getAbsolutePath(), options);
+            if (bitmap == null) {
+                file.delete();
+                return null;
+            }
+
+            return bitmap;
+        } finally {
+            releaseBuffer(options.inTempStorage);
+        }
+    }
+
+    @WorkerThread
+    private void writeBitmap(@NonNull String key, @NonNull Bitmap bitmap) {
+        if (!bitmapCacheDir.exists() && !bitmapCacheDir.mkdirs()) {
+            Logger.error("Failed to create the bitmap cache.");
+            return;
+        }
+
+        File file = getBitmapFile(key);
+        File temp = new File(bitmapCacheDir, file.getName() + TEMP_EXTENSION);
+
+        OutputStream outputStream = null;
+        boolean isWritten = false;
+        try {
+            outputStream = new FileOutputStream(temp);
+            if (bitmap.hasAlpha()) {
+                isWritten = bitmap.compress(Bitmap.CompressFormat.PNG, 100, outputStream);
+            } else {
+                isWritten = bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, outputStream);
+            }
+        } catch (IOException e) {
+            Logger.debug(e, "Unable to write bitmap to cache.");
+        } finally {
+            if (outputStream != null) {
+                try {
+                    outputStream.close();
+                } catch (IOException e) {
+                    isWritten = false;
+                }
+            }
+        }
+
+        if (!isWritten || !temp.renameTo(file)) {
+            temp.delete();
+            return;
+        }
+
+        file.setLastModified(clock.currentTimeMillis());
+
+        trimDiskCache();
+    }
+
+    /**
+     * Evicts the oldest bitmaps until the disk cache is within its size.
+     */
+    @WorkerThread
+    private void trimDiskCache() {
+        synchronized (bitmapCacheDir) {
+            File[] files = bitmapCacheDir.listFiles();
+            if (files == null) {
+                return;
+            }
+
+            long size = 0;
+            List<File> bitmaps = new ArrayList<>(files.length);
+            for (File file : files) {
+                if (!file.getName().endsWith(TEMP_EXTENSION)) {
+                    bitmaps.add(file);
+                    size += file.length();
+                }
+            }
+
+            if (size <= bitmapDiskCacheSize) {
+                return;
+            }
+
+            Collections.sort(bitmaps, new Comparator<File>() {
+                @Override
+                public int compare(File lh, File rh) {
+                    long lhModified = lh.lastModified();
+                    long rhModified = rh.lastModified();
+                    return lhModified < rhModified ? -1 : (lhModified == rhModified ? 0 : 1);
+                }
+            });
+
+            for (File file : bitmaps) {
+                if (size <= bitmapDiskCacheSize) {
+                    break;
+                }
+
+                long length = file.length();
+                if (file.delete()) {
+                    size -= length;
+                }
+            }
+        }
+    }
+
+    @NonNull
+    private File getBitmapFile(@NonNull String key) {
+        String name = UAStringUtil.sha256(key);
+        return new File(bitmapCacheDir, name == null ? String.valueOf(key.hashCode()) : name);
+    }
+
+    @NonNull
+    private byte[] obtainBuffer() {
+        synchronized (bufferPool) {
+            byte[] buffer = bufferPool.poll();
+            return buffer == null ? new byte[DECODE_BUFFER_SIZE] : buffer;
+        }
+    }
+
+    private void releaseBuffer(@Nullable byte[] buffer) {
+        if (buffer == null) {
+            return;
+        }
+
+        synchronized (bufferPool) {
+            if (bufferPool.size() < MAX_POOLED_BUFFERS) {
+                bufferPool.offer(buffer);
+            }
+        }
+    }
+
     private static class CacheEntry {
 
         private final long byteCount;
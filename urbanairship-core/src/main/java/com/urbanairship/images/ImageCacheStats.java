@@ -0,0 +1,75 @@
+/* Copyright Airship and Contributors */
+
+package com.urbanairship.images;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
+
+/**
+ * Snapshot of the {@link DefaultImageLoader} cache counters.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public class ImageCacheStats {
+
+    private final long memoryHits;
+    private final long diskHits;
+    private final long misses;
+    private final long coalesced;
+
+    ImageCacheStats(long memoryHits, long diskHits, long misses, long coalesced) {
+        this.memoryHits = memoryHits;
+        this.diskHits = diskHits;
+        this.misses = misses;
+        this.coalesced = coalesced;
+    }
+
+    /**
+     * Number of requests served from the memory cache.
+     *
+     * @return The memory hit count.
+     */
+    public long getMemoryHits() {
+        return memoryHits;
+    }
+
+    /**
+     * Number of requests served from the downsampled bitmap disk cache.
+     *
+     * @return The disk hit count.
+     */
+    public long getDiskHits() {
+        return diskHits;
+    }
+
+    /**
+     * Number of requests that fetched and decoded the image.
+     *
+     * @return The miss count.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Number of requests that waited on an in-flight load of the same image instead of loading it.
+     *
+     * @return The coalesced request count.
+     */
+    public long getCoalesced() {
+        return coalesced;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "ImageCacheStats{" +
+                "memoryHits=" + memoryHits +
+                ", diskHits=" + diskHits +
+                ", misses=" + misses +
+                ", coalesced=" + coalesced +
+                '}';
+    }
+
+}
@@ -202,16 +202,19 @@ abstract class ImageRequest {
             return null;
         }
 
-        int fallbackWidth = imageRequestOptions.getZeroWidthFallback();
-        int fallbackHeight = imageRequestOptions.getZeroHeightFallback();
-        ImageUtils.DrawableResult result = ImageUtils.fetchScaledDrawable(context, new URL(imageRequestOptions.getUrl()), width, height, fallbackWidth, fallbackHeight);
-
-        if (result == null) {
-            return null;
-        }
-        imageCache.cacheDrawable(getCacheKey(), result.drawable, result.bytes);
-        return result.drawable;
-
+        final URL url = new URL(imageRequestOptions.getUrl());
+        final int requestWidth = width;
+        final int requestHeight = height;
+        final int fallbackWidth = imageRequestOptions.getZeroWidthFallback();
+        final int fallbackHeight = imageRequestOptions.getZeroHeightFallback();
+
+        return imageCache.load(getCacheKey(), new ImageCache.Loader() {
+            @Nullable
+            @Override
+            public ImageUtils.DrawableResult load() throws IOException {
+                return ImageUtils.fetchScaledDrawable(context, url, requestWidth, requestHeight, fallbackWidth, fallbackHeight);
+            }
+        });
     }
 
     @MainThread
@@ -10,6 +10,7 @@ import android.os.Looper;
 import com.urbanairship.Logger;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -17,6 +18,7 @@ import androidx.annotation.IntRange;
 import androidx.annotation.NonNull;
 import androidx.annotation.RestrictTo;
 import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
 import androidx.core.util.Consumer;
 
 /**
@@ -35,6 +37,7 @@ public class JobDispatcher {
     private static JobDispatcher instance;
 
     private final Context context;
+    private final JobMetrics jobMetrics;
     private final JobRunner jobRunner;
     private final RateLimiter rateLimiter;
     private final Scheduler scheduler;
@@ -81,7 +84,13 @@ public class JobDispatcher {
     @VisibleForTesting
     public JobDispatcher(@NonNull Context context,
                          @NonNull Scheduler scheduler) {
-        this(context, scheduler, new JobRunner.DefaultRunner(), new RateLimiter());
+        this(context, scheduler, new JobMetrics());
+    }
+
+    private JobDispatcher(@NonNull Context context,
+                          @NonNull Scheduler scheduler,
+                          @NonNull JobMetrics jobMetrics) {
+        this(context, scheduler, new JobRunner.DefaultRunner(jobMetrics), new RateLimiter(context), jobMetrics);
     }
 
     @VisibleForTesting
@@ -89,10 +98,29 @@ public class JobDispatcher {
                          @NonNull Scheduler scheduler,
                          @NonNull JobRunner jobRunner,
                          @NonNull RateLimiter rateLimiter) {
+        this(context, scheduler, jobRunner, rateLimiter, new JobMetrics());
+    }
+
+    private JobDispatcher(@NonNull Context context,
+                          @NonNull Scheduler scheduler,
+                          @NonNull JobRunner jobRunner,
+                          @NonNull RateLimiter rateLimiter,
+                          @NonNull JobMetrics jobMetrics) {
         this.context = context.getApplicationContext();
         this.scheduler = scheduler;
         this.jobRunner = jobRunner;
         this.rateLimiter = rateLimiter;
+        this.jobMetrics = jobMetrics;
+    }
+
+    /**
+     * Gets the queue wait time and run time metrics of jobs run by the dispatcher.
+     *
+     * @return The job metrics.
+     */
+    @NonNull
+    public JobMetrics getJobMetrics() {
+        return jobMetrics;
     }
 
     /**
@@ -107,6 +135,42 @@ public class JobDispatcher {
         this.rateLimiter.setLimit(limitId, rate, duration, durationUnit);
     }
 
+    /**
+     * Acquires the rate limits for work done within a running job, such as a job that makes
+     * several rate limited requests in a single run. If a limit is over, this call blocks until
+     * the limit is available as long as the wait is within {@code maxWaitMs}.
+     *
+     * @param maxWaitMs The max time to wait for the limits.
+     * @param limitIds The limit Ids.
+     * @return {@code true} if the limits were acquired and tracked, otherwise {@code false}.
+     */
+    @WorkerThread
+    public boolean acquireRateLimits(long maxWaitMs, @NonNull Collection<String> limitIds) {
+        long delay = getRateLimitDelay(limitIds);
+        if (delay > maxWaitMs) {
+            return false;
+        }
+
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+
+            if (getRateLimitDelay(limitIds) > 0) {
+                return false;
+            }
+        }
+
+        for (String limitId : limitIds) {
+            rateLimiter.track(limitId);
+        }
+
+        return true;
+    }
+
     /**
      * Dispatches a jobInfo to be performed immediately.
      *
@@ -147,7 +211,7 @@ public class JobDispatcher {
     protected void onStartJob(@NonNull JobInfo jobInfo, long runAttempt, @NonNull Consumer<JobResult> callback) {
         Logger.verbose("Running job: %s, run attempt: %s", jobInfo, runAttempt);
 
-        long rateLimitDelay = getRateLimitDelay(jobInfo);
+        long rateLimitDelay = getRateLimitDelay(jobInfo.getRateLimitIds());
         if (rateLimitDelay > 0) {
             callback.accept(JobResult.FAILURE);
             dispatch(jobInfo, rateLimitDelay);
@@ -171,13 +235,13 @@ public class JobDispatcher {
     }
 
     private long getDelay(@NonNull JobInfo jobInfo) {
-        return Math.max(jobInfo.getMinDelayMs(), getRateLimitDelay(jobInfo));
+        return Math.max(jobInfo.getMinDelayMs(), getRateLimitDelay(jobInfo.getRateLimitIds()));
     }
 
-    private long getRateLimitDelay(@NonNull JobInfo jobInfo) {
+    private long getRateLimitDelay(@NonNull Collection<String> rateLimitIds) {
         long delay = 0;
 
-        for (String rateLimitId : jobInfo.getRateLimitIds()) {
+        for (String rateLimitId : rateLimitIds) {
             RateLimiter.Status status = rateLimiter.status(rateLimitId);
             if (status != null && status.getLimitStatus() == RateLimiter.LimitStatus.OVER) {
                 delay = Math.max(delay, status.getNextAvailable(TimeUnit.MILLISECONDS));
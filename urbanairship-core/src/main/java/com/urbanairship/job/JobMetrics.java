@@ -0,0 +1,143 @@
+/* Copyright Airship and Contributors */
+
+package com.urbanairship.job;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
+
+/**
+ * Collects how long jobs wait to run and how long they run, by job action.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public class JobMetrics {
+
+    private final Map<String, ActionMetrics> metrics = new HashMap<>();
+
+    /**
+     * Records a finished job.
+     *
+     * @param action The job action.
+     * @param waitTimeMs Time from when the job was handed to the runner until it started running.
+     * @param runTimeMs Time the job ran.
+     */
+    void record(@NonNull String action, long waitTimeMs, long runTimeMs) {
+        synchronized (metrics) {
+            ActionMetrics actionMetrics = metrics.get(action);
+            if (actionMetrics == null) {
+                actionMetrics = new ActionMetrics();
+                metrics.put(action, actionMetrics);
+            }
+            actionMetrics.record(waitTimeMs, runTimeMs);
+        }
+    }
+
+    /**
+     * Gets a snapshot of the metrics.
+     *
+     * @return The metrics by job action.
+     */
+    @NonNull
+    public Map<String, ActionMetrics> getMetrics() {
+        synchronized (metrics) {
+            Map<String, ActionMetrics> snapshot = new HashMap<>();
+            for (Map.Entry<String, ActionMetrics> entry : metrics.entrySet()) {
+                snapshot.put(entry.getKey(), new ActionMetrics(entry.getValue()));
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * Metrics for a single job action.
+     */
+    public static class ActionMetrics {
+
+        private int count;
+        private long totalWaitTimeMs;
+        private long maxWaitTimeMs;
+        private long totalRunTimeMs;
+        private long maxRunTimeMs;
+
+        ActionMetrics() {}
+
+        ActionMetrics(@NonNull ActionMetrics metrics) {
+            this.count = metrics.count;
+            this.totalWaitTimeMs = metrics.totalWaitTimeMs;
+            this.maxWaitTimeMs = metrics.maxWaitTimeMs;
+            this.totalRunTimeMs = metrics.totalRunTimeMs;
+            this.maxRunTimeMs = metrics.maxRunTimeMs;
+        }
+
+        void record(long waitTimeMs, long runTimeMs) {
+            count++;
+            totalWaitTimeMs += waitTimeMs;
+            maxWaitTimeMs = Math.max(maxWaitTimeMs, waitTimeMs);
+            totalRunTimeMs += runTimeMs;
+            maxRunTimeMs = Math.max(maxRunTimeMs, runTimeMs);
+        }
+
+        /**
+         * Gets the number of finished jobs.
+         *
+         * @return The job count.
+         */
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * Gets the total time jobs waited to run.
+         *
+         * @return The total wait time in milliseconds.
+         */
+        public long getTotalWaitTimeMs() {
+            return totalWaitTimeMs;
+        }
+
+        /**
+         * Gets the longest time a job waited to run.
+         *
+         * @return The max wait time in milliseconds.
+         */
+        public long getMaxWaitTimeMs() {
+            return maxWaitTimeMs;
+        }
+
+        /**
+         * Gets the total time jobs ran.
+         *
+         * @return The total run time in milliseconds.
+         */
+        public long getTotalRunTimeMs() {
+            return totalRunTimeMs;
+        }
+
+        /**
+         * Gets the longest time a job ran.
+         *
+         * @return The max run time in milliseconds.
+         */
+        public long getMaxRunTimeMs() {
+            return maxRunTimeMs;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "ActionMetrics{" +
+                    "count=" + count +
+                    ", totalWaitTimeMs=" + totalWaitTimeMs +
+                    ", maxWaitTimeMs=" + maxWaitTimeMs +
+                    ", totalRunTimeMs=" + totalRunTimeMs +
+                    ", maxRunTimeMs=" + maxRunTimeMs +
+                    '}';
+        }
+
+    }
+
+}
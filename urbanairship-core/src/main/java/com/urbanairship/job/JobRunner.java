@@ -4,8 +4,11 @@ import com.urbanairship.AirshipComponent;
 import com.urbanairship.AirshipExecutors;
 import com.urbanairship.Logger;
 import com.urbanairship.UAirship;
+import com.urbanairship.util.Clock;
 import com.urbanairship.util.UAStringUtil;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.Executor;
 
 import androidx.annotation.NonNull;
@@ -16,13 +19,31 @@ import androidx.core.util.Consumer;
 interface JobRunner {
     void run(@NonNull JobInfo jobInfo, @NonNull Consumer<JobResult> resultConsumer);
 
+    /**
+     * Default runner. Jobs run in a serial lane per component, so a slow job only delays jobs
+     * for the same component. Lanes share the Airship thread pool.
+     */
     class DefaultRunner implements JobRunner {
-        private final Executor executor = AirshipExecutors.newSerialExecutor();
         private static final long AIRSHIP_WAIT_TIME_MS = 5000; // 5 seconds.
 
+        private final Map<String, Executor> lanes = new HashMap<>();
+        private final JobMetrics metrics;
+        private final Clock clock;
+
+        DefaultRunner(@NonNull JobMetrics metrics) {
+            this(metrics, Clock.DEFAULT_CLOCK);
+        }
+
+        @VisibleForTesting
+        DefaultRunner(@NonNull JobMetrics metrics, @NonNull Clock clock) {
+            this.metrics = metrics;
+            this.clock = clock;
+        }
+
         @Override
         public void run(@NonNull JobInfo jobInfo, @NonNull Consumer<JobResult> resultConsumer) {
-            executor.execute(() -> {
+            final long queuedTime = clock.elapsedRealtime();
+            getLane(jobInfo.getAirshipComponentName()).execute(() -> {
                 final UAirship airship = UAirship.waitForTakeOff(AIRSHIP_WAIT_TIME_MS);
                 if (airship == null) {
                     Logger.error("UAirship not ready. Rescheduling job: %s", jobInfo);
@@ -44,13 +65,36 @@ interface JobRunner {
                 }
 
                 component.getJobExecutor(jobInfo).execute(() -> {
+                    long startTime = clock.elapsedRealtime();
                     JobResult result = component.onPerformJob(airship, jobInfo);
-                    Logger.verbose("Finished: %s with result: %s", jobInfo, result);
+                    long runTime = clock.elapsedRealtime() - startTime;
+                    metrics.record(jobInfo.getAction(), startTime - queuedTime, runTime);
+                    Logger.verbose("Finished: %s with result: %s, wait time: %s ms, run time: %s ms",
+                            jobInfo, result, startTime - queuedTime, runTime);
                     resultConsumer.accept(result);
                 });
             });
         }
 
+        /**
+         * Gets the lane for a component.
+         *
+         * @param componentClassName The component's class name.
+         * @return The component's serial executor.
+         */
+        @NonNull
+        private Executor getLane(String componentClassName) {
+            String key = componentClassName == null ? "" : componentClassName;
+            synchronized (lanes) {
+                Executor lane = lanes.get(key);
+                if (lane == null) {
+                    lane = AirshipExecutors.newSerialExecutor();
+                    lanes.put(key, lane);
+                }
+                return lane;
+            }
+        }
+
         /**
          * Finds the {@link AirshipComponent}s for a given job.
          *
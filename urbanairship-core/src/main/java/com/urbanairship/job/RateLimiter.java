@@ -2,12 +2,15 @@
 
 package com.urbanairship.job;
 
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import com.urbanairship.Logger;
 import com.urbanairship.util.Clock;
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 import androidx.annotation.IntRange;
@@ -18,22 +21,37 @@ import androidx.annotation.VisibleForTesting;
 
 /**
  * Rate limit tracker.
+ * <p>
+ * Each limit keeps the timestamps of its last {@code rate} hits in a fixed size ring buffer with
+ * its own lock. When created with a context, the hits are persisted so limits still apply after
+ * the process restarts.
  */
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
 public class RateLimiter {
 
+    private static final String SHARED_PREFERENCES_FILE = "com.urbanairship.job.RateLimiter";
+
     private final Clock clock;
-    private final Map<String, List<Long>> hits = new HashMap<>();
-    private final Map<String, Rule> rules = new HashMap<>();
-    private final Object lock = new Object();
+    private final SharedPreferences preferences;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
 
     public RateLimiter() {
-        this(Clock.DEFAULT_CLOCK);
+        this(Clock.DEFAULT_CLOCK, null);
+    }
+
+    public RateLimiter(@NonNull Context context) {
+        this(Clock.DEFAULT_CLOCK, context.getSharedPreferences(SHARED_PREFERENCES_FILE, Context.MODE_PRIVATE));
     }
 
     @VisibleForTesting
     public RateLimiter(Clock clock) {
+        this(clock, null);
+    }
+
+    @VisibleForTesting
+    RateLimiter(@NonNull Clock clock, @Nullable SharedPreferences preferences) {
         this.clock = clock;
+        this.preferences = preferences;
     }
 
     /**
@@ -42,14 +60,19 @@ public class RateLimiter {
      * @param limitId The limit Id.
      */
     public void track(@NonNull String limitId) {
-        synchronized (lock) {
-            List<Long> hits = this.hits.get(limitId);
-            Rule rule = this.rules.get(limitId);
-            long currentTime = clock.currentTimeMillis();
-            if (hits != null && rule != null) {
-                hits.add(currentTime);
-                filter(hits, rule, currentTime);
-            }
+        Bucket bucket = buckets.get(limitId);
+        if (bucket == null) {
+            return;
+        }
+
+        String encoded;
+        synchronized (bucket) {
+            bucket.track(clock.currentTimeMillis());
+            encoded = preferences == null ? null : bucket.encode();
+        }
+
+        if (encoded != null) {
+            preferences.edit().putString(limitId, encoded).apply();
         }
     }
 
@@ -61,28 +84,37 @@ public class RateLimiter {
      */
     @Nullable
     public Status status(@NonNull String limitId) {
-        synchronized (lock) {
-            List<Long> hits = this.hits.get(limitId);
-            Rule rule = this.rules.get(limitId);
-            long currentTime = clock.currentTimeMillis();
-
-            if (hits == null || rule == null) {
-                return null;
-            }
+        Bucket bucket = buckets.get(limitId);
+        if (bucket == null) {
+            return null;
+        }
 
-            filter(hits, rule, currentTime);
+        synchronized (bucket) {
+            return bucket.status(clock.currentTimeMillis());
+        }
+    }
 
-            if (hits.size() >= rule.rate) {
-                long nextExpired = rule.durationMs - (currentTime - hits.get(hits.size() - rule.rate));
-                return new Status(LimitStatus.OVER, nextExpired);
-            } else {
-                return new Status(LimitStatus.UNDER, 0);
+    /**
+     * Gets a snapshot of the status of every limit.
+     *
+     * @return The status by limit Id.
+     */
+    @NonNull
+    public Map<String, Status> getStatuses() {
+        long currentTime = clock.currentTimeMillis();
+        Map<String, Status> statuses = new HashMap<>();
+        for (Map.Entry<String, Bucket> entry : buckets.entrySet()) {
+            Bucket bucket = entry.getValue();
+            synchronized (bucket) {
+                statuses.put(entry.getKey(), bucket.status(currentTime));
             }
         }
+        return statuses;
     }
 
     /**
-     * Sets the limit.
+     * Sets the limit. Hits already tracked for the limit, including persisted hits,
+     * count towards the new limit.
      *
      * @param limitId Limit Id.
      * @param rate The number of events for the duration.
@@ -90,17 +122,19 @@ public class RateLimiter {
      * @param durationUnit The duration unit.
      */
     public void setLimit(@NonNull String limitId, @IntRange(from = 1) int rate, long duration, @NonNull TimeUnit durationUnit) {
-        synchronized (lock) {
-            this.rules.put(limitId, new Rule(rate, durationUnit.toMillis(duration)));
-            this.hits.put(limitId, new ArrayList<>());
-        }
-    }
+        Bucket bucket = new Bucket(rate, durationUnit.toMillis(duration));
 
-    private void filter(@NonNull List<Long> hits, @NonNull Rule rule, long currentTimeMs) {
-        for (long hit : new ArrayList<>(hits)) {
-            if (currentTimeMs >= (hit + rule.durationMs)) {
-                hits.remove(hit);
+        synchronized (buckets) {
+            Bucket existing = buckets.get(limitId);
+            if (existing != null) {
+                synchronized (existing) {
+                    bucket.restore(existing.encode());
+                }
+            } else if (preferences != null) {
+                bucket.restore(preferences.getString(limitId, null));
             }
+
+            buckets.put(limitId, bucket);
         }
     }
 
@@ -153,14 +187,83 @@ public class RateLimiter {
         }
     }
 
-    private static final class Rule {
+    /**
+     * Ring buffer of the last {@code rate} hits for a limit. Callers synchronize on the bucket.
+     */
+    private static final class Bucket {
 
         final long durationMs;
         final int rate;
 
-        Rule(int rate, long durationMs) {
+        private final long[] hits;
+        private int head;
+        private int size;
+
+        Bucket(int rate, long durationMs) {
             this.rate = rate;
             this.durationMs = durationMs;
+            this.hits = new long[rate];
+        }
+
+        void track(long time) {
+            hits[head] = time;
+            head = (head + 1) % hits.length;
+            if (size < hits.length) {
+                size++;
+            }
+        }
+
+        @NonNull
+        Status status(long currentTimeMs) {
+            if (size < rate) {
+                return new Status(LimitStatus.UNDER, 0);
+            }
+
+            // When full, the head points at the oldest of the last `rate` hits
+            long oldest = hits[head];
+            if (currentTimeMs >= oldest + durationMs) {
+                return new Status(LimitStatus.UNDER, 0);
+            }
+
+            return new Status(LimitStatus.OVER, durationMs - (currentTimeMs - oldest));
+        }
+
+        /**
+         * Encodes the hits, oldest first, as a comma separated list.
+         *
+         * @return The encoded hits.
+         */
+        @NonNull
+        String encode() {
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < size; i++) {
+                if (i > 0) {
+                    builder.append(',');
+                }
+                builder.append(hits[(head - size + i + hits.length) % hits.length]);
+            }
+            return builder.toString();
+        }
+
+        /**
+         * Restores hits from {@link #encode()}. Only the most recent {@code rate} hits are kept.
+         *
+         * @param encoded The encoded hits.
+         */
+        void restore(@Nullable String encoded) {
+            if (encoded == null || encoded.isEmpty()) {
+                return;
+            }
+
+            try {
+                for (String hit : encoded.split(",")) {
+                    track(Long.parseLong(hit));
+                }
+            } catch (NumberFormatException e) {
+                Logger.error(e, "Failed to restore rate limit hits: %s", encoded);
+                head = 0;
+                size = 0;
+            }
         }
 
     }
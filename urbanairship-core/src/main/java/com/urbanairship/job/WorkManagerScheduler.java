@@ -68,8 +68,18 @@ class WorkManagerScheduler implements Scheduler {
 
     @NonNull
     private static Constraints createConstraints(@NonNull JobInfo jobInfo) {
+        NetworkType networkType;
+        if (jobInfo.isUnmeteredNetworkRequired()) {
+            networkType = NetworkType.UNMETERED;
+        } else if (jobInfo.isNetworkAccessRequired()) {
+            networkType = NetworkType.CONNECTED;
+        } else {
+            networkType = NetworkType.NOT_REQUIRED;
+        }
+
         return new Constraints.Builder()
-                .setRequiredNetworkType(jobInfo.isNetworkAccessRequired() ? NetworkType.CONNECTED : NetworkType.NOT_REQUIRED)
+                .setRequiredNetworkType(networkType)
+                .setRequiresCharging(jobInfo.isChargingRequired())
                 .build();
     }
 }
@@ -4,9 +4,8 @@ package com.urbanairship.json;
 
 import com.urbanairship.Logger;
 
-import org.json.JSONException;
-import org.json.JSONStringer;
-
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -33,7 +32,22 @@ public class JsonList implements Iterable<JsonValue>, JsonSerializable {
      * @param list A list of JsonValues.
      */
     public JsonList(@Nullable List<JsonValue> list) {
-        this.list = list == null ? new ArrayList<JsonValue>() : new ArrayList<>(list);
+        this(list, true);
+    }
+
+    /**
+     * Creates a JsonList from a List.
+     *
+     * @param list A list of JsonValues.
+     * @param copy {@code true} to copy the list, {@code false} to take ownership of it. The list
+     * must not be modified afterwards if it is not copied.
+     */
+    JsonList(@Nullable List<JsonValue> list, boolean copy) {
+        if (list == null) {
+            this.list = new ArrayList<>();
+        } else {
+            this.list = copy ? new ArrayList<>(list) : list;
+        }
     }
 
     /**
@@ -151,30 +165,16 @@ public class JsonList implements Iterable<JsonValue>, JsonSerializable {
     @Override
     public String toString() {
         try {
-            JSONStringer stringer = new JSONStringer();
-            write(stringer);
-            return stringer.toString();
-        } catch (JSONException | StringIndexOutOfBoundsException e) {
+            StringWriter stringWriter = new StringWriter();
+            new JsonWriter(stringWriter).value(toJsonValue());
+            return stringWriter.toString();
+        } catch (IOException | IllegalArgumentException e) {
             // Should never happen
             Logger.error(e, "JsonList - Failed to create JSON String.");
             return "";
         }
     }
 
-    /**
-     * Helper method that is used to write the list as a JSON String.
-     *
-     * @param stringer The JSONStringer object.
-     * @throws org.json.JSONException If the value is unable to be written as JSON.
-     */
-    void write(@NonNull JSONStringer stringer) throws JSONException {
-        stringer.array();
-        for (JsonValue actionValue : this) {
-            actionValue.write(stringer);
-        }
-        stringer.endArray();
-    }
-
     @NonNull
     @Override
     public JsonValue toJsonValue() {
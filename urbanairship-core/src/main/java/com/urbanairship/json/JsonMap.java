@@ -4,9 +4,8 @@ package com.urbanairship.json;
 
 import com.urbanairship.Logger;
 
-import org.json.JSONException;
-import org.json.JSONStringer;
-
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -33,7 +32,22 @@ public class JsonMap implements Iterable<Map.Entry<String, JsonValue>>, JsonSeri
      * @param map A map of strings to JsonValues.
      */
     public JsonMap(@Nullable Map<String, JsonValue> map) {
-        this.map = map == null ? new HashMap<String, JsonValue>() : new HashMap<>(map);
+        this(map, true);
+    }
+
+    /**
+     * Creates a JsonMap from a Map.
+     *
+     * @param map A map of strings to JsonValues.
+     * @param copy {@code true} to copy the map, {@code false} to take ownership of it. The map
+     * must not be modified afterwards if it is not copied.
+     */
+    JsonMap(@Nullable Map<String, JsonValue> map, boolean copy) {
+        if (map == null) {
+            this.map = new HashMap<>();
+        } else {
+            this.map = copy ? new HashMap<>(map) : map;
+        }
     }
 
     /**
@@ -208,31 +222,16 @@ public class JsonMap implements Iterable<Map.Entry<String, JsonValue>>, JsonSeri
     @Override
     public String toString() {
         try {
-            JSONStringer stringer = new JSONStringer();
-            write(stringer);
-            return stringer.toString();
-        } catch (JSONException | StringIndexOutOfBoundsException e) {
+            StringWriter stringWriter = new StringWriter();
+            new JsonWriter(stringWriter).value(toJsonValue());
+            return stringWriter.toString();
+        } catch (IOException | IllegalArgumentException e) {
             // Should never happen
             Logger.error(e, "JsonMap - Failed to create JSON String.");
             return "";
         }
     }
 
-    /**
-     * Helper method that is used to write the value as a JSON String.
-     *
-     * @param stringer The JSONStringer object.
-     * @throws org.json.JSONException If the value is unable to be written as JSON.
-     */
-    void write(@NonNull JSONStringer stringer) throws JSONException {
-        stringer.object();
-        for (Map.Entry<String, JsonValue> entry : entrySet()) {
-            stringer.key(entry.getKey());
-            entry.getValue().write(stringer);
-        }
-        stringer.endObject();
-    }
-
     @NonNull
     @Override
     public Iterator<Map.Entry<String, JsonValue>> iterator() {
@@ -33,11 +33,21 @@ public class JsonMatcher implements JsonSerializable, Predicate<JsonSerializable
     @Nullable
     private final Boolean ignoreCase;
 
+    // Scope followed by the key
+    @NonNull
+    private final String[] path;
+
     private JsonMatcher(@NonNull Builder builder) {
         this.key = builder.key;
         this.scopeList = builder.scope;
         this.value = builder.valueMatcher == null ? ValueMatcher.newIsPresentMatcher() : builder.valueMatcher;
         this.ignoreCase = builder.ignoreCase;
+
+        List<String> path = new ArrayList<>(scopeList);
+        if (key != null) {
+            path.add(key);
+        }
+        this.path = path.toArray(new String[0]);
     }
 
     @NonNull
@@ -55,18 +65,36 @@ public class JsonMatcher implements JsonSerializable, Predicate<JsonSerializable
     @Override
     public boolean apply(@Nullable JsonSerializable jsonSerializable) {
         JsonValue jsonValue = jsonSerializable == null ? JsonValue.NULL : jsonSerializable.toJsonValue();
-        for (String scope : scopeList) {
-            jsonValue = jsonValue.optMap().opt(scope);
-            if (jsonValue.isNull()) {
-                break;
-            }
-        }
+        return value.apply(JsonPredicateCompiler.resolve(jsonValue, path), isIgnoreCase());
+    }
 
-        if (key != null) {
-            jsonValue = jsonValue.optMap().opt(key);
-        }
+    /**
+     * Gets the scope followed by the key.
+     *
+     * @return The path.
+     */
+    @NonNull
+    String[] getPath() {
+        return path;
+    }
+
+    /**
+     * Gets the value matcher.
+     *
+     * @return The value matcher.
+     */
+    @NonNull
+    ValueMatcher getValueMatcher() {
+        return value;
+    }
 
-        return value.apply(jsonValue, (ignoreCase != null) && ignoreCase);
+    /**
+     * Checks if string values are matched ignoring case.
+     *
+     * @return {@code true} to ignore case, otherwise {@code false}.
+     */
+    boolean isIgnoreCase() {
+        return ignoreCase != null && ignoreCase;
     }
 
     /**
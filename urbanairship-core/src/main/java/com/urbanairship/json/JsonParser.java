@@ -0,0 +1,424 @@
+/* Copyright Airship and Contributors */
+
+package com.urbanairship.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
+
+/**
+ * Streaming JSON parser that builds {@link JsonValue} trees directly from a character stream
+ * without an intermediate {@code org.json} representation.
+ * <p>
+ * The accepted grammar matches {@code org.json.JSONTokener} so values that parsed before continue
+ * to parse the same way: comments, single quoted strings, unquoted literals and trailing separators
+ * are all tolerated. Null values inside of maps and lists are dropped, the same as
+ * {@link JsonValue#wrap(Object)}.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public class JsonParser {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int END_OF_INPUT = -1;
+    private static final String LITERAL_DELIMITERS = "{}[]/\\:,=;# \t\f\r\n";
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder builder = new StringBuilder();
+
+    private int position = 0;
+    private int limit = 0;
+
+    /**
+     * Default constructor.
+     *
+     * @param reader The reader. The reader is not closed by the parser.
+     */
+    public JsonParser(@NonNull Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Creates a parser that decodes the input stream as UTF-8.
+     *
+     * @param inputStream The input stream. The stream is not closed by the parser.
+     */
+    public JsonParser(@NonNull InputStream inputStream) {
+        this(new InputStreamReader(inputStream, Charset.forName("UTF-8")));
+    }
+
+    /**
+     * Parses the next value from the stream.
+     *
+     * @return The parsed value.
+     * @throws JsonException If the stream is unable to be read or does not contain valid JSON.
+     */
+    @NonNull
+    public JsonValue parse() throws JsonException {
+        try {
+            return nextValue();
+        } catch (IOException e) {
+            throw new JsonException("Unable to read JSON", e);
+        }
+    }
+
+    @NonNull
+    private JsonValue nextValue() throws IOException, JsonException {
+        int c = nextClean();
+        switch (c) {
+            case END_OF_INPUT:
+                throw syntaxError("End of input");
+            case '{':
+                return readObject();
+            case '[':
+                return readArray();
+            case '\'':
+            case '"':
+                return JsonValue.wrap(readString((char) c));
+            default:
+                position--;
+                return readLiteral();
+        }
+    }
+
+    @NonNull
+    private JsonValue readObject() throws IOException, JsonException {
+        Map<String, JsonValue> map = new HashMap<>();
+
+        int first = nextClean();
+        if (first == '}') {
+            return JsonValue.wrap(new JsonMap(map, false));
+        } else if (first != END_OF_INPUT) {
+            position--;
+        }
+
+        while (true) {
+            String name = readName();
+
+            int separator = nextClean();
+            if (separator != ':' && separator != '=') {
+                throw syntaxError("Expected ':' after " + name);
+            }
+
+            if (peek() == '>') {
+                position++;
+            }
+
+            JsonValue value = nextValue();
+            if (value.isNull()) {
+                map.remove(name);
+            } else {
+                map.put(name, value);
+            }
+
+            switch (nextClean()) {
+                case '}':
+                    return JsonValue.wrap(new JsonMap(map, false));
+                case ';':
+                case ',':
+                    continue;
+                default:
+                    throw syntaxError("Unterminated object");
+            }
+        }
+    }
+
+    @NonNull
+    private String readName() throws IOException, JsonException {
+        int c = nextClean();
+        switch (c) {
+            case END_OF_INPUT:
+                throw syntaxError("End of input");
+            case '\'':
+            case '"':
+                return readString((char) c);
+            case '{':
+            case '[':
+                throw syntaxError("Names must be strings");
+            default:
+                position--;
+                JsonValue literal = readLiteral();
+                if (!literal.isString()) {
+                    throw syntaxError("Names must be strings, but " + literal + " is not");
+                }
+                return literal.optString();
+        }
+    }
+
+    @NonNull
+    private JsonValue readArray() throws IOException, JsonException {
+        List<JsonValue> list = new ArrayList<>();
+
+        while (true) {
+            switch (nextClean()) {
+                case END_OF_INPUT:
+                    throw syntaxError("Unterminated array");
+                case ']':
+                    return JsonValue.wrap(new JsonList(list, false));
+                case ',':
+                case ';':
+                    // Empty slots are treated as null and dropped
+                    continue;
+                default:
+                    position--;
+            }
+
+            JsonValue value = nextValue();
+            if (!value.isNull()) {
+                list.add(value);
+            }
+
+            switch (nextClean()) {
+                case ']':
+                    return JsonValue.wrap(new JsonList(list, false));
+                case ',':
+                case ';':
+                    continue;
+                default:
+                    throw syntaxError("Unterminated array");
+            }
+        }
+    }
+
+    @NonNull
+    private String readString(char quote) throws IOException, JsonException {
+        builder.setLength(0);
+
+        while (true) {
+            if (position == limit && !fill()) {
+                throw syntaxError("Unterminated string");
+            }
+
+            // Copy runs of plain characters straight out of the buffer
+            int start = position;
+            while (position < limit) {
+                char c = buffer[position];
+                if (c == quote || c == '\\') {
+                    break;
+                }
+                position++;
+            }
+
+            if (position == limit) {
+                builder.append(buffer, start, position - start);
+                continue;
+            }
+
+            char c = buffer[position++];
+            if (c == quote) {
+                if (builder.length() == 0) {
+                    return new String(buffer, start, position - start - 1);
+                }
+                builder.append(buffer, start, position - start - 1);
+                return builder.toString();
+            }
+
+            builder.append(buffer, start, position - start - 1);
+            builder.append(readEscapeCharacter());
+        }
+    }
+
+    private char readEscapeCharacter() throws IOException, JsonException {
+        int escaped = read();
+        switch (escaped) {
+            case END_OF_INPUT:
+                throw syntaxError("Unterminated escape sequence");
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int c = read();
+                    int digit = Character.digit(c == END_OF_INPUT ? ' ' : (char) c, 16);
+                    if (digit == -1) {
+                        throw syntaxError("Invalid unicode escape sequence");
+                    }
+                    value = (value << 4) | digit;
+                }
+                return (char) value;
+            case 't':
+                return '\t';
+            case 'b':
+                return '\b';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 'f':
+                return '\f';
+            default:
+                return (char) escaped;
+        }
+    }
+
+    @NonNull
+    private JsonValue readLiteral() throws IOException, JsonException {
+        builder.setLength(0);
+
+        while (true) {
+            if (position == limit && !fill()) {
+                break;
+            }
+
+            char c = buffer[position];
+            if (LITERAL_DELIMITERS.indexOf(c) != -1) {
+                break;
+            }
+
+            builder.append(c);
+            position++;
+        }
+
+        if (builder.length() == 0) {
+            throw syntaxError("Expected literal value");
+        }
+
+        String literal = builder.toString();
+        if ("null".equalsIgnoreCase(literal)) {
+            return JsonValue.NULL;
+        } else if ("true".equalsIgnoreCase(literal)) {
+            return JsonValue.wrap(true);
+        } else if ("false".equalsIgnoreCase(literal)) {
+            return JsonValue.wrap(false);
+        }
+
+        if (literal.indexOf('.') == -1 && literal.indexOf('e') == -1 && literal.indexOf('E') == -1) {
+            String number = literal;
+            int base = 10;
+            if (number.startsWith("0x") || number.startsWith("0X")) {
+                number = number.substring(2);
+                base = 16;
+            } else if (number.startsWith("0") && number.length() > 1) {
+                number = number.substring(1);
+                base = 8;
+            }
+
+            try {
+                long longValue = Long.parseLong(number, base);
+                if (longValue <= Integer.MAX_VALUE && longValue >= Integer.MIN_VALUE) {
+                    return JsonValue.wrap((int) longValue);
+                } else {
+                    return JsonValue.wrap(longValue);
+                }
+            } catch (NumberFormatException ignored) {
+                // Fall through to double
+            }
+        }
+
+        try {
+            Double value = Double.valueOf(literal);
+            return JsonValue.wrap((Object) value);
+        } catch (NumberFormatException ignored) {
+            // Fall through to string
+        }
+
+        return JsonValue.wrap(literal);
+    }
+
+    /**
+     * Reads the next character that is not whitespace or part of a comment.
+     */
+    private int nextClean() throws IOException {
+        while (true) {
+            int c = read();
+            switch (c) {
+                case '\t':
+                case ' ':
+                case '\n':
+                case '\r':
+                    continue;
+
+                case '/':
+                    int peek = peek();
+                    if (peek == '*') {
+                        position++;
+                        skipBlockComment();
+                        continue;
+                    } else if (peek == '/') {
+                        position++;
+                        skipToEndOfLine();
+                        continue;
+                    }
+                    return c;
+
+                case '#':
+                    skipToEndOfLine();
+                    continue;
+
+                default:
+                    return c;
+            }
+        }
+    }
+
+    private void skipBlockComment() throws IOException {
+        int previous = 0;
+        while (true) {
+            int c = read();
+            if (c == END_OF_INPUT || (previous == '*' && c == '/')) {
+                return;
+            }
+            previous = c;
+        }
+    }
+
+    private void skipToEndOfLine() throws IOException {
+        while (true) {
+            int c = read();
+            if (c == END_OF_INPUT || c == '\r' || c == '\n') {
+                return;
+            }
+        }
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return END_OF_INPUT;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return END_OF_INPUT;
+        }
+        return buffer[position];
+    }
+
+    /**
+     * Refills the buffer. Keeps the last character so a single character can always be pushed back.
+     *
+     * @return {@code true} if more characters were read, otherwise {@code false}.
+     */
+    private boolean fill() throws IOException {
+        int keep = 0;
+        if (limit > 0) {
+            buffer[0] = buffer[limit - 1];
+            keep = 1;
+        }
+
+        int read = reader.read(buffer, keep, buffer.length - keep);
+        if (read <= 0) {
+            return false;
+        }
+
+        position = keep;
+        limit = keep + read;
+        return true;
+    }
+
+    @NonNull
+    private JsonException syntaxError(@NonNull String message) {
+        return new JsonException(message);
+    }
+
+}
@@ -50,8 +50,10 @@ public class JsonPredicate implements JsonSerializable, Predicate<JsonSerializab
     private final List<Predicate<JsonSerializable>> items;
     private final String type;
 
+    private volatile JsonPredicateCompiler.Evaluator evaluator;
+
     private JsonPredicate(Builder builder) {
-        this.items = builder.items;
+        this.items = new ArrayList<>(builder.items);
         this.type = builder.type;
     }
 
@@ -139,34 +141,34 @@ public class JsonPredicate implements JsonSerializable, Predicate<JsonSerializab
 
     @Override
     public boolean apply(@Nullable JsonSerializable value) {
-        if (items.size() == 0) {
-            return true;
-        }
-
-        switch (type) {
-            case NOT_PREDICATE_TYPE:
-                return !items.get(0).apply(value);
-
-            case AND_PREDICATE_TYPE:
-                for (Predicate<JsonSerializable> item : items) {
-                    if (!item.apply(value)) {
-                        return false;
-                    }
-                }
-
-                return true;
-
-            case OR_PREDICATE_TYPE:
-            default:
-                for (Predicate<JsonSerializable> item : items) {
-                    if (item.apply(value)) {
-                        return true;
-                    }
-                }
+        JsonValue jsonValue = value == null ? JsonValue.NULL : value.toJsonValue();
+        return getEvaluator().evaluate(jsonValue);
+    }
 
-                return false;
+    /**
+     * Gets the compiled predicate. The predicate is compiled on first use.
+     *
+     * @return The compiled predicate.
+     */
+    @NonNull
+    JsonPredicateCompiler.Evaluator getEvaluator() {
+        JsonPredicateCompiler.Evaluator evaluator = this.evaluator;
+        if (evaluator == null) {
+            evaluator = JsonPredicateCompiler.compile(this);
+            this.evaluator = evaluator;
         }
+        return evaluator;
+    }
 
+    @NonNull
+    List<Predicate<JsonSerializable>> getItems() {
+        return items;
+    }
+
+    @NonNull
+    @PredicateType
+    String getType() {
+        return type;
     }
 
     /**
@@ -0,0 +1,298 @@
+/* Copyright Airship and Contributors */
+
+package com.urbanairship.json;
+
+import com.urbanairship.Predicate;
+import com.urbanairship.json.matchers.ArrayContainsMatcher;
+import com.urbanairship.json.matchers.ExactValueMatcher;
+import com.urbanairship.json.matchers.NumberRangeMatcher;
+import com.urbanairship.json.matchers.PresenceMatcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Compiles a {@link JsonPredicate} into a flat tree of evaluators.
+ * <p>
+ * The compiled form converts the value to JSON once, walks pre-split scope paths, evaluates the
+ * cheapest children of an {@code and} or {@code or} first, and replaces large groups of string
+ * {@code equals} matchers on the same path within an {@code or} with a hashed lookup.
+ */
+class JsonPredicateCompiler {
+
+    /**
+     * Minimum number of string {@code equals} matchers on the same path in an {@code or} that are
+     * replaced with a hashed lookup.
+     */
+    static final int HASHED_LOOKUP_THRESHOLD = 4;
+
+    private static final int PRESENCE_COST = 1;
+    private static final int EXACT_COST = 2;
+    private static final int LOOKUP_COST = 3;
+    private static final int DEFAULT_COST = 5;
+    private static final int ARRAY_COST = 10;
+
+    private static final Evaluator TRUE = new Evaluator(0) {
+        @Override
+        boolean evaluate(@NonNull JsonValue value) {
+            return true;
+        }
+    };
+
+    private static final Comparator<Evaluator> COST_COMPARATOR = new Comparator<Evaluator>() {
+        @Override
+        public int compare(Evaluator lh, Evaluator rh) {
+            return lh.cost < rh.cost ? -1 : (lh.cost == rh.cost ? 0 : 1);
+        }
+    };
+
+    /**
+     * A compiled predicate.
+     */
+    abstract static class Evaluator {
+
+        final int cost;
+
+        Evaluator(int cost) {
+            this.cost = cost;
+        }
+
+        abstract boolean evaluate(@NonNull JsonValue value);
+
+    }
+
+    private JsonPredicateCompiler() {}
+
+    /**
+     * Compiles a predicate.
+     *
+     * @param predicate The predicate.
+     * @return The compiled predicate.
+     */
+    @NonNull
+    static Evaluator compile(@NonNull JsonPredicate predicate) {
+        List<Predicate<JsonSerializable>> items = predicate.getItems();
+        if (items.isEmpty()) {
+            return TRUE;
+        }
+
+        switch (predicate.getType()) {
+            case JsonPredicate.NOT_PREDICATE_TYPE:
+                final Evaluator child = compileItem(items.get(0));
+                return new Evaluator(child.cost) {
+                    @Override
+                    boolean evaluate(@NonNull JsonValue value) {
+                        return !child.evaluate(value);
+                    }
+                };
+
+            case JsonPredicate.AND_PREDICATE_TYPE:
+                final Evaluator[] all = sort(compileItems(items, false));
+                if (all.length == 1) {
+                    return all[0];
+                }
+
+                return new Evaluator(totalCost(all)) {
+                    @Override
+                    boolean evaluate(@NonNull JsonValue value) {
+                        for (Evaluator evaluator : all) {
+                            if (!evaluator.evaluate(value)) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }
+                };
+
+            case JsonPredicate.OR_PREDICATE_TYPE:
+            default:
+                final Evaluator[] any = sort(compileItems(items, true));
+                if (any.length == 1) {
+                    return any[0];
+                }
+
+                return new Evaluator(totalCost(any)) {
+                    @Override
+                    boolean evaluate(@NonNull JsonValue value) {
+                        for (Evaluator evaluator : any) {
+                            if (evaluator.evaluate(value)) {
+                                return true;
+                            }
+                        }
+                        return false;
+                    }
+                };
+        }
+    }
+
+    /**
+     * Resolves a pre-split path.
+     *
+     * @param value The value.
+     * @param path The path.
+     * @return The value at the path, or {@link JsonValue#NULL} if the path does not exist.
+     */
+    @NonNull
+    static JsonValue resolve(@NonNull JsonValue value, @NonNull String[] path) {
+        for (String key : path) {
+            JsonMap map = value.getMap();
+            if (map == null) {
+                return JsonValue.NULL;
+            }
+            value = map.opt(key);
+        }
+        return value;
+    }
+
+    @NonNull
+    private static List<Evaluator> compileItems(@NonNull List<Predicate<JsonSerializable>> items, boolean isOr) {
+        List<Evaluator> evaluators = new ArrayList<>(items.size());
+
+        // Group string equals matchers by path so large `or` sets become a single lookup
+        Map<List<String>, List<JsonMatcher>> groups = new LinkedHashMap<>();
+        for (Predicate<JsonSerializable> item : items) {
+            if (isOr && item instanceof JsonMatcher && getStringEquals((JsonMatcher) item) != null) {
+                JsonMatcher matcher = (JsonMatcher) item;
+                List<String> key = Arrays.asList(matcher.getPath());
+                List<JsonMatcher> group = groups.get(key);
+                if (group == null) {
+                    group = new ArrayList<>();
+                    groups.put(key, group);
+                }
+                group.add(matcher);
+            } else {
+                evaluators.add(compileItem(item));
+            }
+        }
+
+        for (List<JsonMatcher> group : groups.values()) {
+            if (group.size() < HASHED_LOOKUP_THRESHOLD) {
+                for (JsonMatcher matcher : group) {
+                    evaluators.add(compileMatcher(matcher));
+                }
+                continue;
+            }
+
+            Set<String> values = new HashSet<>();
+            for (JsonMatcher matcher : group) {
+                values.add(getStringEquals(matcher));
+            }
+            evaluators.add(lookup(group.get(0).getPath(), values));
+        }
+
+        return evaluators;
+    }
+
+    @NonNull
+    private static Evaluator compileItem(@NonNull final Predicate<JsonSerializable> item) {
+        if (item instanceof JsonPredicate) {
+            return compile((JsonPredicate) item);
+        }
+
+        if (item instanceof JsonMatcher) {
+            return compileMatcher((JsonMatcher) item);
+        }
+
+        return new Evaluator(DEFAULT_COST) {
+            @Override
+            boolean evaluate(@NonNull JsonValue value) {
+                return item.apply(value);
+            }
+        };
+    }
+
+    @NonNull
+    private static Evaluator compileMatcher(@NonNull JsonMatcher matcher) {
+        final String[] path = matcher.getPath();
+        final ValueMatcher valueMatcher = matcher.getValueMatcher();
+        final boolean ignoreCase = matcher.isIgnoreCase();
+
+        if (valueMatcher.getClass() == PresenceMatcher.class) {
+            final boolean isPresent = valueMatcher.toJsonValue().optMap().opt(PresenceMatcher.IS_PRESENT_VALUE_KEY).getBoolean(false);
+            return new Evaluator(PRESENCE_COST + path.length) {
+                @Override
+                boolean evaluate(@NonNull JsonValue value) {
+                    return resolve(value, path).isNull() != isPresent;
+                }
+            };
+        }
+
+        if (valueMatcher.getClass() == ExactValueMatcher.class && !ignoreCase) {
+            final JsonValue expected = valueMatcher.toJsonValue().optMap().opt(ExactValueMatcher.EQUALS_VALUE_KEY);
+            int cost = expected.isJsonMap() || expected.isJsonList() ? DEFAULT_COST : EXACT_COST;
+            return new Evaluator(cost + path.length) {
+                @Override
+                boolean evaluate(@NonNull JsonValue value) {
+                    return expected.equals(resolve(value, path));
+                }
+            };
+        }
+
+        int cost;
+        if (valueMatcher instanceof ExactValueMatcher || valueMatcher instanceof NumberRangeMatcher) {
+            cost = EXACT_COST;
+        } else if (valueMatcher instanceof ArrayContainsMatcher) {
+            cost = ARRAY_COST;
+        } else {
+            cost = DEFAULT_COST;
+        }
+
+        return new Evaluator(cost + path.length) {
+            @Override
+            boolean evaluate(@NonNull JsonValue value) {
+                return valueMatcher.apply(resolve(value, path), ignoreCase);
+            }
+        };
+    }
+
+    @NonNull
+    private static Evaluator lookup(@NonNull final String[] path, @NonNull final Set<String> values) {
+        return new Evaluator(LOOKUP_COST + path.length) {
+            @Override
+            boolean evaluate(@NonNull JsonValue value) {
+                JsonValue resolved = resolve(value, path);
+                return resolved.isString() && values.contains(resolved.getString());
+            }
+        };
+    }
+
+    /**
+     * Gets the expected string of a case sensitive string {@code equals} matcher.
+     *
+     * @param matcher The matcher.
+     * @return The expected string, or {@code null} if the matcher is not a string {@code equals} matcher.
+     */
+    private static String getStringEquals(@NonNull JsonMatcher matcher) {
+        if (matcher.isIgnoreCase() || matcher.getValueMatcher().getClass() != ExactValueMatcher.class) {
+            return null;
+        }
+
+        JsonValue expected = matcher.getValueMatcher().toJsonValue().optMap().opt(ExactValueMatcher.EQUALS_VALUE_KEY);
+        return expected.isString() ? expected.getString() : null;
+    }
+
+    @NonNull
+    private static Evaluator[] sort(@NonNull List<Evaluator> evaluators) {
+        // Stable sort, so children with the same cost keep their order
+        Collections.sort(evaluators, COST_COMPARATOR);
+        return evaluators.toArray(new Evaluator[0]);
+    }
+
+    private static int totalCost(@NonNull Evaluator[] evaluators) {
+        int cost = 0;
+        for (Evaluator evaluator : evaluators) {
+            cost += evaluator.cost;
+        }
+        return cost;
+    }
+
+}
@@ -11,9 +11,8 @@ import com.urbanairship.util.UAStringUtil;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
-import org.json.JSONStringer;
-import org.json.JSONTokener;
 
+import java.io.StringReader;
 import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -499,11 +498,9 @@ public class JsonValue implements Parcelable, JsonSerializable {
             return JsonValue.NULL;
         }
 
-        JSONTokener tokener = new JSONTokener(jsonString);
-
         try {
-            return JsonValue.wrap(tokener.nextValue());
-        } catch (JSONException e) {
+            return new JsonParser(new StringReader(jsonString)).parse();
+        } catch (JsonException e) {
             throw new JsonException("Unable to parse string", e);
         }
     }
@@ -577,27 +574,6 @@ public class JsonValue implements Parcelable, JsonSerializable {
         }
     }
 
-    /**
-     * Helper method that is used to write the value as a JSON String.
-     *
-     * @param stringer The JSONStringer object.
-     * @throws JSONException If the value is unable to be written as JSON.
-     */
-    void write(@NonNull JSONStringer stringer) throws JSONException {
-        if (isNull()) {
-            stringer.value(null);
-            return;
-        }
-
-        if (value instanceof JsonList) {
-            ((JsonList) value).write(stringer);
-        } else if (value instanceof JsonMap) {
-            ((JsonMap) value).write(stringer);
-        } else {
-            stringer.value(value);
-        }
-    }
-
     /**
      * Wraps a String as a JsonValue.
      *
@@ -0,0 +1,388 @@
+/* Copyright Airship and Contributors */
+
+package com.urbanairship.json;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
+
+/**
+ * Streaming JSON writer. Values are written straight to the underlying {@link Writer} as they are
+ * added so large documents never have to be held in memory as a single String.
+ * <p>
+ * Output matches {@code org.json.JSONStringer}: forward slashes are escaped and whole numbers
+ * are written without a fraction.
+ *
+ * @hide
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public class JsonWriter implements Closeable, Flushable {
+
+    private static final int EMPTY_ARRAY = 1;
+    private static final int NONEMPTY_ARRAY = 2;
+    private static final int EMPTY_OBJECT = 3;
+    private static final int DANGLING_KEY = 4;
+    private static final int NONEMPTY_OBJECT = 5;
+
+    private final Writer out;
+
+    private int[] stack = new int[16];
+    private int stackSize = 0;
+
+    /**
+     * Default constructor.
+     *
+     * @param out The writer.
+     */
+    public JsonWriter(@NonNull Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Begins a JSON array.
+     *
+     * @return The writer.
+     * @throws IOException If the value is unable to be written.
+     */
+    @NonNull
+    public JsonWriter beginArray() throws IOException {
+        beforeValue();
+        push(EMPTY_ARRAY);
+        out.write('[');
+        return this;
+    }
+
+    /**
+     * Ends the current JSON array.
+     *
+     * @return The writer.
+     * @throws IOException If the value is unable to be written.
+     */
+    @NonNull
+    public JsonWriter endArray() throws IOException {
+        int scope = peek();
+        if (scope != EMPTY_ARRAY && scope != NONEMPTY_ARRAY) {
+            throw new IllegalStateException("Nesting problem");
+        }
+        stackSize--;
+        out.write(']');
+        return this;
+    }
+
+    /**
+     * Begins a JSON object.
+     *
+     * @return The writer.
+     * @throws IOException If the value is unable to be written.
+     */
+    @NonNull
+    public JsonWriter beginObject() throws IOException {
+        beforeValue();
+        push(EMPTY_OBJECT);
+        out.write('{');
+        return this;
+    }
+
+    /**
+     * Ends the current JSON object.
+     *
+     * @return The writer.
+     * @throws IOException If the value is unable to be written.
+     */
+    @NonNull
+    public JsonWriter endObject() throws IOException {
+        int scope = peek();
+        if (scope != EMPTY_OBJECT && scope != NONEMPTY_OBJECT) {
+            throw new IllegalStateException("Nesting problem");
+        }
+        stackSize--;
+        out.write('}');
+        return this;
+    }
+
+    /**
+     * Writes the name of the next object member.
+     *
+     * @param name The name.
+     * @return The writer.
+     * @throws IOException If the value is unable to be written.
+     */
+    @NonNull
+    public JsonWriter name(@NonNull String name) throws IOException {
+        int scope = peek();
+        if (scope == NONEMPTY_OBJECT) {
+            out.write(',');
+        } else if (scope != EMPTY_OBJECT) {
+            throw new IllegalStateException("Nesting problem");
+        }
+        stack[stackSize - 1] = DANGLING_KEY;
+        string(name);
+        out.write(':');
+        return this;
+    }
+
+    /**
+     * Writes a JsonValue, recursing into maps and lists.
+     *
+     * @param value The value.
+     * @return The writer.
+     * @throws IOException If the value is unable to be written.
+     */
+    @NonNull
+    public JsonWriter value(@Nullable JsonValue value) throws IOException {
+        if (value == null || value.isNull()) {
+            return nullValue();
+        }
+
+        Object raw = value.getValue();
+        if (raw instanceof JsonMap) {
+            beginObject();
+            for (Map.Entry<String, JsonValue> entry : (JsonMap) raw) {
+                name(entry.getKey());
+                value(entry.getValue());
+            }
+            return endObject();
+        }
+
+        if (raw instanceof JsonList) {
+            beginArray();
+            for (JsonValue item : (JsonList) raw) {
+                value(item);
+            }
+            return endArray();
+        }
+
+        if (raw instanceof String) {
+            return value((String) raw);
+        }
+
+        if (raw instanceof Number) {
+            return value((Number) raw);
+        }
+
+        beforeValue();
+        out.write(String.valueOf(raw));
+        return this;
+    }
+
+    /**
+     * Writes a string value.
+     *
+     * @param value The value.
+     * @return The writer.
+     * @throws IOException If the value is unable to be written.
+     */
+    @NonNull
+    public JsonWriter value(@Nullable String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        beforeValue();
+        string(value);
+        return this;
+    }
+
+    /**
+     * Writes a number value.
+     *
+     * @param value The value.
+     * @return The writer.
+     * @throws IOException If the value is unable to be written.
+     */
+    @NonNull
+    public JsonWriter value(@Nullable Number value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        beforeValue();
+        out.write(numberToString(value));
+        return this;
+    }
+
+    /**
+     * Writes a long value.
+     *
+     * @param value The value.
+     * @return The writer.
+     * @throws IOException If the value is unable to be written.
+     */
+    @NonNull
+    public JsonWriter value(long value) throws IOException {
+        beforeValue();
+        out.write(Long.toString(value));
+        return this;
+    }
+
+    /**
+     * Writes a boolean value.
+     *
+     * @param value The value.
+     * @return The writer.
+     * @throws IOException If the value is unable to be written.
+     */
+    @NonNull
+    public JsonWriter value(boolean value) throws IOException {
+        beforeValue();
+        out.write(value ? "true" : "false");
+        return this;
+    }
+
+    /**
+     * Writes a null value.
+     *
+     * @return The writer.
+     * @throws IOException If the value is unable to be written.
+     */
+    @NonNull
+    public JsonWriter nullValue() throws IOException {
+        beforeValue();
+        out.write("null");
+        return this;
+    }
+
+    /**
+     * Writes an already encoded JSON value as is.
+     *
+     * @param json The encoded JSON.
+     * @return The writer.
+     * @throws IOException If the value is unable to be written.
+     */
+    @NonNull
+    public JsonWriter rawValue(@NonNull String json) throws IOException {
+        beforeValue();
+        out.write(json);
+        return this;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * Encodes a number the same way as {@code org.json.JSONObject#numberToString(Number)}.
+     *
+     * @param number The number.
+     * @return The encoded number.
+     */
+    @NonNull
+    static String numberToString(@NonNull Number number) {
+        double doubleValue = number.doubleValue();
+        if (Double.isNaN(doubleValue) || Double.isInfinite(doubleValue)) {
+            throw new IllegalArgumentException("Numbers must be finite: " + number);
+        }
+
+        if (number.equals(-0d)) {
+            return "-0";
+        }
+
+        long longValue = number.longValue();
+        if (doubleValue == (double) longValue) {
+            return Long.toString(longValue);
+        }
+
+        return number.toString();
+    }
+
+    private void string(@NonNull String value) throws IOException {
+        out.write('"');
+
+        int start = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String replacement;
+            switch (c) {
+                case '"':
+                    replacement = "\\\"";
+                    break;
+                case '\\':
+                    replacement = "\\\\";
+                    break;
+                case '/':
+                    replacement = "\\/";
+                    break;
+                case '\t':
+                    replacement = "\\t";
+                    break;
+                case '\b':
+                    replacement = "\\b";
+                    break;
+                case '\n':
+                    replacement = "\\n";
+                    break;
+                case '\r':
+                    replacement = "\\r";
+                    break;
+                case '\f':
+                    replacement = "\\f";
+                    break;
+                default:
+                    if (c > 0x1F) {
+                        continue;
+                    }
+                    replacement = String.format("\\u%04x", (int) c);
+                    break;
+            }
+
+            if (start < i) {
+                out.write(value, start, i - start);
+            }
+            out.write(replacement);
+            start = i + 1;
+        }
+
+        if (start < length) {
+            out.write(value, start, length - start);
+        }
+
+        out.write('"');
+    }
+
+    private void beforeValue() throws IOException {
+        if (stackSize == 0) {
+            return;
+        }
+
+        switch (peek()) {
+            case EMPTY_ARRAY:
+                stack[stackSize - 1] = NONEMPTY_ARRAY;
+                break;
+            case NONEMPTY_ARRAY:
+                out.write(',');
+                break;
+            case DANGLING_KEY:
+                stack[stackSize - 1] = NONEMPTY_OBJECT;
+                break;
+            default:
+                throw new IllegalStateException("Nesting problem");
+        }
+    }
+
+    private int peek() {
+        if (stackSize == 0) {
+            throw new IllegalStateException("Nesting problem");
+        }
+        return stack[stackSize - 1];
+    }
+
+    private void push(int scope) {
+        if (stackSize == stack.length) {
+            stack = Arrays.copyOf(stack, stackSize * 2);
+        }
+        stack[stackSize++] = scope;
+    }
+
+}
@@ -141,6 +141,7 @@ public class RemoteConfigManager extends AirshipComponent {
                                                  return combinedPayloadDataBuilder.build();
                                              }
                                          })
+                                         .distinctUntilChanged()
                                          .subscribeOn(scheduler)
                                          .observeOn(scheduler)
                                          .subscribe(new Subscriber<JsonMap>() {
@@ -50,11 +50,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 
@@ -148,8 +146,17 @@ public class RemoteData extends AirshipComponent {
 
     private volatile boolean refreshedSinceLastForeground = false;
 
+    /**
+     * Emits the types that were added, updated, or removed by a refresh.
+     */
+    @VisibleForTesting
+    final Subject<Set<String>> payloadUpdates;
+
+    /**
+     * Emits the types whose content was unchanged by a refresh but whose metadata was updated.
+     */
     @VisibleForTesting
-    final Subject<Set<RemoteDataPayload>> payloadUpdates;
+    final Subject<Set<String>> metadataUpdates;
 
     @VisibleForTesting
     final HandlerThread backgroundThread;
@@ -218,6 +225,7 @@ public class RemoteData extends AirshipComponent {
         this.privacyManager = privacyManager;
         this.backgroundThread = new AirshipHandlerThread("remote data store");
         this.payloadUpdates = Subject.create();
+        this.metadataUpdates = Subject.create();
         this.activityMonitor = activityMonitor;
         this.localeManager = localeManager;
         this.pushManager = pushManager;
@@ -405,29 +413,20 @@ public class RemoteData extends AirshipComponent {
     @NonNull
     public Observable<Collection<RemoteDataPayload>> payloadsForTypes(@NonNull final Collection<String> types) {
 
-        return Observable.concat(cachedPayloads(types), payloadUpdates)
-                         .map(payloads -> {
-                             Map<String, Collection<RemoteDataPayload>> map = new HashMap<>();
-                             for (RemoteDataPayload payload : payloads) {
-                                 Collection<RemoteDataPayload> mappedPayloads = map.get(payload.getType());
-                                 if (mappedPayloads == null) {
-                                     mappedPayloads = new HashSet<>();
-                                     map.put(payload.getType(), mappedPayloads);
-                                 }
-                                 mappedPayloads.add(payload);
+        final Set<String> typeSet = new HashSet<>(types);
+        Observable<Set<RemoteDataPayload>> updates = payloadUpdates.filter(changedTypes -> !Collections.disjoint(changedTypes, typeSet))
+                                                                   .flatMap(changedTypes -> cachedPayloads(typeSet));
+
+        return Observable.concat(cachedPayloads(typeSet), updates)
+                         .map((Function<Set<RemoteDataPayload>, Collection<RemoteDataPayload>>) storedPayloads -> {
+                             Set<RemoteDataPayload> payloads = new HashSet<>(storedPayloads);
+                             Set<String> missingTypes = new HashSet<>(typeSet);
+                             for (RemoteDataPayload payload : storedPayloads) {
+                                 missingTypes.remove(payload.getType());
                              }
 
-                             return map;
-                         })
-                         .map((Function<Map<String, Collection<RemoteDataPayload>>, Collection<RemoteDataPayload>>) payloadMap -> {
-                             Set<RemoteDataPayload> payloads = new HashSet<>();
-                             for (String type : new HashSet<>(types)) {
-                                 Collection<RemoteDataPayload> mappedPayloads = payloadMap.get(type);
-                                 if (mappedPayloads != null) {
-                                     payloads.addAll(mappedPayloads);
-                                 } else {
-                                     payloads.add(RemoteDataPayload.emptyPayload(type));
-                                 }
+                             for (String type : missingTypes) {
+                                 payloads.add(RemoteDataPayload.emptyPayload(type));
                              }
 
                              return payloads;
@@ -435,6 +434,22 @@ public class RemoteData extends AirshipComponent {
                          .distinctUntilChanged();
     }
 
+    /**
+     * Produces an Observable of RemoteDataPayload tied to a specific type that only emits when a refresh
+     * updated the payload's metadata without changing its content. {@link #payloadsForType(String)} does
+     * not emit for these refreshes, so subscribers that track the metadata should subscribe to both.
+     *
+     * @param type The payload type.
+     * @return An Observable of RemoteDataPayload.
+     */
+    @NonNull
+    public Observable<RemoteDataPayload> metadataUpdatesForType(final @NonNull String type) {
+        final Set<String> typeSet = Collections.singleton(type);
+        return metadataUpdates.filter(changedTypes -> changedTypes.contains(type))
+                              .flatMap(changedTypes -> cachedPayloads(typeSet))
+                              .flatMap(Observable::from);
+    }
+
     private boolean shouldRefresh() {
         if (!privacyManager.isAnyFeatureEnabled()) {
             return false;
@@ -533,11 +548,11 @@ public class RemoteData extends AirshipComponent {
         if (response.isSuccessful()) {
             String lm = response.getResponseHeader("Last-Modified");
             JsonMap metadata = createMetadata(response.getResult().url, lm);
-            Set<RemoteDataPayload> remoteDataPayloads = response.getResult().payloads;
-            if (saveNewPayloads(remoteDataPayloads)) {
+            RemoteDataStore.UpdateResult result = dataStore.updatePayloads(response.getResult().payloads);
+            if (result != null) {
                 preferenceDataStore.put(LAST_REFRESH_METADATA, metadata);
                 preferenceDataStore.put(LAST_MODIFIED_KEY, lm);
-                notifyPayloadUpdates(remoteDataPayloads);
+                notifyUpdates(result);
                 onRefreshFinished(true);
                 return JobResult.SUCCESS;
             }
@@ -572,12 +587,14 @@ public class RemoteData extends AirshipComponent {
         }
     }
 
-    private boolean saveNewPayloads(@NonNull final Set<RemoteDataPayload> payloads) {
-        return dataStore.deletePayloads() && dataStore.savePayloads(payloads);
-    }
+    private void notifyUpdates(@NonNull final RemoteDataStore.UpdateResult result) {
+        if (!result.changedTypes.isEmpty()) {
+            backgroundHandler.post(() -> payloadUpdates.onNext(result.changedTypes));
+        }
 
-    private void notifyPayloadUpdates(@NonNull final Set<RemoteDataPayload> payloads) {
-        backgroundHandler.post(() -> payloadUpdates.onNext(payloads));
+        if (!result.metadataChangedTypes.isEmpty()) {
+            backgroundHandler.post(() -> metadataUpdates.onNext(result.metadataChangedTypes));
+        }
     }
 
     @NonNull
@@ -21,6 +21,7 @@ import com.urbanairship.http.RequestFactory;
 import com.urbanairship.http.Response;
 import com.urbanairship.json.JsonException;
 import com.urbanairship.json.JsonList;
+import com.urbanairship.json.JsonParser;
 import com.urbanairship.json.JsonValue;
 import com.urbanairship.push.PushProvider;
 import com.urbanairship.util.UAStringUtil;
@@ -124,9 +125,10 @@ public class RemoteDataApiClient {
             request.setHeader("If-Modified-Since", lastModified);
         }
 
-        return request.execute((status, headers, responseBody) -> {
+        return request.executeStreaming((status, headers, responseBody) -> {
             if (status == 200) {
-                JsonList payloads = JsonValue.parseString(responseBody).optMap().opt("payloads").getList();
+                JsonValue json = responseBody == null ? JsonValue.NULL : new JsonParser(responseBody).parse();
+                JsonList payloads = json.optMap().opt("payloads").getList();
                 if (payloads == null) {
                     throw new JsonException("Response does not contain payloads");
                 }
@@ -10,13 +10,18 @@ import android.database.sqlite.SQLiteDatabase;
 
 import com.urbanairship.Logger;
 import com.urbanairship.json.JsonException;
+import com.urbanairship.json.JsonMap;
 import com.urbanairship.json.JsonValue;
 import com.urbanairship.util.DataManager;
 import com.urbanairship.util.UAStringUtil;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import androidx.annotation.NonNull;
@@ -47,10 +52,13 @@ public class RemoteDataStore extends DataManager {
     // Metadata JSON-serialized data.
     private static final String COLUMN_NAME_METADATA = "metadata";
 
+    // Content hash shared by all payloads of the same type
+    private static final String COLUMN_NAME_HASH = "hash";
+
     /**
      * The database version.
      */
-    private static final int DATABASE_VERSION = 2;
+    private static final int DATABASE_VERSION = 3;
 
     /**
      * RemoteDataStore constructor.
@@ -71,7 +79,8 @@ public class RemoteDataStore extends DataManager {
                 + COLUMN_NAME_TYPE + " TEXT,"
                 + COLUMN_NAME_TIMESTAMP + " INTEGER,"
                 + COLUMN_NAME_DATA + " TEXT,"
-                + COLUMN_NAME_METADATA + " TEXT"
+                + COLUMN_NAME_METADATA + " TEXT,"
+                + COLUMN_NAME_HASH + " TEXT"
                 + ");");
     }
 
@@ -80,6 +89,9 @@ public class RemoteDataStore extends DataManager {
         switch (oldVersion) {
             case 1:
                 db.execSQL("ALTER TABLE " + TABLE_NAME + " ADD COLUMN " + COLUMN_NAME_METADATA + " TEXT;");
+                // fall through
+            case 2:
+                db.execSQL("ALTER TABLE " + TABLE_NAME + " ADD COLUMN " + COLUMN_NAME_HASH + " TEXT;");
                 break;
             default:
                 db.execSQL("DROP TABLE IF EXISTS " + TABLE_NAME);
@@ -95,50 +107,113 @@ public class RemoteDataStore extends DataManager {
     }
 
     /**
-     * Saves a list of RemoteDataPayloads.
+     * Result of {@link #updatePayloads(Set)}.
+     */
+    static class UpdateResult {
+
+        /**
+         * Types whose payloads were added, updated, or removed.
+         */
+        final Set<String> changedTypes = new HashSet<>();
+
+        /**
+         * Types whose payloads are unchanged but whose metadata was updated.
+         */
+        final Set<String> metadataChangedTypes = new HashSet<>();
+
+    }
+
+    /**
+     * Replaces the stored payloads with the given payloads. Only the types whose content or
+     * metadata changed are written.
      *
      * @param payloads The payloads.
-     * @return A boolean indicating success.
+     * @return The update result, or {@code null} if the payloads failed to save.
      */
-    public boolean savePayloads(@NonNull Set<RemoteDataPayload> payloads) {
-        if (payloads.isEmpty()) {
-            return true;
+    @Nullable
+    UpdateResult updatePayloads(@NonNull Set<RemoteDataPayload> payloads) {
+        Map<String, List<RemoteDataPayload>> payloadsByType = new HashMap<>();
+        for (RemoteDataPayload payload : payloads) {
+            List<RemoteDataPayload> typePayloads = payloadsByType.get(payload.getType());
+            if (typePayloads == null) {
+                typePayloads = new ArrayList<>();
+                payloadsByType.put(payload.getType(), typePayloads);
+            }
+            typePayloads.add(payload);
         }
 
         final SQLiteDatabase db = getWritableDatabase();
         if (db == null) {
             Logger.error("RemoteDataStore - Unable to save remote data payloads.");
-            return false;
+            return null;
         }
 
+        UpdateResult result = new UpdateResult();
+
+        db.beginTransaction();
         try {
-            db.beginTransaction();
-
-            for (RemoteDataPayload payload : payloads) {
-                ContentValues value = new ContentValues();
-                value.put(COLUMN_NAME_TYPE, payload.getType());
-                value.put(COLUMN_NAME_TIMESTAMP, payload.getTimestamp());
-                value.put(COLUMN_NAME_DATA, payload.getData().toString());
-                value.put(COLUMN_NAME_METADATA, payload.getMetadata().toString());
-                try {
-                    long id = db.insert(TABLE_NAME, null, value);
-                    if (id == -1) {
-                        db.endTransaction();
-                        return false;
+            Map<String, String> storedHashes = new HashMap<>();
+            Map<String, String> storedMetadata = new HashMap<>();
+
+            Cursor cursor = db.query(TABLE_NAME, new String[] { COLUMN_NAME_TYPE, COLUMN_NAME_HASH, COLUMN_NAME_METADATA },
+                    null, null, null, null, null);
+            try {
+                while (cursor.moveToNext()) {
+                    String type = cursor.getString(0);
+                    storedHashes.put(type, cursor.getString(1));
+                    storedMetadata.put(type, cursor.getString(2));
+                }
+            } finally {
+                cursor.close();
+            }
+
+            // Removed types
+            for (String type : storedHashes.keySet()) {
+                if (!payloadsByType.containsKey(type)) {
+                    db.delete(TABLE_NAME, COLUMN_NAME_TYPE + " = ?", new String[] { type });
+                    result.changedTypes.add(type);
+                }
+            }
+
+            for (Map.Entry<String, List<RemoteDataPayload>> entry : payloadsByType.entrySet()) {
+                String type = entry.getKey();
+                String hash = createHash(entry.getValue());
+                JsonMap metadata = entry.getValue().get(0).getMetadata();
+
+                if (storedHashes.containsKey(type) && UAStringUtil.equals(hash, storedHashes.get(type))) {
+                    if (!metadata.equals(parseMap(storedMetadata.get(type)))) {
+                        ContentValues value = new ContentValues();
+                        value.put(COLUMN_NAME_METADATA, metadata.toString());
+                        db.update(TABLE_NAME, value, COLUMN_NAME_TYPE + " = ?", new String[] { type });
+                        result.metadataChangedTypes.add(type);
+                    }
+                    continue;
+                }
+
+                db.delete(TABLE_NAME, COLUMN_NAME_TYPE + " = ?", new String[] { type });
+                for (RemoteDataPayload payload : entry.getValue()) {
+                    ContentValues value = new ContentValues();
+                    value.put(COLUMN_NAME_TYPE, payload.getType());
+                    value.put(COLUMN_NAME_TIMESTAMP, payload.getTimestamp());
+                    value.put(COLUMN_NAME_DATA, payload.getData().toString());
+                    value.put(COLUMN_NAME_METADATA, payload.getMetadata().toString());
+                    value.put(COLUMN_NAME_HASH, hash);
+                    if (db.insert(TABLE_NAME, null, value) == -1) {
+                        return null;
                     }
-                } catch (SQLException e) {
-                    Logger.error(e, "RemoteDataStore - Unable to save remote data payload.");
                 }
+                result.changedTypes.add(type);
             }
 
             db.setTransactionSuccessful();
-            db.endTransaction();
         } catch (SQLException e) {
             Logger.error(e, "RemoteDataStore - Unable to save remote data payloads.");
-            return false;
+            return null;
+        } finally {
+            db.endTransaction();
         }
 
-        return true;
+        return result;
     }
 
     /**
@@ -186,16 +261,29 @@ public class RemoteDataStore extends DataManager {
     }
 
     /**
-     * Deletes all payloads.
+     * Creates a content hash for the payloads of a single type. Metadata is excluded so a new
+     * last modified date does not rewrite unchanged payloads.
      *
-     * @return A boolean indicating success.
+     * @param payloads The payloads.
+     * @return The hash.
      */
-    boolean deletePayloads() {
-        boolean success = delete(TABLE_NAME, null, null) >= 0;
-        if (!success) {
-            Logger.error("RemoteDataStore - failed to delete payloads");
+    @Nullable
+    private static String createHash(@NonNull List<RemoteDataPayload> payloads) {
+        List<String> values = new ArrayList<>();
+        for (RemoteDataPayload payload : payloads) {
+            values.add(payload.getTimestamp() + ":" + payload.getData().toString());
+        }
+        Collections.sort(values);
+        return UAStringUtil.sha256(UAStringUtil.join(values, ","));
+    }
+
+    @NonNull
+    private static JsonMap parseMap(@Nullable String value) {
+        try {
+            return JsonValue.parseString(value).optMap();
+        } catch (JsonException e) {
+            return JsonMap.EMPTY_MAP;
         }
-        return success;
     }
 
     /**
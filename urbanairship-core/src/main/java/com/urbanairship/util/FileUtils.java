@@ -68,9 +68,27 @@ public abstract class FileUtils {
          */
         public final boolean isSuccess;
 
-        DownloadResult(boolean isSuccess, int statusCode) {
+        /**
+         * The response ETag header if available.
+         */
+        @Nullable
+        public final String eTag;
+
+        /**
+         * The response Last-Modified header if available.
+         */
+        @Nullable
+        public final String lastModified;
+
+        public DownloadResult(boolean isSuccess, int statusCode) {
+            this(isSuccess, statusCode, null, null);
+        }
+
+        DownloadResult(boolean isSuccess, int statusCode, @Nullable String eTag, @Nullable String lastModified) {
             this.isSuccess = isSuccess;
             this.statusCode = statusCode;
+            this.eTag = eTag;
+            this.lastModified = lastModified;
         }
 
     }
@@ -86,6 +104,25 @@ public abstract class FileUtils {
     @NonNull
     @WorkerThread
     public static DownloadResult downloadFile(@NonNull URL url, @NonNull File file) throws IOException {
+        return downloadFile(url, file, null, null);
+    }
+
+    /**
+     * Downloads a file to disk, revalidating a previous download of the URL.
+     * <p>
+     * If the server responds with {@code 304 Not Modified}, the file is not written and the
+     * result is successful with a {@link HttpURLConnection#HTTP_NOT_MODIFIED} status code.
+     *
+     * @param url The URL image.
+     * @param file The file path where the image will be downloaded.
+     * @param eTag The ETag of the previous download, or {@code null}.
+     * @param lastModified The Last-Modified header of the previous download, or {@code null}.
+     * @return The download result.
+     * @throws IOException if output steam read or write operation fails.
+     */
+    @NonNull
+    @WorkerThread
+    public static DownloadResult downloadFile(@NonNull URL url, @NonNull File file, @Nullable String eTag, @Nullable String lastModified) throws IOException {
         Logger.verbose("Downloading file from: %s to: %s", url, file.getAbsolutePath());
 
         InputStream inputStream = null;
@@ -98,11 +135,27 @@ public abstract class FileUtils {
             conn.setConnectTimeout(NETWORK_TIMEOUT_MS);
             conn.setUseCaches(true);
 
+            if (eTag != null) {
+                conn.setRequestProperty("If-None-Match", eTag);
+            }
+
+            if (lastModified != null) {
+                conn.setRequestProperty("If-Modified-Since", lastModified);
+            }
 
             int statusCode = 0;
+            String responseETag = null;
+            String responseLastModified = null;
 
             if (conn instanceof HttpURLConnection) {
                 statusCode = ((HttpURLConnection) conn).getResponseCode();
+                responseETag = conn.getHeaderField("ETag");
+                responseLastModified = conn.getHeaderField("Last-Modified");
+
+                if (statusCode == HttpURLConnection.HTTP_NOT_MODIFIED && (eTag != null || lastModified != null)) {
+                    return new DownloadResult(true, statusCode, responseETag, responseLastModified);
+                }
+
                 if (!UAHttpStatusUtil.inSuccessRange(statusCode)) {
                     return new DownloadResult(false, statusCode);
                 }
@@ -122,7 +175,7 @@ public abstract class FileUtils {
                 outputStream.close();
                 inputStream.close();
 
-                return new DownloadResult(true, statusCode);
+                return new DownloadResult(true, statusCode, responseETag, responseLastModified);
             }
 
             return new DownloadResult(false, statusCode);
@@ -20,6 +20,7 @@ import java.net.URL;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
 import androidx.core.util.ObjectsCompat;
 
 /**
@@ -44,7 +45,15 @@ public final class ImageUtils {
          */
         public final long bytes;
 
-        private DrawableResult(Drawable drawable, long bytes) {
+        /**
+         * Default constructor.
+         *
+         * @param drawable The drawable.
+         * @param bytes The size in bytes.
+         * @hide
+         */
+        @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+        public DrawableResult(@NonNull Drawable drawable, long bytes) {
             this.drawable = drawable;
             this.bytes = bytes;
         }
@@ -2,12 +2,15 @@
 
 package com.urbanairship.util;
 
+import com.urbanairship.Logger;
 import com.urbanairship.PreferenceDataStore;
 import com.urbanairship.json.JsonSerializable;
 import com.urbanairship.json.JsonValue;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -17,6 +20,11 @@ import androidx.arch.core.util.Function;
 /**
  * JsonDataStoreQueue is a thread safe storage queue for json serializable items
  * backed by the preference data store.
+ * <p>
+ * Each item is stored in its own preference, indexed between a head and a tail index, so adding
+ * and popping an item only reads and writes that item instead of the whole queue. An item and the
+ * indexes that point at it are stored in a single batch, so they are always persisted together.
+ * Queues stored as a single list under the store key are migrated on creation.
  *
  * @param <T> The value to be stored.
  * @hide
@@ -24,8 +32,15 @@ import androidx.arch.core.util.Function;
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
 public class JsonDataStoreQueue<T> {
 
+    private static final String HEAD_KEY_SUFFIX = ".queue_head";
+    private static final String TAIL_KEY_SUFFIX = ".queue_tail";
+    private static final String ITEM_KEY_SUFFIX = ".queue_item.";
+
     private final PreferenceDataStore dataStore;
     private final String storeKey;
+    private final String headKey;
+    private final String tailKey;
+    private final String itemKeyPrefix;
     private final Function<JsonValue, T> deserializer;
     private final Function<T, ? extends JsonSerializable> serializer;
 
@@ -44,8 +59,13 @@ public class JsonDataStoreQueue<T> {
 
         this.dataStore = dataStore;
         this.storeKey = storeKey;
+        this.headKey = storeKey + HEAD_KEY_SUFFIX;
+        this.tailKey = storeKey + TAIL_KEY_SUFFIX;
+        this.itemKeyPrefix = storeKey + ITEM_KEY_SUFFIX;
         this.serializer = serializer;
         this.deserializer = deserializer;
+
+        migrate();
     }
 
     /**
@@ -53,7 +73,14 @@ public class JsonDataStoreQueue<T> {
      */
     public void removeAll() {
         synchronized (storeKey) {
-            dataStore.remove(storeKey);
+            Map<String, JsonValue> batch = new HashMap<>();
+            long tail = getTail();
+            for (long i = getHead(); i < tail; i++) {
+                batch.put(getItemKey(i), null);
+            }
+            batch.put(headKey, null);
+            batch.put(tailKey, null);
+            dataStore.putAll(batch);
         }
     }
 
@@ -68,12 +95,13 @@ public class JsonDataStoreQueue<T> {
         }
 
         synchronized (storeKey) {
-            List<JsonValue> jsonValues = dataStore.getJsonValue(storeKey).optList().getList();
+            Map<String, JsonValue> batch = new HashMap<>();
+            long tail = getTail();
             for (T value : values) {
-                jsonValues.add(serializer.apply(value).toJsonValue());
+                batch.put(getItemKey(tail++), serialize(value));
             }
-            dataStore.put(storeKey, JsonValue.wrapOpt(jsonValues));
-
+            batch.put(tailKey, JsonValue.wrap(tail));
+            dataStore.putAll(batch);
         }
     }
 
@@ -84,9 +112,11 @@ public class JsonDataStoreQueue<T> {
      */
     public void add(@NonNull T value) {
         synchronized (storeKey) {
-            List<JsonValue> jsonValues = dataStore.getJsonValue(storeKey).optList().getList();
-            jsonValues.add(serializer.apply(value).toJsonValue());
-            dataStore.put(storeKey, JsonValue.wrapOpt(jsonValues));
+            long tail = getTail();
+            Map<String, JsonValue> batch = new HashMap<>();
+            batch.put(getItemKey(tail), serialize(value));
+            batch.put(tailKey, JsonValue.wrap(tail + 1));
+            dataStore.putAll(batch);
         }
     }
 
@@ -98,17 +128,19 @@ public class JsonDataStoreQueue<T> {
     @Nullable
     public T pop() {
         synchronized (storeKey) {
-            List<JsonValue> jsonValues = dataStore.getJsonValue(storeKey).optList().getList();
-            if (jsonValues.isEmpty()) {
+            long head = repairHead();
+            long tail = getTail();
+            if (head >= tail) {
                 return null;
             }
 
-            JsonValue value = jsonValues.remove(0);
-            if (jsonValues.isEmpty()) {
-                dataStore.remove(storeKey);
-            } else {
-                dataStore.put(storeKey, JsonValue.wrapOpt(jsonValues));
-            }
+            String itemKey = getItemKey(head);
+            JsonValue value = dataStore.getJsonValue(itemKey);
+
+            Map<String, JsonValue> batch = new HashMap<>();
+            batch.put(itemKey, null);
+            putRange(batch, head + 1, tail);
+            dataStore.putAll(batch);
 
             return deserializer.apply(value);
         }
@@ -121,13 +153,55 @@ public class JsonDataStoreQueue<T> {
      */
     @Nullable
     public T peek() {
-        List<JsonValue> jsonValues = dataStore.getJsonValue(storeKey).optList().getList();
-        if (jsonValues.isEmpty()) {
-            return null;
+        synchronized (storeKey) {
+            long head = repairHead();
+            if (head >= getTail()) {
+                return null;
+            }
+
+            return deserializer.apply(dataStore.getJsonValue(getItemKey(head)));
         }
+    }
 
-        JsonValue value = jsonValues.get(0);
-        return deserializer.apply(value);
+    /**
+     * Peeks the next values.
+     *
+     * @param count The max number of values.
+     * @return Up to {@code count} values from the front of the queue.
+     */
+    @NonNull
+    public List<T> peek(int count) {
+        synchronized (storeKey) {
+            long head = repairHead();
+            return readRange(head, Math.min(head + count, getTail()));
+        }
+    }
+
+    /**
+     * Replaces values at the front of the queue. Values after them are not read or rewritten.
+     *
+     * @param count The number of values to replace.
+     * @param values The replacement values.
+     */
+    public void replaceFront(int count, @NonNull List<T> values) {
+        synchronized (storeKey) {
+            long head = repairHead();
+            long tail = getTail();
+            long end = Math.min(head + count, tail);
+            long newHead = end - values.size();
+
+            Map<String, JsonValue> batch = new HashMap<>();
+            for (long i = head; i < newHead; i++) {
+                batch.put(getItemKey(i), null);
+            }
+
+            for (int i = 0; i < values.size(); i++) {
+                batch.put(getItemKey(newHead + i), serialize(values.get(i)));
+            }
+
+            putRange(batch, newHead, tail);
+            dataStore.putAll(batch);
+        }
     }
 
     /**
@@ -138,29 +212,141 @@ public class JsonDataStoreQueue<T> {
     @NonNull
     public List<T> getList() {
         synchronized (storeKey) {
-            List<T> values = new ArrayList<>();
-            for (JsonValue value : dataStore.getJsonValue(storeKey).optList()) {
-                values.add(deserializer.apply(value));
-            }
-            return values;
+            return readRange(repairHead(), getTail());
         }
     }
 
     /**
      * Applies an operation to the queue.
+     * <p>
+     * The resulting list is written back aligned to the end of the queue, so items that are
+     * unchanged at the end of the queue are not rewritten.
      *
      * @param listOperation The operation.
      */
     public void apply(Function<List<T>, List<T>> listOperation) {
         synchronized (storeKey) {
-            List<T> values = getList();
-            values = listOperation.apply(values);
+            List<T> values = listOperation.apply(getList());
             if (values.isEmpty()) {
-                dataStore.remove(storeKey);
-            } else {
-                dataStore.put(storeKey, JsonValue.wrapOpt(values));
+                removeAll();
+                return;
             }
+
+            long head = getHead();
+            long tail = getTail();
+            long newHead = tail - values.size();
+
+            Map<String, JsonValue> batch = new HashMap<>();
+            for (long i = head; i < newHead; i++) {
+                batch.put(getItemKey(i), null);
+            }
+
+            for (int i = 0; i < values.size(); i++) {
+                batch.put(getItemKey(newHead + i), serialize(values.get(i)));
+            }
+
+            batch.put(headKey, JsonValue.wrap(newHead));
+            batch.put(tailKey, JsonValue.wrap(tail));
+            dataStore.putAll(batch);
         }
     }
 
+    /**
+     * Moves a queue stored as a single list under the store key into item preferences.
+     */
+    private void migrate() {
+        synchronized (storeKey) {
+            if (!dataStore.isSet(storeKey)) {
+                return;
+            }
+
+            Map<String, JsonValue> batch = new HashMap<>();
+            long tail = getTail();
+            for (JsonValue value : dataStore.getJsonValue(storeKey).optList()) {
+                batch.put(getItemKey(tail++), value);
+            }
+            batch.put(tailKey, JsonValue.wrap(tail));
+            batch.put(storeKey, null);
+            dataStore.putAll(batch);
+        }
+    }
+
+    /**
+     * Moves the head past any missing items. Items can be missing if an older version of the
+     * queue was interrupted between writing an item and its indexes.
+     *
+     * @return The head index.
+     */
+    private long repairHead() {
+        long head = getHead();
+        long tail = getTail();
+
+        long repaired = head;
+        while (repaired < tail && !dataStore.isSet(getItemKey(repaired))) {
+            repaired++;
+        }
+
+        if (repaired != head) {
+            Logger.debug("JsonDataStoreQueue - Skipping %s missing items in %s", repaired - head, storeKey);
+            Map<String, JsonValue> batch = new HashMap<>();
+            putRange(batch, repaired, tail);
+            dataStore.putAll(batch);
+        }
+
+        return repaired;
+    }
+
+    /**
+     * Reads the items in a range, skipping any that are missing.
+     *
+     * @param start The first index.
+     * @param end The end index, exclusive.
+     * @return The values.
+     */
+    @NonNull
+    private List<T> readRange(long start, long end) {
+        List<T> values = new ArrayList<>((int) Math.max(end - start, 0));
+        for (long i = start; i < end; i++) {
+            String itemKey = getItemKey(i);
+            if (dataStore.isSet(itemKey)) {
+                values.add(deserializer.apply(dataStore.getJsonValue(itemKey)));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Adds the head and tail indexes to a batch, clearing both if the range is empty.
+     *
+     * @param batch The batch.
+     * @param head The head index.
+     * @param tail The tail index.
+     */
+    private void putRange(@NonNull Map<String, JsonValue> batch, long head, long tail) {
+        if (head >= tail) {
+            batch.put(headKey, null);
+            batch.put(tailKey, null);
+        } else {
+            batch.put(headKey, JsonValue.wrap(head));
+        }
+    }
+
+    @NonNull
+    private JsonValue serialize(@NonNull T value) {
+        return serializer.apply(value).toJsonValue();
+    }
+
+    private long getHead() {
+        return dataStore.getLong(headKey, 0);
+    }
+
+    private long getTail() {
+        return dataStore.getLong(tailKey, 0);
+    }
+
+    @NonNull
+    private String getItemKey(long index) {
+        return itemKeyPrefix + index;
+    }
+
 }
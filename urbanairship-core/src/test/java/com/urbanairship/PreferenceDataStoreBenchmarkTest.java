@@ -0,0 +1,100 @@
+/* Copyright Airship and Contributors */
+
+package com.urbanairship;
+
+import com.urbanairship.json.JsonException;
+import com.urbanairship.json.JsonList;
+import com.urbanairship.json.JsonMap;
+import com.urbanairship.json.JsonValue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static junit.framework.Assert.assertEquals;
+
+/**
+ * Microbenchmark for {@link PreferenceDataStore#getJsonValue(String)} on a large list, comparing
+ * the cached value against parsing the stored string on every read.
+ * <p>
+ * Only runs when benchmarks are enabled, see {@link Benchmarks}.
+ */
+public class PreferenceDataStoreBenchmarkTest extends BaseTestCase {
+
+    private static final String KEY = "benchmark";
+    private static final int LIST_SIZE = 200;
+    private static final int WARM_UP = 3;
+    private static final int ITERATIONS = 5;
+    private static final int OPERATIONS = 2000;
+
+    private PreferenceDataStore dataStore;
+
+    @Before
+    public void setup() {
+        Benchmarks.assumeEnabled();
+
+        dataStore = PreferenceDataStore.inMemoryStore(RuntimeEnvironment.application.getApplicationContext());
+
+        List<JsonValue> list = new ArrayList<>();
+        for (int i = 0; i < LIST_SIZE; i++) {
+            list.add(JsonMap.newBuilder()
+                            .put("id", "item-" + i)
+                            .put("timestamp", 1600000000000L + i)
+                            .put("payload", JsonMap.newBuilder().put("index", i).put("enabled", i % 2 == 0).build())
+                            .build()
+                            .toJsonValue());
+        }
+        dataStore.put(KEY, new JsonList(list));
+    }
+
+    @Test
+    public void benchmarkGetJsonValue() throws JsonException {
+        assertEquals(parse(), dataStore.getJsonValue(KEY));
+        assertEquals(LIST_SIZE, dataStore.getJsonValue(KEY).optList().size());
+
+        for (int i = 0; i < WARM_UP; i++) {
+            measureParsed();
+            measureCached();
+        }
+
+        long parsedTime = 0;
+        long cachedTime = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            parsedTime += measureParsed();
+            cachedTime += measureCached();
+        }
+
+        System.out.println(String.format(Locale.ROOT, "PreferenceDataStoreBenchmark getJsonValue (%d element list): parsed %.1f ns/op, cached %.1f ns/op",
+                LIST_SIZE,
+                parsedTime / (double) (ITERATIONS * OPERATIONS),
+                cachedTime / (double) (ITERATIONS * OPERATIONS)));
+    }
+
+    private long measureParsed() throws JsonException {
+        long start = System.nanoTime();
+        for (int i = 0; i < OPERATIONS; i++) {
+            parse();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long measureCached() {
+        long start = System.nanoTime();
+        for (int i = 0; i < OPERATIONS; i++) {
+            dataStore.getJsonValue(KEY);
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Reads the value the way it was read before parsed values were cached.
+     */
+    private JsonValue parse() throws JsonException {
+        return JsonValue.parseString(dataStore.getString(KEY, null));
+    }
+
+}
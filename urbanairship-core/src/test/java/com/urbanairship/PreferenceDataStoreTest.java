@@ -12,8 +12,11 @@ import org.junit.Before;
 import org.junit.Test;
 import org.robolectric.RuntimeEnvironment;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import androidx.annotation.NonNull;
 
@@ -148,4 +151,198 @@ public class PreferenceDataStoreTest extends BaseTestCase {
         assertTrue(testPrefs.getJsonValue("value").isNull());
     }
 
+    /**
+     * Test cached values are replaced when the value changes.
+     */
+    @Test
+    public void testCachedValuesUpdated() {
+        testPrefs.put("value", 123);
+        assertEquals(123, testPrefs.getInt("value", -1));
+        assertEquals(123, testPrefs.getLong("value", -1));
+        assertEquals(JsonValue.wrap(123), testPrefs.getJsonValue("value"));
+
+        testPrefs.put("value", 456);
+        assertEquals(456, testPrefs.getInt("value", -1));
+        assertEquals(456, testPrefs.getLong("value", -1));
+        assertEquals(JsonValue.wrap(456), testPrefs.getJsonValue("value"));
+
+        testPrefs.put("value", "not a number");
+        assertEquals(-1, testPrefs.getInt("value", -1));
+        assertEquals(-1, testPrefs.getLong("value", -1));
+
+        testPrefs.put("value", true);
+        assertTrue(testPrefs.getBoolean("value", false));
+        testPrefs.putSync("value", "false");
+        assertFalse(testPrefs.getBoolean("value", true));
+
+        testPrefs.remove("value");
+        assertTrue(testPrefs.getBoolean("value", true));
+        assertEquals(-1, testPrefs.getInt("value", -1));
+        assertTrue(testPrefs.getJsonValue("value").isNull());
+    }
+
+    /**
+     * Test multiple puts are coalesced into a single write.
+     */
+    @Test
+    public void testWritesCoalesced() {
+        PreferenceDataDatabase database = PreferenceDataDatabase.createInMemoryDatabase(context);
+        PreferenceDataStore dataStore = new PreferenceDataStore(database);
+        QueueExecutor executor = new QueueExecutor();
+        dataStore.executor = executor;
+
+        dataStore.put("foo", "one");
+        dataStore.put("foo", "two");
+        dataStore.put("bar", 1);
+        dataStore.put("baz", true);
+        dataStore.remove("baz");
+
+        assertEquals(1, executor.runnables.size());
+        assertTrue(database.getDao().queryKeys().isEmpty());
+        assertEquals("two", dataStore.getString("foo", null));
+
+        executor.runAll();
+        assertEquals("two", database.getDao().queryValue("foo").getValue());
+        assertEquals("1", database.getDao().queryValue("bar").getValue());
+        assertEquals(2, database.getDao().queryKeys().size());
+
+        dataStore.put("foo", "three");
+        assertEquals(1, executor.runnables.size());
+    }
+
+    /**
+     * Test flush writes pending changes.
+     */
+    @Test
+    public void testFlush() {
+        PreferenceDataDatabase database = PreferenceDataDatabase.createInMemoryDatabase(context);
+        PreferenceDataStore dataStore = new PreferenceDataStore(database);
+        QueueExecutor executor = new QueueExecutor();
+        dataStore.executor = executor;
+
+        dataStore.put("foo", "one");
+        dataStore.flush();
+        assertEquals("one", database.getDao().queryValue("foo").getValue());
+
+        // Scheduled flush has nothing left to write
+        executor.runAll();
+        assertEquals("one", database.getDao().queryValue("foo").getValue());
+    }
+
+    /**
+     * Test a pending put does not overwrite a later sync put.
+     */
+    @Test
+    public void testPutSyncAfterPut() {
+        PreferenceDataDatabase database = PreferenceDataDatabase.createInMemoryDatabase(context);
+        PreferenceDataStore dataStore = new PreferenceDataStore(database);
+        QueueExecutor executor = new QueueExecutor();
+        dataStore.executor = executor;
+
+        dataStore.put("foo", "one");
+        dataStore.put("bar", "bar");
+        assertTrue(dataStore.putSync("foo", "two"));
+        assertEquals("two", database.getDao().queryValue("foo").getValue());
+
+        executor.runAll();
+        assertEquals("two", database.getDao().queryValue("foo").getValue());
+        assertEquals("bar", database.getDao().queryValue("bar").getValue());
+        assertEquals("two", dataStore.getString("foo", null));
+    }
+
+    /**
+     * Test listeners are notified on put, before the value is written.
+     */
+    @Test
+    public void testListenerNotifiedOnPut() {
+        PreferenceDataStore dataStore = new PreferenceDataStore(PreferenceDataDatabase.createInMemoryDatabase(context));
+        dataStore.executor = new QueueExecutor();
+
+        final List<String> changes = new ArrayList<>();
+        dataStore.addListener(new PreferenceDataStore.PreferenceChangeListener() {
+            @Override
+            public void onPreferenceChange(@NonNull String key) {
+                changes.add(key);
+            }
+        });
+
+        dataStore.put("foo", "one");
+        dataStore.put("foo", "one");
+        dataStore.put("foo", "two");
+        dataStore.remove("foo");
+
+        assertEquals(3, changes.size());
+    }
+
+    /**
+     * Test putAll sets and removes values, and a flush during the batch waits for all of it.
+     */
+    @Test
+    public void testPutAll() throws InterruptedException {
+        PreferenceDataDatabase database = PreferenceDataDatabase.createInMemoryDatabase(context);
+        final PreferenceDataStore dataStore = new PreferenceDataStore(database);
+        QueueExecutor executor = new QueueExecutor();
+        dataStore.executor = executor;
+
+        dataStore.put("baz", "baz");
+        executor.runAll();
+
+        final Thread flushThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                dataStore.flush();
+            }
+        });
+
+        final List<Boolean> flushBlocked = new ArrayList<>();
+        dataStore.addListener(new PreferenceDataStore.PreferenceChangeListener() {
+            @Override
+            public void onPreferenceChange(@NonNull String key) {
+                if (!flushThread.isAlive() && flushBlocked.isEmpty()) {
+                    flushThread.start();
+                    try {
+                        flushThread.join(100);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    flushBlocked.add(flushThread.isAlive());
+                }
+            }
+        });
+
+        Map<String, JsonValue> values = new HashMap<>();
+        values.put("foo", JsonValue.wrap("one"));
+        values.put("bar", JsonValue.wrap(2));
+        values.put("baz", null);
+        dataStore.putAll(values);
+
+        flushThread.join();
+        assertEquals(Boolean.TRUE, flushBlocked.get(0));
+
+        assertEquals("one", dataStore.getString("foo", null));
+        assertEquals(2, dataStore.getInt("bar", 0));
+        assertFalse(dataStore.isSet("baz"));
+
+        assertEquals("one", database.getDao().queryValue("foo").getValue());
+        assertEquals("2", database.getDao().queryValue("bar").getValue());
+        assertEquals(2, database.getDao().queryKeys().size());
+    }
+
+    private static class QueueExecutor implements Executor {
+
+        final List<Runnable> runnables = new ArrayList<>();
+
+        @Override
+        public void execute(@NonNull Runnable runnable) {
+            runnables.add(runnable);
+        }
+
+        void runAll() {
+            while (!runnables.isEmpty()) {
+                runnables.remove(0).run();
+            }
+        }
+
+    }
+
 }
@@ -0,0 +1,201 @@
+/* Copyright Airship and Contributors */
+
+package com.urbanairship.analytics.data;
+
+import android.database.Cursor;
+
+import com.urbanairship.BaseTestCase;
+import com.urbanairship.Benchmarks;
+import com.urbanairship.json.JsonMap;
+import com.urbanairship.json.JsonValue;
+import com.urbanairship.json.JsonWriter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import androidx.annotation.NonNull;
+import androidx.test.core.app.ApplicationProvider;
+
+import static junit.framework.Assert.assertEquals;
+
+/**
+ * Compares the per-row analytics storage path against the set-based path: a {@code SUM} on every
+ * insert versus a running size, and per event deletes versus deleting the uploaded ID range.
+ * <p>
+ * Runs 100k events by default, use {@code -Dairship.benchmark.events=<count>} to change it. Only
+ * runs when benchmarks are enabled, see {@link Benchmarks}.
+ */
+public class EventDaoBenchmarkTest extends BaseTestCase {
+
+    private static final String EVENTS_PROPERTY = "airship.benchmark.events";
+    private static final int DEFAULT_EVENT_COUNT = 100000;
+    private static final int BATCH_SIZE = 500;
+    private static final int MAX_DATABASE_SIZE = EventResponse.MAX_TOTAL_DB_SIZE_BYTES;
+
+    private AnalyticsDatabase db;
+    private EventDao eventDao;
+    private List<EventEntity> entities;
+
+    @Before
+    public void setUp() {
+        Benchmarks.assumeEnabled();
+
+        db = AnalyticsDatabase.createInMemoryDatabase(ApplicationProvider.getApplicationContext());
+        eventDao = db.getEventDao();
+
+        int count = Integer.getInteger(EVENTS_PROPERTY, DEFAULT_EVENT_COUNT);
+        entities = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            entities.add(createEntity(i));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        if (db != null) {
+            db.close();
+        }
+    }
+
+    @Test
+    public void benchmarkInsertAndUpload() throws IOException {
+        // Per-row path
+        long start = System.nanoTime();
+        for (EventEntity entity : entities) {
+            eventDao.insert(entity);
+            legacyTrim();
+        }
+        long legacyInsertTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        int legacyUploaded = 0;
+        while (true) {
+            List<EventEntity.EventIdAndData> batch = eventDao.getBatch(BATCH_SIZE);
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            List<JsonValue> payloads = new ArrayList<>(batch.size());
+            for (EventEntity.EventIdAndData event : batch) {
+                payloads.add(event.data);
+            }
+            JsonValue.wrapOpt(payloads).toString();
+
+            for (EventEntity.EventIdAndData event : batch) {
+                eventDao.delete(event.eventId);
+            }
+            legacyUploaded += batch.size();
+        }
+        long legacyUploadTime = System.nanoTime() - start;
+
+        assertEquals(entities.size(), legacyUploaded);
+        assertEquals(0, eventDao.count());
+
+        // Set-based path
+        start = System.nanoTime();
+        int size = eventDao.databaseSize();
+        for (EventEntity entity : entities) {
+            entity.id = 0;
+            eventDao.insert(entity);
+            size += entity.eventSize;
+            if (size > MAX_DATABASE_SIZE) {
+                size = eventDao.trimDatabase(MAX_DATABASE_SIZE);
+            }
+        }
+        long insertTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        int uploaded = 0;
+        while (true) {
+            int lastId = eventDao.getBatchLastId(BATCH_SIZE);
+            if (lastId <= 0) {
+                break;
+            }
+
+            JsonWriter writer = new JsonWriter(new NullWriter());
+            writer.beginArray();
+            Cursor cursor = eventDao.getBatchPayloads(lastId);
+            try {
+                while (cursor.moveToNext()) {
+                    writer.rawValue(cursor.getString(0));
+                }
+            } finally {
+                cursor.close();
+            }
+            writer.endArray();
+
+            uploaded += eventDao.deleteBatch(lastId);
+        }
+        long uploadTime = System.nanoTime() - start;
+
+        assertEquals(entities.size(), uploaded);
+        assertEquals(0, eventDao.count());
+
+        report("insert", legacyInsertTime, insertTime);
+        report("upload", legacyUploadTime, uploadTime);
+    }
+
+    private void legacyTrim() {
+        while (eventDao.databaseSize() > MAX_DATABASE_SIZE) {
+            String sessionId = eventDao.oldestSessionId();
+            if (sessionId == null || eventDao.deleteSession(sessionId) == 0) {
+                return;
+            }
+        }
+    }
+
+    private void report(String name, long legacyTime, long time) {
+        System.out.println(String.format(Locale.ROOT, "EventDaoBenchmark %s: %d events, per-row %.0f events/s, set-based %.0f events/s",
+                name,
+                entities.size(),
+                entities.size() / (legacyTime / 1e9),
+                entities.size() / (time / 1e9)));
+    }
+
+    @NonNull
+    private static EventEntity createEntity(int index) {
+        JsonValue data = JsonMap.newBuilder()
+                                .put("type", "custom_event")
+                                .put("event_id", "event-" + index)
+                                .put("time", "1666000000.000")
+                                .put("data", JsonMap.newBuilder()
+                                                    .put("session_id", "session-" + index / 100)
+                                                    .put("event_name", "benchmark")
+                                                    .put("event_value", index)
+                                                    .build())
+                                .build()
+                                .toJsonValue();
+
+        String payload = data.toString();
+        return new EventEntity("custom_event", "event-" + index, "1666000000.000", data,
+                "session-" + index / 100, payload.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    /**
+     * Writer that discards everything, so only the database and encoding work is measured.
+     */
+    private static class NullWriter extends Writer {
+
+        @Override
+        public void write(@NonNull char[] cbuf, int off, int len) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+    }
+
+}
@@ -1,5 +1,7 @@
 package com.urbanairship.analytics.data;
 
+import android.database.Cursor;
+
 import com.urbanairship.BaseTestCase;
 import com.urbanairship.analytics.Event;
 import com.urbanairship.json.JsonException;
@@ -11,6 +13,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
 
 import androidx.annotation.NonNull;
@@ -57,6 +60,16 @@ public class EventDaoTest extends BaseTestCase {
         assertEquals(ENTITY.data, event.data);
     }
 
+    @Test
+    public void testInsertList() throws JsonException {
+        EventEntity entity1 = EventEntity.create(new TestEvent("event-1"), SESSION_ID);
+        EventEntity entity2 = EventEntity.create(new TestEvent("event-2"), SESSION_ID);
+
+        eventDao.insert(Arrays.asList(entity1, entity2));
+        assertEquals(2, eventDao.count());
+        assertEquals(entity1.eventSize + entity2.eventSize, eventDao.databaseSize());
+    }
+
     @Test
     public void testGetAndDeleteBatch() throws JsonException {
         Event event1 = new TestEvent("event-1");
@@ -82,6 +95,50 @@ public class EventDaoTest extends BaseTestCase {
         assertEquals(0, eventDao.count());
     }
 
+    @Test
+    public void testGetAndDeleteBatchById() throws JsonException {
+        EventEntity entity1 = EventEntity.create(new TestEvent("event-1"), "session-1");
+        EventEntity entity2 = EventEntity.create(new TestEvent("event-2"), "session-1");
+        EventEntity entity3 = EventEntity.create(new TestEvent("event-3"), "session-2");
+
+        eventDao.insert(entity1);
+        eventDao.insert(entity2);
+        eventDao.insert(entity3);
+
+        int lastId = eventDao.getBatchLastId(2);
+        assertEquals(eventDao.get().get(1).id, lastId);
+
+        Cursor cursor = eventDao.getBatchPayloads(lastId);
+        assertEquals(2, cursor.getCount());
+        assertTrue(cursor.moveToNext());
+        assertEquals(entity1.data.toString(), cursor.getString(0));
+        assertTrue(cursor.moveToNext());
+        assertEquals(entity2.data.toString(), cursor.getString(0));
+        cursor.close();
+
+        assertEquals(2, eventDao.deleteBatch(lastId));
+        assertEquals(1, eventDao.count());
+        assertEquals(entity3.eventId, eventDao.get().get(0).eventId);
+    }
+
+    @Test
+    public void testGetBatchLastIdEmpty() {
+        assertEquals(0, eventDao.getBatchLastId(10));
+    }
+
+    @Test
+    public void testDeleteLargeBatch() throws JsonException {
+        for (int i = 0; i < 1500; i++) {
+            eventDao.insert(EventEntity.create(new TestEvent("event-" + i), SESSION_ID));
+        }
+
+        List<EventEntity.EventIdAndData> batch = eventDao.getBatch(1200);
+        assertEquals(1200, batch.size());
+
+        eventDao.deleteBatch(batch);
+        assertEquals(300, eventDao.count());
+    }
+
     @Test
     public void testDatabaseSize() {
         assertEquals(0, eventDao.databaseSize());
@@ -105,7 +162,7 @@ public class EventDaoTest extends BaseTestCase {
         assertEquals(combinedSize, eventDao.databaseSize());
         assertEquals("session-1", eventDao.oldestSessionId());
 
-        eventDao.trimDatabase(200);
+        assertEquals(entity2.eventSize, eventDao.trimDatabase(200));
         assertEquals(1, eventDao.count());
         assertTrue(entity2.contentEquals(eventDao.get().get(0)));
 
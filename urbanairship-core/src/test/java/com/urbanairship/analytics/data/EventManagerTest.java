@@ -1,9 +1,13 @@
 package com.urbanairship.analytics.data;
 
+import android.database.MatrixCursor;
+import android.os.Looper;
+
 import com.urbanairship.BaseTestCase;
 import com.urbanairship.PreferenceDataStore;
 import com.urbanairship.TestAirshipRuntimeConfig;
 import com.urbanairship.TestApplication;
+import com.urbanairship.analytics.Analytics;
 import com.urbanairship.analytics.CustomEvent;
 import com.urbanairship.analytics.location.RegionEvent;
 import com.urbanairship.app.ActivityMonitor;
@@ -12,28 +16,40 @@ import com.urbanairship.http.Response;
 import com.urbanairship.job.JobDispatcher;
 import com.urbanairship.job.JobInfo;
 import com.urbanairship.json.JsonException;
-import com.urbanairship.json.JsonValue;
+import com.urbanairship.json.JsonWriter;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatcher;
+import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
 import org.mockito.internal.verification.Times;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
 import java.net.HttpURLConnection;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static com.urbanairship.analytics.data.EventManager.MIN_BATCH_INTERVAL_KEY;
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.robolectric.Shadows.shadowOf;
 
 public class EventManagerTest extends BaseTestCase {
 
@@ -43,6 +59,7 @@ public class EventManagerTest extends BaseTestCase {
     private JobDispatcher mockDispatcher;
     private ActivityMonitor mockActivityMonitor;
     private PreferenceDataStore dataStore;
+    private File journalFile;
 
     private TestAirshipRuntimeConfig testAirshipRuntimeConfig;
 
@@ -58,7 +75,11 @@ public class EventManagerTest extends BaseTestCase {
 
         dataStore = TestApplication.getApplication().preferenceDataStore;
 
-        eventManager = new EventManager(dataStore, testAirshipRuntimeConfig, mockDispatcher, mockActivityMonitor, mockEventDao, mockClient);
+        journalFile = new File(TestApplication.getApplication().getCacheDir(), "analytics_journal");
+        new EventJournal(journalFile).clear();
+
+        eventManager = new EventManager(dataStore, testAirshipRuntimeConfig, mockDispatcher, mockActivityMonitor, mockEventDao, mockClient,
+                new EventJournal(journalFile), Looper.getMainLooper());
     }
 
     /**
@@ -70,8 +91,10 @@ public class EventManagerTest extends BaseTestCase {
         EventEntity entity = EventEntity.create(customEvent, "session");
 
         eventManager.addEvent(customEvent, "session");
+        eventManager.flushEvents();
+
         // Verify we add an event.
-        verify(mockEventDao, new Times(1)).insert(entity);
+        verify(mockEventDao, new Times(1)).insert(Collections.singletonList(entity));
 
         // Check it schedules an upload
         verify(mockDispatcher).dispatch(Mockito.argThat(new ArgumentMatcher<JobInfo>() {
@@ -82,6 +105,31 @@ public class EventManagerTest extends BaseTestCase {
         }));
     }
 
+    /**
+     * Tests the database size is only queried once and trimming only happens once the max size is exceeded.
+     */
+    @Test
+    public void testAddEventTracksDatabaseSize() throws JsonException {
+        CustomEvent customEvent = CustomEvent.newBuilder("event name").build();
+        int eventSize = EventEntity.create(customEvent, "session").eventSize;
+
+        dataStore.put(EventManager.MAX_TOTAL_DB_SIZE_KEY, eventSize * 2);
+        when(mockEventDao.databaseSize()).thenReturn(eventSize);
+
+        eventManager.addEvent(customEvent, "session");
+        eventManager.flushEvents();
+        eventManager.addEvent(customEvent, "session");
+        eventManager.flushEvents();
+
+        verify(mockEventDao, new Times(1)).databaseSize();
+        verify(mockEventDao, never()).trimDatabase(anyInt());
+
+        eventManager.addEvent(customEvent, "session");
+        eventManager.flushEvents();
+        verify(mockEventDao).trimDatabase(eventSize * 2);
+        verify(mockEventDao, new Times(1)).databaseSize();
+    }
+
     /**
      * Tests adding an event  before the next send time schedules an upload with the remaining delay.
      */
@@ -95,6 +143,7 @@ public class EventManagerTest extends BaseTestCase {
 
         CustomEvent customEvent = CustomEvent.newBuilder("event name").build();
         eventManager.addEvent(customEvent, "session");
+        eventManager.flushEvents();
 
         // Check it schedules an upload with a time greater than 10 seconds
         verify(mockDispatcher).dispatch(Mockito.argThat(new ArgumentMatcher<JobInfo>() {
@@ -109,12 +158,7 @@ public class EventManagerTest extends BaseTestCase {
      * Tests sending events
      */
     @Test
-    public void testSendingEvents() throws RequestException, JsonException {
-        JsonValue data = JsonValue.parseString("{ \"body\": \"firstEventBody\" }");
-        EventEntity.EventIdAndData payload = new EventEntity.EventIdAndData(1, "firstEvent", data);
-        List<EventEntity.EventIdAndData> events = Collections.singletonList(payload);
-        List<JsonValue> eventPayloads = Collections.singletonList(payload.data);
-
+    public void testSendingEvents() throws RequestException, IOException {
         Map<String, String> headers = new HashMap<>();
         headers.put("foo", "bar");
 
@@ -128,11 +172,16 @@ public class EventManagerTest extends BaseTestCase {
         when(mockEventDao.databaseSize()).thenReturn(200);
 
         // Return the event when it asks for 1
-        when(mockEventDao.getBatch(1)).thenReturn(events);
+        when(mockEventDao.getBatchLastId(1)).thenReturn(1);
+        when(mockEventDao.getBatchPayloads(1)).thenReturn(payloadCursor("{\"body\":\"firstEventBody\"}"));
+        when(mockEventDao.deleteBatch(1)).thenReturn(1);
 
         // Set the max batch size to 100
         dataStore.put(EventManager.MAX_BATCH_SIZE_KEY, 100);
 
+        Analytics.UploadListener uploadListener = mock(Analytics.UploadListener.class);
+        eventManager.addUploadListener(uploadListener);
+
         // Set up the response
         EventResponse eventResponse = mock(EventResponse.class);
         when(eventResponse.getMaxTotalSize()).thenReturn(200);
@@ -140,19 +189,24 @@ public class EventManagerTest extends BaseTestCase {
         when(eventResponse.getMinBatchInterval()).thenReturn(100);
 
         // Return the response
-        when(mockClient.sendEvents(eventPayloads, headers))
+        ArgumentCaptor<EventApiClient.PayloadWriter> captor = ArgumentCaptor.forClass(EventApiClient.PayloadWriter.class);
+        when(mockClient.sendEvents(captor.capture(), eq(headers)))
                 .thenReturn(new Response.Builder<EventResponse>(HttpURLConnection.HTTP_OK)
                         .setResult(eventResponse)
+                        .setRequestBodySize(100, 40)
                         .build());
 
         // Start the upload process
         assertTrue(eventManager.uploadEvents(headers));
 
-        // Check mockClients receives the events
-        verify(mockClient).sendEvents(eventPayloads, headers);
+        // Check the upload sizes are reported
+        verify(uploadListener).onEventsUploaded(1, 100, 40);
+
+        // Check the payload writer streams the stored events
+        assertEquals("[{\"body\":\"firstEventBody\"}]", writePayloads(captor.getValue()));
 
         // Check data manager deletes events
-        verify(mockEventDao).deleteBatch(events);
+        verify(mockEventDao).deleteBatch(1);
 
         // Verify responses are being saved
         assertEquals(200, dataStore.getInt(EventManager.MAX_TOTAL_DB_SIZE_KEY, 0));
@@ -183,31 +237,29 @@ public class EventManagerTest extends BaseTestCase {
         eventManager.uploadEvents(Collections.<String, String>emptyMap());
 
         // Verify it only asked for 500
-        verify(mockEventDao).getBatch(500);
+        verify(mockEventDao).getBatchLastId(500);
     }
 
     /**
      * Test sending events when the upload fails.
      */
     @Test
-    public void testSendEventsFails() throws RequestException, JsonException {
-        JsonValue data = JsonValue.parseString("{ \"body\": \"firstEventBody\" }");
-        EventEntity.EventIdAndData payload = new EventEntity.EventIdAndData(1, "firstEvent", data);
-        List<EventEntity.EventIdAndData> events = Collections.singletonList(payload);
-        List<JsonValue> eventPayloads = Collections.singletonList(payload.data);
-
+    public void testSendEventsFails() throws RequestException {
         Map<String, String> headers = new HashMap<>();
         headers.put("foo", "bar");
 
         when(mockEventDao.count()).thenReturn(1);
         when(mockEventDao.databaseSize()).thenReturn(100);
-        when(mockEventDao.getBatch(1)).thenReturn(events);
+        when(mockEventDao.getBatchLastId(1)).thenReturn(1);
 
         dataStore.put(EventManager.MAX_BATCH_SIZE_KEY, 100);
 
+        Analytics.UploadListener uploadListener = mock(Analytics.UploadListener.class);
+        eventManager.addUploadListener(uploadListener);
+
         EventResponse eventResponse = mock(EventResponse.class);
 
-        when(mockClient.sendEvents(eventPayloads, headers))
+        when(mockClient.sendEvents(any(EventApiClient.PayloadWriter.class), eq(headers)))
                 .thenReturn(new Response.Builder<EventResponse>(HttpURLConnection.HTTP_BAD_REQUEST)
                         .setResult(eventResponse)
                         .build());
@@ -215,10 +267,11 @@ public class EventManagerTest extends BaseTestCase {
         assertFalse(eventManager.uploadEvents(headers));
 
         // Check mockClient receives the events
-        verify(mockClient).sendEvents(eventPayloads, headers);
+        verify(mockClient).sendEvents(any(EventApiClient.PayloadWriter.class), eq(headers));
 
         // If it fails, it should skip deleting events
-        verify(mockEventDao, never()).deleteBatch(events);
+        verify(mockEventDao, never()).deleteBatch(anyInt());
+        verify(uploadListener, never()).onEventsUploaded(anyInt(), anyLong(), anyLong());
     }
 
     /**
@@ -236,6 +289,7 @@ public class EventManagerTest extends BaseTestCase {
                                              .build();
 
         eventManager.addEvent(regionEvent, "session");
+        eventManager.flushEvents();
 
         // Check it schedules an upload
         verify(mockDispatcher).dispatch(Mockito.argThat(new ArgumentMatcher<JobInfo>() {
@@ -246,6 +300,105 @@ public class EventManagerTest extends BaseTestCase {
         }));
     }
 
+    /**
+     * Test buffered events are written together after the flush delay.
+     */
+    @Test
+    public void testAddEventsFlushAfterDelay() throws JsonException {
+        CustomEvent first = CustomEvent.newBuilder("first").build();
+        CustomEvent second = CustomEvent.newBuilder("second").build();
+
+        eventManager.addEvent(first, "session");
+        eventManager.addEvent(second, "session");
+        verify(mockEventDao, never()).insert(ArgumentMatchers.<EventEntity>anyList());
+        verify(mockDispatcher, never()).dispatch(any(JobInfo.class));
+
+        shadowOf(Looper.getMainLooper()).idleFor(25, TimeUnit.MILLISECONDS);
+
+        verify(mockEventDao).insert(Arrays.asList(EventEntity.create(first, "session"), EventEntity.create(second, "session")));
+        verify(mockDispatcher, new Times(1)).dispatch(any(JobInfo.class));
+    }
+
+    /**
+     * Test the buffer is written right away once it is full.
+     */
+    @Test
+    public void testAddEventsFlushWhenFull() {
+        for (int i = 0; i < 50; i++) {
+            eventManager.addEvent(CustomEvent.newBuilder("event " + i).build(), "session");
+        }
+
+        verify(mockEventDao).insert(Mockito.<List<EventEntity>>argThat(new ArgumentMatcher<List<EventEntity>>() {
+            @Override
+            public boolean matches(List<EventEntity> events) {
+                return events.size() == 50;
+            }
+        }));
+    }
+
+    /**
+     * Test the buffer is written before uploading.
+     */
+    @Test
+    public void testUploadFlushesEvents() {
+        eventManager.addEvent(CustomEvent.newBuilder("event name").build(), "session");
+        when(mockEventDao.count()).thenReturn(0);
+
+        eventManager.uploadEvents(Collections.<String, String>emptyMap());
+        verify(mockEventDao).insert(ArgumentMatchers.<EventEntity>anyList());
+    }
+
+    /**
+     * Test delete all drops buffered events.
+     */
+    @Test
+    public void testDeleteAllDropsBufferedEvents() {
+        eventManager.addEvent(CustomEvent.newBuilder("event name").build(), "session");
+        eventManager.deleteEvents();
+        eventManager.flushEvents();
+
+        verify(mockEventDao, never()).insert(ArgumentMatchers.<EventEntity>anyList());
+    }
+
+    /**
+     * Test buffered events are journaled before they are written.
+     */
+    @Test
+    public void testAddEventJournaled() throws JsonException {
+        CustomEvent customEvent = CustomEvent.newBuilder("event name").build();
+        eventManager.addEvent(customEvent, "session");
+
+        // Read the journal as the next process would
+        EventJournal journal = new EventJournal(journalFile);
+        journal.rotate();
+        assertEquals(Collections.singletonList(EventEntity.create(customEvent, "session")), journal.readRotated());
+    }
+
+    /**
+     * Test events journaled by a previous process are written on start.
+     */
+    @Test
+    public void testJournalReplayed() throws IOException, JsonException {
+        CustomEvent customEvent = CustomEvent.newBuilder("event name").build();
+        EventEntity entity = EventEntity.create(customEvent, "session");
+
+        File previousJournal = new File(TestApplication.getApplication().getCacheDir(), "previous_analytics_journal");
+        new EventJournal(previousJournal).clear();
+        new EventJournal(previousJournal).append(entity);
+
+        shadowOf(Looper.getMainLooper()).idle();
+        EventManager restarted = new EventManager(dataStore, testAirshipRuntimeConfig, mockDispatcher, mockActivityMonitor, mockEventDao, mockClient,
+                new EventJournal(previousJournal), Looper.getMainLooper());
+        shadowOf(Looper.getMainLooper()).idle();
+
+        verify(mockEventDao).insert(Collections.singletonList(entity));
+        verify(mockDispatcher).dispatch(any(JobInfo.class));
+
+        // Journal is cleared once written
+        restarted.flushEvents();
+        verify(mockEventDao, new Times(1)).insert(ArgumentMatchers.<EventEntity>anyList());
+    }
+
     /**
      * Test delete all.
      */
@@ -254,4 +407,41 @@ public class EventManagerTest extends BaseTestCase {
         eventManager.deleteEvents();
         verify(mockEventDao).deleteAll();
     }
+
+    /**
+     * Test the payload writer skips events without data.
+     */
+    @Test
+    public void testPayloadWriterSkipsEmptyPayloads() throws RequestException, IOException {
+        when(mockEventDao.count()).thenReturn(3);
+        when(mockEventDao.databaseSize()).thenReturn(300);
+        when(mockEventDao.getBatchLastId(anyInt())).thenReturn(3);
+        when(mockEventDao.getBatchPayloads(3)).thenReturn(payloadCursor("{\"a\":1}", null, "{\"b\":2}"));
+
+        ArgumentCaptor<EventApiClient.PayloadWriter> captor = ArgumentCaptor.forClass(EventApiClient.PayloadWriter.class);
+        when(mockClient.sendEvents(captor.capture(), ArgumentMatchers.<String, String>anyMap()))
+                .thenReturn(new Response.Builder<EventResponse>(HttpURLConnection.HTTP_BAD_REQUEST).build());
+
+        assertFalse(eventManager.uploadEvents(Collections.<String, String>emptyMap()));
+        assertEquals("[{\"a\":1},{\"b\":2}]", writePayloads(captor.getValue()));
+    }
+
+    private static MatrixCursor payloadCursor(String... payloads) {
+        MatrixCursor cursor = new MatrixCursor(new String[] { "data" });
+        for (String payload : payloads) {
+            cursor.addRow(new Object[] { payload });
+        }
+        return cursor;
+    }
+
+    private static String writePayloads(EventApiClient.PayloadWriter payloadWriter) throws IOException {
+        StringWriter stringWriter = new StringWriter();
+        JsonWriter writer = new JsonWriter(stringWriter);
+        writer.beginArray();
+        payloadWriter.write(writer);
+        writer.endArray();
+        writer.flush();
+        return stringWriter.toString();
+    }
+
 }
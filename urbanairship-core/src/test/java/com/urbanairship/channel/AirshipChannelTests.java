@@ -66,6 +66,7 @@ import java.util.Locale;
 import java.util.Set;
 import java.util.TimeZone;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.net.ssl.HttpsURLConnection;
 
@@ -604,6 +605,45 @@ public class AirshipChannelTests extends BaseTestCase {
         verify(mockClient).createChannelWithPayload(ArgumentMatchers.argThat(argument -> argument.isActive));
     }
 
+    /**
+     * Test the registration payload is only rebuilt after a registration state change.
+     */
+    @Test
+    public void testChannelRegistrationPayloadCached() throws RequestException {
+        final AtomicInteger extendCount = new AtomicInteger();
+        airshipChannel.addChannelRegistrationPayloadExtender(builder -> {
+            extendCount.incrementAndGet();
+            return builder.setDeviceModel("model " + extendCount.get());
+        });
+
+        when(mockClient.createChannelWithPayload(any(ChannelRegistrationPayload.class)))
+                .thenReturn(createResponse("channel", 200));
+        when(mockClient.updateChannelWithPayload(eq("channel"), any(ChannelRegistrationPayload.class)))
+                .thenReturn(AirshipChannelTests.<Void>createResponse(null, 200));
+        when(mockAttributeRegistrar.uploadPendingMutations()).thenReturn(true);
+        when(mockTagGroupRegistrar.uploadPendingMutations()).thenReturn(true);
+        when(mockSubscriptionListRegistrar.uploadPendingMutations()).thenReturn(true);
+
+        airshipChannel.onPerformJob(UAirship.shared(), UPDATE_CHANNEL_JOB);
+        assertEquals(1, extendCount.get());
+
+        // Follow up job without any changes
+        airshipChannel.onPerformJob(UAirship.shared(), UPDATE_CHANNEL_JOB);
+        assertEquals(1, extendCount.get());
+        verify(mockClient, never()).updateChannelWithPayload(eq("channel"), any(ChannelRegistrationPayload.class));
+
+        // Attribute edits do not change the payload
+        airshipChannel.editAttributes().setAttribute("cool", "story").apply();
+        airshipChannel.onPerformJob(UAirship.shared(), UPDATE_CHANNEL_JOB);
+        assertEquals(1, extendCount.get());
+
+        // Extenders notify changes by updating registration
+        airshipChannel.updateRegistration();
+        airshipChannel.onPerformJob(UAirship.shared(), UPDATE_CHANNEL_JOB);
+        assertEquals(2, extendCount.get());
+        verify(mockClient).updateChannelWithPayload(eq("channel"), ArgumentMatchers.argThat(argument -> "model 2".equals(argument.deviceModel)));
+    }
+
     @Test
     public void testForegroundDispatchesUpdate()  {
         airshipChannel.init();
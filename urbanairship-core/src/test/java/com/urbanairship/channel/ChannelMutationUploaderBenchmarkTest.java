@@ -0,0 +1,121 @@
+/* Copyright Airship and Contributors */
+
+package com.urbanairship.channel;
+
+import com.urbanairship.AirshipExecutors;
+import com.urbanairship.BaseTestCase;
+import com.urbanairship.Benchmarks;
+import com.urbanairship.PreferenceDataStore;
+import com.urbanairship.TestAirshipRuntimeConfig;
+import com.urbanairship.TestApplication;
+import com.urbanairship.config.AirshipUrlConfig;
+import com.urbanairship.json.JsonValue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares uploading pending attributes, tags, and subscription lists one after another against
+ * the concurrent {@link ChannelMutationUploader} using a local endpoint with fixed latency.
+ * <p>
+ * Only runs when benchmarks are enabled, see {@link Benchmarks}.
+ */
+public class ChannelMutationUploaderBenchmarkTest extends BaseTestCase {
+
+    private static final long LATENCY_MS = 200;
+    private static final int RUNS = 5;
+
+    private MockWebServer server;
+    private AttributeRegistrar attributeRegistrar;
+    private TagGroupRegistrar tagGroupRegistrar;
+    private SubscriptionListRegistrar subscriptionListRegistrar;
+
+    @Before
+    public void setup() throws IOException {
+        Benchmarks.assumeEnabled();
+
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @NonNull
+            @Override
+            public MockResponse dispatch(@NonNull RecordedRequest recordedRequest) {
+                return new MockResponse().setResponseCode(200)
+                                         .setHeadersDelay(LATENCY_MS, TimeUnit.MILLISECONDS);
+            }
+        });
+        server.start();
+
+        TestAirshipRuntimeConfig runtimeConfig = TestAirshipRuntimeConfig.newTestConfig();
+        runtimeConfig.setUrlConfig(AirshipUrlConfig.newBuilder()
+                                                   .setDeviceUrl(server.url("/").toString())
+                                                   .build());
+
+        PreferenceDataStore dataStore = PreferenceDataStore.inMemoryStore(TestApplication.getApplication());
+        attributeRegistrar = new AttributeRegistrar(AttributeApiClient.channelClient(runtimeConfig),
+                new PendingAttributeMutationStore(dataStore, "attributes"));
+        tagGroupRegistrar = new TagGroupRegistrar(TagGroupApiClient.channelClient(runtimeConfig),
+                new PendingTagGroupMutationStore(dataStore, "tags"));
+        subscriptionListRegistrar = new SubscriptionListRegistrar(SubscriptionListApiClient.channelClient(runtimeConfig),
+                new PendingSubscriptionListMutationStore(dataStore, "subscriptions"));
+
+        attributeRegistrar.setId("channel", false);
+        tagGroupRegistrar.setId("channel", false);
+        subscriptionListRegistrar.setId("channel", false);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (server != null) {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void benchmarkUpload() {
+        long serialTime = run(Runnable::run);
+        long concurrentTime = run(AirshipExecutors.threadPoolExecutor());
+
+        assertEquals(RUNS * 3 * 2, server.getRequestCount());
+        assertTrue(concurrentTime < serialTime);
+
+        System.out.println(String.format(Locale.ROOT, "ChannelMutationUploaderBenchmark: %d syncs with %d ms latency, serial %.1f ms per sync, concurrent %.1f ms per sync",
+                RUNS,
+                LATENCY_MS,
+                serialTime / 1e6 / RUNS,
+                concurrentTime / 1e6 / RUNS));
+    }
+
+    private long run(@NonNull Executor executor) {
+        ChannelMutationUploader uploader = new ChannelMutationUploader(executor, attributeRegistrar, tagGroupRegistrar, subscriptionListRegistrar);
+
+        long total = 0;
+        for (int i = 0; i < RUNS; i++) {
+            attributeRegistrar.addPendingMutations(Collections.singletonList(AttributeMutation.newSetAttributeMutation("key", JsonValue.wrap("value " + i), i)));
+            tagGroupRegistrar.addPendingMutations(Collections.singletonList(TagGroupsMutation.newAddTagsMutation("group", Collections.singleton("tag " + i))));
+            subscriptionListRegistrar.addPendingMutations(Collections.singletonList(SubscriptionListMutation.newSubscribeMutation("list " + i, i)));
+
+            long start = System.nanoTime();
+            assertTrue(uploader.upload());
+            total += System.nanoTime() - start;
+        }
+
+        return total;
+    }
+
+}
@@ -0,0 +1,92 @@
+/* Copyright Airship and Contributors */
+
+package com.urbanairship.channel;
+
+import com.urbanairship.AirshipExecutors;
+import com.urbanairship.BaseTestCase;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ChannelMutationUploaderTest extends BaseTestCase {
+
+    private final AttributeRegistrar mockAttributeRegistrar = mock(AttributeRegistrar.class);
+    private final TagGroupRegistrar mockTagGroupRegistrar = mock(TagGroupRegistrar.class);
+    private final SubscriptionListRegistrar mockSubscriptionListRegistrar = mock(SubscriptionListRegistrar.class);
+    private final Executor executor = Runnable::run;
+
+    private ChannelMutationUploader uploader;
+
+    @Before
+    public void setup() {
+        uploader = new ChannelMutationUploader(executor, mockAttributeRegistrar, mockTagGroupRegistrar, mockSubscriptionListRegistrar);
+    }
+
+    @Test
+    public void testUpload() {
+        when(mockAttributeRegistrar.uploadPendingMutations()).thenReturn(true);
+        when(mockTagGroupRegistrar.uploadPendingMutations()).thenReturn(true);
+        when(mockSubscriptionListRegistrar.uploadPendingMutations()).thenReturn(true);
+
+        assertTrue(uploader.upload());
+
+        verify(mockAttributeRegistrar).uploadPendingMutations();
+        verify(mockTagGroupRegistrar).uploadPendingMutations();
+        verify(mockSubscriptionListRegistrar).uploadPendingMutations();
+    }
+
+    @Test
+    public void testUploadConcurrent() {
+        // Each upload only finishes once all of them have started
+        final CountDownLatch started = new CountDownLatch(3);
+        Answer<Boolean> answer = new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) throws InterruptedException {
+                started.countDown();
+                return started.await(5, TimeUnit.SECONDS);
+            }
+        };
+
+        when(mockAttributeRegistrar.uploadPendingMutations()).thenAnswer(answer);
+        when(mockTagGroupRegistrar.uploadPendingMutations()).thenAnswer(answer);
+        when(mockSubscriptionListRegistrar.uploadPendingMutations()).thenAnswer(answer);
+
+        uploader = new ChannelMutationUploader(AirshipExecutors.threadPoolExecutor(), mockAttributeRegistrar, mockTagGroupRegistrar, mockSubscriptionListRegistrar);
+        assertTrue(uploader.upload());
+    }
+
+    @Test
+    public void testUploadFailed() {
+        when(mockAttributeRegistrar.uploadPendingMutations()).thenReturn(false);
+        when(mockTagGroupRegistrar.uploadPendingMutations()).thenReturn(true);
+        when(mockSubscriptionListRegistrar.uploadPendingMutations()).thenReturn(true);
+
+        assertFalse(uploader.upload());
+
+        // Other uploads still run
+        verify(mockTagGroupRegistrar).uploadPendingMutations();
+        verify(mockSubscriptionListRegistrar).uploadPendingMutations();
+    }
+
+    @Test
+    public void testUploadException() {
+        when(mockAttributeRegistrar.uploadPendingMutations()).thenReturn(true);
+        when(mockTagGroupRegistrar.uploadPendingMutations()).thenThrow(new IllegalStateException());
+        when(mockSubscriptionListRegistrar.uploadPendingMutations()).thenReturn(true);
+
+        assertFalse(uploader.upload());
+    }
+
+}
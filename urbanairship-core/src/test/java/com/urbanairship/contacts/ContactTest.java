@@ -61,7 +61,9 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.clearInvocations;
@@ -1188,6 +1190,62 @@ public class ContactTest extends BaseTestCase {
         verify(mockContactApiClient).registerEmail(eq(fakeContactId), eq("ua@airship.com"), Mockito.any(EmailRegistrationOptions.class));
     }
 
+    @Test
+    public void testDrainOperations() throws RequestException {
+        when(mockChannel.getId()).thenReturn(fakeChannelId);
+        when(mockDispatcher.acquireRateLimits(anyLong(), anyCollection())).thenReturn(true);
+
+        Response<ContactIdentity> resolveResponse = new Response.Builder<ContactIdentity>(200).setResult(new ContactIdentity(fakeContactId, false, null)).build();
+        when(mockContactApiClient.resolve(fakeChannelId)).thenReturn(resolveResponse);
+
+        Response<AssociatedChannel> registerResponse = new Response.Builder<AssociatedChannel>(200).setResult(new AssociatedChannel("email-channel-id", ChannelType.EMAIL)).build();
+        when(mockContactApiClient.registerEmail(eq(fakeContactId), eq("ua@airship.com"), any(EmailRegistrationOptions.class))).thenReturn(registerResponse);
+
+        Response<Void> updateResponse = new Response.Builder<Void>(200).build();
+        when(mockContactApiClient.update(eq(fakeContactId), anyList(), anyList(), anyList())).thenReturn(updateResponse);
+
+        contact.editTagGroups().addTag("some group", "some tag").apply();
+        contact.registerEmail("ua@airship.com", EmailRegistrationOptions.options(null, null, false));
+        contact.editAttributes().setAttribute("some attribute", "some value").apply();
+
+        List<TagGroupsMutation> pendingTags = contact.getPendingTagUpdates();
+        List<AttributeMutation> pendingAttributes = contact.getPendingAttributeUpdates();
+
+        // Single job drains the queue
+        assertEquals(JobResult.SUCCESS, contact.onPerformJob(UAirship.shared(), updateJob));
+
+        verify(mockContactApiClient).resolve(fakeChannelId);
+        // Updates are merged past the email registration
+        verify(mockContactApiClient).update(fakeContactId, pendingTags, pendingAttributes, Collections.emptyList());
+        verify(mockContactApiClient).registerEmail(eq(fakeContactId), eq("ua@airship.com"), any(EmailRegistrationOptions.class));
+        verifyNoMoreInteractions(mockContactApiClient);
+
+        ContactOperationMetrics metrics = contact.getOperationMetrics();
+        assertEquals(1, metrics.getJobCount());
+        assertEquals(3, metrics.getPerformedCount());
+        assertEquals(1, metrics.getMergedCount());
+    }
+
+    @Test
+    public void testDrainOperationsRateLimited() throws RequestException {
+        when(mockChannel.getId()).thenReturn(fakeChannelId);
+        when(mockDispatcher.acquireRateLimits(anyLong(), anyCollection())).thenReturn(false);
+
+        Response<ContactIdentity> resolveResponse = new Response.Builder<ContactIdentity>(200).setResult(new ContactIdentity(fakeContactId, false, null)).build();
+        when(mockContactApiClient.resolve(fakeChannelId)).thenReturn(resolveResponse);
+
+        contact.registerEmail("ua@airship.com", EmailRegistrationOptions.options(null, null, false));
+        clearInvocations(mockDispatcher);
+
+        assertEquals(JobResult.SUCCESS, contact.onPerformJob(UAirship.shared(), updateJob));
+        verify(mockContactApiClient).resolve(fakeChannelId);
+        verifyNoMoreInteractions(mockContactApiClient);
+
+        // Remaining operations are handed back to the dispatcher
+        verify(mockDispatcher).dispatch(Mockito.argThat(jobInfo -> jobInfo.getConflictStrategy() == JobInfo.REPLACE));
+        assertEquals(1, contact.getOperationMetrics().getPerformedCount());
+    }
+
     @Test
     public void testRegisterSms() throws RequestException {
         when(mockChannel.getId()).thenReturn(fakeChannelId);
@@ -0,0 +1,201 @@
+/* Copyright Airship and Contributors */
+
+package com.urbanairship.http;
+
+import com.urbanairship.BaseTestCase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+import static junit.framework.TestCase.fail;
+
+public class OkHttpTransportTest extends BaseTestCase {
+
+    private MockWebServer server;
+    private OkHttpTransport transport;
+
+    @Before
+    public void setup() throws IOException {
+        server = new MockWebServer();
+        server.start();
+
+        transport = OkHttpTransport.newBuilder()
+                                   .setHttp2Enabled(false)
+                                   .build();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void testIsAvailable() {
+        assertTrue(OkHttpTransport.isAvailable());
+    }
+
+    @Test
+    public void testExecute() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(202)
+                                         .setHeader("Content-Type", "application/json")
+                                         .setBody("{\"ok\":true}"));
+
+        Map<String, String> headers = new HashMap<>();
+        headers.put("X-Test", "value");
+
+        TransportRequest request = new TransportRequest(server.url("/api").url(), "POST", headers, body("{\"cool\":\"story\"}"), true);
+        try (TransportResponse response = transport.execute(request)) {
+            assertEquals(202, response.getStatus());
+            assertEquals("{\"ok\":true}", read(response.getBody()));
+
+            // Header lookups are case insensitive
+            assertEquals(Collections.singletonList("application/json"), response.getHeaders().get("content-type"));
+            assertEquals(Collections.singletonList("application/json"), response.getHeaders().get("Content-Type"));
+        }
+
+        RecordedRequest recorded = server.takeRequest();
+        assertEquals("POST", recorded.getMethod());
+        assertEquals("/api", recorded.getPath());
+        assertEquals("value", recorded.getHeader("X-Test"));
+        assertEquals("text/plain", recorded.getHeader("Content-Type"));
+        assertEquals("{\"cool\":\"story\"}", recorded.getBody().readUtf8());
+    }
+
+    @Test
+    public void testConnectionReuse() throws Exception {
+        server.enqueue(new MockResponse().setBody("one"));
+        server.enqueue(new MockResponse().setBody("two"));
+        server.enqueue(new MockResponse().setBody("three"));
+
+        for (int i = 0; i < 3; i++) {
+            TransportRequest request = new TransportRequest(server.url("/").url(), "GET", Collections.<String, String>emptyMap(), null, true);
+            try (TransportResponse response = transport.execute(request)) {
+                read(response.getBody());
+            }
+        }
+
+        // Sequence number is per connection, so all requests shared the same socket
+        assertEquals(0, server.takeRequest().getSequenceNumber());
+        assertEquals(1, server.takeRequest().getSequenceNumber());
+        assertEquals(2, server.takeRequest().getSequenceNumber());
+    }
+
+    @Test
+    public void testRedirectNotFollowed() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(307)
+                                         .setHeader("Location", server.url("/other").toString()));
+
+        TransportRequest request = new TransportRequest(server.url("/").url(), "GET", Collections.<String, String>emptyMap(), null, false);
+        try (TransportResponse response = transport.execute(request)) {
+            assertEquals(307, response.getStatus());
+            assertEquals(Collections.singletonList(server.url("/other").toString()), response.getHeaders().get("Location"));
+        }
+
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void testEmptyPostBody() throws Exception {
+        server.enqueue(new MockResponse());
+
+        TransportRequest request = new TransportRequest(server.url("/").url(), "POST", Collections.<String, String>emptyMap(), null, true);
+        try (TransportResponse response = transport.execute(request)) {
+            assertEquals(200, response.getStatus());
+        }
+
+        assertEquals(0, server.takeRequest().getBodySize());
+    }
+
+    @Test
+    public void testPermitReleasedOnError() throws Exception {
+        OkHttpTransport singlePermitTransport = OkHttpTransport.newBuilder()
+                                                              .setHttp2Enabled(false)
+                                                              .setMaxRequestsPerHost(1)
+                                                              .build();
+
+        RequestBody failingBody = new RequestBody() {
+            @Nullable
+            @Override
+            public String getContentType() {
+                return "text/plain";
+            }
+
+            @Override
+            public long getContentLength() {
+                return -1;
+            }
+
+            @Override
+            public void writeTo(@NonNull OutputStream outputStream) {
+                throw new LinkageError("failed");
+            }
+        };
+
+        TransportRequest failingRequest = new TransportRequest(server.url("/").url(), "POST", Collections.<String, String>emptyMap(), failingBody, true);
+        try {
+            singlePermitTransport.execute(failingRequest);
+            fail();
+        } catch (LinkageError expected) {
+        }
+
+        // Would block forever if the permit leaked
+        server.enqueue(new MockResponse());
+        TransportRequest request = new TransportRequest(server.url("/").url(), "GET", Collections.<String, String>emptyMap(), null, true);
+        try (TransportResponse response = singlePermitTransport.execute(request)) {
+            assertEquals(200, response.getStatus());
+        }
+    }
+
+    @NonNull
+    private static RequestBody body(@NonNull final String body) {
+        return new RequestBody() {
+            @Nullable
+            @Override
+            public String getContentType() {
+                return "text/plain";
+            }
+
+            @Override
+            public long getContentLength() {
+                return -1;
+            }
+
+            @Override
+            public void writeTo(@NonNull OutputStream outputStream) throws IOException {
+                outputStream.write(body.getBytes(Charset.forName("UTF-8")));
+            }
+        };
+    }
+
+    @NonNull
+    private static String read(@Nullable InputStream inputStream) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        if (inputStream != null) {
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+        }
+        return new String(outputStream.toByteArray(), Charset.forName("UTF-8"));
+    }
+
+}
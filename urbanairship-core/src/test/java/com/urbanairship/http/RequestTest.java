@@ -0,0 +1,149 @@
+/* Copyright Airship and Contributors */
+
+package com.urbanairship.http;
+
+import android.net.Uri;
+
+import com.urbanairship.BaseTestCase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.zip.GZIPOutputStream;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import okio.GzipSource;
+import okio.Okio;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+
+public class RequestTest extends BaseTestCase {
+
+    private MockWebServer server;
+    private HttpTransport transport;
+
+    @Before
+    public void setup() throws IOException {
+        server = new MockWebServer();
+        server.start();
+
+        transport = OkHttpTransport.newBuilder()
+                                   .setHttp2Enabled(false)
+                                   .build();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void testStringBody() throws Exception {
+        server.enqueue(new MockResponse().setBody("response"));
+
+        Response<Void> response = new Request(transport)
+                .setOperation("POST", Uri.parse(server.url("/").toString()))
+                .setRequestBody("{\"cool\":\"story\"}", "application/json")
+                .execute();
+
+        assertEquals(200, response.getStatus());
+        assertEquals("response", response.getResponseBody());
+        assertEquals(16, response.getRequestBodySize());
+        assertEquals(16, response.getRequestBodyWireSize());
+
+        RecordedRequest recorded = server.takeRequest();
+        assertEquals("{\"cool\":\"story\"}", recorded.getBody().readUtf8());
+        assertEquals("application/json", recorded.getHeader("Content-Type"));
+    }
+
+    @Test
+    public void testCompressedStreamingBody() throws Exception {
+        server.enqueue(new MockResponse());
+
+        final StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            expected.append("{\"event\":").append(i).append("}");
+        }
+
+        Response<Void> response = new Request(transport)
+                .setOperation("POST", Uri.parse(server.url("/").toString()))
+                .setRequestBody(new RequestBody() {
+                    @Nullable
+                    @Override
+                    public String getContentType() {
+                        return "application/json";
+                    }
+
+                    @Override
+                    public long getContentLength() {
+                        return -1;
+                    }
+
+                    @Override
+                    public void writeTo(@NonNull OutputStream outputStream) throws IOException {
+                        outputStream.write(expected.toString().getBytes(Charset.forName("UTF-8")));
+                    }
+                })
+                .setCompressRequestBody(true)
+                .execute();
+
+        RecordedRequest recorded = server.takeRequest();
+        assertEquals("gzip", recorded.getHeader("Content-Encoding"));
+        assertEquals("application/json", recorded.getHeader("Content-Type"));
+        assertEquals(recorded.getBodySize(), response.getRequestBodyWireSize());
+        assertEquals(expected.length(), response.getRequestBodySize());
+        assertTrue(response.getRequestBodyWireSize() < response.getRequestBodySize());
+
+        Buffer decoded = new Buffer();
+        decoded.writeAll(Okio.buffer(new GzipSource(recorded.getBody())));
+        assertEquals(expected.toString(), decoded.readUtf8());
+    }
+
+    @Test
+    public void testGzipResponse() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GZIPOutputStream gzip = new GZIPOutputStream(bytes);
+        gzip.write("compressed response".getBytes(Charset.forName("UTF-8")));
+        gzip.close();
+
+        server.enqueue(new MockResponse().setHeader("Content-Encoding", "gzip")
+                                         .setBody(new Buffer().write(bytes.toByteArray())));
+
+        Response<Void> response = new Request(transport)
+                .setOperation("GET", Uri.parse(server.url("/").toString()))
+                .execute();
+
+        assertEquals("compressed response", response.getResponseBody());
+        assertEquals(0, response.getRequestBodySize());
+    }
+
+    @Test
+    public void testEmptyGzipResponse() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(304)
+                                         .setHeader("Content-Encoding", "gzip"));
+        server.enqueue(new MockResponse().setResponseCode(200)
+                                         .setHeader("Content-Encoding", "gzip"));
+
+        Response<Void> notModified = new Request(transport)
+                .setOperation("GET", Uri.parse(server.url("/").toString()))
+                .execute();
+        assertEquals(304, notModified.getStatus());
+
+        Response<Void> empty = new Request(transport)
+                .setOperation("GET", Uri.parse(server.url("/").toString()))
+                .execute();
+        assertEquals(200, empty.getStatus());
+    }
+
+}
@@ -0,0 +1,98 @@
+/* Copyright Airship and Contributors */
+
+package com.urbanairship.http;
+
+import com.urbanairship.BaseTestCase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Collections;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertNull;
+
+public class UrlConnectionTransportTest extends BaseTestCase {
+
+    private MockWebServer server;
+    private UrlConnectionTransport transport;
+
+    @Before
+    public void setup() throws IOException {
+        server = new MockWebServer();
+        server.start();
+
+        transport = new UrlConnectionTransport();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void testKnownLengthBody() throws Exception {
+        server.enqueue(new MockResponse());
+
+        String body = "{\"cool\":\"story\"}";
+        TransportRequest request = new TransportRequest(server.url("/").url(), "POST", Collections.<String, String>emptyMap(), body(body, true), true);
+        try (TransportResponse response = transport.execute(request)) {
+            assertEquals(200, response.getStatus());
+        }
+
+        RecordedRequest recorded = server.takeRequest();
+        assertEquals(String.valueOf(body.length()), recorded.getHeader("Content-Length"));
+        assertNull(recorded.getHeader("Transfer-Encoding"));
+        assertEquals(body, recorded.getBody().readUtf8());
+    }
+
+    @Test
+    public void testUnknownLengthBodyIsChunked() throws Exception {
+        server.enqueue(new MockResponse());
+
+        String body = "{\"cool\":\"story\"}";
+        TransportRequest request = new TransportRequest(server.url("/").url(), "POST", Collections.<String, String>emptyMap(), body(body, false), true);
+        try (TransportResponse response = transport.execute(request)) {
+            assertEquals(200, response.getStatus());
+        }
+
+        RecordedRequest recorded = server.takeRequest();
+        assertEquals("chunked", recorded.getHeader("Transfer-Encoding"));
+        assertFalse(recorded.getChunkSizes().isEmpty());
+        assertEquals(body, recorded.getBody().readUtf8());
+    }
+
+    @NonNull
+    private static RequestBody body(@NonNull final String body, final boolean knownLength) {
+        final byte[] bytes = body.getBytes(Charset.forName("UTF-8"));
+        return new RequestBody() {
+            @Nullable
+            @Override
+            public String getContentType() {
+                return "text/plain";
+            }
+
+            @Override
+            public long getContentLength() {
+                return knownLength ? bytes.length : -1;
+            }
+
+            @Override
+            public void writeTo(@NonNull OutputStream outputStream) throws IOException {
+                outputStream.write(bytes);
+            }
+        };
+    }
+
+}
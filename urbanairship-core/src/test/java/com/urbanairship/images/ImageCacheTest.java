@@ -0,0 +1,219 @@
+/* Copyright Airship and Contributors */
+
+package com.urbanairship.images;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+
+import com.urbanairship.BaseTestCase;
+import com.urbanairship.TestApplication;
+import com.urbanairship.TestClock;
+import com.urbanairship.util.FileUtils;
+import com.urbanairship.util.ImageUtils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ImageCacheTest extends BaseTestCase {
+
+    private Context context;
+    private File directory;
+    private TestClock clock;
+    private ImageCache imageCache;
+
+    @Before
+    public void setup() {
+        context = TestApplication.getApplication();
+        directory = new File(context.getCacheDir(), "image_cache_test");
+        FileUtils.deleteRecursively(directory);
+        clock = new TestClock();
+        imageCache = createCache();
+    }
+
+    @Test
+    public void testMemoryHit() throws IOException {
+        CountingLoader loader = new CountingLoader();
+        assertNull(imageCache.getDrawable("key"));
+
+        Drawable drawable = imageCache.load("key", loader);
+        assertNotNull(drawable);
+        assertSame(drawable, imageCache.getDrawable("key"));
+        assertSame(drawable, imageCache.load("key", loader));
+
+        assertEquals(1, loader.count.get());
+        assertEquals(1, imageCache.getStats().getMemoryHits());
+        assertEquals(1, imageCache.getStats().getMisses());
+    }
+
+    @Test
+    public void testDiskHit() throws IOException {
+        CountingLoader loader = new CountingLoader();
+        imageCache.load("key", loader);
+
+        // New cache with an empty memory tier
+        ImageCache restored = createCache();
+        assertNull(restored.getDrawable("key"));
+        assertNotNull(restored.load("key", loader));
+
+        assertEquals(1, loader.count.get());
+        assertEquals(1, restored.getStats().getDiskHits());
+        assertEquals(0, restored.getStats().getMisses());
+    }
+
+    @Test
+    public void testDiskExpired() throws IOException {
+        CountingLoader loader = new CountingLoader();
+        imageCache.load("key", loader);
+
+        // Expired bitmaps are loaded again so they can be revalidated
+        clock.currentTimeMillis += ImageCache.REVALIDATE_AFTER_MS;
+        ImageCache restored = createCache();
+        assertNotNull(restored.load("key", loader));
+
+        assertEquals(2, loader.count.get());
+        assertEquals(0, restored.getStats().getDiskHits());
+        assertEquals(1, restored.getStats().getMisses());
+    }
+
+    @Test
+    public void testDiskExpiredLoadFailed() throws IOException {
+        imageCache.load("key", new CountingLoader());
+
+        clock.currentTimeMillis += ImageCache.REVALIDATE_AFTER_MS;
+        ImageCache restored = createCache();
+        Drawable drawable = restored.load("key", new ImageCache.Loader() {
+            @Nullable
+            @Override
+            public ImageUtils.DrawableResult load() throws IOException {
+                throw new IOException("offline");
+            }
+        });
+
+        // Falls back to the expired bitmap
+        assertNotNull(drawable);
+    }
+
+    @Test
+    public void testLoadCoalesced() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger count = new AtomicInteger();
+
+        final ImageCache.Loader loader = new ImageCache.Loader() {
+            @Nullable
+            @Override
+            public ImageUtils.DrawableResult load() {
+                count.incrementAndGet();
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            }
+        };
+
+        Thread first = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    imageCache.load("key", loader);
+                } catch (IOException ignored) {
+                }
+            }
+        });
+        first.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        Thread second = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    imageCache.load("key", loader);
+                } catch (IOException ignored) {
+                }
+            }
+        });
+        second.start();
+
+        // Wait for the second load to join the first
+        long deadline = System.currentTimeMillis() + 5000;
+        while (imageCache.getStats().getCoalesced() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        release.countDown();
+        first.join(5000);
+        second.join(5000);
+
+        assertEquals(1, count.get());
+        assertEquals(1, imageCache.getStats().getCoalesced());
+    }
+
+    @Test
+    public void testListener() throws IOException {
+        final AtomicInteger hits = new AtomicInteger();
+        final AtomicInteger misses = new AtomicInteger();
+        imageCache.setListener(new DefaultImageLoader.CacheListener() {
+            @Override
+            public void onHit(@NonNull String key, boolean fromDisk) {
+                hits.incrementAndGet();
+            }
+
+            @Override
+            public void onMiss(@NonNull String key) {
+                misses.incrementAndGet();
+            }
+        });
+
+        imageCache.load("key", new CountingLoader());
+        imageCache.getDrawable("key");
+
+        assertEquals(1, hits.get());
+        assertEquals(1, misses.get());
+    }
+
+    @NonNull
+    private ImageCache createCache() {
+        return new ImageCache(context, directory, 1024 * 1024, new Executor() {
+            @Override
+            public void execute(@NonNull Runnable runnable) {
+                runnable.run();
+            }
+        }, clock);
+    }
+
+    private class CountingLoader implements ImageCache.Loader {
+
+        final AtomicInteger count = new AtomicInteger();
+
+        @Nullable
+        @Override
+        public ImageUtils.DrawableResult load() {
+            count.incrementAndGet();
+            Bitmap bitmap = Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+            return new ImageUtils.DrawableResult(new BitmapDrawable(context.getResources(), bitmap), bitmap.getByteCount());
+        }
+
+    }
+
+}
@@ -8,13 +8,17 @@ import com.urbanairship.push.PushManager;
 
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.concurrent.TimeUnit;
 
 import androidx.annotation.NonNull;
 import androidx.core.util.Consumer;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -136,6 +140,24 @@ public class JobDispatcherTest extends BaseTestCase {
         verify(mockScheduler).schedule(context, jobInfo, 100);
     }
 
+    @Test
+    public void testAcquireRateLimits() {
+        when(mockRateLimiter.status("rateOne")).thenReturn(new RateLimiter.Status(RateLimiter.LimitStatus.UNDER, 0));
+        when(mockRateLimiter.status("rateTwo")).thenReturn(new RateLimiter.Status(RateLimiter.LimitStatus.UNDER, 0));
+
+        assertTrue(dispatcher.acquireRateLimits(0, Arrays.asList("rateOne", "rateTwo")));
+        verify(mockRateLimiter).track("rateOne");
+        verify(mockRateLimiter).track("rateTwo");
+    }
+
+    @Test
+    public void testAcquireRateLimitsOverMaxWait() {
+        when(mockRateLimiter.status("rateOne")).thenReturn(new RateLimiter.Status(RateLimiter.LimitStatus.OVER, 1000));
+
+        assertFalse(dispatcher.acquireRateLimits(100, Collections.singleton("rateOne")));
+        verify(mockRateLimiter, never()).track("rateOne");
+    }
+
     private static class TestJobRunner implements JobRunner {
 
         public JobResult result = JobResult.SUCCESS;
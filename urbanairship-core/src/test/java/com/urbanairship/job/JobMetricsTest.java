@@ -0,0 +1,52 @@
+/* Copyright Airship and Contributors */
+
+package com.urbanairship.job;
+
+import com.urbanairship.BaseTestCase;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JobMetricsTest extends BaseTestCase {
+
+    private final JobMetrics metrics = new JobMetrics();
+
+    @Test
+    public void testRecord() {
+        assertTrue(metrics.getMetrics().isEmpty());
+
+        metrics.record("foo", 10, 100);
+        metrics.record("foo", 30, 50);
+        metrics.record("bar", 1, 2);
+
+        Map<String, JobMetrics.ActionMetrics> snapshot = metrics.getMetrics();
+        assertEquals(2, snapshot.size());
+
+        JobMetrics.ActionMetrics foo = snapshot.get("foo");
+        assertEquals(2, foo.getCount());
+        assertEquals(40, foo.getTotalWaitTimeMs());
+        assertEquals(30, foo.getMaxWaitTimeMs());
+        assertEquals(150, foo.getTotalRunTimeMs());
+        assertEquals(100, foo.getMaxRunTimeMs());
+
+        JobMetrics.ActionMetrics bar = snapshot.get("bar");
+        assertEquals(1, bar.getCount());
+        assertEquals(1, bar.getTotalWaitTimeMs());
+        assertEquals(2, bar.getTotalRunTimeMs());
+    }
+
+    @Test
+    public void testSnapshot() {
+        metrics.record("foo", 10, 100);
+        Map<String, JobMetrics.ActionMetrics> snapshot = metrics.getMetrics();
+
+        metrics.record("foo", 10, 100);
+        assertEquals(1, snapshot.get("foo").getCount());
+        assertEquals(2, metrics.getMetrics().get("foo").getCount());
+    }
+
+}
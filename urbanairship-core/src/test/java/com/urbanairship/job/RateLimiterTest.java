@@ -2,11 +2,16 @@
 
 package com.urbanairship.job;
 
+import android.content.Context;
+import android.content.SharedPreferences;
+
 import com.urbanairship.BaseTestCase;
+import com.urbanairship.TestApplication;
 import com.urbanairship.TestClock;
 
 import org.junit.Test;
 
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
@@ -108,4 +113,54 @@ public class RateLimiterTest extends BaseTestCase {
         assertEquals(RateLimiter.LimitStatus.OVER, rateLimiter.status("foo").getLimitStatus());
         assertEquals(1, rateLimiter.status("bar").getNextAvailable(TimeUnit.MILLISECONDS));
     }
+
+    @Test
+    public void testGetStatuses() {
+        rateLimiter.setLimit("foo", 1, 10, TimeUnit.MILLISECONDS);
+        rateLimiter.setLimit("bar", 2, 10, TimeUnit.MILLISECONDS);
+
+        rateLimiter.track("foo");
+        rateLimiter.track("bar");
+
+        Map<String, RateLimiter.Status> statuses = rateLimiter.getStatuses();
+        assertEquals(2, statuses.size());
+        assertEquals(RateLimiter.LimitStatus.OVER, statuses.get("foo").getLimitStatus());
+        assertEquals(10, statuses.get("foo").getNextAvailable(TimeUnit.MILLISECONDS));
+        assertEquals(RateLimiter.LimitStatus.UNDER, statuses.get("bar").getLimitStatus());
+    }
+
+    @Test
+    public void testPersistedHits() {
+        SharedPreferences preferences = TestApplication.getApplication().getSharedPreferences("rate-limiter-test", Context.MODE_PRIVATE);
+
+        RateLimiter persisted = new RateLimiter(clock, preferences);
+        persisted.setLimit("foo", 2, 100, TimeUnit.MILLISECONDS);
+        persisted.track("foo");
+        clock.currentTimeMillis += 10;
+        persisted.track("foo");
+        assertEquals(RateLimiter.LimitStatus.OVER, persisted.status("foo").getLimitStatus());
+
+        // Simulates a restart
+        RateLimiter restored = new RateLimiter(clock, preferences);
+        assertNull(restored.status("foo"));
+
+        restored.setLimit("foo", 2, 100, TimeUnit.MILLISECONDS);
+        assertEquals(RateLimiter.LimitStatus.OVER, restored.status("foo").getLimitStatus());
+        assertEquals(90, restored.status("foo").getNextAvailable(TimeUnit.MILLISECONDS));
+
+        clock.currentTimeMillis += 90;
+        assertEquals(RateLimiter.LimitStatus.UNDER, restored.status("foo").getLimitStatus());
+    }
+
+    @Test
+    public void testSetLimitKeepsHits() {
+        rateLimiter.setLimit("foo", 3, 10, TimeUnit.MILLISECONDS);
+        rateLimiter.track("foo");
+        rateLimiter.track("foo");
+        assertEquals(RateLimiter.LimitStatus.UNDER, rateLimiter.status("foo").getLimitStatus());
+
+        rateLimiter.setLimit("foo", 2, 10, TimeUnit.MILLISECONDS);
+        assertEquals(RateLimiter.LimitStatus.OVER, rateLimiter.status("foo").getLimitStatus());
+    }
+
 }
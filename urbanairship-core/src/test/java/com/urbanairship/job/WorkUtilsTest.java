@@ -37,4 +37,18 @@ public class WorkUtilsTest extends BaseTestCase {
         JobInfo converted = WorkUtils.convertToJobInfo(data);
         assertEquals(original, converted);
     }
+
+    @Test
+    public void testConvertConstraints() throws JsonException {
+        JobInfo original = JobInfo.newBuilder()
+                                  .setAction("some action")
+                                  .setAirshipComponent(PushManager.class)
+                                  .setUnmeteredNetworkRequired(true)
+                                  .setChargingRequired(true)
+                                  .build();
+
+        Data data = WorkUtils.convertToData(original);
+        JobInfo converted = WorkUtils.convertToJobInfo(data);
+        assertEquals(original, converted);
+    }
 }
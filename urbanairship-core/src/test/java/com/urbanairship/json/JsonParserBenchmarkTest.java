@@ -0,0 +1,143 @@
+/* Copyright Airship and Contributors */
+
+package com.urbanairship.json;
+
+import com.urbanairship.BaseTestCase;
+import com.urbanairship.Benchmarks;
+
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Locale;
+import java.util.Scanner;
+
+import static junit.framework.Assert.assertEquals;
+
+/**
+ * Compares the streaming {@link JsonParser} and {@link JsonWriter} against the previous
+ * {@code org.json} based path.
+ * <p>
+ * A remote-data payload can be supplied with {@code -Dairship.benchmark.payload=<path>}. Without
+ * it, a synthetic multi-MB payload shaped like the in-app automation remote-data response is
+ * generated. Only runs when benchmarks are enabled, see {@link Benchmarks}.
+ */
+public class JsonParserBenchmarkTest extends BaseTestCase {
+
+    private static final String PAYLOAD_PROPERTY = "airship.benchmark.payload";
+    private static final int WARM_UP = 2;
+    private static final int ITERATIONS = 5;
+
+    private String payload;
+
+    @Before
+    public void setup() throws Exception {
+        Benchmarks.assumeEnabled();
+
+        String path = System.getProperty(PAYLOAD_PROPERTY);
+        if (path != null) {
+            try (InputStream inputStream = new FileInputStream(new File(path));
+                 Scanner scanner = new Scanner(inputStream, "UTF-8")) {
+                payload = scanner.useDelimiter("\\A").next();
+            }
+        } else {
+            payload = generatePayload(5000);
+        }
+    }
+
+    @Test
+    public void benchmarkParse() throws Exception {
+        JsonValue expected = JsonValue.wrap(new JSONTokener(payload).nextValue());
+        assertEquals(expected, new JsonParser(new StringReader(payload)).parse());
+
+        for (int i = 0; i < WARM_UP; i++) {
+            JsonValue.wrap(new JSONTokener(payload).nextValue());
+            new JsonParser(new StringReader(payload)).parse();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            JsonValue.wrap(new JSONTokener(payload).nextValue());
+        }
+        long tokenerTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            new JsonParser(new StringReader(payload)).parse();
+        }
+        long parserTime = System.nanoTime() - start;
+
+        report("parse", tokenerTime, parserTime);
+    }
+
+    @Test
+    public void benchmarkWrite() throws Exception {
+        JSONObject jsonObject = new JSONObject(payload);
+        JsonValue value = JsonValue.parseString(payload);
+
+        for (int i = 0; i < WARM_UP; i++) {
+            jsonObject.toString();
+            write(value);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            jsonObject.toString();
+        }
+        long stringerTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            write(value);
+        }
+        long writerTime = System.nanoTime() - start;
+
+        assertEquals(value, JsonValue.parseString(write(value)));
+        report("write", stringerTime, writerTime);
+    }
+
+    private void report(String name, long orgJsonTime, long streamingTime) {
+        System.out.println(String.format(Locale.ROOT, "JsonParserBenchmark %s: %d chars, org.json %.2f ms/op, streaming %.2f ms/op",
+                name,
+                payload.length(),
+                orgJsonTime / 1e6 / ITERATIONS,
+                streamingTime / 1e6 / ITERATIONS));
+    }
+
+    private static String write(JsonValue value) throws Exception {
+        StringWriter stringWriter = new StringWriter();
+        new JsonWriter(stringWriter).value(value);
+        return stringWriter.toString();
+    }
+
+    private static String generatePayload(int messageCount) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("{\"ok\":true,\"payloads\":[{\"type\":\"in_app_messages\",\"timestamp\":\"2022-10-17T00:00:00\",\"data\":{\"in_app_messages\":[");
+        for (int i = 0; i < messageCount; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append("{\"created\":\"2022-10-17T00:00:00\",\"last_updated\":\"2022-10-17T00:00:00\",")
+                   .append("\"message\":{\"message_id\":\"").append(i).append("-6f5c-4b3a-9d2e\",")
+                   .append("\"display_type\":\"modal\",\"display\":{\"body\":{\"text\":\"Body text for message ")
+                   .append(i).append(" \\u2603\",\"color\":\"#000000\",\"size\":14},")
+                   .append("\"media\":{\"url\":\"https:\\/\\/dl.urbanairship.com\\/binary\\/").append(i).append(".png\",\"type\":\"image\"},")
+                   .append("\"buttons\":[{\"id\":\"dismiss\",\"label\":{\"text\":\"Dismiss\"},\"behavior\":\"dismiss\"}],")
+                   .append("\"border_radius\":5.5}},")
+                   .append("\"triggers\":[{\"type\":\"custom_event_count\",\"goal\":1.0,\"predicate\":{\"and\":[")
+                   .append("{\"key\":\"event_name\",\"value\":{\"equals\":\"event-").append(i).append("\"}},")
+                   .append("{\"key\":\"event_value\",\"value\":{\"at_least\":").append(i).append("}}]}}],")
+                   .append("\"limit\":1,\"priority\":").append(i % 10).append(",\"edit_grace_period\":14,")
+                   .append("\"audience\":{\"new_user\":false,\"tags\":{\"or\":[{\"tag\":\"a\"},{\"tag\":\"b\"}]}}}");
+        }
+        builder.append("]}}]}");
+        return builder.toString();
+    }
+
+}
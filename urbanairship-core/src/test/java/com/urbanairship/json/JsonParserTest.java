@@ -0,0 +1,135 @@
+/* Copyright Airship and Contributors */
+
+package com.urbanairship.json;
+
+import com.urbanairship.BaseTestCase;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+public class JsonParserTest extends BaseTestCase {
+
+    @Test
+    public void testParsePrimitives() throws JsonException {
+        assertEquals(JsonValue.wrap("hello"), parse("\"hello\""));
+        assertEquals(JsonValue.wrap(1), parse("1"));
+        assertEquals(JsonValue.wrap(-1), parse("-1"));
+        assertEquals(JsonValue.wrap(Long.MAX_VALUE), parse(String.valueOf(Long.MAX_VALUE)));
+        assertEquals(JsonValue.wrap(1.4), parse("1.4"));
+        assertEquals(JsonValue.wrap(100.0), parse("1e2"));
+        assertEquals(JsonValue.wrap(true), parse("true"));
+        assertEquals(JsonValue.wrap(false), parse("false"));
+        assertEquals(JsonValue.NULL, parse("null"));
+
+        assertTrue(parse("1").isInteger());
+        assertTrue(parse(String.valueOf(Long.MAX_VALUE)).isLong());
+        assertTrue(parse("1.0").isDouble());
+    }
+
+    @Test
+    public void testParseEscapes() throws JsonException {
+        assertEquals("a\"b\\c/d\n\t\r\b\fA\u00e9", parse("\"a\\\"b\\\\c\\/d\\n\\t\\r\\b\\f\\u0041\\u00E9\"").getString());
+        assertEquals("it's", parse("'it\\'s'").getString());
+    }
+
+    @Test
+    public void testParseDropsNulls() throws JsonException {
+        JsonValue value = parse("{\"a\": null, \"b\": [1, null, 2], \"c\": {\"d\": null}}");
+
+        JsonMap expected = JsonMap.newBuilder()
+                                  .put("b", JsonValue.wrapOpt(new int[] { 1, 2 }))
+                                  .put("c", JsonMap.EMPTY_MAP)
+                                  .build();
+
+        assertEquals(expected, value.getMap());
+    }
+
+    @Test
+    public void testParseLenient() throws JsonException {
+        JsonValue value = parse("/* comment */ {'a': b, c = 1; // comment\n d: [1,,2,] # comment\n}");
+
+        JsonMap expected = JsonMap.newBuilder()
+                                  .put("a", "b")
+                                  .put("c", 1)
+                                  .put("d", JsonValue.wrapOpt(new int[] { 1, 2 }))
+                                  .build();
+
+        assertEquals(expected, value.getMap());
+    }
+
+    @Test
+    public void testMatchesJSONTokener() throws Exception {
+        String json = "{\"string\":\"value\",\"int\":1,\"long\":9223372036854775807,\"double\":1.5," +
+                "\"boolean\":true,\"list\":[\"a\",1,false,{\"nested\":[]}],\"map\":{\"key\":\"value\"}," +
+                "\"unicode\":\"\\u2603\",\"url\":\"https:\\/\\/example.com\"}";
+
+        JsonValue expected = JsonValue.wrap(new JSONTokener(json).nextValue());
+        assertEquals(expected, parse(json));
+
+        JSONArray array = new JSONArray("[1, \"two\", 3.5, [4], {\"five\": 5}]");
+        assertEquals(JsonValue.wrap(array), parse(array.toString()));
+
+        JSONObject object = new JSONObject(json);
+        assertEquals(JsonValue.wrap(object), parse(object.toString()));
+    }
+
+    @Test
+    public void testParseLargeString() throws JsonException {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            builder.append(i % 10);
+            if (i % 1000 == 0) {
+                builder.append("\\n");
+            }
+        }
+
+        String expected = builder.toString().replace("\\n", "\n");
+        assertEquals(expected, parse("\"" + builder + "\"").getString());
+    }
+
+    @Test
+    public void testParseInputStream() throws JsonException {
+        String json = "{\"emoji\":\"\uD83D\uDE00\",\"list\":[1,2,3]}";
+        JsonParser parser = new JsonParser(new ByteArrayInputStream(json.getBytes(Charset.forName("UTF-8"))));
+        assertEquals(parse(json), parser.parse());
+    }
+
+    @Test(expected = JsonException.class)
+    public void testUnterminatedObject() throws JsonException {
+        parse("{\"a\": 1");
+    }
+
+    @Test(expected = JsonException.class)
+    public void testUnterminatedArray() throws JsonException {
+        parse("[1, 2");
+    }
+
+    @Test(expected = JsonException.class)
+    public void testUnterminatedString() throws JsonException {
+        parse("\"abc");
+    }
+
+    @Test(expected = JsonException.class)
+    public void testNonStringName() throws JsonException {
+        parse("{1: 2}");
+    }
+
+    @Test(expected = JsonException.class)
+    public void testEmptyInput() throws JsonException {
+        parse("   ");
+    }
+
+    private static JsonValue parse(String json) throws JsonException {
+        return new JsonParser(new StringReader(json)).parse();
+    }
+
+}
@@ -0,0 +1,181 @@
+/* Copyright Airship and Contributors */
+
+package com.urbanairship.json;
+
+import com.urbanairship.BaseTestCase;
+import com.urbanairship.Benchmarks;
+import com.urbanairship.Predicate;
+import com.urbanairship.analytics.CustomEvent;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import static junit.framework.Assert.assertEquals;
+
+/**
+ * Microbenchmarks for {@link JsonPredicate} evaluation, comparing the compiled evaluator against
+ * walking the predicate tree and applying every {@link JsonMatcher} to the original value.
+ * <p>
+ * Each benchmark runs {@link #WARM_UP} warm up iterations followed by {@link #ITERATIONS} measured
+ * iterations of {@link #OPERATIONS} evaluations and reports the average time per evaluation.
+ * <p>
+ * Only runs when benchmarks are enabled, see {@link Benchmarks}.
+ */
+public class JsonPredicateBenchmarkTest extends BaseTestCase {
+
+    private static final int WARM_UP = 3;
+    private static final int ITERATIONS = 5;
+    private static final int OPERATIONS = 20000;
+
+    @Before
+    public void setup() {
+        Benchmarks.assumeEnabled();
+    }
+
+    /**
+     * A custom event trigger predicate, evaluated against a custom event.
+     */
+    @Test
+    public void benchmarkCustomEventTrigger() throws JsonException {
+        JsonPredicate predicate = JsonPredicate.parse(JsonValue.parseString("{\"and\":[" +
+                "{\"key\":\"event_name\",\"value\":{\"equals\":\"purchase\"}}," +
+                "{\"key\":\"event_value\",\"value\":{\"at_least\":10}}," +
+                "{\"scope\":[\"properties\"],\"key\":\"category\",\"value\":{\"equals\":\"shoes\"}}]}"));
+
+        CustomEvent event = CustomEvent.newBuilder("purchase")
+                                       .setEventValue(20)
+                                       .addProperty("category", "shoes")
+                                       .addProperty("brand", "airship")
+                                       .build();
+
+        run("custom event trigger", predicate, event);
+    }
+
+    /**
+     * A screen trigger that matches any of 100 screen names.
+     */
+    @Test
+    public void benchmarkLargeOr() throws JsonException {
+        StringBuilder json = new StringBuilder("{\"or\":[");
+        for (int i = 0; i < 100; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"value\":{\"equals\":\"screen-").append(i).append("\"}}");
+        }
+        json.append("]}");
+
+        run("large or", JsonPredicate.parse(JsonValue.parseString(json.toString())), JsonValue.wrap("screen-99"));
+    }
+
+    /**
+     * An audience style predicate with a version check and a tag lookup in a list.
+     */
+    @Test
+    public void benchmarkVersionAndArray() throws JsonException {
+        StringBuilder tags = new StringBuilder("{\"or\":[");
+        for (int i = 0; i < 20; i++) {
+            if (i > 0) {
+                tags.append(',');
+            }
+            tags.append("{\"value\":{\"equals\":\"tag-").append(i).append("\"}}");
+        }
+        tags.append("]}");
+
+        JsonPredicate predicate = JsonPredicate.parse(JsonValue.parseString("{\"and\":[" +
+                "{\"scope\":[\"tags\"],\"value\":{\"array_contains\":" + tags + "}}," +
+                "{\"scope\":[\"ios\",\"version\"],\"value\":{\"version_matches\":\"[1.0,20.0[\"}}," +
+                "{\"key\":\"channel_id\",\"value\":{\"is_present\":true}}]}"));
+
+        List<String> channelTags = new ArrayList<>();
+        for (int i = 30; i >= 0; i--) {
+            channelTags.add("tag-" + i);
+        }
+
+        JsonMap value = JsonMap.newBuilder()
+                               .put("channel_id", "channel")
+                               .putOpt("tags", channelTags)
+                               .put("ios", JsonMap.newBuilder().put("version", "14.5.1").build())
+                               .build();
+
+        run("version and array", predicate, value);
+    }
+
+    private void run(@NonNull String name, @NonNull JsonPredicate predicate, @NonNull JsonSerializable value) {
+        assertEquals(interpret(predicate, value), predicate.apply(value));
+
+        for (int i = 0; i < WARM_UP; i++) {
+            measureInterpreted(predicate, value);
+            measureCompiled(predicate, value);
+        }
+
+        long interpretedTime = 0;
+        long compiledTime = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            interpretedTime += measureInterpreted(predicate, value);
+            compiledTime += measureCompiled(predicate, value);
+        }
+
+        System.out.println(String.format(Locale.ROOT, "JsonPredicateBenchmark %s: interpreted %.1f ns/op, compiled %.1f ns/op",
+                name,
+                interpretedTime / (double) (ITERATIONS * OPERATIONS),
+                compiledTime / (double) (ITERATIONS * OPERATIONS)));
+    }
+
+    private static long measureInterpreted(@NonNull JsonPredicate predicate, @NonNull JsonSerializable value) {
+        long start = System.nanoTime();
+        for (int i = 0; i < OPERATIONS; i++) {
+            interpret(predicate, value);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long measureCompiled(@NonNull JsonPredicate predicate, @NonNull JsonSerializable value) {
+        long start = System.nanoTime();
+        for (int i = 0; i < OPERATIONS; i++) {
+            predicate.apply(value);
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Evaluates the predicate the way it was evaluated before it was compiled.
+     */
+    private static boolean interpret(@NonNull Predicate<JsonSerializable> item, @Nullable JsonSerializable value) {
+        if (!(item instanceof JsonPredicate)) {
+            return item.apply(value);
+        }
+
+        JsonPredicate predicate = (JsonPredicate) item;
+        List<Predicate<JsonSerializable>> items = predicate.getItems();
+        switch (predicate.getType()) {
+            case JsonPredicate.NOT_PREDICATE_TYPE:
+                return !interpret(items.get(0), value);
+
+            case JsonPredicate.AND_PREDICATE_TYPE:
+                for (Predicate<JsonSerializable> child : items) {
+                    if (!interpret(child, value)) {
+                        return false;
+                    }
+                }
+                return true;
+
+            case JsonPredicate.OR_PREDICATE_TYPE:
+            default:
+                for (Predicate<JsonSerializable> child : items) {
+                    if (interpret(child, value)) {
+                        return true;
+                    }
+                }
+                return false;
+        }
+    }
+
+}
@@ -419,6 +419,104 @@ public class JsonPredicateTest extends BaseTestCase {
         JsonPredicate.parse(JsonValue.wrap("not valid"));
     }
 
+    /**
+     * Test a large `or` of string equals matchers on the same path, which is evaluated with a hashed lookup.
+     */
+    @Test
+    public void testOrStringSet() {
+        JsonPredicate.Builder builder = JsonPredicate.newBuilder()
+                                                     .setPredicateType(JsonPredicate.OR_PREDICATE_TYPE);
+
+        for (int i = 0; i < JsonPredicateCompiler.HASHED_LOOKUP_THRESHOLD * 2; i++) {
+            builder.addMatcher(JsonMatcher.newBuilder()
+                                          .setScope("schedule")
+                                          .setKey("sleep")
+                                          .setValueMatcher(ValueMatcher.newValueMatcher(JsonValue.wrap("sleep " + i)))
+                                          .build());
+        }
+
+        builder.addMatcher(JsonMatcher.newBuilder()
+                                      .setScope("schedule")
+                                      .setKey("sleep")
+                                      .setValueMatcher(ValueMatcher.newValueMatcher(JsonValue.wrap(4)))
+                                      .build());
+
+        builder.addMatcher(JsonMatcher.newBuilder()
+                                      .setKey("name")
+                                      .setValueMatcher(ValueMatcher.newValueMatcher(JsonValue.wrap("MITTENS")))
+                                      .setIgnoreCase(true)
+                                      .build());
+
+        JsonPredicate predicate = builder.build();
+
+        assertTrue(predicate.apply(JsonMap.newBuilder().put("schedule", JsonMap.newBuilder().put("sleep", "sleep 3").build()).build()));
+        assertTrue(predicate.apply(JsonMap.newBuilder().put("schedule", JsonMap.newBuilder().put("sleep", 4.0).build()).build()));
+        assertTrue(predicate.apply(JsonMap.newBuilder().put("name", "mittens").build()));
+        assertFalse(predicate.apply(JsonMap.newBuilder().put("schedule", JsonMap.newBuilder().put("sleep", "SLEEP 3").build()).build()));
+        assertFalse(predicate.apply(JsonMap.newBuilder().put("sleep", "sleep 3").build()));
+        assertFalse(predicate.apply(JsonValue.wrap("sleep 3")));
+        assertFalse(predicate.apply(null));
+    }
+
+    /**
+     * Test the result does not depend on the order children are evaluated in.
+     */
+    @Test
+    public void testAndOrderIndependent() {
+        JsonMatcher arrayMatcher = JsonMatcher.newBuilder()
+                                              .setKey("toys")
+                                              .setValueMatcher(ValueMatcher.newArrayContainsMatcher(JsonPredicate.newBuilder()
+                                                                                                                 .addMatcher(JsonMatcher.newBuilder()
+                                                                                                                                        .setValueMatcher(ValueMatcher.newValueMatcher(JsonValue.wrap("yarn")))
+                                                                                                                                        .build())
+                                                                                                                 .build()))
+                                              .build();
+
+        JsonMatcher absentMatcher = JsonMatcher.newBuilder()
+                                               .setKey("owner")
+                                               .setValueMatcher(ValueMatcher.newIsAbsentMatcher())
+                                               .build();
+
+        JsonPredicate predicate = JsonPredicate.newBuilder()
+                                               .setPredicateType(JsonPredicate.AND_PREDICATE_TYPE)
+                                               .addMatcher(arrayMatcher)
+                                               .addMatcher(nameMatcher)
+                                               .addMatcher(absentMatcher)
+                                               .build();
+
+        JsonMap toyCat = JsonMap.newBuilder()
+                                .putAll(catJson.toJsonValue().optMap())
+                                .put("toys", JsonValue.wrapOpt(Arrays.asList("ball", "yarn")))
+                                .build();
+
+        assertTrue(predicate.apply(toyCat));
+        assertFalse(predicate.apply(catJson));
+        assertFalse(predicate.apply(JsonMap.newBuilder().putAll(toyCat).put("owner", "someone").build()));
+    }
+
+    /**
+     * Test a parsed predicate mixing a tag lookup, a version range and a presence check.
+     */
+    @Test
+    public void testParsedVersionAndArray() throws JsonException {
+        JsonPredicate predicate = JsonPredicate.parse(JsonValue.parseString("{\"and\":[" +
+                "{\"scope\":[\"tags\"],\"value\":{\"array_contains\":{\"or\":[" +
+                "{\"value\":{\"equals\":\"tag-1\"}},{\"value\":{\"equals\":\"tag-2\"}}]}}}," +
+                "{\"scope\":[\"ios\",\"version\"],\"value\":{\"version_matches\":\"[1.0,20.0[\"}}," +
+                "{\"key\":\"channel_id\",\"value\":{\"is_present\":true}}]}"));
+
+        JsonMap value = JsonMap.newBuilder()
+                               .put("channel_id", "channel")
+                               .putOpt("tags", Arrays.asList("tag-3", "tag-2"))
+                               .put("ios", JsonMap.newBuilder().put("version", "14.5.1").build())
+                               .build();
+
+        assertTrue(predicate.apply(value));
+        assertFalse(predicate.apply(JsonMap.newBuilder().putAll(value).putOpt("tags", Arrays.asList("tag-3")).build()));
+        assertFalse(predicate.apply(JsonMap.newBuilder().putAll(value).put("ios", JsonMap.newBuilder().put("version", "20.0").build()).build()));
+        assertFalse(predicate.apply(JsonMap.newBuilder().putOpt("tags", Arrays.asList("tag-1")).put("ios", JsonMap.newBuilder().put("version", "14.5.1").build()).build()));
+    }
+
     @Test
     public void testAndroidVersionTest() {
         JsonSerializable versionObject = VersionUtils.createVersionObject(2008200331);
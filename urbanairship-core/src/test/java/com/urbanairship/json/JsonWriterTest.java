@@ -0,0 +1,78 @@
+/* Copyright Airship and Contributors */
+
+package com.urbanairship.json;
+
+import com.urbanairship.BaseTestCase;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static junit.framework.Assert.assertEquals;
+
+public class JsonWriterTest extends BaseTestCase {
+
+    @Test
+    public void testWriteValue() throws IOException {
+        assertEquals("\"a\\/b\\\"c\\\\d\\n\\u0001\"", write(JsonValue.wrap("a/b\"c\\d\n\u0001")));
+        assertEquals("1", write(JsonValue.wrap(1)));
+        assertEquals("2", write(JsonValue.wrap(2.0)));
+        assertEquals("1.5", write(JsonValue.wrap(1.5)));
+        assertEquals("true", write(JsonValue.wrap(true)));
+        assertEquals("null", write(JsonValue.NULL));
+        assertEquals("[\"a\",1,false]", write(JsonValue.wrapOpt(new Object[] { "a", 1, false })));
+        assertEquals("{\"key\":{\"nested\":[]}}", write(JsonMap.newBuilder()
+                                                                 .put("key", JsonMap.newBuilder().put("nested", JsonList.EMPTY_LIST.toJsonValue()).build())
+                                                                 .build()
+                                                                 .toJsonValue()));
+    }
+
+    @Test
+    public void testMatchesJSONStringer() throws Exception {
+        String json = "{\"list\":[\"https:\\/\\/example.com\\n\",1,1.5,true,{},[]]}";
+        JsonValue value = JsonValue.parseString(json);
+        assertEquals(new JSONObject(json).toString(), write(value));
+    }
+
+    @Test
+    public void testStreaming() throws IOException {
+        StringWriter stringWriter = new StringWriter();
+        new JsonWriter(stringWriter)
+                .beginArray()
+                .rawValue("{\"a\":1}")
+                .beginObject()
+                .name("b")
+                .value("c")
+                .name("d")
+                .beginArray()
+                .endArray()
+                .endObject()
+                .value(10)
+                .nullValue()
+                .endArray();
+
+        assertEquals("[{\"a\":1},{\"b\":\"c\",\"d\":[]},10,null]", stringWriter.toString());
+    }
+
+    @Test
+    public void testNumberToString() {
+        assertEquals("1", JsonWriter.numberToString(1.0));
+        assertEquals("-0", JsonWriter.numberToString(-0d));
+        assertEquals("1.5", JsonWriter.numberToString(1.5));
+        assertEquals(String.valueOf(Long.MAX_VALUE), JsonWriter.numberToString(Long.MAX_VALUE));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNameOutsideObject() throws IOException {
+        new JsonWriter(new StringWriter()).beginArray().name("nope");
+    }
+
+    private static String write(JsonValue value) throws IOException {
+        StringWriter stringWriter = new StringWriter();
+        new JsonWriter(stringWriter).value(value);
+        return stringWriter.toString();
+    }
+
+}
@@ -12,6 +12,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -44,25 +45,16 @@ public class RemoteDataStoreTest extends BaseTestCase {
 
     @After
     public void teardown() {
-        dataStore.deletePayloads();
+        dataStore.updatePayloads(Collections.emptySet());
         dataStore.close();
     }
 
-    /**
-     * Test saving payloads
-     */
-    @Test
-    public void testSavePayloads() {
-        boolean success = dataStore.savePayloads(payloads);
-        Assert.assertTrue(success);
-    }
-
     /**
      * Test getting payloads
      */
     @Test
     public void testGetPayloads() {
-        dataStore.savePayloads(payloads);
+        dataStore.updatePayloads(payloads);
         Set<RemoteDataPayload> savedPayloads = dataStore.getPayloads(Arrays.asList("type", "otherType"));
         Assert.assertNotNull(savedPayloads);
         Assert.assertEquals(payloads, savedPayloads);
@@ -73,12 +65,68 @@ public class RemoteDataStoreTest extends BaseTestCase {
     }
 
     /**
-     * Test deleting payloads.
+     * Test updating payloads only reports the changed types.
      */
     @Test
-    public void testDeletePayloads() {
-        dataStore.savePayloads(payloads);
-        dataStore.deletePayloads();
+    public void testUpdatePayloads() {
+        RemoteDataStore.UpdateResult result = dataStore.updatePayloads(payloads);
+        Assert.assertEquals(new HashSet<>(Arrays.asList("type", "otherType")), result.changedTypes);
+        Assert.assertEquals(Collections.emptySet(), result.metadataChangedTypes);
+        Assert.assertEquals(payloads, dataStore.getPayloads());
+
+        // Same payloads
+        result = dataStore.updatePayloads(payloads);
+        Assert.assertEquals(Collections.emptySet(), result.changedTypes);
+        Assert.assertEquals(Collections.emptySet(), result.metadataChangedTypes);
+
+        // Updated and removed
+        RemoteDataPayload updated = RemoteDataPayload.newBuilder()
+                                                     .setType("type")
+                                                     .setTimeStamp(456)
+                                                     .setData(JsonMap.newBuilder()
+                                                                     .put("foo", "baz")
+                                                                     .build())
+                                                     .build();
+
+        result = dataStore.updatePayloads(Collections.singleton(updated));
+        Assert.assertEquals(new HashSet<>(Arrays.asList("type", "otherType")), result.changedTypes);
+        Assert.assertEquals(Collections.emptySet(), result.metadataChangedTypes);
+        Assert.assertEquals(Collections.singleton(updated), dataStore.getPayloads());
+    }
+
+    /**
+     * Test updating only the payload metadata is reported separately from content changes.
+     */
+    @Test
+    public void testUpdatePayloadsMetadata() {
+        dataStore.updatePayloads(payloads);
+
+        JsonMap metadata = JsonMap.newBuilder().put("last_modified", "now").build();
+        Set<RemoteDataPayload> updated = new HashSet<>();
+        for (RemoteDataPayload payload : payloads) {
+            updated.add(RemoteDataPayload.newBuilder()
+                                         .setType(payload.getType())
+                                         .setTimeStamp(payload.getTimestamp())
+                                         .setData(payload.getData())
+                                         .setMetadata(metadata)
+                                         .build());
+        }
+
+        RemoteDataStore.UpdateResult result = dataStore.updatePayloads(updated);
+        Assert.assertEquals(Collections.emptySet(), result.changedTypes);
+        Assert.assertEquals(new HashSet<>(Arrays.asList("type", "otherType")), result.metadataChangedTypes);
+        Assert.assertEquals(updated, dataStore.getPayloads());
+    }
+
+    /**
+     * Test an empty update removes all payloads.
+     */
+    @Test
+    public void testRemovePayloads() {
+        dataStore.updatePayloads(payloads);
+
+        RemoteDataStore.UpdateResult result = dataStore.updatePayloads(Collections.emptySet());
+        Assert.assertEquals(new HashSet<>(Arrays.asList("type", "otherType")), result.changedTypes);
         Assert.assertTrue(dataStore.getPayloads(Arrays.asList("type", "otherType")).size() == 0);
     }
 
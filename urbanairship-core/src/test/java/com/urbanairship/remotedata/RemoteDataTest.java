@@ -430,6 +430,76 @@ public class RemoteDataTest extends BaseTestCase {
         assertEquals(asSet(freshPayload, otherPayload), subscribedPayloads.get(0));
     }
 
+    /**
+     * Test that subscribers are only notified when one of their types changed.
+     */
+    @Test
+    public void testPayloadsForTypeOnlyNotifiesChangedTypes() throws RequestException {
+        updatePayloads(payload, otherPayload);
+
+        final List<RemoteDataPayload> subscribedPayloads = new ArrayList<>();
+        remoteData.payloadsForType("otherType").subscribe(new Subscriber<RemoteDataPayload>() {
+            @Override
+            public void onNext(@NonNull RemoteDataPayload value) {
+                subscribedPayloads.add(value);
+            }
+        });
+
+        runLooperTasks();
+        assertEquals(1, subscribedPayloads.size());
+        subscribedPayloads.clear();
+
+        // Only "type" changes
+        RemoteDataPayload freshPayload = RemoteDataPayload.newBuilder()
+                                                          .setType(payload.getType())
+                                                          .setTimeStamp(payload.getTimestamp() + 100000)
+                                                          .setData(payload.getData())
+                                                          .build();
+
+        updatePayloads(freshPayload, otherPayload);
+        assertEquals(0, subscribedPayloads.size());
+        assertEquals(asSet(freshPayload, otherPayload), remoteData.dataStore.getPayloads());
+    }
+
+    /**
+     * Test that a refresh that only changes the metadata is emitted on the metadata updates.
+     */
+    @Test
+    public void testMetadataOnlyUpdate() throws RequestException {
+        updatePayloads(payload, otherPayload);
+
+        final List<RemoteDataPayload> subscribedPayloads = new ArrayList<>();
+        remoteData.payloadsForType("type").subscribe(new Subscriber<RemoteDataPayload>() {
+            @Override
+            public void onNext(@NonNull RemoteDataPayload value) {
+                subscribedPayloads.add(value);
+            }
+        });
+
+        final List<RemoteDataPayload> metadataPayloads = new ArrayList<>();
+        remoteData.metadataUpdatesForType("type").subscribe(new Subscriber<RemoteDataPayload>() {
+            @Override
+            public void onNext(@NonNull RemoteDataPayload value) {
+                metadataPayloads.add(value);
+            }
+        });
+
+        runLooperTasks();
+        subscribedPayloads.clear();
+
+        JsonMap metadata = JsonMap.newBuilder().put("last_modified", "now").build();
+        RemoteDataPayload updatedPayload = RemoteDataPayload.newBuilder()
+                                                            .setType(payload.getType())
+                                                            .setTimeStamp(payload.getTimestamp())
+                                                            .setData(payload.getData())
+                                                            .setMetadata(metadata)
+                                                            .build();
+
+        updatePayloads(updatedPayload, otherPayload);
+        assertEquals(0, subscribedPayloads.size());
+        assertEquals(Collections.singletonList(updatedPayload), metadataPayloads);
+    }
+
     @Test
     public void testLastModified() throws RequestException {
         Locale locale = Locale.forLanguageTag("en-US");
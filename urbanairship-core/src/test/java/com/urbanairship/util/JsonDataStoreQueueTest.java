@@ -3,6 +3,7 @@
 package com.urbanairship.util;
 
 import com.urbanairship.BaseTestCase;
+import com.urbanairship.PreferenceDataStore;
 import com.urbanairship.TestApplication;
 import com.urbanairship.json.JsonSerializable;
 import com.urbanairship.json.JsonValue;
@@ -10,22 +11,30 @@ import com.urbanairship.json.JsonValue;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 import androidx.arch.core.util.Function;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class JsonDataStoreQueueTest extends BaseTestCase {
 
     JsonDataStoreQueue<JsonValue> queue;
+    PreferenceDataStore dataStore;
 
     @Before
     public void setup() {
-        queue = new JsonDataStoreQueue<>(TestApplication.getApplication().preferenceDataStore, "some-key", new Function<JsonValue, JsonSerializable>() {
+        dataStore = TestApplication.getApplication().preferenceDataStore;
+        queue = createQueue();
+    }
+
+    private JsonDataStoreQueue<JsonValue> createQueue() {
+        return new JsonDataStoreQueue<>(dataStore, "some-key", new Function<JsonValue, JsonSerializable>() {
             @Override
             public JsonSerializable apply(JsonValue input) {
                 return input;
@@ -38,6 +47,31 @@ public class JsonDataStoreQueueTest extends BaseTestCase {
         });
     }
 
+    @Test
+    public void testPeekCount() {
+        queue.addAll(Arrays.asList(JsonValue.wrapOpt("one"), JsonValue.wrapOpt("two"), JsonValue.wrapOpt("three")));
+
+        assertEquals(Arrays.asList(JsonValue.wrapOpt("one"), JsonValue.wrapOpt("two")), queue.peek(2));
+        assertEquals(3, queue.peek(10).size());
+        assertEquals(3, queue.getList().size());
+    }
+
+    @Test
+    public void testReplaceFront() {
+        queue.addAll(Arrays.asList(JsonValue.wrapOpt("one"), JsonValue.wrapOpt("two"), JsonValue.wrapOpt("three"), JsonValue.wrapOpt("four")));
+
+        queue.replaceFront(3, Arrays.asList(JsonValue.wrapOpt("merged")));
+        assertEquals(Arrays.asList(JsonValue.wrapOpt("merged"), JsonValue.wrapOpt("four")), queue.getList());
+
+        queue.add(JsonValue.wrapOpt("five"));
+        assertEquals(JsonValue.wrapOpt("merged"), queue.pop());
+        assertEquals(Arrays.asList(JsonValue.wrapOpt("four"), JsonValue.wrapOpt("five")), createQueue().getList());
+
+        queue.replaceFront(2, new ArrayList<JsonValue>());
+        assertTrue(queue.getList().isEmpty());
+        assertNull(queue.peek());
+    }
+
     @Test
     public void testRemoveAll() {
         queue.add(JsonValue.wrapOpt("neat"));
@@ -104,4 +138,83 @@ public class JsonDataStoreQueueTest extends BaseTestCase {
         assertEquals("what?", queue.peek().getString());
     }
 
+    @Test
+    public void testApplyThenAdd() {
+        queue.add(JsonValue.wrapOpt("neat"));
+        queue.add(JsonValue.wrapOpt("rad"));
+        queue.add(JsonValue.wrapOpt("cool"));
+
+        queue.apply(new Function<List<JsonValue>, List<JsonValue>>() {
+            @Override
+            public List<JsonValue> apply(List<JsonValue> input) {
+                List<JsonValue> result = new ArrayList<>(input);
+                result.remove(0);
+                result.add(0, JsonValue.wrapOpt("first"));
+                result.add(0, JsonValue.wrapOpt("zeroth"));
+                return result;
+            }
+        });
+
+        queue.add(JsonValue.wrapOpt("last"));
+
+        assertEquals(Arrays.asList(JsonValue.wrapOpt("zeroth"), JsonValue.wrapOpt("first"),
+                JsonValue.wrapOpt("rad"), JsonValue.wrapOpt("cool"), JsonValue.wrapOpt("last")), queue.getList());
+        assertEquals("zeroth", queue.pop().getString());
+        assertEquals("first", queue.peek().getString());
+    }
+
+    @Test
+    public void testApplyEmpty() {
+        queue.add(JsonValue.wrapOpt("neat"));
+
+        queue.apply(new Function<List<JsonValue>, List<JsonValue>>() {
+            @Override
+            public List<JsonValue> apply(List<JsonValue> input) {
+                return new ArrayList<>();
+            }
+        });
+
+        assertTrue(queue.getList().isEmpty());
+        assertNull(queue.pop());
+    }
+
+    @Test
+    public void testPersisted() {
+        queue.add(JsonValue.wrapOpt("neat"));
+        queue.add(JsonValue.wrapOpt("rad"));
+        queue.pop();
+        queue.add(JsonValue.wrapOpt("cool"));
+
+        JsonDataStoreQueue<JsonValue> other = createQueue();
+        assertEquals(Arrays.asList(JsonValue.wrapOpt("rad"), JsonValue.wrapOpt("cool")), other.getList());
+    }
+
+    @Test
+    public void testMissingHeadSkipped() {
+        queue.addAll(Arrays.asList(JsonValue.wrapOpt("neat"), JsonValue.wrapOpt("rad"), JsonValue.wrapOpt("cool")));
+
+        // An item removed without advancing the head
+        dataStore.remove("some-key.queue_item.0");
+
+        assertEquals("rad", queue.peek().getString());
+        assertEquals(1L, dataStore.getLong("some-key.queue_head", 0));
+        assertEquals(Arrays.asList(JsonValue.wrapOpt("rad"), JsonValue.wrapOpt("cool")), queue.peek(5));
+        assertEquals("rad", queue.pop().getString());
+        assertEquals("cool", queue.pop().getString());
+        assertNull(queue.pop());
+    }
+
+    @Test
+    public void testMigrateList() {
+        queue.removeAll();
+        dataStore.put("some-key", JsonValue.wrapOpt(Arrays.asList("neat", "rad")));
+
+        queue = createQueue();
+        assertFalse(dataStore.isSet("some-key"));
+        queue.add(JsonValue.wrapOpt("cool"));
+
+        assertEquals(Arrays.asList(JsonValue.wrapOpt("neat"), JsonValue.wrapOpt("rad"), JsonValue.wrapOpt("cool")), queue.getList());
+        assertEquals("neat", queue.pop().getString());
+    }
+
 }
@@ -85,8 +85,12 @@ public class AirshipLocationManager extends AirshipComponent implements AirshipL
         @Override
         public void onPreferenceChange(@NonNull String key) {
             switch (key) {
-                case BACKGROUND_UPDATES_ALLOWED_KEY:
                 case LOCATION_UPDATES_ENABLED_KEY:
+                    // Location settings are part of the channel registration payload
+                    airshipChannel.updateRegistration();
+                    updateServiceConnection();
+                    break;
+                case BACKGROUND_UPDATES_ALLOWED_KEY:
                 case LOCATION_OPTIONS_KEY:
                     updateServiceConnection();
                     break;
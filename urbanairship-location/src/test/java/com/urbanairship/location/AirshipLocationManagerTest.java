@@ -33,6 +33,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -126,6 +127,24 @@ public class AirshipLocationManagerTest {
         assertEquals(expected, payload);
     }
 
+    /**
+     * Test changing location updates enabled updates the channel registration.
+     */
+    @Test
+    public void testLocationUpdatesEnabledUpdatesRegistration() {
+        locationManager.init();
+
+        locationManager.setLocationUpdatesEnabled(true);
+        verify(mockChannel).updateRegistration();
+
+        // Same value is a no-op
+        locationManager.setLocationUpdatesEnabled(true);
+        verify(mockChannel).updateRegistration();
+
+        locationManager.setLocationUpdatesEnabled(false);
+        verify(mockChannel, times(2)).updateRegistration();
+    }
+
     /**
      * Test channel registration extender does not add the location settings when data opt-in is disabled.
      */
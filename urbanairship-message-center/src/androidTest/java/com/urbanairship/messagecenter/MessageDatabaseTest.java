@@ -119,6 +119,27 @@ public class MessageDatabaseTest {
         db.close();
     }
 
+    @Test
+    public void migrate5to6() throws IOException {
+        SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 5);
+
+        // Insert some messages.
+        for (int i = 0; i < 5; i++) {
+            insertMessage(db, "msg-" + i);
+        }
+
+        List<Map<String, String>> initialMessages = getMessages(db);
+
+        // Prepare for migration and run it.
+        db.close();
+        db = helper.runMigrationsAndValidate(TEST_DB, 6, true, MessageDatabase.MIGRATION_5_6);
+
+        // Validate the messages are untouched.
+        assertEquals(initialMessages, getMessages(db));
+
+        db.close();
+    }
+
     @Test
     public void migrateAll() throws IOException {
         // Skipping 1_2 because we didn't have an initial schema as that was the migration to Room.
@@ -127,7 +148,7 @@ public class MessageDatabaseTest {
 
         Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
         MessageDatabase messageDb = Room.databaseBuilder(context, MessageDatabase.class, TEST_DB)
-            .addMigrations(MIGRATION_2_5)
+            .addMigrations(MIGRATION_2_5, MIGRATION_5_6)
             .build();
 
         messageDb.getOpenHelper().getWritableDatabase();
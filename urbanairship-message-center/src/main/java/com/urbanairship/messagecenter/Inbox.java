@@ -11,6 +11,8 @@ import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 import androidx.annotation.VisibleForTesting;
 import androidx.annotation.WorkerThread;
+import androidx.arch.core.util.Function;
+import androidx.paging.DataSource;
 
 import com.urbanairship.AirshipConfigOptions;
 import com.urbanairship.AirshipExecutors;
@@ -31,6 +33,7 @@ import com.urbanairship.job.JobDispatcher;
 import com.urbanairship.job.JobInfo;
 import com.urbanairship.job.JobResult;
 import com.urbanairship.json.JsonMap;
+import com.urbanairship.util.UAStringUtil;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -41,8 +44,10 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -76,6 +81,9 @@ public class Inbox {
     private final Map<String, Message> readMessages = new HashMap<>();
     private final Map<String, Message> messageUrlMap = new HashMap<>();
 
+    // Read and unread messages, kept in display order
+    private final TreeSet<Message> sortedMessages = new TreeSet<>(MESSAGE_COMPARATOR);
+
     private final MessageDao messageDao;
     private final User user;
     private final Executor executor;
@@ -91,6 +99,10 @@ public class Inbox {
     private final AirshipChannel airshipChannel;
 
     private boolean isFetchingMessages = false;
+
+    // The user ID last added to the channel registration payload
+    @Nullable
+    private volatile String registeredUserId;
     @Nullable
     @VisibleForTesting
     InboxJobHandler inboxJobHandler;
@@ -166,13 +178,17 @@ public class Inbox {
             @NonNull
             @Override
             public ChannelRegistrationPayload.Builder extend(@NonNull ChannelRegistrationPayload.Builder builder) {
-                return builder.setUserId(getUser().getId());
+                registeredUserId = getUser().getId();
+                return builder.setUserId(registeredUserId);
             }
         };
         this.userListener = new User.Listener() {
             @Override
             public void onUserUpdated(boolean success) {
                 if (success) {
+                    if (!UAStringUtil.equals(registeredUserId, getUser().getId())) {
+                        airshipChannel.updateRegistration();
+                    }
                     fetchMessages();
                 }
             }
@@ -442,6 +458,26 @@ public class Inbox {
         return filteredMessages;
     }
 
+    /**
+     * Filters the sorted messages down to the ones in the given map and matching the predicate.
+     *
+     * @param messages The unread or read messages.
+     * @param predicate The predicate. If null, no predicate will be applied.
+     * @return A sorted list of messages.
+     */
+    @NonNull
+    private List<Message> filterMessages(@NonNull Map<String, Message> messages, @Nullable Predicate<Message> predicate) {
+        List<Message> filteredMessages = new ArrayList<>(messages.size());
+
+        for (Message message : sortedMessages) {
+            if (messages.containsKey(message.getMessageId()) && (predicate == null || predicate.apply(message))) {
+                filteredMessages.add(message);
+            }
+        }
+
+        return filteredMessages;
+    }
+
     /**
      * Gets a list of RichPushMessages, filtered by the provided predicate.
      * Sorted by descending sent-at date.
@@ -452,11 +488,7 @@ public class Inbox {
     @NonNull
     public List<Message> getMessages(@Nullable Predicate<Message> predicate) {
         synchronized (inboxLock) {
-            List<Message> messages = new ArrayList<>();
-            messages.addAll(filterMessages(unreadMessages.values(), predicate));
-            messages.addAll(filterMessages(readMessages.values(), predicate));
-            Collections.sort(messages, MESSAGE_COMPARATOR);
-            return messages;
+            return new ArrayList<>(filterMessages(sortedMessages, predicate));
         }
     }
 
@@ -480,9 +512,7 @@ public class Inbox {
     @NonNull
     public List<Message> getUnreadMessages(@Nullable Predicate<Message> predicate) {
         synchronized (inboxLock) {
-            List<Message> messages = new ArrayList<>(filterMessages(unreadMessages.values(), predicate));
-            Collections.sort(messages, MESSAGE_COMPARATOR);
-            return messages;
+            return filterMessages(unreadMessages, predicate);
         }
     }
 
@@ -506,9 +536,7 @@ public class Inbox {
     @NonNull
     public List<Message> getReadMessages(@Nullable Predicate<Message> predicate) {
         synchronized (inboxLock) {
-            List<Message> messages = new ArrayList<>(filterMessages(readMessages.values(), predicate));
-            Collections.sort(messages, MESSAGE_COMPARATOR);
-            return messages;
+            return filterMessages(readMessages, predicate);
         }
     }
 
@@ -522,6 +550,56 @@ public class Inbox {
         return getReadMessages(null);
     }
 
+    /**
+     * Gets a paged data source of the messages, sorted by descending sent-at date.
+     * <p>
+     * Unlike {@link #getMessages()}, messages are queried from the database a page at a time,
+     * so memory use does not grow with the size of the inbox. Use with a paged list to display
+     * large inboxes.
+     *
+     * @return The message data source factory.
+     */
+    @NonNull
+    public DataSource.Factory<Integer, Message> getMessageDataSourceFactory() {
+        return toMessages(messageDao.getMessagesDataSourceFactory(nowSeconds()));
+    }
+
+    /**
+     * Gets a paged data source of the unread messages, sorted by descending sent-at date.
+     *
+     * @return The unread message data source factory.
+     * @see #getMessageDataSourceFactory()
+     */
+    @NonNull
+    public DataSource.Factory<Integer, Message> getUnreadMessageDataSourceFactory() {
+        return toMessages(messageDao.getMessagesDataSourceFactory(true, nowSeconds()));
+    }
+
+    /**
+     * Gets a paged data source of the read messages, sorted by descending sent-at date.
+     *
+     * @return The read message data source factory.
+     * @see #getMessageDataSourceFactory()
+     */
+    @NonNull
+    public DataSource.Factory<Integer, Message> getReadMessageDataSourceFactory() {
+        return toMessages(messageDao.getMessagesDataSourceFactory(false, nowSeconds()));
+    }
+
+    @NonNull
+    private static DataSource.Factory<Integer, Message> toMessages(@NonNull DataSource.Factory<Integer, MessageEntity> factory) {
+        return factory.map(new Function<MessageEntity, Message>() {
+            @Override
+            public Message apply(MessageEntity entity) {
+                return entity.createMessageFromEntity(entity);
+            }
+        });
+    }
+
+    private static long nowSeconds() {
+        return TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+    }
+
     /**
      * Get the {@link Message} with the corresponding message ID.
      *
@@ -644,8 +722,7 @@ public class Inbox {
                 Message message = getMessage(messageId);
                 if (message != null) {
                     message.deleted = true;
-                    unreadMessages.remove(messageId);
-                    readMessages.remove(messageId);
+                    removeMessage(message);
                     deletedMessageIds.add(messageId);
                 }
             }
@@ -670,6 +747,8 @@ public class Inbox {
         synchronized (inboxLock) {
             unreadMessages.clear();
             readMessages.clear();
+            sortedMessages.clear();
+            messageUrlMap.clear();
             deletedMessageIds.clear();
         }
 
@@ -678,25 +757,54 @@ public class Inbox {
 
     /**
      * Refreshes the inbox messages from the DB.
+     * <p>
+     * Stored messages are never updated in place, only inserted or deleted, and local read and
+     * delete changes are applied to the inbox directly. The refresh only needs to load and parse
+     * the messages that are new since the last refresh and drop the ones that are gone.
      *
      * @param notify {@code true} to notify listeners, otherwise {@code false}.
      */
     void refresh(boolean notify) {
+        boolean isEmpty;
+        synchronized (inboxLock) {
+            isEmpty = unreadMessages.isEmpty() && readMessages.isEmpty() && deletedMessageIds.isEmpty();
+        }
 
-        List<MessageEntity> messageList = messageDao.getMessages();
+        Set<String> storedMessageIds = null;
+        List<MessageEntity> messageList;
+
+        if (isEmpty) {
+            messageList = messageDao.getMessages();
+        } else {
+            storedMessageIds = new HashSet<>(messageDao.getMessageIds());
+
+            Set<String> newMessageIds = new HashSet<>(storedMessageIds);
+            synchronized (inboxLock) {
+                newMessageIds.removeAll(unreadMessages.keySet());
+                newMessageIds.removeAll(readMessages.keySet());
+                newMessageIds.removeAll(deletedMessageIds);
+            }
+
+            messageList = newMessageIds.isEmpty() ? Collections.<MessageEntity>emptyList() : messageDao.getMessages(newMessageIds);
+        }
 
         // Sync the messages
         synchronized (inboxLock) {
 
-            // Save the unreadMessageIds
-            Set<String> previousUnreadMessageIds = new HashSet<>(unreadMessages.keySet());
-            Set<String> previousReadMessageIds = new HashSet<>(readMessages.keySet());
-            Set<String> previousDeletedMessageIds = new HashSet<>(deletedMessageIds);
+            // Drop messages that are no longer stored or that expired since the last refresh
+            List<Message> removedMessages = new ArrayList<>();
+            for (Message message : sortedMessages) {
+                if (storedMessageIds != null && !storedMessageIds.contains(message.getMessageId())) {
+                    removedMessages.add(message);
+                } else if (message.isExpired()) {
+                    removedMessages.add(message);
+                    deletedMessageIds.add(message.getMessageId());
+                }
+            }
 
-            // Clear the current messages
-            unreadMessages.clear();
-            readMessages.clear();
-            messageUrlMap.clear();
+            for (Message message : removedMessages) {
+                removeMessage(message);
+            }
 
             // Process the new messages
             for (MessageEntity messageEntity : messageList) {
@@ -707,8 +815,13 @@ public class Inbox {
                     continue;
                 }
 
+                // Already added
+                if (unreadMessages.containsKey(message.getMessageId()) || readMessages.containsKey(message.getMessageId())) {
+                    continue;
+                }
+
                 // Deleted
-                if (message.isDeleted() || previousDeletedMessageIds.contains(message.getMessageId())) {
+                if (message.isDeleted() || deletedMessageIds.contains(message.getMessageId())) {
                     deletedMessageIds.add(message.getMessageId());
                     continue;
                 }
@@ -719,29 +832,15 @@ public class Inbox {
                     continue;
                 }
 
-                // Populate message url map
-                messageUrlMap.put(message.getMessageBodyUrl(), message);
-
-                // Unread - check the previousUnreadMessageIds if any mark reads are still in process
-                if (previousUnreadMessageIds.contains(message.getMessageId())) {
-                    message.unreadClient = true;
-                    unreadMessages.put(message.getMessageId(), message);
-                    continue;
-                }
-
-                // Read - check the previousUnreadMessageIds if any mark reads are still in process
-                if (previousReadMessageIds.contains(message.getMessageId())) {
-                    message.unreadClient = false;
-                    readMessages.put(message.getMessageId(), message);
-                    continue;
-                }
-
-                // Otherwise fallback to the current state
                 if (message.unreadClient) {
                     unreadMessages.put(message.getMessageId(), message);
                 } else {
                     readMessages.put(message.getMessageId(), message);
                 }
+
+                // Populate message url map
+                messageUrlMap.put(message.getMessageBodyUrl(), message);
+                sortedMessages.add(message);
             }
         }
 
@@ -751,6 +850,21 @@ public class Inbox {
 
     }
 
+    /**
+     * Removes a message from the unread, read and sorted messages.
+     *
+     * @param message The message.
+     */
+    private void removeMessage(@NonNull Message message) {
+        unreadMessages.remove(message.getMessageId());
+        readMessages.remove(message.getMessageId());
+        sortedMessages.remove(message);
+
+        if (messageUrlMap.get(message.getMessageBodyUrl()) == message) {
+            messageUrlMap.remove(message.getMessageBodyUrl());
+        }
+    }
+
     /**
      * Notifies all of the registered listeners that the
      * inbox updated.
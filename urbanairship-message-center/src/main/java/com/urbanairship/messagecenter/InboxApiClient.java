@@ -13,13 +13,16 @@ import com.urbanairship.http.RequestException;
 import com.urbanairship.http.RequestFactory;
 import com.urbanairship.http.Response;
 import com.urbanairship.http.ResponseParser;
+import com.urbanairship.http.StreamResponseParser;
 import com.urbanairship.json.JsonException;
 import com.urbanairship.json.JsonList;
 import com.urbanairship.json.JsonMap;
+import com.urbanairship.json.JsonParser;
 import com.urbanairship.json.JsonValue;
 import com.urbanairship.util.UAHttpStatusUtil;
 import com.urbanairship.util.UAStringUtil;
 
+import java.io.InputStream;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -69,13 +72,14 @@ public class InboxApiClient {
                              .setAirshipUserAgent(runtimeConfig)
                              .setHeader(CHANNEL_ID_HEADER, channelId)
                              .setIfModifiedSince(lastMessageRefreshTime)
-                             .execute(new ResponseParser<JsonList>() {
+                             .executeStreaming(new StreamResponseParser<JsonList>() {
                                  @Override
-                                 public JsonList parseResponse(int status, @Nullable Map<String, List<String>> headers, @Nullable String responseBody) throws Exception {
+                                 public JsonList parseResponse(int status, @Nullable Map<String, List<String>> headers, @Nullable InputStream responseBody) throws Exception {
                                      if (!UAHttpStatusUtil.inSuccessRange(status)) {
                                          return null;
                                      }
-                                     JsonList messageJson = JsonValue.parseString(responseBody).optMap().opt("messages").getList();
+                                     JsonValue json = responseBody == null ? JsonValue.NULL : new JsonParser(responseBody).parse();
+                                     JsonList messageJson = json.optMap().opt("messages").getList();
                                      if (messageJson == null) {
                                          throw new JsonException("Invalid response, missing messages.");
                                      }
@@ -3,11 +3,14 @@ package com.urbanairship.messagecenter;
 import com.urbanairship.Logger;
 import com.urbanairship.analytics.data.BatchedQueryHelper;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
 import androidx.annotation.RestrictTo;
 import androidx.core.util.Consumer;
+import androidx.paging.DataSource;
 import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
@@ -49,6 +52,15 @@ public abstract class MessageDao {
         }
     }
 
+    public List<MessageEntity> getMessages(Collection<String> messageIds) {
+        try {
+            return getMessagesByIdInternal(new ArrayList<>(messageIds));
+        } catch (Exception e) {
+            Logger.error(e, "Failed to get messages!");
+            return Collections.emptyList();
+        }
+    }
+
     public List<String> getMessageIds() {
         try {
             return getMessageIdsInternal();
@@ -58,6 +70,30 @@ public abstract class MessageDao {
         }
     }
 
+    /**
+     * Gets a paged data source of the messages that are not deleted or expired, sorted by
+     * descending sent date. Pages are loaded lazily, so errors surface when the data source loads.
+     *
+     * @param nowSeconds The current time in seconds, used to filter out expired messages.
+     * @return The data source factory.
+     */
+    public DataSource.Factory<Integer, MessageEntity> getMessagesDataSourceFactory(long nowSeconds) {
+        return getMessagesDataSourceFactoryInternal(nowSeconds);
+    }
+
+    /**
+     * Gets a paged data source of the unread or read messages that are not deleted or expired,
+     * sorted by descending sent date. Pages are loaded lazily, so errors surface when the data
+     * source loads.
+     *
+     * @param unread {@code true} for unread messages, {@code false} for read messages.
+     * @param nowSeconds The current time in seconds, used to filter out expired messages.
+     * @return The data source factory.
+     */
+    public DataSource.Factory<Integer, MessageEntity> getMessagesDataSourceFactory(boolean unread, long nowSeconds) {
+        return getMessagesDataSourceFactoryByUnreadInternal(unread, nowSeconds);
+    }
+
     public List<MessageEntity> getLocallyReadMessages() {
         try {
             return getLocallyReadMessagesInternal();
@@ -144,6 +180,31 @@ public abstract class MessageDao {
     @Query("SELECT * FROM richpush")
     protected abstract List<MessageEntity> getMessagesInternal();
 
+    @Query("SELECT * FROM richpush WHERE deleted = 0 " +
+            "AND IFNULL(CAST(strftime('%s', expiration_timestamp) AS INTEGER), :nowSeconds + 1) > :nowSeconds " +
+            "ORDER BY timestamp DESC, message_id ASC")
+    protected abstract DataSource.Factory<Integer, MessageEntity> getMessagesDataSourceFactoryInternal(long nowSeconds);
+
+    @Query("SELECT * FROM richpush WHERE deleted = 0 AND unread = :unread " +
+            "AND IFNULL(CAST(strftime('%s', expiration_timestamp) AS INTEGER), :nowSeconds + 1) > :nowSeconds " +
+            "ORDER BY timestamp DESC, message_id ASC")
+    protected abstract DataSource.Factory<Integer, MessageEntity> getMessagesDataSourceFactoryByUnreadInternal(boolean unread, long nowSeconds);
+
+    @Transaction
+    protected List<MessageEntity> getMessagesByIdInternal(List<String> messageIds) {
+        List<MessageEntity> messages = new ArrayList<>();
+        Consumer<List<String>> consumer = ids -> messages.addAll(getMessagesBatchInternal(ids));
+        BatchedQueryHelper.runBatched(messageIds, consumer);
+        return messages;
+    }
+
+    /**
+     * This query is only for internal use, with a {@code BatchedQueryHelper},
+     * which stops us from bumping into the max query params limit of 999.
+     */
+    @Query("SELECT * FROM richpush WHERE message_id IN (:messageIds)")
+    protected abstract List<MessageEntity> getMessagesBatchInternal(List<String> messageIds);
+
     @Transaction
     @Query("SELECT message_id FROM richpush")
     protected abstract List<String> getMessageIdsInternal();
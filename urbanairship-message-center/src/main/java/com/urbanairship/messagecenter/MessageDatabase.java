@@ -17,13 +17,14 @@ import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
 import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
 
 /**
  * Message database
  */
 @Database(
-    version = 5,
+    version = 6,
     entities = { MessageEntity.class }
 )
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
@@ -54,6 +55,17 @@ public abstract class MessageDatabase extends RoomDatabase {
     static final Migration MIGRATION_3_5 = new MessageDatabaseMultiMigration(3, 5);
     static final Migration MIGRATION_4_5 = new MessageDatabaseMultiMigration(4, 5);
 
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            // Indexes for the paged message queries
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_richpush_timestamp` "
+                    + "ON `" + TABLE_NAME + "` (`" + TIMESTAMP + "`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_richpush_unread_timestamp` "
+                    + "ON `" + TABLE_NAME + "` (`" + UNREAD + "`, `" + TIMESTAMP + "`)");
+        }
+    };
+
     public static MessageDatabase createDatabase(@NonNull Context context, @NonNull AirshipConfigOptions config) {
         String name = config.appKey + "_" + DB_NAME;
         File urbanAirshipNoBackupDirectory = new File(ContextCompat.getNoBackupFilesDir(context), DB_DIR);
@@ -63,7 +75,7 @@ public abstract class MessageDatabase extends RoomDatabase {
 
         return Room.databaseBuilder(context, MessageDatabase.class, path)
             .openHelperFactory(retryingOpenHelperFactory)
-            .addMigrations(MIGRATION_1_5, MIGRATION_2_5, MIGRATION_3_5, MIGRATION_4_5)
+            .addMigrations(MIGRATION_1_5, MIGRATION_2_5, MIGRATION_3_5, MIGRATION_4_5, MIGRATION_5_6)
             .fallbackToDestructiveMigration()
             .build();
     }
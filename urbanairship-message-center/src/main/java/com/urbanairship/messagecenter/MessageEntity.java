@@ -18,7 +18,9 @@ import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
 @Entity(tableName = "richpush", indices = {
-    @Index(value = {"message_id"}, unique = true)
+    @Index(value = {"message_id"}, unique = true),
+    @Index(value = {"timestamp"}),
+    @Index(value = {"unread", "timestamp"})
 })
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
 public class MessageEntity {
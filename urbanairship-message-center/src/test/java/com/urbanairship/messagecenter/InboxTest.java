@@ -30,6 +30,7 @@ import org.robolectric.annotation.LooperMode;
 import org.robolectric.annotation.SQLiteMode;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -46,6 +47,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.Mockito.clearInvocations;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -116,6 +118,7 @@ public class InboxTest {
         }
 
         when(mockMessageDao.getMessages()).thenReturn(messageEntities);
+        when(mockMessageDao.getMessageIds()).thenReturn(getMessageIds(messageEntities));
         inbox.refresh(false);
         Mockito.clearInvocations(mockMessageDao);
     }
@@ -161,6 +164,38 @@ public class InboxTest {
         assertEquals(expected, payload);
     }
 
+    /**
+     * Test changing the user updates the channel registration with the new user id.
+     */
+    @Test
+    public void testUserChangeUpdatesRegistration() {
+        ArgumentCaptor<AirshipChannel.ChannelRegistrationPayloadExtender> extenderArgument = ArgumentCaptor.forClass(AirshipChannel.ChannelRegistrationPayloadExtender.class);
+        ArgumentCaptor<User.Listener> listenerArgument = ArgumentCaptor.forClass(User.Listener.class);
+        inbox.init();
+
+        verify(mockChannel).addChannelRegistrationPayloadExtender(extenderArgument.capture());
+        verify(mockUser).addListener(listenerArgument.capture());
+        AirshipChannel.ChannelRegistrationPayloadExtender extender = extenderArgument.getValue();
+        User.Listener listener = listenerArgument.getValue();
+
+        when(mockUser.getId()).thenReturn("cool");
+        assertEquals("cool", extender.extend(new ChannelRegistrationPayload.Builder()).build().userId);
+
+        // Same user
+        listener.onUserUpdated(true);
+        verify(mockChannel, never()).updateRegistration();
+
+        // New user, failed update
+        when(mockUser.getId()).thenReturn("story");
+        listener.onUserUpdated(false);
+        verify(mockChannel, never()).updateRegistration();
+
+        // New user
+        listener.onUserUpdated(true);
+        verify(mockChannel).updateRegistration();
+        assertEquals("story", extender.extend(new ChannelRegistrationPayload.Builder()).build().userId);
+    }
+
     /**
      * Test channel creation updates the user.
      */
@@ -555,12 +590,88 @@ public class InboxTest {
 
         // Verify that Inbox was started once.
         verify(mockUser).addListener(any(User.Listener.class));
-        verify(mockMessageDao).getMessages();
+        verify(mockMessageDao).getMessageIds();
         verify(spyActivityMonitor).addApplicationListener(any(ApplicationListener.class));
         verify(mockChannel).addChannelListener(any(AirshipChannelListener.class));
         verify(mockChannel).addChannelRegistrationPayloadExtender(any(AirshipChannel.ChannelRegistrationPayloadExtender.class));
     }
 
+    /**
+     * Test refresh only loads the messages that are new since the last refresh.
+     */
+    @Test
+    public void testRefreshLoadsNewMessages() {
+        Message message = MessageCenterTestUtils.createMessage("16_message_id", null, false);
+        messageEntities.add(MessageEntity.createMessageFromPayload(message.getMessageId(), message.getRawMessageJson()));
+        when(mockMessageDao.getMessageIds()).thenReturn(getMessageIds(messageEntities));
+        when(mockMessageDao.getMessages(anyCollection())).thenReturn(Collections.singletonList(messageEntities.get(15)));
+
+        inbox.refresh(false);
+
+        verify(mockMessageDao).getMessages(Collections.singleton("16_message_id"));
+        verify(mockMessageDao, never()).getMessages();
+        assertEquals(11, inbox.getCount());
+        assertEquals(11, inbox.getUnreadCount());
+        assertNotNull(inbox.getMessage("16_message_id"));
+        assertNotNull(inbox.getMessageByUrl(message.getMessageBodyUrl()));
+    }
+
+    /**
+     * Test refresh drops messages that are no longer stored.
+     */
+    @Test
+    public void testRefreshRemovesMessages() {
+        Message removed = inbox.getMessage("1_message_id");
+        List<String> messageIds = getMessageIds(messageEntities);
+        messageIds.remove("1_message_id");
+        when(mockMessageDao.getMessageIds()).thenReturn(messageIds);
+
+        inbox.refresh(false);
+
+        verify(mockMessageDao, never()).getMessages(anyCollection());
+        assertEquals(9, inbox.getCount());
+        Assert.assertNull(inbox.getMessage("1_message_id"));
+        Assert.assertNull(inbox.getMessageByUrl(removed.getMessageBodyUrl()));
+    }
+
+    /**
+     * Test refresh keeps local read state.
+     */
+    @Test
+    public void testRefreshKeepsReadState() {
+        inbox.markMessagesRead(Collections.singleton("1_message_id"));
+
+        inbox.refresh(false);
+
+        assertEquals(9, inbox.getUnreadCount());
+        assertEquals(1, inbox.getReadCount());
+        assertTrue(inbox.getMessage("1_message_id").isRead());
+    }
+
+    /**
+     * Test messages are returned sorted by sent date, then by message ID.
+     */
+    @Test
+    public void testGetMessagesSorted() {
+        List<Message> messages = inbox.getMessages();
+        List<Message> sorted = new ArrayList<>(messages);
+        Collections.sort(sorted, new Inbox.SentAtRichPushMessageComparator());
+        assertEquals(sorted, messages);
+
+        inbox.markMessagesRead(Collections.singleton("5_message_id"));
+        List<Message> unreadMessages = inbox.getUnreadMessages();
+        sorted.remove(inbox.getMessage("5_message_id"));
+        assertEquals(sorted, unreadMessages);
+    }
+
+    private static List<String> getMessageIds(List<MessageEntity> messageEntities) {
+        List<String> messageIds = new ArrayList<>();
+        for (MessageEntity messageEntity : messageEntities) {
+            messageIds.add(messageEntity.getMessageId());
+        }
+        return messageIds;
+    }
+
     /**
      * Helper method to convert a list of rich push messages
      * to a map of message ids to messages
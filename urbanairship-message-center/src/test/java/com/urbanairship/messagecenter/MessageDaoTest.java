@@ -1,7 +1,9 @@
 package com.urbanairship.messagecenter;
 
 import com.urbanairship.json.JsonException;
+import com.urbanairship.json.JsonMap;
 import com.urbanairship.json.JsonValue;
+import com.urbanairship.util.DateUtils;
 
 import org.junit.After;
 import org.junit.Before;
@@ -9,13 +11,18 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
+import androidx.paging.DataSource;
+import androidx.room.paging.LimitOffsetDataSource;
 import androidx.test.core.app.ApplicationProvider;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 @RunWith(AndroidJUnit4.class)
 public class MessageDaoTest {
@@ -137,6 +144,72 @@ public class MessageDaoTest {
         assertEquals(0, messageDao.getMessages().size());
     }
 
+    @Test
+    public void testGetMessagesById() {
+        List<String> messageIds = insertMessages(2000);
+        insertMessage("other", messageJson);
+
+        List<MessageEntity> messageEntities = messageDao.getMessages(messageIds);
+        assertEquals(2000, messageEntities.size());
+        for (MessageEntity messageEntity : messageEntities) {
+            assertTrue(messageIds.contains(messageEntity.getMessageId()));
+        }
+    }
+
+    @Test
+    public void testMessagesDataSource() {
+        insertMessage(createMessageJson("old", "2020-01-01 10:00:00", null));
+        insertMessage(createMessageJson("new", "2020-01-03 10:00:00", null));
+        insertMessage(createMessageJson("middle", "2020-01-02 10:00:00", "2030-01-01 10:00:00"));
+        insertMessage(createMessageJson("expired", "2020-01-04 10:00:00", "2020-01-05 10:00:00"));
+        insertMessage(createMessageJson("deleted", "2020-01-04 10:00:00", null));
+        messageDao.markMessagesDeleted(Collections.singletonList("deleted"));
+
+        long now = TimeUnit.MILLISECONDS.toSeconds(DateUtils.parseIso8601("2021-01-01 10:00:00", 0));
+        List<MessageEntity> messageEntities = load(messageDao.getMessagesDataSourceFactory(now));
+
+        assertEquals(3, messageEntities.size());
+        assertEquals("new", messageEntities.get(0).getMessageId());
+        assertEquals("middle", messageEntities.get(1).getMessageId());
+        assertEquals("old", messageEntities.get(2).getMessageId());
+    }
+
+    @Test
+    public void testMessagesDataSourceByUnread() {
+        insertMessage(createMessageJson("first", "2020-01-01 10:00:00", null));
+        insertMessage(createMessageJson("second", "2020-01-02 10:00:00", null));
+        insertMessage(createMessageJson("third", "2020-01-03 10:00:00", null));
+        messageDao.markMessagesRead(Collections.singletonList("second"));
+
+        List<MessageEntity> unread = load(messageDao.getMessagesDataSourceFactory(true, 0));
+        assertEquals(2, unread.size());
+        assertEquals("third", unread.get(0).getMessageId());
+        assertEquals("first", unread.get(1).getMessageId());
+
+        List<MessageEntity> read = load(messageDao.getMessagesDataSourceFactory(false, 0));
+        assertEquals(1, read.size());
+        assertEquals("second", read.get(0).getMessageId());
+    }
+
+    private static List<MessageEntity> load(DataSource.Factory<Integer, MessageEntity> factory) {
+        LimitOffsetDataSource<MessageEntity> dataSource = (LimitOffsetDataSource<MessageEntity>) factory.create();
+        return dataSource.loadRange(0, dataSource.countItems());
+    }
+
+    private static JsonValue createMessageJson(String id, String sent, String expiry) {
+        return JsonMap.newBuilder()
+                      .put(Message.MESSAGE_ID_KEY, id)
+                      .put(Message.MESSAGE_SENT_KEY, sent)
+                      .putOpt(Message.MESSAGE_EXPIRY_KEY, expiry)
+                      .put(Message.UNREAD_KEY, true)
+                      .build()
+                      .toJsonValue();
+    }
+
+    private void insertMessage(JsonValue json) {
+        insertMessage(json.optMap().opt(Message.MESSAGE_ID_KEY).optString(), json);
+    }
+
     @SuppressWarnings("SameParameterValue")
     private List<String> insertMessages(int count) {
         List<String> messageIds = new ArrayList<>();
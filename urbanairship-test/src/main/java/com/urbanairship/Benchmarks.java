@@ -0,0 +1,28 @@
+/* Copyright Airship and Contributors */
+
+package com.urbanairship;
+
+import org.junit.Assume;
+
+/**
+ * Opt-in switch for the {@code *BenchmarkTest} classes.
+ * <p>
+ * Benchmarks are excluded from the default unit test run. To run them, pass {@code -Pbenchmarks}
+ * to Gradle, e.g. {@code ./gradlew :urbanairship-core:testDebugUnitTest -Pbenchmarks --tests '*BenchmarkTest'}.
+ */
+public class Benchmarks {
+
+    /**
+     * System property set by the build when benchmarks are enabled.
+     */
+    public static final String ENABLED_PROPERTY = "airship.benchmarks";
+
+    /**
+     * Skips the current test unless benchmarks are enabled. Call it first in the benchmark's setup
+     * so the setup work is skipped as well.
+     */
+    public static void assumeEnabled() {
+        Assume.assumeTrue("Benchmarks are disabled, run with -Pbenchmarks", Boolean.getBoolean(ENABLED_PROPERTY));
+    }
+
+}
@@ -8,8 +8,13 @@ import com.urbanairship.http.Request;
 import com.urbanairship.http.RequestException;
 import com.urbanairship.http.Response;
 import com.urbanairship.http.ResponseParser;
+import com.urbanairship.http.StreamResponseParser;
 import com.urbanairship.util.Checks;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
 import java.util.List;
 import java.util.Map;
@@ -49,12 +54,39 @@ public class TestRequest extends Request {
         }
     }
 
+    @NonNull
+    @Override
+    public <T> Response<T> executeStreaming(@NonNull StreamResponseParser<T> parser) throws RequestException {
+
+        try {
+            Checks.checkNotNull(uri, "missing url");
+            Checks.checkNotNull(requestMethod, "missing request method");
+            InputStream stream = responseBody == null ? null : new ByteArrayInputStream(responseBody.getBytes("UTF-8"));
+            return new Response.Builder<T>(responseStatus)
+                    .setLastModified(responseLastModifiedTime)
+                    .setResponseHeaders(responseHeaders)
+                    .setResult(parser.parseResponse(responseStatus, responseHeaders, stream))
+                    .build();
+        } catch (Exception e) {
+            throw new RequestException("parse error", e);
+        }
+    }
+
     /**
      * Get the request body.
      *
      * @return The request body.
      */
     public String getRequestBody() {
+        if (streamingBody != null) {
+            try {
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                streamingBody.writeTo(outputStream);
+                return outputStream.toString("UTF-8");
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to write request body", e);
+            }
+        }
         return body;
     }
 